@@ -2,8 +2,10 @@ package org.spring.ai.imagegenerationopenai;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ImageGenerationOpenaiApplication {
 
     public static void main(String[] args) {
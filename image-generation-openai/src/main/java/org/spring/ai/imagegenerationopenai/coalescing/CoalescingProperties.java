@@ -0,0 +1,26 @@
+package org.spring.ai.imagegenerationopenai.coalescing;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param window            how long the first request for a prompt waits for identical ones to join it
+ * @param cacheTtl          how long a generated image is reused for identical requests
+ * @param maxCacheEntries   cached prompts before the least recently used is dropped
+ * @param maxImagesPerCall  largest {@code N} per model; models not listed generate one image per call
+ * @param timeout           how long a caller waits for its image before giving up; the generation itself continues
+ */
+@ConfigurationProperties(prefix = "image.coalescing")
+public record CoalescingProperties(@DefaultValue("250ms") Duration window,
+                                   @DefaultValue("10m") Duration cacheTtl,
+                                   @DefaultValue("500") int maxCacheEntries,
+                                   @DefaultValue Map<String, Integer> maxImagesPerCall,
+                                   @DefaultValue("3m") Duration timeout) {
+
+    public int maxImagesPerCall(String model) {
+        return Math.max(1, maxImagesPerCall.getOrDefault(model, 1));
+    }
+}
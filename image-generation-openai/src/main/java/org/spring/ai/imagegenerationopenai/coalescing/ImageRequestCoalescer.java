@@ -0,0 +1,258 @@
+package org.spring.ai.imagegenerationopenai.coalescing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.imagegenerationopenai.resilience.ImageModelUnavailableException;
+
+/**
+ * Merges image requests for the same {@link ImageRequestKey}. A request goes upstream right away; identical requests
+ * arriving while its call runs share the one result, which is then cached for {@code cache-ttl}. Requests for a fresh
+ * variant never share, but where the model supports more than one image per call, a variant arriving within
+ * {@code window} of another one opens a window and the variants collected in it are generated together using the
+ * model's {@code N} option. The window closes early once it holds as many images as one call can produce.
+ *
+ * @param <T> the result handed to callers
+ */
+public class ImageRequestCoalescer<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageRequestCoalescer.class);
+
+    private final CoalescingProperties properties;
+    private final BiFunction<ImageRequestKey, Integer, List<T>> upstream;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("image-coalescer-timer").daemon().factory());
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<ImageRequestKey, Batch<T>> open = new HashMap<>();
+    private final Map<ImageRequestKey, CompletableFuture<T>> running = new HashMap<>();
+    private final Set<CompletableFuture<T>> calling = new HashSet<>();
+    private final Map<ImageRequestKey, Cached<T>> cache;
+    private final Map<ImageRequestKey, Long> lastVariantNanos;
+    private boolean closed;
+
+    private final Counter upstreamCalls;
+    private final Counter savedByCache;
+    private final Counter savedByMerging;
+    private final Counter savedByBatching;
+
+    /**
+     * @param upstream generates the given number of images for a key, in one call
+     */
+    public ImageRequestCoalescer(CoalescingProperties properties, BiFunction<ImageRequestKey, Integer, List<T>> upstream,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.upstream = upstream;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ImageRequestKey, Cached<T>> eldest) {
+                return size() > properties.maxCacheEntries();
+            }
+        };
+        this.lastVariantNanos = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ImageRequestKey, Long> eldest) {
+                return size() > properties.maxCacheEntries();
+            }
+        };
+        this.upstreamCalls = Counter.builder("image.coalescing.upstream.calls")
+            .description("Image generation calls sent to the provider")
+            .register(meterRegistry);
+        this.savedByCache = saved(meterRegistry, "cache");
+        this.savedByMerging = saved(meterRegistry, "merged");
+        this.savedByBatching = saved(meterRegistry, "batched");
+    }
+
+    /**
+     * Returns an image for the key, waiting up to {@code timeout} for the merged upstream call if necessary.
+     *
+     * @param variant {@code true} when the caller needs an image nobody else receives
+     * @throws ImageModelUnavailableException if the image was not ready in time
+     */
+    public T generate(ImageRequestKey key, boolean variant) {
+        // a copy, so that one caller timing out does not fail the result shared with the others
+        CompletableFuture<T> result = submit(key, variant).copy()
+            .orTimeout(properties.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // the generation carries on, so a retry finds it in flight or cached; it has already taken a full
+                // timeout, so the client is told to come back after about as long again
+                throw new ImageModelUnavailableException(key.model(), "timeout", properties.timeout(),
+                    "No image from model " + key.model() + " within " + properties.timeout());
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized CompletableFuture<T> submit(ImageRequestKey key, boolean variant) {
+        if (closed) {
+            throw new IllegalStateException("Image request coalescer is closed");
+        }
+        if (!variant) {
+            Cached<T> cached = cache.get(key);
+            if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+                savedByCache.increment();
+                return CompletableFuture.completedFuture(cached.value());
+            }
+            CompletableFuture<T> inFlight = running.get(key);
+            if (inFlight != null) {
+                savedByMerging.increment();
+                return inFlight;
+            }
+        }
+
+        boolean peersExpected = variant && recentVariant(key);
+        Batch<T> batch = open.get(key);
+        boolean leader = batch == null;
+        if (leader) {
+            batch = new Batch<>();
+            open.put(key, batch);
+        }
+        CompletableFuture<T> future;
+        if (variant) {
+            future = new CompletableFuture<>();
+            batch.variants.add(future);
+        } else if (batch.shared == null) {
+            future = batch.shared = new CompletableFuture<>();
+        } else {
+            savedByMerging.increment();
+            future = batch.shared;
+        }
+
+        if (batch.size() >= properties.maxImagesPerCall(key.model()) || leader && !peersExpected) {
+            flush(key, batch);
+        } else if (leader) {
+            Batch<T> windowed = batch;
+            timer.schedule(() -> flush(key, windowed), properties.window().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Records a variant request and tells whether another one arrived within the window before it.
+     */
+    private boolean recentVariant(ImageRequestKey key) {
+        long now = System.nanoTime();
+        Long previous = lastVariantNanos.put(key, now);
+        return previous != null && now - previous < properties.window().toNanos();
+    }
+
+    private synchronized void flush(ImageRequestKey key, Batch<T> batch) {
+        if (!open.remove(key, batch)) {
+            return;
+        }
+        if (batch.shared != null) {
+            running.put(key, batch.shared);
+        }
+
+        List<CompletableFuture<T>> waiting = new ArrayList<>();
+        if (batch.shared != null) {
+            waiting.add(batch.shared);
+        }
+        waiting.addAll(batch.variants);
+        calling.addAll(waiting);
+        int perCall = properties.maxImagesPerCall(key.model());
+        for (int from = 0; from < waiting.size(); from += perCall) {
+            List<CompletableFuture<T>> group = waiting.subList(from, Math.min(waiting.size(), from + perCall));
+            if (group.size() > 1) {
+                savedByBatching.increment(group.size() - 1);
+            }
+            callers.execute(() -> call(key, group));
+        }
+    }
+
+    private void call(ImageRequestKey key, List<CompletableFuture<T>> group) {
+        upstreamCalls.increment();
+        try {
+            List<T> images = upstream.apply(key, group.size());
+            for (int i = 0; i < group.size(); i++) {
+                if (i < images.size()) {
+                    group.get(i).complete(images.get(i));
+                } else {
+                    group.get(i).completeExceptionally(new IllegalStateException(
+                        "Provider returned " + images.size() + " of " + group.size() + " images"));
+                }
+            }
+            log.debug("Generated {} images for one upstream call", images.size());
+        } catch (RuntimeException e) {
+            group.forEach(future -> future.completeExceptionally(e));
+        } finally {
+            synchronized (this) {
+                group.forEach(calling::remove);
+                CompletableFuture<T> shared = running.get(key);
+                if (shared != null && group.contains(shared)) {
+                    running.remove(key);
+                    if (!shared.isCompletedExceptionally()) {
+                        cache.put(key, new Cached<>(shared.join(), Instant.now().plus(properties.cacheTtl())));
+                    }
+                }
+            }
+        }
+    }
+
+    private static Counter saved(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("image.coalescing.calls.saved")
+            .tag("reason", reason)
+            .description("Image generation calls avoided by reusing or batching requests")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stops accepting requests and fails the ones still waiting for a window or an upstream call.
+     */
+    @Override
+    public void close() {
+        List<CompletableFuture<T>> pending = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Batch<T> batch : open.values()) {
+                if (batch.shared != null) {
+                    pending.add(batch.shared);
+                }
+                pending.addAll(batch.variants);
+            }
+            open.clear();
+            pending.addAll(calling);
+        }
+        IllegalStateException closing = new IllegalStateException(
+            "Image request coalescer closed before the image was generated");
+        pending.forEach(future -> future.completeExceptionally(closing));
+        timer.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    private static final class Batch<T> {
+        private CompletableFuture<T> shared;
+        private final List<CompletableFuture<T>> variants = new ArrayList<>();
+
+        private int size() {
+            return variants.size() + (shared != null ? 1 : 0);
+        }
+    }
+
+    private record Cached<T>(T value, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,7 @@
+package org.spring.ai.imagegenerationopenai.coalescing;
+
+/**
+ * Everything that makes two image requests interchangeable.
+ */
+public record ImageRequestKey(String prompt, int width, int height, String model) {
+}
@@ -0,0 +1,46 @@
+package org.spring.ai.imagegenerationopenai.controller;
+
+import java.nio.file.Path;
+
+import org.spring.ai.imagegenerationopenai.store.ImageStore;
+import org.spring.ai.imagegenerationopenai.store.ImageStoreProperties;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Serves stored images and their derivatives. File names contain the content hash, so a name never refers to
+ * different bytes and responses can be cached as immutable.
+ */
+@RestController
+@RequestMapping("/api/v1/image/files")
+public class ImageFileController {
+
+    private final ImageStore imageStore;
+    private final ImageStoreProperties imageStoreProperties;
+
+    public ImageFileController(ImageStore imageStore, ImageStoreProperties imageStoreProperties) {
+        this.imageStore = imageStore;
+        this.imageStoreProperties = imageStoreProperties;
+    }
+
+    @GetMapping("/{fileName}")
+    public ResponseEntity<Resource> getImage(@PathVariable String fileName) {
+        Path file = imageStore.find(fileName)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown image " + fileName));
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(imageStoreProperties.cacheMaxAge()).cachePublic().immutable())
+            .eTag(fileName)
+            .contentType(MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM))
+            .body(new FileSystemResource(file));
+    }
+}
@@ -1,7 +1,7 @@
 package org.spring.ai.imagegenerationopenai.controller;
 
 import org.spring.ai.imagegenerationopenai.service.ImageGeneratorService;
-import org.springframework.ai.image.ImageGeneration;
+import org.spring.ai.imagegenerationopenai.store.StoredImage;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -18,8 +18,9 @@ public class ImageGeneratorController {
     }
 
     @GetMapping("/generate")
-    public ImageGeneration generateImage(@RequestParam(value = "message") String message) {
-        return imageGeneratorService.generateImage(message);
+    public StoredImage generateImage(@RequestParam(value = "message") String message,
+                                     @RequestParam(value = "variant", defaultValue = "false") boolean variant) {
+        return imageGeneratorService.generateAndStoreImage(message, variant);
     }
 
 }
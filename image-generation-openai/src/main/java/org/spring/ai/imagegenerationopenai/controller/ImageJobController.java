@@ -0,0 +1,58 @@
+package org.spring.ai.imagegenerationopenai.controller;
+
+import java.net.URI;
+
+import org.spring.ai.imagegenerationopenai.job.ImageJob;
+import org.spring.ai.imagegenerationopenai.job.ImageJobService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Job based image generation. A submission answers 202 with the job's location at once; clients then poll the job
+ * or follow its {@code events} stream until it has succeeded or failed.
+ */
+@RestController
+@RequestMapping("/api/v1/image/jobs")
+public class ImageJobController {
+
+    private final ImageJobService imageJobService;
+
+    public ImageJobController(ImageJobService imageJobService) {
+        this.imageJobService = imageJobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ImageJob.ImageJobStatus> submitJob(
+        @RequestParam(value = "message") String message,
+        @RequestHeader(value = "X-Tenant-Id", defaultValue = "anonymous") String tenant) {
+        ImageJob job = imageJobService.submit(tenant, message);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .location(URI.create("/api/v1/image/jobs/" + job.id()))
+            .body(job.status());
+    }
+
+    @GetMapping("/{jobId}")
+    public ImageJob.ImageJobStatus getJob(@PathVariable String jobId) {
+        return findJob(jobId).status();
+    }
+
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getJobEvents(@PathVariable String jobId) {
+        return imageJobService.events(findJob(jobId));
+    }
+
+    private ImageJob findJob(String jobId) {
+        return imageJobService.find(jobId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown image job " + jobId));
+    }
+}
@@ -0,0 +1,25 @@
+package org.spring.ai.imagegenerationopenai.exception;
+
+import org.spring.ai.imagegenerationopenai.resilience.ImageModelUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(ImageModelUnavailableException.class)
+    public ResponseEntity<ProblemDetail> handleImageModelUnavailable(ImageModelUnavailableException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problemDetail.setTitle("Image Model Unavailable");
+        problemDetail.setProperty("model", ex.getModel());
+        problemDetail.setProperty("reason", ex.getReason());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+            .body(problemDetail);
+    }
+}
@@ -0,0 +1,84 @@
+package org.spring.ai.imagegenerationopenai.job;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocking queue with one FIFO per tenant, served round robin. A tenant submitting hundreds of jobs delays only its
+ * own work; every other tenant with waiting jobs gets the next free worker in turn.
+ */
+final class FairQueue<T> {
+
+    private final int maxSize;
+    private final int maxPerTenant;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // insertion order is the round robin order; a served tenant moves to the back
+    private final Map<String, Deque<T>> tenants = new LinkedHashMap<>();
+    private int size;
+
+    FairQueue(int maxSize, int maxPerTenant) {
+        this.maxSize = maxSize;
+        this.maxPerTenant = maxPerTenant;
+    }
+
+    /**
+     * Enqueues the item unless the queue or the tenant's share of it is full.
+     */
+    boolean offer(String tenant, T item) {
+        lock.lock();
+        try {
+            Deque<T> queue = tenants.get(tenant);
+            if (size >= maxSize || queue != null && queue.size() >= maxPerTenant) {
+                return false;
+            }
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                tenants.put(tenant, queue);
+            }
+            queue.addLast(item);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the oldest item of the tenant whose turn it is, waiting until one is available.
+     */
+    T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            Iterator<Map.Entry<String, Deque<T>>> next = tenants.entrySet().iterator();
+            Map.Entry<String, Deque<T>> turn = next.next();
+            next.remove();
+            T item = turn.getValue().removeFirst();
+            if (!turn.getValue().isEmpty()) {
+                tenants.put(turn.getKey(), turn.getValue());
+            }
+            size--;
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.spring.ai.imagegenerationopenai.job;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.spring.ai.imagegenerationopenai.store.StoredImage;
+
+/**
+ * One image generation request and its progress. State changes are published to the job's listeners. Listeners are
+ * called after the job's lock is released, so a slow listener never blocks readers of the job.
+ */
+public class ImageJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    /**
+     * Told the current state on subscription and every change after it. Calls for the subscription and for a change
+     * can race; the status only ever moves forward, so a listener can drop a status that is not later than the last
+     * one it saw.
+     */
+    public interface Listener {
+        void onChange(ImageJobStatus status, boolean finished);
+    }
+
+    private final String id;
+    private final String tenant;
+    private final String prompt;
+    private final Instant createdAt = Instant.now();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private Status status = Status.QUEUED;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private StoredImage result;
+    private String error;
+
+    ImageJob(String id, String tenant, String prompt) {
+        this.id = id;
+        this.tenant = tenant;
+        this.prompt = prompt;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    String tenant() {
+        return tenant;
+    }
+
+    String prompt() {
+        return prompt;
+    }
+
+    public synchronized ImageJobStatus status() {
+        return new ImageJobStatus(id, tenant, status, createdAt, startedAt, finishedAt, result, error);
+    }
+
+    synchronized boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    synchronized boolean finishedBefore(Instant instant) {
+        return finishedAt != null && finishedAt.isBefore(instant);
+    }
+
+    /**
+     * Registers a listener and immediately tells it the current state. Returns {@code false} when the job had already
+     * finished, in which case the listener is not kept.
+     */
+    boolean subscribe(Listener listener) {
+        ImageJobStatus snapshot;
+        boolean finished;
+        synchronized (this) {
+            snapshot = status();
+            finished = isFinished();
+            if (!finished) {
+                listeners.add(listener);
+            }
+        }
+        listener.onChange(snapshot, finished);
+        return !finished;
+    }
+
+    synchronized void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void started() {
+        List<Listener> targets;
+        ImageJobStatus snapshot;
+        synchronized (this) {
+            status = Status.RUNNING;
+            startedAt = Instant.now();
+            targets = List.copyOf(listeners);
+            snapshot = status();
+        }
+        publish(targets, snapshot, false);
+    }
+
+    void succeeded(StoredImage result) {
+        List<Listener> targets;
+        ImageJobStatus snapshot;
+        synchronized (this) {
+            this.result = result;
+            targets = finish(Status.SUCCEEDED);
+            snapshot = status();
+        }
+        publish(targets, snapshot, true);
+    }
+
+    void failed(String error) {
+        List<Listener> targets;
+        ImageJobStatus snapshot;
+        synchronized (this) {
+            this.error = error;
+            targets = finish(Status.FAILED);
+            snapshot = status();
+        }
+        publish(targets, snapshot, true);
+    }
+
+    /**
+     * Moves to the final state and hands back the listeners still to be told about it.
+     */
+    private List<Listener> finish(Status status) {
+        this.status = status;
+        this.finishedAt = Instant.now();
+        List<Listener> targets = List.copyOf(listeners);
+        listeners.clear();
+        return targets;
+    }
+
+    private static void publish(List<Listener> targets, ImageJobStatus snapshot, boolean finished) {
+        for (Listener listener : targets) {
+            listener.onChange(snapshot, finished);
+        }
+    }
+
+    /**
+     * @param result the generated image once the job succeeded
+     * @param error  the failure message once the job failed
+     */
+    public record ImageJobStatus(String id, String tenant, Status status, Instant createdAt, Instant startedAt,
+                                 Instant finishedAt, StoredImage result, String error) {
+    }
+}
@@ -0,0 +1,23 @@
+package org.spring.ai.imagegenerationopenai.job;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param workers            image generations running at the same time
+ * @param maxQueued          jobs waiting over all tenants before submissions are rejected
+ * @param maxQueuedPerTenant jobs a single tenant may have waiting
+ * @param resultTtl          how long finished jobs and their results stay available
+ * @param eventsTimeout      how long an SSE subscription stays open
+ * @param eventSenders       threads writing SSE events, so slow subscribers never hold up a worker
+ */
+@ConfigurationProperties(prefix = "image.jobs")
+public record ImageJobProperties(@DefaultValue("4") int workers,
+                                 @DefaultValue("200") int maxQueued,
+                                 @DefaultValue("20") int maxQueuedPerTenant,
+                                 @DefaultValue("30m") Duration resultTtl,
+                                 @DefaultValue("5m") Duration eventsTimeout,
+                                 @DefaultValue("2") int eventSenders) {
+}
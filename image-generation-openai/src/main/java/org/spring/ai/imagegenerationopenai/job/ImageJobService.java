@@ -0,0 +1,191 @@
+package org.spring.ai.imagegenerationopenai.job;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.imagegenerationopenai.service.ImageGeneratorService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Runs image generations as background jobs. Submissions return at once; a fixed set of worker threads takes jobs
+ * from a per-tenant round robin queue, so the number of threads blocked on the provider is bounded no matter how
+ * many clients are waiting. Finished jobs are kept for {@code image.jobs.result-ttl}. SSE events are written on a
+ * separate small pool, so a slow subscriber cannot stall a worker.
+ */
+@Service
+@EnableConfigurationProperties(ImageJobProperties.class)
+public class ImageJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageJobService.class);
+
+    private final ImageGeneratorService imageGeneratorService;
+    private final ImageJobProperties properties;
+    private final FairQueue<ImageJob> queue;
+    private final Map<String, ImageJob> jobs = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ThreadPoolExecutor eventSenders;
+
+    public ImageJobService(ImageGeneratorService imageGeneratorService, ImageJobProperties properties) {
+        this.imageGeneratorService = imageGeneratorService;
+        this.properties = properties;
+        this.queue = new FairQueue<>(properties.maxQueued(), properties.maxQueuedPerTenant());
+        // every subscription has at most one send task queued, so the queue is bounded by the open subscriptions
+        this.eventSenders = new ThreadPoolExecutor(properties.eventSenders(), properties.eventSenders(),
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            Thread.ofPlatform().name("image-job-events-", 0).daemon().factory());
+        for (int i = 0; i < properties.workers(); i++) {
+            workers.add(Thread.ofPlatform().name("image-job-worker-", i).daemon().start(this::work));
+        }
+    }
+
+    /**
+     * Queues a generation for the tenant.
+     *
+     * @throws ResponseStatusException 429 when the queue or the tenant's share of it is full
+     */
+    public ImageJob submit(String tenant, String prompt) {
+        ImageJob job = new ImageJob(UUID.randomUUID().toString(), tenant, prompt);
+        jobs.put(job.id(), job);
+        if (!queue.offer(tenant, job)) {
+            jobs.remove(job.id());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Too many image jobs waiting for tenant " + tenant + ", try again later");
+        }
+        log.debug("Queued image job {} for tenant {}, {} jobs waiting", job.id(), tenant, queue.size());
+        return job;
+    }
+
+    public Optional<ImageJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Streams the job's state changes as {@code status} events, completing after the final state. A subscriber that
+     * reads slowly may skip intermediate states, but always receives the final one.
+     */
+    public SseEmitter events(ImageJob job) {
+        SseEmitter emitter = new SseEmitter(properties.eventsTimeout().toMillis());
+        EventStream listener = new EventStream(emitter);
+        if (job.subscribe(listener)) {
+            Runnable unsubscribe = () -> job.unsubscribe(listener);
+            emitter.onCompletion(unsubscribe);
+            emitter.onTimeout(unsubscribe);
+            emitter.onError(error -> unsubscribe.run());
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${image.jobs.cleanup-interval:1m}")
+    public void removeExpiredJobs() {
+        Instant expired = Instant.now().minus(properties.resultTtl());
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.finishedBefore(expired));
+        if (jobs.size() < before) {
+            log.debug("Removed {} expired image jobs", before - jobs.size());
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ImageJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            job.started();
+            try {
+                job.succeeded(imageGeneratorService.generateAndStoreImage(job.prompt()));
+            } catch (RuntimeException e) {
+                log.warn("Image job {} failed: {}", job.id(), e.getMessage());
+                job.failed(e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.forEach(Thread::interrupt);
+        eventSenders.shutdownNow();
+    }
+
+    /**
+     * Sends one subscriber's events on the sender pool. Only the newest state waits to be sent, and a state that is
+     * not later than one already accepted is dropped, so events stay in order however the calls interleave.
+     */
+    private final class EventStream implements ImageJob.Listener {
+
+        private final SseEmitter emitter;
+        private int newest = -1;
+        private ImageJob.ImageJobStatus pending;
+        private boolean pendingFinished;
+        private boolean scheduled;
+
+        private EventStream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onChange(ImageJob.ImageJobStatus status, boolean finished) {
+            synchronized (this) {
+                if (status.status().ordinal() <= newest) {
+                    return;
+                }
+                newest = status.status().ordinal();
+                pending = status;
+                pendingFinished = finished;
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                eventSenders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                ImageJob.ImageJobStatus status;
+                boolean finished;
+                synchronized (this) {
+                    if (pending == null) {
+                        scheduled = false;
+                        return;
+                    }
+                    status = pending;
+                    finished = pendingFinished;
+                    pending = null;
+                }
+                try {
+                    emitter.send(SseEmitter.event().name("status").data(status));
+                    if (finished) {
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+    }
+}
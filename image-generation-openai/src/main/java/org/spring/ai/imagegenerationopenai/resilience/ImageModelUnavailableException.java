@@ -0,0 +1,32 @@
+package org.spring.ai.imagegenerationopenai.resilience;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling the provider when its circuit breaker is open or no call slot became free in time.
+ */
+public class ImageModelUnavailableException extends RuntimeException {
+
+    private final String model;
+    private final String reason;
+    private final Duration retryAfter;
+
+    public ImageModelUnavailableException(String model, String reason, Duration retryAfter, String message) {
+        super(message);
+        this.model = model;
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,27 @@
+package org.spring.ai.imagegenerationopenai.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.openai.OpenAiImageModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Replaces the image model injected into the services with a {@link ResilientImageModel} around the
+ * auto-configured OpenAI one.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfiguration {
+
+    @Bean
+    @Primary
+    public ResilientImageModel resilientImageModel(OpenAiImageModel openAiImageModel,
+                                                   @Value("${spring.ai.openai.image.options.model:dall-e-3}") String model,
+                                                   ResilienceProperties properties,
+                                                   MeterRegistry meterRegistry) {
+        return new ResilientImageModel(openAiImageModel, model, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package org.spring.ai.imagegenerationopenai.resilience;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "image.resilience")
+public record ResilienceProperties(@DefaultValue CircuitBreaker circuitBreaker,
+                                   @DefaultValue Retry retry,
+                                   @DefaultValue Concurrency concurrency) {
+
+    /**
+     * @param windowSize            most recent calls the failure and slow call rates are computed over
+     * @param minimumCalls          calls needed in the window before the breaker may open
+     * @param failureRateThreshold  share of failed calls that opens the breaker
+     * @param slowCallDuration      calls taking longer count as slow
+     * @param slowCallRateThreshold share of slow calls that opens the breaker
+     * @param openDuration          how long the breaker rejects calls before letting trial calls through
+     * @param halfOpenCalls         trial calls that must all succeed to close the breaker again
+     */
+    public record CircuitBreaker(@DefaultValue("20") int windowSize,
+                                 @DefaultValue("10") int minimumCalls,
+                                 @DefaultValue("0.5") double failureRateThreshold,
+                                 @DefaultValue("45s") Duration slowCallDuration,
+                                 @DefaultValue("0.8") double slowCallRateThreshold,
+                                 @DefaultValue("30s") Duration openDuration,
+                                 @DefaultValue("2") int halfOpenCalls) {
+    }
+
+    /**
+     * @param maxAttempts attempts per call, including the first
+     * @param backoff     pause before each retry
+     * @param budgetRatio retries allowed as a share of recent calls
+     * @param budgetBurst retries allowed back to back when the budget is full
+     */
+    public record Retry(@DefaultValue("2") int maxAttempts,
+                        @DefaultValue("1s") Duration backoff,
+                        @DefaultValue("0.1") double budgetRatio,
+                        @DefaultValue("5") int budgetBurst) {
+    }
+
+    /**
+     * @param maxConcurrentCalls calls per model in flight at once
+     * @param queueTimeout       how long a call waits for a free slot before it is rejected
+     */
+    public record Concurrency(@DefaultValue("4") int maxConcurrentCalls,
+                              @DefaultValue("5s") Duration queueTimeout) {
+    }
+}
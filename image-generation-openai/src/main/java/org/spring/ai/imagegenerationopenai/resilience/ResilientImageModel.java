@@ -0,0 +1,172 @@
+package org.spring.ai.imagegenerationopenai.resilience;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.image.ImageModel;
+import org.springframework.ai.image.ImagePrompt;
+import org.springframework.ai.image.ImageResponse;
+import org.springframework.ai.retry.NonTransientAiException;
+
+/**
+ * Guards an {@link ImageModel} against a degraded provider. Each model gets its own concurrency limit, whose waiters
+ * give up after {@code queue-timeout}, and its own sliding-window circuit breaker. Failed calls are retried only
+ * while the shared retry budget allows, so retries cannot multiply the load on a provider that is already failing.
+ * A call gives its slot back during the backoff and waits for one again before retrying.
+ */
+public class ResilientImageModel implements ImageModel {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientImageModel.class);
+
+    private final ImageModel delegate;
+    private final String defaultModel;
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget retryBudget;
+    private final Map<String, ModelGuard> guards = new ConcurrentHashMap<>();
+    private final Counter retries;
+    private final Counter retriesDenied;
+
+    public ResilientImageModel(ImageModel delegate, String defaultModel, ResilienceProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.defaultModel = defaultModel;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(properties.retry().budgetRatio(), properties.retry().budgetBurst());
+        this.retries = Counter.builder("image.resilience.retries")
+            .tag("outcome", "attempted")
+            .register(meterRegistry);
+        this.retriesDenied = Counter.builder("image.resilience.retries")
+            .tag("outcome", "budget_exhausted")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public ImageResponse call(ImagePrompt request) {
+        String model = request.getOptions() != null && request.getOptions().getModel() != null
+            ? request.getOptions().getModel() : defaultModel;
+        ModelGuard guard = guards.computeIfAbsent(model, ModelGuard::new);
+
+        for (int attempt = 1; ; attempt++) {
+            RuntimeException failure;
+            guard.acquire();
+            try {
+                if (attempt == 1) {
+                    retryBudget.onCall();
+                }
+                if (!guard.breaker.tryAcquirePermission()) {
+                    guard.circuitOpenRejections.increment();
+                    Duration retryAfter = guard.breaker.remainingOpenTime();
+                    throw new ImageModelUnavailableException(model, "circuit_open",
+                        retryAfter.isZero() ? properties.circuitBreaker().openDuration() : retryAfter,
+                        "Image model " + model + " is failing, calls are paused");
+                }
+                long start = System.nanoTime();
+                boolean healthy = false;
+                try {
+                    ImageResponse response = delegate.call(request);
+                    healthy = true;
+                    return response;
+                } catch (NonTransientAiException e) {
+                    // the request itself was rejected (bad size, content policy); the provider is healthy
+                    healthy = true;
+                    throw e;
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    // also reached on an Error, so a half-open trial permit is always given back
+                    guard.breaker.onResult(healthy, System.nanoTime() - start);
+                }
+            } finally {
+                guard.release();
+            }
+
+            if (attempt >= properties.retry().maxAttempts()) {
+                throw failure;
+            }
+            if (!retryBudget.tryWithdraw()) {
+                retriesDenied.increment();
+                throw failure;
+            }
+            retries.increment();
+            log.debug("Retrying image call to {} after attempt {} failed: {}", model, attempt, failure.getMessage());
+            pause(properties.retry().backoff());
+        }
+    }
+
+    private static void pause(Duration backoff) {
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before retrying image call", e);
+        }
+    }
+
+    SlidingWindowCircuitBreaker.State circuitState(String model) {
+        ModelGuard guard = guards.get(model);
+        return guard == null ? SlidingWindowCircuitBreaker.State.CLOSED : guard.breaker.state();
+    }
+
+    /**
+     * Concurrency limit, breaker and meters of one model.
+     */
+    private final class ModelGuard {
+
+        private final String model;
+        private final Semaphore permits = new Semaphore(properties.concurrency().maxConcurrentCalls(), true);
+        private final SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(properties.circuitBreaker());
+        private final Counter circuitOpenRejections;
+        private final Counter concurrencyRejections;
+
+        private ModelGuard(String model) {
+            this.model = model;
+            this.circuitOpenRejections = rejections(model, "circuit_open");
+            this.concurrencyRejections = rejections(model, "concurrency_limit");
+            Gauge.builder("image.resilience.circuit.state", breaker, b -> b.state().ordinal())
+                .tag("model", model)
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half open")
+                .register(meterRegistry);
+            Gauge.builder("image.resilience.active.calls", permits,
+                    p -> properties.concurrency().maxConcurrentCalls() - p.availablePermits())
+                .tag("model", model)
+                .register(meterRegistry);
+        }
+
+        private void acquire() {
+            Duration timeout = properties.concurrency().queueTimeout();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for an image call slot", e);
+            }
+            if (!acquired) {
+                concurrencyRejections.increment();
+                throw new ImageModelUnavailableException(model, "concurrency_limit", timeout,
+                    "All " + properties.concurrency().maxConcurrentCalls() + " call slots for image model " + model
+                        + " are busy");
+            }
+        }
+
+        private void release() {
+            permits.release();
+        }
+
+        private Counter rejections(String model, String reason) {
+            return Counter.builder("image.resilience.rejections")
+                .tags("model", model, "reason", reason)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.spring.ai.imagegenerationopenai.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries of image API calls. Each call earns {@code ratio} of a retry, each retry spends a whole one, and at
+ * most {@code burst} retries can be saved up. Once the budget is spent, failures are returned to the caller
+ * instead of being retried, so an outage does not turn every request into several.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1_000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, int burst) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = burst * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    public void onCall() {
+        balance.getAndUpdate(current -> Math.min(capacity, current + deposit));
+    }
+
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
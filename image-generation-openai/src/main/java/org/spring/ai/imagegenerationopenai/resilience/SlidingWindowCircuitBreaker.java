@@ -0,0 +1,129 @@
+package org.spring.ai.imagegenerationopenai.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. Outcomes of the last {@code window-size} calls are kept in a ring; once enough calls
+ * were seen and the failure or slow call rate reaches its threshold, the breaker opens and rejects calls for
+ * {@code open-duration}. It then lets {@code half-open-calls} trial calls through and closes again only if all of
+ * them succeed in time.
+ */
+public class SlidingWindowCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final ResilienceProperties.CircuitBreaker properties;
+    private final LongSupplier nanoClock;
+    private final long slowCallNanos;
+    private final byte[] outcomes;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    public SlidingWindowCircuitBreaker(ResilienceProperties.CircuitBreaker properties) {
+        this(properties, System::nanoTime);
+    }
+
+    SlidingWindowCircuitBreaker(ResilienceProperties.CircuitBreaker properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.slowCallNanos = properties.slowCallDuration().toNanos();
+        this.outcomes = new byte[properties.windowSize()];
+    }
+
+    /**
+     * Returns whether a call may go ahead. Every permitted call must be followed by {@link #onResult}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < properties.openDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialPermits = properties.halfOpenCalls();
+            trialSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialPermits == 0) {
+                return false;
+            }
+            trialPermits--;
+        }
+        return true;
+    }
+
+    public synchronized void onResult(boolean success, long durationNanos) {
+        boolean slow = durationNanos > slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (success && !slow) {
+                if (++trialSuccesses >= properties.halfOpenCalls()) {
+                    close();
+                }
+            } else {
+                open();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (recorded == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted == FAILURE ? 1 : 0;
+            slowCalls -= evicted == SLOW ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        byte outcome = !success ? FAILURE : slow ? SLOW : SUCCESS;
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += outcome == FAILURE ? 1 : 0;
+        slowCalls += outcome == SLOW ? 1 : 0;
+
+        if (recorded >= properties.minimumCalls()
+            && ((double) failures / recorded >= properties.failureRateThreshold()
+                || (double) slowCalls / recorded >= properties.slowCallRateThreshold())) {
+            open();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Time until an open breaker lets the next trial call through.
+     */
+    public synchronized Duration remainingOpenTime() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = properties.openDuration().toNanos() - (nanoClock.getAsLong() - openedAt);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -1,30 +1,76 @@
 package org.spring.ai.imagegenerationopenai.service;
 
-import org.springframework.ai.image.ImageGeneration;
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.spring.ai.imagegenerationopenai.coalescing.CoalescingProperties;
+import org.spring.ai.imagegenerationopenai.coalescing.ImageRequestCoalescer;
+import org.spring.ai.imagegenerationopenai.coalescing.ImageRequestKey;
+import org.spring.ai.imagegenerationopenai.store.ImageStore;
+import org.spring.ai.imagegenerationopenai.store.StoredImage;
 import org.springframework.ai.image.ImageModel;
 import org.springframework.ai.image.ImageOptionsBuilder;
 import org.springframework.ai.image.ImagePrompt;
 import org.springframework.ai.image.ImageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Service;
 
 @Service
+@EnableConfigurationProperties(CoalescingProperties.class)
 public class ImageGeneratorService {
 
+    private static final int WIDTH = 1792;
+    private static final int HEIGHT = 1024;
+
     public final ImageModel imageModel;
+    private final ImageStore imageStore;
+    private final ImageRequestCoalescer<StoredImage> coalescer;
+
+    @Value("${spring.ai.openai.image.options.model:dall-e-3}")
+    private String model;
 
-    public ImageGeneratorService(ImageModel imageModel) {
+    public ImageGeneratorService(ImageModel imageModel, ImageStore imageStore, CoalescingProperties coalescingProperties,
+                                 MeterRegistry meterRegistry) {
         this.imageModel = imageModel;
+        this.imageStore = imageStore;
+        this.coalescer = new ImageRequestCoalescer<>(coalescingProperties, this::generateAndStoreImages, meterRegistry);
+    }
+
+    /**
+     * Generates an image and copies it into the local store, so it outlives the provider's short-lived URL.
+     * Identical prompts share one generation.
+     */
+    public StoredImage generateAndStoreImage(String userPrompt) {
+        return generateAndStoreImage(userPrompt, false);
     }
 
-    public ImageGeneration generateImage(String userPrompt) {
-        ImagePrompt imagePrompt = new ImagePrompt(userPrompt,
+    /**
+     * @param variant {@code true} to always get an image of its own instead of one shared with identical prompts
+     */
+    public StoredImage generateAndStoreImage(String userPrompt, boolean variant) {
+        return coalescer.generate(new ImageRequestKey(userPrompt, WIDTH, HEIGHT, model), variant);
+    }
+
+    private List<StoredImage> generateAndStoreImages(ImageRequestKey key, int count) {
+        ImagePrompt imagePrompt = new ImagePrompt(key.prompt(),
             ImageOptionsBuilder.builder()
-                .N(1)
-                .height(1024)
-                .width(1792)
+                .model(key.model())
+                .N(count)
+                .height(key.height())
+                .width(key.width())
                 .build()
             );
-        return imageModel.call(imagePrompt).getResult();
+        ImageResponse response = imageModel.call(imagePrompt);
+        return response.getResults().stream()
+            .map(imageStore::store)
+            .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coalescer.close();
     }
 
 }
@@ -0,0 +1,311 @@
+package org.spring.ai.imagegenerationopenai.store;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.image.Image;
+import org.springframework.ai.image.ImageGeneration;
+import org.springframework.ai.openai.metadata.OpenAiImageGenerationMetadata;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed store for generated images. Each provider result is fetched once, streamed to disk while its
+ * SHA-256 is computed and kept under that hash, so identical images share one file. Preview and thumbnail JPEGs are
+ * derived from the original in parallel on virtual threads.
+ */
+@Component
+@EnableConfigurationProperties(ImageStoreProperties.class)
+public class ImageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStore.class);
+
+    private static final String FILES_PATH = "/api/v1/image/files/";
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{64}(-preview|-thumbnail)?\\.(png|jpg|webp)");
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ImageStoreProperties properties;
+    private final Path directory;
+    private final HttpClient httpClient;
+    private final ExecutorService derivativeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ImageStore(ImageStoreProperties properties) {
+        this.properties = properties;
+        this.directory = properties.directory();
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(properties.connectTimeout())
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    }
+
+    @PostConstruct
+    void removeIncompleteFiles() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(TEMP_SUFFIX)).forEach(ImageStore::deleteQuietly);
+        }
+    }
+
+    /**
+     * Copies the generated image into the store, downloading its URL or decoding its base64 data, and creates the
+     * derivatives.
+     */
+    public StoredImage store(ImageGeneration generation) {
+        Image image = generation.getOutput();
+        Path incoming = null;
+        try {
+            incoming = Files.createTempFile(directory, "incoming-", TEMP_SUFFIX);
+            String hash;
+            if (image.getB64Json() != null) {
+                hash = decode(image.getB64Json(), incoming);
+            } else if (image.getUrl() != null) {
+                hash = download(URI.create(image.getUrl()), incoming);
+            } else {
+                throw new IllegalStateException("Image generation has neither a URL nor base64 data");
+            }
+
+            String originalName = hash + "." + extension(incoming);
+            Path original = directory.resolve(originalName);
+            if (!Files.exists(original)) {
+                Files.move(incoming, original, StandardCopyOption.ATOMIC_MOVE);
+            }
+            String previewName = hash + "-preview.jpg";
+            String thumbnailName = hash + "-thumbnail.jpg";
+            createDerivatives(original, List.of(
+                new Derivative(directory.resolve(previewName), properties.previewSize()),
+                new Derivative(directory.resolve(thumbnailName), properties.thumbnailSize())));
+
+            log.debug("Stored image {}", originalName);
+            return new StoredImage(hash, FILES_PATH + originalName, FILES_PATH + previewName,
+                FILES_PATH + thumbnailName, revisedPrompt(generation));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store generated image", e);
+        } finally {
+            if (incoming != null) {
+                deleteQuietly(incoming);
+            }
+        }
+    }
+
+    /**
+     * Resolves a file name handed out by {@link #store}. Names that were not issued by the store are never resolved.
+     */
+    public Optional<Path> find(String fileName) {
+        if (!FILE_NAME.matcher(fileName).matches()) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(fileName);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private String download(URI uri, Path target) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(properties.downloadTimeout()).GET().build();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + uri.getHost());
+        }
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Image download from " + uri.getHost() + " failed with HTTP " + response.statusCode());
+            }
+            return copyHashed(body, target);
+        }
+    }
+
+    /**
+     * Decodes while reading the characters of the base64 string, so the decoded image only ever exists on disk.
+     */
+    private String decode(String base64, Path target) throws IOException {
+        try (InputStream decoded = Base64.getMimeDecoder().wrap(new AsciiInputStream(base64))) {
+            return copyHashed(decoded, target);
+        }
+    }
+
+    private String copyHashed(InputStream in, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        long limit = properties.maxImageSize().toBytes();
+        long total = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(target), digest)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > limit) {
+                    throw new IOException("Image exceeds " + properties.maxImageSize());
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void createDerivatives(Path original, List<Derivative> derivatives) throws IOException {
+        List<Derivative> missing = derivatives.stream().filter(derivative -> !Files.exists(derivative.path())).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            throw new IOException("Cannot decode " + original.getFileName());
+        }
+        List<Future<Void>> tasks = missing.stream()
+            .map(derivative -> derivativeExecutor.submit(() -> {
+                writeScaled(source, derivative);
+                return (Void) null;
+            }))
+            .toList();
+        for (Future<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while creating image derivatives");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IllegalStateException("Could not create image derivative", e.getCause());
+            }
+        }
+    }
+
+    private void writeScaled(BufferedImage source, Derivative derivative) throws IOException {
+        double scale = Math.min(1.0, (double) derivative.maxEdge() / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        Path temp = Files.createTempFile(directory, "derivative-", TEMP_SUFFIX);
+        try {
+            if (!ImageIO.write(scaled, "jpg", temp.toFile())) {
+                throw new IOException("No JPEG writer available");
+            }
+            Files.move(temp, derivative.path(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private static String extension(Path file) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(file)) {
+            header = in.readNBytes(12);
+        }
+        if (header.length >= 8 && (header[0] & 0xff) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        if (header.length >= 3 && (header[0] & 0xff) == 0xff && (header[1] & 0xff) == 0xd8 && (header[2] & 0xff) == 0xff) {
+            return "jpg";
+        }
+        if (header.length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+            && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        throw new IOException("Generated image is not a PNG, JPEG or WebP file");
+    }
+
+    private static String revisedPrompt(ImageGeneration generation) {
+        return generation.getMetadata() instanceof OpenAiImageGenerationMetadata metadata
+            ? metadata.getRevisedPrompt() : null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        derivativeExecutor.shutdownNow();
+    }
+
+    private record Derivative(Path path, int maxEdge) {
+    }
+
+    /**
+     * Reads the characters of a base64 string as bytes without copying the string.
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private final CharSequence chars;
+        private int position;
+
+        AsciiInputStream(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read() {
+            return position < chars.length() ? chars.charAt(position++) & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int available = chars.length() - position;
+            if (available <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, available);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) chars.charAt(position++);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.spring.ai.imagegenerationopenai.store;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param directory       where originals and derivatives are kept, named by the SHA-256 of the original
+ * @param previewSize     longest edge of the preview derivative in pixels
+ * @param thumbnailSize   longest edge of the thumbnail derivative in pixels
+ * @param connectTimeout  connect timeout for downloading provider URLs
+ * @param downloadTimeout overall timeout for downloading a provider URL
+ * @param maxImageSize    larger downloads or decoded images are rejected
+ * @param cacheMaxAge     Cache-Control max-age of served files, which never change once stored
+ */
+@ConfigurationProperties(prefix = "image.store")
+public record ImageStoreProperties(Path directory,
+                                   @DefaultValue("1024") int previewSize,
+                                   @DefaultValue("256") int thumbnailSize,
+                                   @DefaultValue("5s") Duration connectTimeout,
+                                   @DefaultValue("60s") Duration downloadTimeout,
+                                   @DefaultValue("50MB") DataSize maxImageSize,
+                                   @DefaultValue("365d") Duration cacheMaxAge) {
+
+    public ImageStoreProperties {
+        if (directory == null) {
+            directory = Path.of(System.getProperty("java.io.tmpdir"), "image-store");
+        }
+    }
+}
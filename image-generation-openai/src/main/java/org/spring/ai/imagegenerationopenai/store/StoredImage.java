@@ -0,0 +1,11 @@
+package org.spring.ai.imagegenerationopenai.store;
+
+/**
+ * A generated image in the local store. The URLs are served by this application and stay valid, unlike the
+ * provider's.
+ *
+ * @param id            SHA-256 of the original image
+ * @param revisedPrompt the prompt the provider actually used, when it reports one
+ */
+public record StoredImage(String id, String url, String previewUrl, String thumbnailUrl, String revisedPrompt) {
+}
@@ -0,0 +1,195 @@
+package org.spring.ai.imagegenerationopenai.coalescing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.spring.ai.imagegenerationopenai.resilience.ImageModelUnavailableException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageRequestCoalescerTest {
+
+    private static final ImageRequestKey DALL_E_2 = new ImageRequestKey("a red fox", 1024, 1024, "dall-e-2");
+    private static final ImageRequestKey DALL_E_3 = new ImageRequestKey("a red fox", 1792, 1024, "dall-e-3");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> calls = new CopyOnWriteArrayList<>();
+    private final AtomicInteger images = new AtomicInteger();
+    private final CountDownLatch upstreamReleased = new CountDownLatch(1);
+    private volatile boolean upstreamHeld;
+    private final ExecutorService clients = Executors.newFixedThreadPool(16);
+    private ImageRequestCoalescer<String> coalescer = coalescer(Duration.ofMillis(200), Duration.ofMinutes(1));
+
+    @AfterEach
+    void tearDown() {
+        upstreamReleased.countDown();
+        coalescer.close();
+        clients.shutdownNow();
+    }
+
+    @Test
+    void identicalRequestsShareTheCallInFlightAndLaterOnesHitTheCache() throws Exception {
+        upstreamHeld = true;
+        List<Future<String>> futures = submit(5, () -> coalescer.generate(DALL_E_3, false));
+        awaitUntil(() -> saved("merged") == 4);
+        upstreamReleased.countDown();
+        List<String> results = results(futures);
+
+        assertEquals(1, Set.copyOf(results).size());
+        assertEquals(List.of(1), calls);
+        assertEquals(results.getFirst(), coalescer.generate(DALL_E_3, false));
+        assertEquals(1, calls.size());
+        assertEquals(4, saved("merged"));
+        assertEquals(1, saved("cache"));
+    }
+
+    @Test
+    void loneRequestIsNotHeldForTheWindow() {
+        coalescer.close();
+        coalescer = coalescer(Duration.ofSeconds(30), Duration.ofMinutes(1));
+
+        assertTimeout(Duration.ofSeconds(5), () -> coalescer.generate(DALL_E_2, true));
+        assertTimeout(Duration.ofSeconds(5), () -> coalescer.generate(DALL_E_3, false));
+        assertEquals(List.of(1, 1), calls);
+    }
+
+    @Test
+    void variantsAreBatchedIntoOneCallWhenTheModelSupportsN() throws Exception {
+        String first = coalescer.generate(DALL_E_2, true);
+        List<String> results = concurrently(4, () -> coalescer.generate(DALL_E_2, true));
+
+        assertEquals(4, Set.copyOf(results).size());
+        assertFalse(results.contains(first));
+        assertEquals(List.of(1, 4), calls);
+        assertEquals(3, saved("batched"));
+    }
+
+    @Test
+    void fullBatchIsFlushedBeforeTheWindowEnds() {
+        coalescer.close();
+        coalescer = coalescer(Duration.ofSeconds(30), Duration.ofMinutes(1));
+        coalescer.generate(DALL_E_2, true);
+
+        assertTimeout(Duration.ofSeconds(5), () -> concurrently(10, () -> coalescer.generate(DALL_E_2, true)));
+        assertEquals(List.of(1, 10), calls);
+    }
+
+    @Test
+    void variantsOfSingleImageModelsGetOneCallEach() throws Exception {
+        List<String> results = concurrently(3, () -> coalescer.generate(DALL_E_3, true));
+
+        assertEquals(3, Set.copyOf(results).size());
+        assertEquals(List.of(1, 1, 1), calls);
+        assertEquals(0, saved("batched"));
+    }
+
+    @Test
+    void closingFailsRequestsStillWaitingForTheirWindow() throws Exception {
+        coalescer.close();
+        coalescer = coalescer(Duration.ofSeconds(30), Duration.ofMinutes(1));
+        coalescer.generate(DALL_E_2, true);
+        CompletableFuture<String> waiting = new CompletableFuture<>();
+        Thread caller = Thread.ofPlatform().start(() -> {
+            try {
+                waiting.complete(coalescer.generate(DALL_E_2, true));
+            } catch (RuntimeException e) {
+                waiting.completeExceptionally(e);
+            }
+        });
+        awaitUntil(() -> caller.getState() == Thread.State.WAITING);
+
+        coalescer.close();
+
+        Exception failure = assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertTrue(failure.getCause().getMessage().contains("closed before"), failure.getCause().getMessage());
+        assertThrows(IllegalStateException.class, () -> coalescer.generate(DALL_E_2, true));
+    }
+
+    @Test
+    void callerGivesUpAfterTheTimeoutWhileTheGenerationCarriesOn() throws Exception {
+        coalescer.close();
+        coalescer = coalescer(Duration.ofMillis(200), Duration.ofMillis(100));
+        upstreamHeld = true;
+
+        ImageModelUnavailableException timeout = assertThrows(ImageModelUnavailableException.class,
+            () -> coalescer.generate(DALL_E_3, false));
+        assertEquals("timeout", timeout.getReason());
+        assertEquals(Duration.ofMillis(100), timeout.getRetryAfter());
+
+        upstreamReleased.countDown();
+        assertEquals("dall-e-3-1", coalescer.generate(DALL_E_3, false));
+        assertEquals(List.of(1), calls);
+    }
+
+    private ImageRequestCoalescer<String> coalescer(Duration window, Duration timeout) {
+        return new ImageRequestCoalescer<>(
+            new CoalescingProperties(window, Duration.ofMinutes(1), 10, Map.of("dall-e-2", 10), timeout),
+            (key, count) -> {
+                calls.add(count);
+                if (upstreamHeld) {
+                    await(upstreamReleased);
+                }
+                return IntStream.range(0, count).mapToObj(i -> key.model() + "-" + images.incrementAndGet()).toList();
+            },
+            meterRegistry);
+    }
+
+    private List<String> concurrently(int requests, Callable<String> request) throws Exception {
+        return results(submit(requests, request));
+    }
+
+    private List<Future<String>> submit(int requests, Callable<String> request) {
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(clients.submit(request));
+        }
+        return futures;
+    }
+
+    private static List<String> results(List<Future<String>> futures) throws Exception {
+        List<String> results = new ArrayList<>();
+        for (Future<String> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double saved(String reason) {
+        return meterRegistry.get("image.coalescing.calls.saved").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,128 @@
+package org.spring.ai.imagegenerationopenai.job;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.spring.ai.imagegenerationopenai.service.ImageGeneratorService;
+import org.spring.ai.imagegenerationopenai.store.StoredImage;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageJobServiceTest {
+
+    private final ImageGeneratorService imageGeneratorService = mock(ImageGeneratorService.class);
+    private ImageJobService imageJobService;
+
+    @AfterEach
+    void tearDown() {
+        if (imageJobService != null) {
+            imageJobService.shutdown();
+        }
+    }
+
+    @Test
+    void queueServesTenantsRoundRobin() throws Exception {
+        FairQueue<String> queue = new FairQueue<>(10, 10);
+        queue.offer("a", "a1");
+        queue.offer("a", "a2");
+        queue.offer("a", "a3");
+        queue.offer("b", "b1");
+        queue.offer("c", "c1");
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            order.add(queue.take());
+        }
+        assertEquals(List.of("a1", "b1", "c1", "a2", "a3"), order);
+    }
+
+    @Test
+    void jobRunsInBackgroundAndReportsEachState() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(imageGeneratorService.generateAndStoreImage(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return new StoredImage("cat", "/files/cat.png", "/files/cat-preview.jpg", "/files/cat-thumbnail.jpg", null);
+        });
+        imageJobService = new ImageJobService(imageGeneratorService, properties(1, 10));
+
+        ImageJob job = imageJobService.submit("tenant", "a cat");
+        List<ImageJob.Status> seen = new ArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        job.subscribe((status, done) -> {
+            synchronized (seen) {
+                seen.add(status.status());
+            }
+            if (done) {
+                finished.countDown();
+            }
+        });
+        release.countDown();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(ImageJob.Status.SUCCEEDED, job.status().status());
+        assertEquals("/files/cat.png", job.status().result().url());
+        assertEquals(ImageJob.Status.SUCCEEDED, seen.getLast());
+    }
+
+    @Test
+    void slowListenerDoesNotHoldTheJobLock() throws Exception {
+        CountDownLatch listenerBlocked = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+
+        ImageJob job = new ImageJob("job", "tenant", "a cat");
+        job.subscribe((status, done) -> {
+            if (status.status() == ImageJob.Status.RUNNING) {
+                listenerBlocked.countDown();
+                try {
+                    unblock.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Thread worker = Thread.ofPlatform().start(job::started);
+        assertTrue(listenerBlocked.await(5, TimeUnit.SECONDS));
+
+        assertEquals(ImageJob.Status.RUNNING, CompletableFuture.supplyAsync(job::status).get(1, TimeUnit.SECONDS).status());
+        unblock.countDown();
+        worker.join(5000);
+    }
+
+    @Test
+    void rejectsTenantBeyondItsQueueShare() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        when(imageGeneratorService.generateAndStoreImage(anyString())).thenAnswer(invocation -> {
+            never.await();
+            return null;
+        });
+        imageJobService = new ImageJobService(imageGeneratorService, properties(1, 2));
+
+        ImageJob running = imageJobService.submit("busy", "1");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (running.status().status() != ImageJob.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        imageJobService.submit("busy", "2");
+        imageJobService.submit("busy", "3");
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+            () -> imageJobService.submit("busy", "4"));
+        assertEquals(429, rejected.getStatusCode().value());
+        assertNotNull(imageJobService.submit("other", "1"));
+    }
+
+    private static ImageJobProperties properties(int workers, int maxQueuedPerTenant) {
+        return new ImageJobProperties(workers, 100, maxQueuedPerTenant, Duration.ofMinutes(1), Duration.ofMinutes(1),
+            1);
+    }
+}
@@ -0,0 +1,186 @@
+package org.spring.ai.imagegenerationopenai.resilience;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.image.Image;
+import org.springframework.ai.image.ImageGeneration;
+import org.springframework.ai.image.ImageModel;
+import org.springframework.ai.image.ImagePrompt;
+import org.springframework.ai.image.ImageResponse;
+import org.springframework.ai.retry.TransientAiException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientImageModelTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FakeProvider provider = new FakeProvider();
+    private final ExecutorService clients = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+    }
+
+    @Test
+    void failingProviderOpensTheBreakerAndStopsReceivingCalls() {
+        ResilientImageModel model = model(1, 2, 0.0, 0);
+        provider.failing = true;
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(TransientAiException.class, () -> model.call(prompt()));
+        }
+        int callsWhenOpened = provider.calls.get();
+        ImageModelUnavailableException rejected = assertThrows(ImageModelUnavailableException.class,
+            () -> model.call(prompt()));
+
+        assertEquals("circuit_open", rejected.getReason());
+        assertEquals(callsWhenOpened, provider.calls.get());
+        assertEquals(SlidingWindowCircuitBreaker.State.OPEN, model.circuitState("dall-e-3"));
+        assertEquals(1.0, meterRegistry.get("image.resilience.circuit.state").tag("model", "dall-e-3").gauge().value());
+    }
+
+    @Test
+    void retriesAreLimitedByTheBudget() {
+        ResilientImageModel model = model(3, 100, 0.0, 2);
+        provider.failing = true;
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(TransientAiException.class, () -> model.call(prompt()));
+        }
+
+        // the burst of two retries is spent on the first call, later calls get no retry at all
+        assertEquals(3 + 1 + 1, provider.calls.get());
+        assertEquals(2, meterRegistry.get("image.resilience.retries").tag("outcome", "attempted").counter().count());
+        assertEquals(2, meterRegistry.get("image.resilience.retries").tag("outcome", "budget_exhausted").counter().count());
+    }
+
+    @Test
+    void callsBeyondTheConcurrencyLimitAreRejectedAfterTheQueueTimeout() throws Exception {
+        ResilientImageModel model = model(1, 100, 0.0, 0);
+        provider.latency = new CountDownLatch(1);
+
+        clients.submit(() -> model.call(prompt()));
+        clients.submit(() -> model.call(prompt()));
+        while (provider.calls.get() < 2) {
+            Thread.sleep(5);
+        }
+        ImageModelUnavailableException rejected = assertThrows(ImageModelUnavailableException.class,
+            () -> model.call(prompt()));
+        provider.latency.countDown();
+
+        assertEquals("concurrency_limit", rejected.getReason());
+        assertEquals(1.0, meterRegistry.get("image.resilience.rejections")
+            .tags("model", "dall-e-3", "reason", "concurrency_limit").counter().count());
+    }
+
+    @Test
+    void callSlotIsFreeWhileAFailedCallBacksOff() throws Exception {
+        ResilientImageModel model = model(2, 100, 0.0, 1, Duration.ofSeconds(1), 1);
+        provider.failures.set(1);
+
+        Future<ImageResponse> retrying = clients.submit(() -> model.call(prompt()));
+        while (meterRegistry.get("image.resilience.retries").tag("outcome", "attempted").counter().count() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(0.0, meterRegistry.get("image.resilience.active.calls").tag("model", "dall-e-3").gauge().value());
+        assertNotNull(model.call(prompt()));
+        assertNotNull(retrying.get(5, TimeUnit.SECONDS));
+        assertEquals(3, provider.calls.get());
+    }
+
+    @Test
+    void errorFromTheProviderStillCountsAsAFailureAndFreesTheSlot() {
+        ResilientImageModel model = model(1, 1, 0.0, 0);
+        provider.error = new StackOverflowError("provider blew the stack");
+
+        assertThrows(StackOverflowError.class, () -> model.call(prompt()));
+
+        assertEquals(SlidingWindowCircuitBreaker.State.OPEN, model.circuitState("dall-e-3"));
+        assertEquals(0.0, meterRegistry.get("image.resilience.active.calls").tag("model", "dall-e-3").gauge().value());
+    }
+
+    @Test
+    void halfOpenBreakerClosesAfterSuccessfulTrialCalls() {
+        AtomicLong now = new AtomicLong();
+        ResilienceProperties.CircuitBreaker properties = new ResilienceProperties.CircuitBreaker(4, 4, 0.5,
+            Duration.ofSeconds(10), 1.0, Duration.ofSeconds(30), 2);
+        SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(properties, now::get);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onResult(i % 2 == 0, 1);
+        }
+        assertEquals(SlidingWindowCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onResult(true, 1);
+        breaker.onResult(true, 1);
+        assertEquals(SlidingWindowCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    private ResilientImageModel model(int maxAttempts, int minimumCalls, double budgetRatio, int budgetBurst) {
+        return model(maxAttempts, minimumCalls, budgetRatio, budgetBurst, Duration.ofMillis(1), 2);
+    }
+
+    private ResilientImageModel model(int maxAttempts, int minimumCalls, double budgetRatio, int budgetBurst,
+                                      Duration backoff, int maxConcurrentCalls) {
+        ResilienceProperties properties = new ResilienceProperties(
+            new ResilienceProperties.CircuitBreaker(10, minimumCalls, 0.5, Duration.ofSeconds(30), 1.0,
+                Duration.ofSeconds(30), 1),
+            new ResilienceProperties.Retry(maxAttempts, backoff, budgetRatio, budgetBurst),
+            new ResilienceProperties.Concurrency(maxConcurrentCalls, Duration.ofMillis(100)));
+        return new ResilientImageModel(provider, "dall-e-3", properties, meterRegistry);
+    }
+
+    private static ImagePrompt prompt() {
+        return new ImagePrompt("a lighthouse at dusk");
+    }
+
+    /**
+     * Stands in for the provider, failing or stalling on demand.
+     */
+    private static final class FakeProvider implements ImageModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile boolean failing;
+        private volatile Error error;
+        private volatile CountDownLatch latency;
+
+        @Override
+        public ImageResponse call(ImagePrompt request) {
+            calls.incrementAndGet();
+            if (latency != null) {
+                try {
+                    latency.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            if (failing || failures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new TransientAiException("HTTP 503 from provider");
+            }
+            return new ImageResponse(List.of(new ImageGeneration(new Image("http://images/1.png", null))));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.spring.ai.imagegenerationopenai.store;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.image.Image;
+import org.springframework.ai.image.ImageGeneration;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger downloads = new AtomicInteger();
+    private HttpServer provider;
+    private ImageStore imageStore;
+    private byte[] png;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        png = png(1792, 1024);
+        provider = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        provider.createContext("/generated/image.png", exchange -> {
+            downloads.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, png.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(png);
+            }
+        });
+        provider.createContext("/expired.png", exchange -> {
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        provider.start();
+
+        imageStore = new ImageStore(new ImageStoreProperties(directory, 1024, 256, Duration.ofSeconds(2),
+            Duration.ofSeconds(5), DataSize.ofMegabytes(10), Duration.ofDays(365)));
+        imageStore.removeIncompleteFiles();
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.stop(0);
+        imageStore.shutdown();
+    }
+
+    @Test
+    void downloadsProviderUrlOnceAndCreatesDerivatives() throws Exception {
+        StoredImage stored = imageStore.store(new ImageGeneration(new Image(providerUrl("/generated/image.png"), null)));
+
+        assertEquals(1, downloads.get());
+        assertEquals("/api/v1/image/files/" + stored.id() + ".png", stored.url());
+        Path original = imageStore.find(stored.id() + ".png").orElseThrow();
+        assertArrayEquals(png, Files.readAllBytes(original));
+
+        BufferedImage preview = ImageIO.read(imageStore.find(stored.id() + "-preview.jpg").orElseThrow().toFile());
+        BufferedImage thumbnail = ImageIO.read(imageStore.find(stored.id() + "-thumbnail.jpg").orElseThrow().toFile());
+        assertEquals(1024, preview.getWidth());
+        assertEquals(585, preview.getHeight());
+        assertEquals(256, thumbnail.getWidth());
+    }
+
+    @Test
+    void base64ResultIsStoredUnderTheSameContentAddress() {
+        StoredImage downloaded = imageStore.store(new ImageGeneration(new Image(providerUrl("/generated/image.png"), null)));
+        StoredImage decoded = imageStore.store(new ImageGeneration(new Image(null, Base64.getEncoder().encodeToString(png))));
+
+        assertEquals(downloaded.id(), decoded.id());
+    }
+
+    @Test
+    void failedDownloadLeavesNoFiles() throws Exception {
+        assertThrows(RuntimeException.class,
+            () -> imageStore.store(new ImageGeneration(new Image(providerUrl("/expired.png"), null))));
+
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void neverResolvesNamesOutsideTheStore() {
+        assertTrue(imageStore.find("../secrets.png").isEmpty());
+        assertTrue(imageStore.find("abc.png").isEmpty());
+    }
+
+    private String providerUrl(String path) {
+        return "http://localhost:" + provider.getAddress().getPort() + path;
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillOval(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
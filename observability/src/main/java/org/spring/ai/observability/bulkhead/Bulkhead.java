@@ -0,0 +1,116 @@
+package org.spring.ai.observability.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Caps the number of concurrent calls to a slow dependency. Callers that cannot get a permit right away wait in a
+ * bounded queue for at most {@code maxWait}; once the queue is full they are rejected immediately so request threads
+ * never pile up behind the dependency.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final int maxQueueDepth;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    private final Semaphore permits;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+
+    public Bulkhead(String name, BulkheadProperties.Pool pool, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrentCalls = pool.maxConcurrentCalls();
+        this.maxQueueDepth = pool.maxQueueDepth();
+        this.maxWait = pool.maxWait();
+        this.retryAfter = pool.retryAfter();
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+
+        Gauge.builder("bulkhead.queue.depth", queueDepth, AtomicInteger::get)
+            .tag("name", name)
+            .description("Callers currently waiting for a permit")
+            .register(meterRegistry);
+        Gauge.builder("bulkhead.active.calls", this, Bulkhead::activeCalls)
+            .tag("name", name)
+            .description("Calls currently holding a permit")
+            .register(meterRegistry);
+        Gauge.builder("bulkhead.max.concurrent.calls", this, bulkhead -> bulkhead.maxConcurrentCalls)
+            .tag("name", name)
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("bulkhead.wait")
+            .tag("name", name)
+            .description("Time spent waiting for a permit")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.queueFullRejections = Counter.builder("bulkhead.rejections")
+            .tag("name", name)
+            .tag("reason", "queue_full")
+            .register(meterRegistry);
+        this.timeoutRejections = Counter.builder("bulkhead.rejections")
+            .tag("name", name)
+            .tag("reason", "wait_timeout")
+            .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int activeCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    public int queueDepth() {
+        return queueDepth.get();
+    }
+
+    private void acquire() {
+        long startNanos = System.nanoTime();
+        if (queueDepth.incrementAndGet() > maxQueueDepth) {
+            queueDepth.decrementAndGet();
+            if (permits.tryAcquire()) {
+                waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return;
+            }
+            queueFullRejections.increment();
+            throw new BulkheadFullException(name, "wait queue is full", retryAfter);
+        }
+
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queueDepth.decrementAndGet();
+            waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            timeoutRejections.increment();
+            throw new BulkheadFullException(name, "no permit within " + maxWait.toMillis() + " ms", retryAfter);
+        }
+    }
+}
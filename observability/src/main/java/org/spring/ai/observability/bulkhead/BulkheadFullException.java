@@ -0,0 +1,23 @@
+package org.spring.ai.observability.bulkhead;
+
+import java.time.Duration;
+
+public class BulkheadFullException extends RuntimeException {
+
+    private final String bulkheadName;
+    private final Duration retryAfter;
+
+    public BulkheadFullException(String bulkheadName, String reason, Duration retryAfter) {
+        super("Bulkhead '" + bulkheadName + "' rejected the call: " + reason);
+        this.bulkheadName = bulkheadName;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getBulkheadName() {
+        return bulkheadName;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,40 @@
+package org.spring.ai.observability.bulkhead;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "observability.bulkhead")
+public record BulkheadProperties(Map<String, Pool> pools) {
+
+    public BulkheadProperties {
+        pools = pools == null ? Map.of() : Map.copyOf(pools);
+    }
+
+    public Pool pool(String name) {
+        return pools.getOrDefault(name, Pool.DEFAULT);
+    }
+
+    /**
+     * Limits for a single endpoint pool. A call first waits for one of {@code maxConcurrentCalls} permits,
+     * at most {@code maxQueueDepth} callers may wait at the same time and none of them longer than {@code maxWait}.
+     */
+    public record Pool(@DefaultValue("10") int maxConcurrentCalls,
+                       @DefaultValue("20") int maxQueueDepth,
+                       @DefaultValue("2s") Duration maxWait,
+                       @DefaultValue("5s") Duration retryAfter) {
+
+        static final Pool DEFAULT = new Pool(10, 20, Duration.ofSeconds(2), Duration.ofSeconds(5));
+
+        public Pool {
+            if (maxConcurrentCalls < 1) {
+                throw new IllegalArgumentException("maxConcurrentCalls must be at least 1");
+            }
+            if (maxQueueDepth < 0) {
+                throw new IllegalArgumentException("maxQueueDepth must not be negative");
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.spring.ai.observability.controller;
 
+import org.spring.ai.observability.bulkhead.Bulkhead;
+import org.spring.ai.observability.bulkhead.BulkheadRegistry;
 import org.spring.ai.observability.service.ChatService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,13 +13,19 @@ import org.springframework.web.bind.annotation.RestController;
 public class ChatController {
 
     private final ChatService chatService;
+    private final Bulkhead chatBulkhead;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, BulkheadRegistry bulkheadRegistry) {
         this.chatService = chatService;
+        this.chatBulkhead = bulkheadRegistry.bulkhead("chat");
     }
 
     @GetMapping
-    public String chatMessage(@RequestParam(value = "message", defaultValue = "Please tell me a quick information about Samarkand") String message) {
-        return chatService.chatMessage(message);
+    public String chatMessage(@RequestParam(value = "message", defaultValue = "Please tell me a quick information about Samarkand") String message,
+                              @RequestParam(value = "conversationId", required = false) String conversationId) {
+        if (conversationId == null || conversationId.isBlank()) {
+            return chatBulkhead.execute(() -> chatService.chatMessage(message));
+        }
+        return chatBulkhead.execute(() -> chatService.chatMessage(conversationId, message));
     }
 }
@@ -0,0 +1,39 @@
+package org.spring.ai.observability.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps hedged calls at a share of primary traffic. Each primary call earns {@code ratio} of a hedge, each hedge
+ * spends a whole one, and at most {@code burst} hedges can be saved up. When the primary endpoint slows down for
+ * everyone, every call would qualify for a hedge; the budget keeps the secondary endpoint from receiving a copy of
+ * all of them.
+ */
+public class HedgeBudget {
+
+    private static final long SCALE = 1_000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public HedgeBudget(double ratio, int burst) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = burst * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    public void onRequest() {
+        balance.getAndUpdate(current -> Math.min(capacity, current + deposit));
+    }
+
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
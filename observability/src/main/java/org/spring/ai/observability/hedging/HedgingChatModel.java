@@ -0,0 +1,158 @@
+package org.spring.ai.observability.hedging;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * Sends each prompt to the primary model and, if it has not answered within the configured percentile of its
+ * recent latency, sends the same prompt to the secondary model as well. Whichever answers first wins and the other
+ * call is cancelled. A {@link HedgeBudget} caps the extra upstream load.
+ */
+public class HedgingChatModel implements ChatModel, AutoCloseable {
+
+    private final ChatModel primary;
+    private final ChatModel secondary;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final LatencyTracker latencyTracker;
+    private final HedgeBudget budget;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter notHedged;
+    private final Counter primaryWon;
+    private final Counter secondaryWon;
+    private final Counter budgetExhausted;
+
+    public HedgingChatModel(ChatModel primary, ChatModel secondary, HedgingProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.secondary = secondary;
+        this.percentile = properties.percentile();
+        this.minDelayNanos = properties.minDelay().toNanos();
+        this.maxDelayNanos = properties.maxDelay().toNanos();
+        this.latencyTracker = new LatencyTracker(properties.samples());
+        this.budget = new HedgeBudget(properties.budgetRatio(), properties.budgetBurst());
+
+        this.notHedged = outcome(meterRegistry, "not_hedged");
+        this.primaryWon = outcome(meterRegistry, "primary_won");
+        this.secondaryWon = outcome(meterRegistry, "secondary_won");
+        this.budgetExhausted = outcome(meterRegistry, "budget_exhausted");
+        Gauge.builder("chat.hedging.delay", this, model -> Duration.ofNanos(model.hedgeDelayNanos()).toMillis())
+            .description("Time the primary model gets before the prompt is also sent to the secondary")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        budget.onRequest();
+        CompletionService<ChatResponse> race = new ExecutorCompletionService<>(executor);
+        long startNanos = System.nanoTime();
+        Future<ChatResponse> primaryCall = race.submit(() -> {
+            ChatResponse response = primary.call(prompt);
+            latencyTracker.record(System.nanoTime() - startNanos);
+            return response;
+        });
+        Future<ChatResponse> secondaryCall = null;
+
+        try {
+            if (race.poll(hedgeDelayNanos(), TimeUnit.NANOSECONDS) != null) {
+                notHedged.increment();
+                return result(primaryCall);
+            }
+            if (!budget.tryAcquire()) {
+                budgetExhausted.increment();
+                return result(primaryCall);
+            }
+
+            secondaryCall = race.submit(() -> secondary.call(prompt));
+            Future<ChatResponse> first = race.take();
+            Future<ChatResponse> winner = first;
+            if (failed(first)) {
+                // the faster call failed, fall back to whatever the slower one returns
+                winner = race.take();
+            }
+            if (winner == primaryCall) {
+                primaryWon.increment();
+            } else {
+                // the primary lost the race, its elapsed time is a lower bound of its latency
+                latencyTracker.record(System.nanoTime() - startNanos);
+                secondaryWon.increment();
+            }
+            return result(winner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for chat response", e);
+        } finally {
+            primaryCall.cancel(true);
+            if (secondaryCall != null) {
+                secondaryCall.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return primary.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return primary.getDefaultOptions();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    long hedgeDelayNanos() {
+        long observed = latencyTracker.count() < 20 ? maxDelayNanos : latencyTracker.percentile(percentile);
+        return Math.min(maxDelayNanos, Math.max(minDelayNanos, observed));
+    }
+
+    private static boolean failed(Future<ChatResponse> future) {
+        try {
+            future.get();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    private static ChatResponse result(Future<ChatResponse> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Chat model call failed", e.getCause());
+        }
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("chat.hedging.requests")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
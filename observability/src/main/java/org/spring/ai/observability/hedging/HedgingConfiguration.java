@@ -0,0 +1,45 @@
+package org.spring.ai.observability.hedging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Replaces the chat model used by {@code ChatClient} with a {@link HedgingChatModel} that races the auto-configured
+ * OpenAI model against a second deployment.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(HedgingProperties.class)
+@ConditionalOnProperty(prefix = "observability.chat.hedging", name = "enabled", havingValue = "true")
+public class HedgingConfiguration {
+
+    @Bean
+    @Primary
+    public HedgingChatModel hedgingChatModel(OpenAiChatModel openAiChatModel, HedgingProperties properties,
+                                             ObjectProvider<ObservationRegistry> observationRegistry,
+                                             MeterRegistry meterRegistry) {
+        HedgingProperties.Secondary secondary = properties.secondary();
+        if (secondary == null || secondary.baseUrl() == null) {
+            throw new IllegalStateException("observability.chat.hedging.secondary.base-url must be set when hedging is enabled");
+        }
+        OpenAiApi secondaryApi = OpenAiApi.builder()
+            .baseUrl(secondary.baseUrl())
+            .apiKey(secondary.apiKey())
+            .build();
+        String model = secondary.model() != null ? secondary.model() : openAiChatModel.getDefaultOptions().getModel();
+        OpenAiChatModel secondaryModel = OpenAiChatModel.builder()
+            .openAiApi(secondaryApi)
+            .defaultOptions(OpenAiChatOptions.builder().model(model).build())
+            .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+            .build();
+        return new HedgingChatModel(openAiChatModel, secondaryModel, properties, meterRegistry);
+    }
+}
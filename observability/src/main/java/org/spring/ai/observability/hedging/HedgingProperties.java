@@ -0,0 +1,31 @@
+package org.spring.ai.observability.hedging;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param percentile   the hedge fires once the primary is slower than this percentile of its recent latency
+ * @param minDelay     lower bound for the hedge delay, so fast responses never double the load
+ * @param maxDelay     upper bound for the hedge delay, also used until enough samples were recorded
+ * @param budgetRatio  hedges allowed per primary request, e.g. 0.1 caps the extra load at 10%
+ * @param budgetBurst  hedges that may be fired back to back before the budget has to refill
+ * @param samples      latency samples kept for the percentile estimate
+ */
+@ConfigurationProperties(prefix = "observability.chat.hedging")
+public record HedgingProperties(@DefaultValue("false") boolean enabled,
+                                @DefaultValue("0.95") double percentile,
+                                @DefaultValue("100ms") Duration minDelay,
+                                @DefaultValue("10s") Duration maxDelay,
+                                @DefaultValue("0.1") double budgetRatio,
+                                @DefaultValue("10") int budgetBurst,
+                                @DefaultValue("1024") int samples,
+                                Secondary secondary) {
+
+    /**
+     * Second deployment the hedge is sent to. Unset values fall back to the primary OpenAI settings.
+     */
+    public record Secondary(String baseUrl, String apiKey, String model) {
+    }
+}
@@ -0,0 +1,45 @@
+package org.spring.ai.observability.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window of the most recent latencies. Recording is a single atomic increment plus a volatile write, so it
+ * never blocks the calling request; a percentile is computed from a snapshot of the window when asked for.
+ */
+public class LatencyTracker {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+
+    public LatencyTracker(int size) {
+        this.samples = new AtomicLongArray(size);
+    }
+
+    public void record(long nanos) {
+        long index = count.getAndIncrement();
+        samples.set((int) (index % samples.length()), Math.max(1, nanos));
+    }
+
+    public long count() {
+        return Math.min(count.get(), samples.length());
+    }
+
+    /**
+     * @return the latency at the given percentile in nanoseconds, or -1 if nothing was recorded yet
+     */
+    public long percentile(double percentile) {
+        int size = (int) count();
+        if (size == 0) {
+            return -1;
+        }
+        long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        int rank = (int) Math.ceil(percentile * size) - 1;
+        return snapshot[Math.min(size - 1, Math.max(0, rank))];
+    }
+}
@@ -0,0 +1,84 @@
+package org.spring.ai.observability.memory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * State of a single conversation: a rolling summary of compacted turns plus a token-budgeted window of recent
+ * turns. Turns pushed out of the window wait in {@code uncompacted} until the summarizer folds them into the summary.
+ */
+class Conversation {
+
+    private static final int MAX_UNCOMPACTED_TURNS = 32;
+
+    private final Deque<ConversationTurn> window = new ArrayDeque<>();
+    private final List<ConversationTurn> uncompacted = new ArrayList<>();
+
+    private String summary = "";
+    private int windowTokens;
+    private long replayTokens;
+    private boolean compacting;
+
+    synchronized PromptWindow snapshot() {
+        return new PromptWindow(summary, List.copyOf(window),
+            TokenEstimator.estimate(summary) + windowTokens, replayTokens);
+    }
+
+    /**
+     * Appends a turn and returns the turns that now have to be compacted, or an empty list when the window still
+     * fits the budget or a compaction is already running.
+     */
+    synchronized List<ConversationTurn> append(ConversationTurn turn, int windowTokenBudget) {
+        replayTokens += turn.tokens();
+        // a single turn larger than the whole budget is cut down so the budget stays a hard upper bound
+        ConversationTurn fitted = turn.truncate(windowTokenBudget);
+        window.addLast(fitted);
+        windowTokens += fitted.tokens();
+
+        while (windowTokens > windowTokenBudget && window.size() > 1) {
+            ConversationTurn evicted = window.removeFirst();
+            windowTokens -= evicted.tokens();
+            uncompacted.add(evicted);
+        }
+        trimUncompacted();
+        return claimUncompacted();
+    }
+
+    synchronized String summary() {
+        return summary;
+    }
+
+    synchronized List<ConversationTurn> compacted(String newSummary) {
+        summary = newSummary;
+        compacting = false;
+        return claimUncompacted();
+    }
+
+    synchronized void compactionFailed(List<ConversationTurn> turns) {
+        uncompacted.addAll(0, turns);
+        compacting = false;
+        trimUncompacted();
+    }
+
+    private void trimUncompacted() {
+        // if compaction keeps failing the oldest turns are dropped rather than buffered without bound
+        while (uncompacted.size() > MAX_UNCOMPACTED_TURNS) {
+            uncompacted.remove(0);
+        }
+    }
+
+    private List<ConversationTurn> claimUncompacted() {
+        if (compacting || uncompacted.isEmpty()) {
+            return List.of();
+        }
+        compacting = true;
+        List<ConversationTurn> claimed = List.copyOf(uncompacted);
+        uncompacted.clear();
+        return claimed;
+    }
+
+    record PromptWindow(String summary, List<ConversationTurn> turns, int promptTokens, long replayTokens) {
+    }
+}
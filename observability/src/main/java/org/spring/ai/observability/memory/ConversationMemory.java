@@ -0,0 +1,107 @@
+package org.spring.ai.observability.memory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory conversation store keyed by conversation id. Each prompt replays a rolling summary plus the most recent
+ * turns that fit {@code windowTokenBudget}, so prompt size per turn stays bounded however long the conversation runs.
+ * The least recently used conversation is evicted once {@code maxConversations} is reached.
+ */
+@Component
+@EnableConfigurationProperties(ConversationMemoryProperties.class)
+public class ConversationMemory {
+
+    private final ConversationMemoryProperties properties;
+    private final ConversationSummarizer summarizer;
+    private final Map<String, Conversation> conversations;
+
+    private final Counter tokensSaved;
+    private final DistributionSummary promptTokens;
+    private final Counter compactionFailures;
+
+    public ConversationMemory(ConversationMemoryProperties properties, ConversationSummarizer summarizer,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.summarizer = summarizer;
+        this.conversations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Conversation> eldest) {
+                return size() > properties.maxConversations();
+            }
+        };
+
+        Gauge.builder("chat.memory.conversations", this, ConversationMemory::size)
+            .register(meterRegistry);
+        this.tokensSaved = Counter.builder("chat.memory.tokens.saved")
+            .description("Estimated prompt tokens avoided compared to replaying the full history")
+            .register(meterRegistry);
+        this.promptTokens = DistributionSummary.builder("chat.memory.prompt.tokens")
+            .description("Estimated history tokens sent with each prompt")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.compactionFailures = Counter.builder("chat.memory.compaction.failures")
+            .register(meterRegistry);
+    }
+
+    public List<Message> history(String conversationId) {
+        Conversation.PromptWindow window = conversation(conversationId).snapshot();
+        promptTokens.record(window.promptTokens());
+        tokensSaved.increment(Math.max(0, window.replayTokens() - window.promptTokens()));
+
+        List<Message> messages = new ArrayList<>(window.turns().size() * 2 + 1);
+        if (!window.summary().isEmpty()) {
+            messages.add(new SystemMessage("Summary of the earlier conversation:\n" + window.summary()));
+        }
+        for (ConversationTurn turn : window.turns()) {
+            messages.add(new UserMessage(turn.userMessage()));
+            messages.add(new AssistantMessage(turn.assistantMessage()));
+        }
+        return messages;
+    }
+
+    public void append(String conversationId, String userMessage, String assistantMessage) {
+        Conversation conversation = conversation(conversationId);
+        compact(conversation, conversation.append(ConversationTurn.of(userMessage, assistantMessage),
+            properties.windowTokenBudget()));
+    }
+
+    private void compact(Conversation conversation, List<ConversationTurn> turns) {
+        if (turns.isEmpty()) {
+            return;
+        }
+        summarizer.summarize(conversation.summary(), turns).whenComplete((summary, ex) -> {
+            if (ex != null) {
+                compactionFailures.increment();
+                conversation.compactionFailed(turns);
+            } else {
+                compact(conversation, conversation.compacted(summary));
+            }
+        });
+    }
+
+    private Conversation conversation(String conversationId) {
+        synchronized (conversations) {
+            return conversations.computeIfAbsent(conversationId, id -> new Conversation());
+        }
+    }
+
+    private int size() {
+        synchronized (conversations) {
+            return conversations.size();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.spring.ai.observability.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maxConversations     conversations kept in memory before the least recently used one is evicted
+ * @param windowTokenBudget    estimated tokens of recent turns replayed verbatim with every prompt
+ * @param summaryTokenBudget   upper bound for the rolling summary of older turns
+ * @param summarizerThreads    threads compacting older turns off the request path
+ * @param summarizerQueueSize  pending compactions; further ones are retried with the next turn
+ */
+@ConfigurationProperties(prefix = "observability.chat.memory")
+public record ConversationMemoryProperties(@DefaultValue("1000") int maxConversations,
+                                           @DefaultValue("2000") int windowTokenBudget,
+                                           @DefaultValue("400") int summaryTokenBudget,
+                                           @DefaultValue("2") int summarizerThreads,
+                                           @DefaultValue("64") int summarizerQueueSize) {
+}
@@ -0,0 +1,66 @@
+package org.spring.ai.observability.memory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Folds turns that fell out of the recent window into the rolling conversation summary. Runs on its own small,
+ * bounded pool so compaction never adds latency to the chat request that triggered it.
+ */
+@Component
+public class ConversationSummarizer {
+
+    private final ChatClient chatClient;
+    private final int summaryTokenBudget;
+    private final ThreadPoolExecutor executor;
+
+    public ConversationSummarizer(ChatClient.Builder chatClientBuilder, ConversationMemoryProperties properties) {
+        this.summaryTokenBudget = properties.summaryTokenBudget();
+        this.chatClient = chatClientBuilder
+            .defaultSystem("""
+                You maintain a running summary of a conversation between a user and an assistant.
+                Merge the new turns into the existing summary. Keep names, facts, numbers, decisions and open questions.
+                Drop small talk. Answer with the summary only, at most %d words.
+                """.formatted(summaryTokenBudget * 3 / 4))
+            .build();
+        this.executor = new ThreadPoolExecutor(properties.summarizerThreads(), properties.summarizerThreads(),
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.summarizerQueueSize()),
+            Thread.ofPlatform().name("conversation-summarizer-", 0).daemon().factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<String> summarize(String currentSummary, List<ConversationTurn> turns) {
+        try {
+            return CompletableFuture.supplyAsync(() -> callModel(currentSummary, turns), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String callModel(String currentSummary, List<ConversationTurn> turns) {
+        StringBuilder transcript = new StringBuilder();
+        for (ConversationTurn turn : turns) {
+            transcript.append("User: ").append(turn.userMessage()).append('\n')
+                .append("Assistant: ").append(turn.assistantMessage()).append('\n');
+        }
+        String summary = chatClient.prompt()
+            .user("Existing summary:\n" + (currentSummary.isEmpty() ? "(none)" : currentSummary)
+                + "\n\nNew turns:\n" + transcript)
+            .call()
+            .content();
+        return TokenEstimator.truncate(summary == null ? currentSummary : summary.strip(), summaryTokenBudget);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package org.spring.ai.observability.memory;
+
+public record ConversationTurn(String userMessage, String assistantMessage, int tokens) {
+
+    public static ConversationTurn of(String userMessage, String assistantMessage) {
+        return new ConversationTurn(userMessage, assistantMessage,
+            TokenEstimator.estimate(userMessage) + TokenEstimator.estimate(assistantMessage));
+    }
+
+    /**
+     * Returns this turn cut down to at most {@code maxTokens}. The user message keeps up to half of the budget and
+     * the assistant message gets the rest; both keep their beginning.
+     */
+    public ConversationTurn truncate(int maxTokens) {
+        if (tokens <= maxTokens) {
+            return this;
+        }
+        String user = TokenEstimator.truncate(userMessage, maxTokens / 2);
+        String assistant = TokenEstimator.truncate(assistantMessage, maxTokens - TokenEstimator.estimate(user));
+        return of(user, assistant);
+    }
+}
@@ -0,0 +1,25 @@
+package org.spring.ai.observability.memory;
+
+/**
+ * Cheap token estimate (about four characters per token for English text). Good enough for budgeting, where
+ * running a real tokenizer on every turn would cost more than it saves.
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public static String truncate(String text, int maxTokens) {
+        int maxChars = maxTokens * CHARS_PER_TOKEN;
+        return text == null || text.length() <= maxChars ? text : text.substring(0, maxChars);
+    }
+}
@@ -1,15 +1,17 @@
 package org.spring.ai.observability.service;
 
+import org.spring.ai.observability.memory.ConversationMemory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ChatService {
 
     private final ChatClient chatClient;
+    private final ConversationMemory conversationMemory;
 
-    public ChatService(ChatClient.Builder chatClientBuilder) {
+    public ChatService(ChatClient.Builder chatClientBuilder, ConversationMemory conversationMemory) {
+        this.conversationMemory = conversationMemory;
         this.chatClient = chatClientBuilder
             .defaultSystem("""
                 If you do not know the answer to a question or do not have enough information, respond politely and helpfully. Do not guess or make up facts. Instead, say something like:
@@ -27,4 +29,14 @@ public class ChatService {
             .call().content();
     }
 
+    public String chatMessage(String conversationId, String message) {
+        String answer = chatClient
+            .prompt()
+            .messages(conversationMemory.history(conversationId))
+            .user(message)
+            .call().content();
+        conversationMemory.append(conversationId, message, answer);
+        return answer;
+    }
+
 }
@@ -0,0 +1,15 @@
+package org.spring.ai.observability.tracing;
+
+import java.util.Map;
+
+public record SpanRecord(long sequence,
+                         String traceId,
+                         String spanId,
+                         String parentId,
+                         String name,
+                         String kind,
+                         long startEpochMicros,
+                         long durationMicros,
+                         boolean error,
+                         Map<String, String> tags) {
+}
@@ -0,0 +1,116 @@
+package org.spring.ai.observability.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-memory store of the most recent spans. Writers claim a slot with a single atomic increment and overwrite
+ * whatever span was there, so recording never blocks and never allocates beyond the span itself. Secondary indexes
+ * by trace id, by span name and by duration only ever reference spans still present in the ring.
+ */
+public class SpanStore {
+
+    private static final Comparator<SpanRecord> SLOWEST_FIRST = Comparator
+        .comparingLong(SpanRecord::durationMicros).reversed()
+        .thenComparing(Comparator.comparingLong(SpanRecord::sequence).reversed());
+
+    private static final Comparator<SpanRecord> NEWEST_FIRST =
+        Comparator.comparingLong(SpanRecord::sequence).reversed();
+
+    private final AtomicReferenceArray<SpanRecord> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, Set<SpanRecord>> byTraceId = new ConcurrentHashMap<>();
+    private final Map<String, Set<SpanRecord>> byName = new ConcurrentHashMap<>();
+    private final NavigableSet<SpanRecord> bySlowest = new ConcurrentSkipListSet<>(SLOWEST_FIRST);
+
+    public SpanStore(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public long nextSequence() {
+        return sequence.getAndIncrement();
+    }
+
+    public void add(SpanRecord span) {
+        int slot = (int) (span.sequence() & mask);
+        SpanRecord evicted = slots.getAndSet(slot, span);
+        if (evicted != null) {
+            unindex(evicted);
+        }
+        index(span);
+        // a writer that lapped the whole ring may have evicted this span before it was indexed
+        if (slots.get(slot) != span) {
+            unindex(span);
+        }
+    }
+
+    public List<SpanRecord> trace(String traceId) {
+        List<SpanRecord> spans = new ArrayList<>(byTraceId.getOrDefault(traceId, Set.of()));
+        spans.sort(Comparator.comparingLong(SpanRecord::startEpochMicros));
+        return spans;
+    }
+
+    public List<SpanRecord> byName(String name, int limit) {
+        List<SpanRecord> spans = new ArrayList<>(byName.getOrDefault(name, Set.of()));
+        spans.sort(NEWEST_FIRST);
+        return spans.size() > limit ? spans.subList(0, limit) : spans;
+    }
+
+    public List<SpanRecord> slowest(int limit) {
+        List<SpanRecord> spans = new ArrayList<>(Math.min(limit, 64));
+        for (SpanRecord span : bySlowest) {
+            if (spans.size() == limit) {
+                break;
+            }
+            spans.add(span);
+        }
+        return spans;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long recorded() {
+        return sequence.get();
+    }
+
+    private void index(SpanRecord span) {
+        add(byTraceId, span.traceId(), span);
+        add(byName, span.name(), span);
+        bySlowest.add(span);
+    }
+
+    private void unindex(SpanRecord span) {
+        remove(byTraceId, span.traceId(), span);
+        remove(byName, span.name(), span);
+        bySlowest.remove(span);
+    }
+
+    private static void add(Map<String, Set<SpanRecord>> index, String key, SpanRecord span) {
+        index.compute(key, (k, spans) -> {
+            Set<SpanRecord> target = spans != null ? spans : ConcurrentHashMap.newKeySet();
+            target.add(span);
+            return target;
+        });
+    }
+
+    private static void remove(Map<String, Set<SpanRecord>> index, String key, SpanRecord span) {
+        index.computeIfPresent(key, (k, spans) -> {
+            spans.remove(span);
+            return spans.isEmpty() ? null : spans;
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package org.spring.ai.observability.tracing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SpanStoreProperties.class)
+@ConditionalOnProperty(prefix = "observability.tracing.span-store", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SpanStoreConfiguration {
+
+    @Bean
+    public SpanStore spanStore(SpanStoreProperties properties) {
+        return new SpanStore(properties.capacity());
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SpanStoreSpanHandler spanStoreSpanHandler(SpanStore spanStore) {
+        return new SpanStoreSpanHandler(spanStore);
+    }
+
+    @Bean
+    public SpanStoreEndpoint spanStoreEndpoint(SpanStore spanStore) {
+        return new SpanStoreEndpoint(spanStore);
+    }
+}
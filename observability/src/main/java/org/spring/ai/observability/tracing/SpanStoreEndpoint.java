@@ -0,0 +1,39 @@
+package org.spring.ai.observability.tracing;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@code /actuator/spans} lists the slowest recent spans, {@code ?name=} narrows them to one span name and
+ * {@code /actuator/spans/{traceId}} returns all locally recorded spans of a trace.
+ */
+@Endpoint(id = "spans")
+public class SpanStoreEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final SpanStore spanStore;
+
+    public SpanStoreEndpoint(SpanStore spanStore) {
+        this.spanStore = spanStore;
+    }
+
+    @ReadOperation
+    public SpansDescriptor spans(@Nullable String name, @Nullable Integer limit) {
+        int max = limit != null && limit > 0 ? limit : DEFAULT_LIMIT;
+        List<SpanRecord> spans = name != null ? spanStore.byName(name, max) : spanStore.slowest(max);
+        return new SpansDescriptor(spanStore.capacity(), spanStore.recorded(), spans);
+    }
+
+    @ReadOperation
+    public List<SpanRecord> trace(@Selector String traceId) {
+        return spanStore.trace(traceId);
+    }
+
+    public record SpansDescriptor(int capacity, long recorded, List<SpanRecord> spans) {
+    }
+}
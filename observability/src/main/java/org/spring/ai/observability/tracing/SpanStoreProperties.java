@@ -0,0 +1,12 @@
+package org.spring.ai.observability.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param capacity number of most recent spans kept in memory, rounded up to a power of two
+ */
+@ConfigurationProperties(prefix = "observability.tracing.span-store")
+public record SpanStoreProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("4096") int capacity) {
+}
@@ -0,0 +1,38 @@
+package org.spring.ai.observability.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+
+/**
+ * Copies every finished span into the local {@link SpanStore}. Runs before tail sampling so spans dropped from
+ * export can still be inspected locally.
+ */
+public class SpanStoreSpanHandler extends SpanHandler {
+
+    private final SpanStore spanStore;
+
+    public SpanStoreSpanHandler(SpanStore spanStore) {
+        this.spanStore = spanStore;
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause != Cause.FINISHED) {
+            return true;
+        }
+        long duration = span.finishTimestamp() != 0L ? span.finishTimestamp() - span.startTimestamp() : 0L;
+        spanStore.add(new SpanRecord(
+            spanStore.nextSequence(),
+            context.traceIdString(),
+            context.spanIdString(),
+            context.parentIdString(),
+            span.name() != null ? span.name() : "unknown",
+            span.kind() != null ? span.kind().name() : null,
+            span.startTimestamp(),
+            duration,
+            TailSamplingSpanHandler.isError(span),
+            span.tags()));
+        return true;
+    }
+}
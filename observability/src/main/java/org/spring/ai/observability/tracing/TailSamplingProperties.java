@@ -0,0 +1,20 @@
+package org.spring.ai.observability.tracing;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param latencyThreshold traces with a span at least this slow are always exported
+ * @param sampleRate       fraction of healthy, fast traces that are still exported
+ * @param maxTraces        traces buffered while waiting for their local root span to finish
+ * @param maxSpansPerTrace spans buffered per trace, further spans of that trace are dropped
+ */
+@ConfigurationProperties(prefix = "observability.tracing.tail-sampling")
+public record TailSamplingProperties(@DefaultValue("true") boolean enabled,
+                                     @DefaultValue("2s") Duration latencyThreshold,
+                                     @DefaultValue("0.05") double sampleRate,
+                                     @DefaultValue("2048") int maxTraces,
+                                     @DefaultValue("256") int maxSpansPerTrace) {
+}
@@ -0,0 +1,208 @@
+package org.spring.ai.observability.tracing;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import zipkin2.reporter.brave.AsyncZipkinSpanHandler;
+
+/**
+ * Tail-based sampling in front of the Zipkin exporter. Every span is recorded (head sampling stays at 100%), but
+ * finished spans are held per trace until the local root span ends. The complete trace is then exported only if it
+ * contains an error, is slower than {@code latencyThreshold}, or falls into the {@code sampleRate} fraction; all
+ * other traces are dropped before they reach the exporter.
+ *
+ * <p>Pending traces live in a fixed ring of {@code maxTraces} slots. When the ring wraps around, the oldest pending
+ * trace is decided with what has been buffered so far.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(TailSamplingProperties.class)
+@ConditionalOnProperty(prefix = "observability.tracing.tail-sampling", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TailSamplingSpanHandler extends SpanHandler {
+
+    private static final long SAMPLE_SCALE = 10_000;
+
+    private final ObjectProvider<AsyncZipkinSpanHandler> exporter;
+    private final long latencyThresholdMicros;
+    private final long sampleBound;
+    private final int maxSpansPerTrace;
+
+    private final TraceBuffer[] ring;
+    private final Map<String, TraceBuffer> pending = new LinkedHashMap<>();
+    private final Map<String, Boolean> decided;
+    private int nextSlot;
+
+    private final Map<Decision, Counter> decisions = new EnumMap<>(Decision.class);
+    private final Counter overflowSpans;
+
+    public TailSamplingSpanHandler(TailSamplingProperties properties, ObjectProvider<AsyncZipkinSpanHandler> exporter,
+                                   MeterRegistry meterRegistry) {
+        this.exporter = exporter;
+        this.latencyThresholdMicros = properties.latencyThreshold().toNanos() / 1_000;
+        this.sampleBound = Math.round(properties.sampleRate() * SAMPLE_SCALE);
+        this.maxSpansPerTrace = properties.maxSpansPerTrace();
+        this.ring = new TraceBuffer[properties.maxTraces()];
+        int maxDecided = properties.maxTraces();
+        this.decided = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxDecided;
+            }
+        };
+
+        for (Decision decision : Decision.values()) {
+            decisions.put(decision, Counter.builder("tracing.tail.sampling.traces")
+                .tag("decision", decision.tag)
+                .register(meterRegistry));
+        }
+        this.overflowSpans = Counter.builder("tracing.tail.sampling.overflow.spans")
+            .description("Spans dropped because their trace exceeded max-spans-per-trace")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause != Cause.FINISHED) {
+            return true;
+        }
+
+        List<BufferedSpan> export = new ArrayList<>();
+        synchronized (this) {
+            String traceId = context.traceIdString();
+            Boolean keep = decided.get(traceId);
+            if (keep != null) {
+                // late span of a trace whose local root already finished
+                if (keep) {
+                    export.add(new BufferedSpan(context, span));
+                }
+            } else {
+                TraceBuffer buffer = pending.get(traceId);
+                if (buffer == null) {
+                    buffer = admit(traceId, export);
+                }
+                if (!buffer.add(context, span, maxSpansPerTrace)) {
+                    overflowSpans.increment();
+                }
+                if (context.isLocalRoot()) {
+                    complete(buffer, export);
+                }
+            }
+        }
+
+        if (!export.isEmpty()) {
+            AsyncZipkinSpanHandler zipkin = exporter.getIfAvailable();
+            if (zipkin != null) {
+                for (BufferedSpan buffered : export) {
+                    zipkin.end(buffered.context(), buffered.span(), Cause.FINISHED);
+                }
+            }
+        }
+        // the decision has been made here, later handlers (the Zipkin exporter) must not see the span again
+        return false;
+    }
+
+    private TraceBuffer admit(String traceId, List<BufferedSpan> export) {
+        TraceBuffer oldest = ring[nextSlot];
+        if (oldest != null) {
+            complete(oldest, export);
+        }
+        TraceBuffer buffer = new TraceBuffer(traceId, nextSlot);
+        ring[nextSlot] = buffer;
+        pending.put(traceId, buffer);
+        nextSlot = (nextSlot + 1) % ring.length;
+        return buffer;
+    }
+
+    private void complete(TraceBuffer buffer, List<BufferedSpan> export) {
+        ring[buffer.slot] = null;
+        pending.remove(buffer.traceId);
+
+        Decision decision = decide(buffer);
+        decisions.get(decision).increment();
+        decided.put(buffer.traceId, decision != Decision.DROPPED);
+        if (decision != Decision.DROPPED) {
+            export.addAll(buffer.spans);
+        }
+    }
+
+    private Decision decide(TraceBuffer buffer) {
+        if (buffer.error) {
+            return Decision.KEPT_ERROR;
+        }
+        if (buffer.maxDurationMicros >= latencyThresholdMicros) {
+            return Decision.KEPT_SLOW;
+        }
+        // derived from the trace id rather than a random draw, so every service keeps the same traces
+        if (Math.floorMod(buffer.traceIdLow, SAMPLE_SCALE) < sampleBound) {
+            return Decision.KEPT_SAMPLED;
+        }
+        return Decision.DROPPED;
+    }
+
+    static boolean isError(MutableSpan span) {
+        if (span.error() != null || span.tag("error") != null) {
+            return true;
+        }
+        String exception = span.tag("exception");
+        return (exception != null && !"none".equalsIgnoreCase(exception))
+            || "SERVER_ERROR".equals(span.tag("outcome"));
+    }
+
+    private enum Decision {
+        KEPT_ERROR("kept_error"),
+        KEPT_SLOW("kept_slow"),
+        KEPT_SAMPLED("kept_sampled"),
+        DROPPED("dropped");
+
+        private final String tag;
+
+        Decision(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private record BufferedSpan(TraceContext context, MutableSpan span) {
+    }
+
+    private static final class TraceBuffer {
+
+        private final String traceId;
+        private final int slot;
+        private final List<BufferedSpan> spans = new ArrayList<>();
+        private long traceIdLow;
+        private long maxDurationMicros;
+        private boolean error;
+
+        private TraceBuffer(String traceId, int slot) {
+            this.traceId = traceId;
+            this.slot = slot;
+        }
+
+        private boolean add(TraceContext context, MutableSpan span, int maxSpans) {
+            traceIdLow = context.traceId();
+            error |= isError(span);
+            if (span.startTimestamp() != 0L && span.finishTimestamp() != 0L) {
+                maxDurationMicros = Math.max(maxDurationMicros, span.finishTimestamp() - span.startTimestamp());
+            }
+            if (spans.size() >= maxSpans) {
+                return false;
+            }
+            spans.add(new BufferedSpan(context, span));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.spring.ai.observability.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("chat",
+            new BulkheadProperties.Pool(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(3)), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> running = executor.submit(() -> bulkhead.execute(() -> await(release)));
+        waitUntil(() -> bulkhead.activeCalls() == 1);
+        Future<String> queued = executor.submit(() -> bulkhead.execute(() -> "queued"));
+        waitUntil(() -> bulkhead.queueDepth() == 1);
+
+        long start = System.nanoTime();
+        BulkheadFullException ex = assertThrows(BulkheadFullException.class, () -> bulkhead.execute(() -> "rejected"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(Duration.ofSeconds(3), ex.getRetryAfter());
+        assertEquals(1.0, meterRegistry.get("bulkhead.rejections").tag("reason", "queue_full").counter().count());
+
+        release.countDown();
+        assertEquals("done", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.activeCalls());
+    }
+
+    @Test
+    void rejectsQueuedCallAfterDeadline() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("chat",
+            new BulkheadProperties.Pool(1, 5, Duration.ofMillis(50), Duration.ofSeconds(1)), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> running = executor.submit(() -> bulkhead.execute(() -> await(release)));
+        waitUntil(() -> bulkhead.activeCalls() == 1);
+
+        assertThrows(BulkheadFullException.class, () -> bulkhead.execute(() -> "late"));
+        assertEquals(1.0, meterRegistry.get("bulkhead.rejections").tag("reason", "wait_timeout").counter().count());
+        assertEquals(0, bulkhead.queueDepth());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void poolsAreIsolatedPerEndpoint() {
+        BulkheadRegistry registry = new BulkheadRegistry(new BulkheadProperties(null), meterRegistry);
+
+        assertSame(registry.bulkhead("chat"), registry.bulkhead("chat"));
+        assertNotSame(registry.bulkhead("chat"), registry.bulkhead("summary"));
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.spring.ai.observability.hedging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Races two local fake OpenAI endpoints with different latency profiles.
+ */
+class HedgingChatModelTest {
+
+    private FakeEndpoint slow;
+    private FakeEndpoint fast;
+    private HedgingChatModel hedgingChatModel;
+
+    @AfterEach
+    void tearDown() {
+        hedgingChatModel.close();
+        slow.stop();
+        fast.stop();
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndSecondaryWins() throws IOException {
+        slow = new FakeEndpoint("primary", Duration.ofMillis(3000));
+        fast = new FakeEndpoint("secondary", Duration.ofMillis(20));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        hedgingChatModel = new HedgingChatModel(slow.chatModel(), fast.chatModel(),
+            properties(Duration.ofMillis(200), 0.1, 10), meterRegistry);
+
+        long start = System.nanoTime();
+        String answer = hedgingChatModel.call(new Prompt("hello")).getResult().getOutput().getText();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals("secondary", answer);
+        assertTrue(elapsedMillis < 2500, "hedged call took " + elapsedMillis + " ms");
+        assertEquals(1, fast.requests());
+        assertEquals(1.0, meterRegistry.get("chat.hedging.requests").tag("outcome", "secondary_won").counter().count());
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() throws IOException {
+        slow = new FakeEndpoint("secondary", Duration.ofMillis(1500));
+        fast = new FakeEndpoint("primary", Duration.ofMillis(20));
+        hedgingChatModel = new HedgingChatModel(fast.chatModel(), slow.chatModel(),
+            properties(Duration.ofSeconds(1), 0.1, 10), new SimpleMeterRegistry());
+
+        String answer = hedgingChatModel.call(new Prompt("hello")).getResult().getOutput().getText();
+
+        assertEquals("primary", answer);
+        assertEquals(0, slow.requests());
+    }
+
+    @Test
+    void exhaustedBudgetWaitsForPrimary() throws IOException {
+        slow = new FakeEndpoint("primary", Duration.ofMillis(400));
+        fast = new FakeEndpoint("secondary", Duration.ofMillis(20));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        hedgingChatModel = new HedgingChatModel(slow.chatModel(), fast.chatModel(),
+            properties(Duration.ofMillis(100), 0.0, 0), meterRegistry);
+
+        String answer = hedgingChatModel.call(new Prompt("hello")).getResult().getOutput().getText();
+
+        assertEquals("primary", answer);
+        assertEquals(0, fast.requests());
+        assertEquals(1.0, meterRegistry.get("chat.hedging.requests").tag("outcome", "budget_exhausted").counter().count());
+    }
+
+    private static HedgingProperties properties(Duration maxDelay, double budgetRatio, int budgetBurst) {
+        return new HedgingProperties(true, 0.95, Duration.ofMillis(50), maxDelay,
+            budgetRatio, budgetBurst, 128, null);
+    }
+
+    private static final class FakeEndpoint {
+
+        private final HttpServer server;
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private FakeEndpoint(String answer, Duration latency) throws IOException {
+            byte[] body = """
+                {"id":"chatcmpl-1","object":"chat.completion","created":1700000000,"model":"gpt-4o-mini",
+                 "choices":[{"index":0,"message":{"role":"assistant","content":"%s"},"finish_reason":"stop"}],
+                 "usage":{"prompt_tokens":1,"completion_tokens":1,"total_tokens":2}}
+                """.formatted(answer).getBytes(StandardCharsets.UTF_8);
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/v1/chat/completions", exchange -> {
+                requests.incrementAndGet();
+                exchange.getRequestBody().readAllBytes();
+                try {
+                    Thread.sleep(latency.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                } catch (IOException ignored) {
+                    // the hedging client may already have cancelled this call
+                }
+            });
+            server.start();
+        }
+
+        private OpenAiChatModel chatModel() {
+            OpenAiApi api = OpenAiApi.builder()
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .apiKey("test-key")
+                .build();
+            return OpenAiChatModel.builder()
+                .openAiApi(api)
+                .defaultOptions(OpenAiChatOptions.builder().model("gpt-4o-mini").build())
+                .build();
+        }
+
+        private int requests() {
+            return requests.get();
+        }
+
+        private void stop() {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.spring.ai.observability.memory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationMemoryTest {
+
+    @Mock
+    private ConversationSummarizer summarizer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConversationMemory memory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        memory = new ConversationMemory(new ConversationMemoryProperties(2, 100, 50, 1, 1), summarizer, meterRegistry);
+    }
+
+    @Test
+    void promptStaysWithinBudgetAndOlderTurnsAreSummarized() {
+        when(summarizer.summarize(any(), anyList())).thenReturn(CompletableFuture.completedFuture("summary"));
+        String longText = "x".repeat(160); // 40 tokens
+
+        for (int i = 0; i < 10; i++) {
+            memory.append("c1", longText, longText);
+        }
+        List<Message> history = memory.history("c1");
+
+        assertInstanceOf(SystemMessage.class, history.get(0));
+        assertTrue(history.get(0).getText().contains("summary"));
+        assertEquals(3, history.size()); // summary + one user/assistant pair of 80 tokens
+        assertTrue(meterRegistry.get("chat.memory.tokens.saved").counter().count() > 0);
+        verify(summarizer, atLeastOnce()).summarize(any(), anyList());
+    }
+
+    @Test
+    void singleTurnLargerThanTheBudgetIsTruncated() {
+        String hugeText = "z".repeat(800); // 200 tokens
+
+        memory.append("c1", hugeText, hugeText);
+        List<Message> history = memory.history("c1");
+
+        assertEquals(2, history.size());
+        int tokens = TokenEstimator.estimate(history.get(0).getText()) + TokenEstimator.estimate(history.get(1).getText());
+        assertTrue(tokens <= 100, "history has " + tokens + " tokens");
+        assertEquals(50, TokenEstimator.estimate(history.get(0).getText()));
+        assertTrue(meterRegistry.get("chat.memory.prompt.tokens").summary().max() <= 100);
+        verifyNoInteractions(summarizer);
+    }
+
+    @Test
+    void failedCompactionIsRetriedWithNextTurn() {
+        when(summarizer.summarize(any(), anyList()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("model down")))
+            .thenReturn(CompletableFuture.completedFuture("recovered"));
+        String longText = "y".repeat(160);
+
+        memory.append("c1", longText, longText);
+        memory.append("c1", longText, longText);
+        memory.append("c1", longText, longText);
+
+        assertEquals(1.0, meterRegistry.get("chat.memory.compaction.failures").counter().count());
+        assertTrue(memory.history("c1").get(0).getText().contains("recovered"));
+    }
+
+    @Test
+    void leastRecentlyUsedConversationIsEvicted() {
+        memory.append("c1", "hi", "hello");
+        memory.append("c2", "hi", "hello");
+        memory.history("c1");
+        memory.append("c3", "hi", "hello");
+
+        assertEquals(2.0, meterRegistry.get("chat.memory.conversations").gauge().value());
+        assertEquals(2, memory.history("c1").size());
+        assertTrue(memory.history("c2").isEmpty());
+    }
+}
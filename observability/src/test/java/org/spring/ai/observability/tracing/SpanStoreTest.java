@@ -0,0 +1,48 @@
+package org.spring.ai.observability.tracing;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpanStoreTest {
+
+    private final SpanStore spanStore = new SpanStore(4);
+
+    @Test
+    void capacityIsRoundedToPowerOfTwo() {
+        assertEquals(8, new SpanStore(5).capacity());
+    }
+
+    @Test
+    void indexesByTraceNameAndDuration() {
+        record("t1", "http get", 1_000, 50);
+        record("t1", "chat gpt-4o", 1_010, 900);
+        record("t2", "http get", 2_000, 300);
+
+        assertEquals(List.of("http get", "chat gpt-4o"), spanStore.trace("t1").stream().map(SpanRecord::name).toList());
+        assertEquals(List.of(300L, 50L), spanStore.byName("http get", 10).stream().map(SpanRecord::durationMicros).toList());
+        assertEquals(List.of(900L, 300L), spanStore.slowest(2).stream().map(SpanRecord::durationMicros).toList());
+    }
+
+    @Test
+    void overwrittenSpansDisappearFromEveryIndex() {
+        record("old", "slow", 1_000, 10_000);
+        for (int i = 0; i < 4; i++) {
+            record("new", "fast", 2_000 + i, 10);
+        }
+
+        assertTrue(spanStore.trace("old").isEmpty());
+        assertTrue(spanStore.byName("slow", 10).isEmpty());
+        assertEquals(4, spanStore.slowest(10).size());
+        assertEquals(10L, spanStore.slowest(1).get(0).durationMicros());
+    }
+
+    private void record(String traceId, String name, long start, long duration) {
+        long sequence = spanStore.nextSequence();
+        spanStore.add(new SpanRecord(sequence, traceId, Long.toHexString(sequence), null, name, "SERVER",
+            start, duration, false, Map.of()));
+    }
+}
@@ -0,0 +1,89 @@
+package org.spring.ai.observability.tracing;
+
+import java.time.Duration;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+import brave.handler.SpanHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import zipkin2.reporter.brave.AsyncZipkinSpanHandler;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TailSamplingSpanHandlerTest {
+
+    private AsyncZipkinSpanHandler zipkin;
+    private SimpleMeterRegistry meterRegistry;
+    private Tracing tracing;
+    private Tracer tracer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        zipkin = mock(AsyncZipkinSpanHandler.class);
+        ObjectProvider<AsyncZipkinSpanHandler> exporter = mock(ObjectProvider.class);
+        when(exporter.getIfAvailable()).thenReturn(zipkin);
+        meterRegistry = new SimpleMeterRegistry();
+
+        TailSamplingSpanHandler handler = new TailSamplingSpanHandler(
+            new TailSamplingProperties(true, Duration.ofSeconds(1), 0.0, 4, 10), exporter, meterRegistry);
+        tracing = Tracing.newBuilder().addSpanHandler(handler).build();
+        tracer = tracing.tracer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracing.close();
+    }
+
+    @Test
+    void dropsFastHealthyTrace() {
+        Span root = tracer.newTrace().name("root").start(1_000L);
+        tracer.newChild(root.context()).name("child").start(1_100L).finish(1_200L);
+        root.finish(2_000L);
+
+        verifyNoInteractions(zipkin);
+        assertEquals(1.0, decisions("dropped"));
+    }
+
+    @Test
+    void keepsWholeTraceWhenAChildFailed() {
+        Span root = tracer.newTrace().name("root").start(1_000L);
+        tracer.newChild(root.context()).name("child").start(1_100L).error(new IllegalStateException("boom")).finish(1_200L);
+        root.finish(2_000L);
+
+        verify(zipkin, times(2)).end(any(), any(), eq(SpanHandler.Cause.FINISHED));
+        assertEquals(1.0, decisions("kept_error"));
+    }
+
+    @Test
+    void keepsSlowTrace() {
+        Span root = tracer.newTrace().name("root").start(1_000L);
+        root.finish(1_000L + Duration.ofSeconds(2).toNanos() / 1_000);
+
+        verify(zipkin).end(any(), any(), eq(SpanHandler.Cause.FINISHED));
+        assertEquals(1.0, decisions("kept_slow"));
+    }
+
+    @Test
+    void decidesOldestPendingTraceWhenRingIsFull() {
+        for (int i = 0; i < 5; i++) {
+            Span root = tracer.newTrace().name("root-" + i).start(1_000L);
+            tracer.newChild(root.context()).name("child").start(1_100L).finish(1_200L);
+        }
+
+        assertEquals(1.0, decisions("dropped"));
+    }
+
+    private double decisions(String decision) {
+        return meterRegistry.get("tracing.tail.sampling.traces").tag("decision", decision).counter().count();
+    }
+}
@@ -2,8 +2,10 @@ package org.spring.ai.speech.textgenerator;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SpeechToTextOpenaiApplication {
 
     public static void main(String[] args) {
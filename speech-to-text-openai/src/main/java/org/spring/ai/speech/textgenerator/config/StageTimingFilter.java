@@ -0,0 +1,48 @@
+package org.spring.ai.speech.textgenerator.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.spring.ai.speech.textgenerator.service.metrics.StageTimings;
+import org.spring.ai.speech.textgenerator.service.metrics.TranscriptionStage;
+import org.spring.ai.speech.textgenerator.service.metrics.TranscriptionStageMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Starts the stage stopwatch when a synchronous transcription request enters the server,
+ * so the time spent receiving the upload is measured, and records the breakdown once the
+ * response has been written.
+ */
+@Component
+public class StageTimingFilter extends OncePerRequestFilter {
+
+    private static final Set<String> TIMED_PATHS = Set.of(
+            "/api/v1/speech/transcribe", "/api/v1/speech/transcribe/stream");
+
+    private final TranscriptionStageMetrics stageMetrics;
+
+    public StageTimingFilter(TranscriptionStageMetrics stageMetrics) {
+        this.stageMetrics = stageMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"POST".equals(request.getMethod()) || !TIMED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StageTimings timings = StageTimings.start();
+        request.setAttribute(StageTimings.ATTRIBUTE, timings);
+        chain.doFilter(request, response);
+        timings.lap(TranscriptionStage.SERIALIZE);
+        stageMetrics.record(timings);
+    }
+}
@@ -0,0 +1,27 @@
+package org.spring.ai.speech.textgenerator.config;
+
+import org.spring.ai.speech.textgenerator.controller.StreamingTranscriptionHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket endpoints for live transcription
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+    private final StreamingTranscriptionHandler streamingHandler;
+
+    public WebSocketConfiguration(StreamingTranscriptionHandler streamingHandler) {
+        this.streamingHandler = streamingHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(streamingHandler, "/api/v1/speech/stream")
+                .setAllowedOrigins("*");
+    }
+}
@@ -1,19 +1,29 @@
 package org.spring.ai.speech.textgenerator.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spring.ai.speech.textgenerator.dto.TranscriptionRequest;
 import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
 import org.spring.ai.speech.textgenerator.service.SpeechToTextService;
+import org.spring.ai.speech.textgenerator.service.batch.BatchTranscriptionService;
+import org.spring.ai.speech.textgenerator.service.job.TranscriptionJob;
+import org.spring.ai.speech.textgenerator.service.job.TranscriptionJobService;
+import org.spring.ai.speech.textgenerator.service.metrics.StageTimings;
+import org.spring.ai.speech.textgenerator.service.metrics.TranscriptionStage;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
-import java.util.concurrent.CompletableFuture;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/speech")
@@ -23,9 +33,15 @@ public class SpeechToTextController {
     private static final Logger log = LoggerFactory.getLogger(SpeechToTextController.class);
 
     private final SpeechToTextService speechToTextService;
+    private final TranscriptionJobService transcriptionJobService;
+    private final BatchTranscriptionService batchTranscriptionService;
 
-    public SpeechToTextController(SpeechToTextService speechToTextService) {
+    public SpeechToTextController(SpeechToTextService speechToTextService,
+                                  TranscriptionJobService transcriptionJobService,
+                                  BatchTranscriptionService batchTranscriptionService) {
         this.speechToTextService = speechToTextService;
+        this.transcriptionJobService = transcriptionJobService;
+        this.batchTranscriptionService = batchTranscriptionService;
     }
 
     /**
@@ -35,8 +51,13 @@ public class SpeechToTextController {
     public ResponseEntity<TranscriptionResponse> transcribeAudio(
             @RequestParam("file") @NotNull MultipartFile file,
             @RequestParam(value = "language", required = false) String language,
-            @RequestParam(value = "responseFormat", required = false, defaultValue = "json") String responseFormat) {
+            @RequestParam(value = "responseFormat", required = false, defaultValue = "json") String responseFormat,
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenant,
+            @RequestAttribute(value = StageTimings.ATTRIBUTE, required = false) StageTimings timings) {
         
+        if (timings != null) {
+            timings.lap(TranscriptionStage.RECEIVE);
+        }
         log.info("Received transcription request for file: {}, size: {} bytes", 
                 file.getOriginalFilename(), file.getSize());
         
@@ -44,6 +65,8 @@ public class SpeechToTextController {
                 .file(file)
                 .language(language)
                 .responseFormat(responseFormat)
+                .tenant(tenant)
+                .timings(timings)
                 .build();
                 
         TranscriptionResponse response = speechToTextService.transcribeAudio(request);
@@ -53,26 +76,86 @@ public class SpeechToTextController {
     }
 
     /**
-     * Async transcription for large files
+     * Transcribe a raw audio request body, streamed straight to disk instead of buffered as multipart.
+     * The only way in for WAV recordings above the multipart part limit; the size limit of the file's
+     * format is enforced while the body is spooled
      */
-    @PostMapping(value = "/transcribe/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<CompletableFuture<TranscriptionResponse>> transcribeAudioAsync(
-            @RequestParam("file") @NotNull MultipartFile file,
+    @PostMapping(value = "/transcribe/stream",
+            consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "audio/*", "video/*"})
+    public ResponseEntity<TranscriptionResponse> transcribeAudioStream(
+            HttpServletRequest servletRequest,
+            @RequestHeader(value = "X-Filename", required = false) String filenameHeader,
+            @RequestParam(value = "filename", required = false) String filename,
             @RequestParam(value = "language", required = false) String language,
-            @RequestParam(value = "responseFormat", required = false, defaultValue = "json") String responseFormat) {
+            @RequestParam(value = "responseFormat", required = false, defaultValue = "json") String responseFormat,
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenant,
+            @RequestAttribute(value = StageTimings.ATTRIBUTE, required = false) StageTimings timings)
+            throws IOException {
         
-        log.info("Received async transcription request for file: {}", file.getOriginalFilename());
+        if (timings != null) {
+            timings.lap(TranscriptionStage.RECEIVE);
+        }
+        String name = StringUtils.hasText(filename) ? filename : filenameHeader;
+        log.info("Received streamed transcription request for file: {}, declared size: {} bytes", 
+                name, servletRequest.getContentLengthLong());
         
         TranscriptionRequest request = TranscriptionRequest.builder()
-                .file(file)
                 .language(language)
                 .responseFormat(responseFormat)
+                .tenant(tenant)
+                .timings(timings)
                 .build();
-                
-        CompletableFuture<TranscriptionResponse> futureResponse = 
-                speechToTextService.transcribeAudioAsync(request);
         
-        return ResponseEntity.status(HttpStatus.ACCEPTED).body(futureResponse);
+        TranscriptionResponse response = speechToTextService.transcribeStream(
+                servletRequest.getInputStream(), name, servletRequest.getContentType(), request);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Transcribe many files at once, streaming one NDJSON line per file as each one completes
+     */
+    @PostMapping(value = "/transcribe/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> transcribeBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "responseFormat", required = false, defaultValue = "json") String responseFormat,
+            @RequestParam(value = "model", required = false) String model,
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenant) {
+        
+        log.info("Received batch transcription request with {} files", files.size());
+        
+        TranscriptionRequest request = TranscriptionRequest.builder()
+                .language(language)
+                .responseFormat(responseFormat)
+                .model(model)
+                .tenant(tenant)
+                .build();
+        
+        ResponseBodyEmitter emitter = batchTranscriptionService.transcribe(files, request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
+    /**
+     * Async transcription for large files; answers 202 with the job's location at once
+     */
+    @PostMapping(value = "/transcribe/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<TranscriptionJob> transcribeAudioAsync(
+            @RequestParam("file") @NotNull MultipartFile file,
+            @RequestParam(value = "language", required = false) String language,
+            @RequestParam(value = "responseFormat", required = false, defaultValue = "json") String responseFormat,
+            @RequestParam(value = "model", required = false) String model,
+            @RequestHeader(value = "X-Tenant-Id", required = false) String tenant) {
+        
+        log.info("Received async transcription request for file: {}", file.getOriginalFilename());
+        
+        TranscriptionJob job = transcriptionJobService.submit(file, language, responseFormat, model, tenant);
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/v1/speech/jobs/" + job.id()))
+                .body(job);
     }
 
     /**
@@ -0,0 +1,116 @@
+package org.spring.ai.speech.textgenerator.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.service.streaming.CaptionEvent;
+import org.spring.ai.speech.textgenerator.service.streaming.StreamingSession;
+import org.spring.ai.speech.textgenerator.service.streaming.StreamingTranscriptionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Live captions over WebSocket at {@code /api/v1/speech/stream?language=en&sampleRate=16000}.
+ * Binary messages carry mono 16-bit little-endian PCM; a text message {@code end} asks for
+ * the remaining captions, after which the server sends an {@code end} event and closes.
+ * Captions are sent as JSON {@link CaptionEvent} text messages.
+ */
+@Component
+public class StreamingTranscriptionHandler extends BinaryWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingTranscriptionHandler.class);
+
+    private static final String SESSION_ATTRIBUTE = "streamingSession";
+
+    private final StreamingTranscriptionService streamingService;
+    private final ObjectMapper objectMapper;
+    private final int maxMessageSize;
+    private final int sendBufferSize;
+
+    public StreamingTranscriptionHandler(StreamingTranscriptionService streamingService,
+                                         ObjectMapper objectMapper,
+                                         @Value("${app.audio.streaming.max-message-size:65536}") int maxMessageSize,
+                                         @Value("${app.audio.streaming.send-buffer-size:262144}") int sendBufferSize) {
+        this.streamingService = streamingService;
+        this.objectMapper = objectMapper;
+        this.maxMessageSize = maxMessageSize;
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        session.setBinaryMessageSizeLimit(maxMessageSize);
+        MultiValueMap<String, String> query = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        String language = query.getFirst("language");
+        String sampleRate = query.getFirst("sampleRate");
+
+        // Captions come from worker threads; the decorator serialises sends and bounds what may queue up
+        WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(session, 10_000, sendBufferSize);
+        try {
+            StreamingSession streaming = streamingService.open(language,
+                    sampleRate != null ? Integer.valueOf(sampleRate) : null,
+                    event -> send(outbound, event));
+            session.getAttributes().put(SESSION_ATTRIBUTE, streaming);
+        } catch (ResponseStatusException e) {
+            log.info("Rejected streaming connection: {}", e.getReason());
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getReason()));
+        } catch (AudioProcessingException | NumberFormatException e) {
+            log.info("Rejected streaming connection: {}", e.getMessage());
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        StreamingSession streaming = streaming(session);
+        if (streaming != null) {
+            streaming.accept(message.getPayload());
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        StreamingSession streaming = streaming(session);
+        if (streaming != null && "end".equalsIgnoreCase(message.getPayload().trim())) {
+            streaming.finish();
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        StreamingSession streaming = streaming(session);
+        if (streaming != null) {
+            streaming.close();
+        }
+    }
+
+    private void send(WebSocketSession session, CaptionEvent event) {
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+            if (event.type() == CaptionEvent.Type.END) {
+                session.close(CloseStatus.NORMAL);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            log.debug("Could not send caption to {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private static StreamingSession streaming(WebSocketSession session) {
+        return (StreamingSession) session.getAttributes().get(SESSION_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,42 @@
+package org.spring.ai.speech.textgenerator.controller;
+
+import org.spring.ai.speech.textgenerator.service.job.TranscriptionJob;
+import org.spring.ai.speech.textgenerator.service.job.TranscriptionJobService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Status of transcription jobs submitted through {@code /transcribe/async}. Clients poll
+ * the job or follow its {@code events} stream until it has succeeded or failed.
+ */
+@RestController
+@RequestMapping("/api/v1/speech/jobs")
+public class TranscriptionJobController {
+
+    private final TranscriptionJobService transcriptionJobService;
+
+    public TranscriptionJobController(TranscriptionJobService transcriptionJobService) {
+        this.transcriptionJobService = transcriptionJobService;
+    }
+
+    @GetMapping("/{jobId}")
+    public TranscriptionJob getJob(@PathVariable String jobId) {
+        return findJob(jobId);
+    }
+
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getJobEvents(@PathVariable String jobId) {
+        return transcriptionJobService.events(findJob(jobId));
+    }
+
+    private TranscriptionJob findJob(String jobId) {
+        return transcriptionJobService.find(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown transcription job " + jobId));
+    }
+}
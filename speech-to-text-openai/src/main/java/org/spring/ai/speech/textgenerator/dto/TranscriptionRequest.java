@@ -1,5 +1,6 @@
 package org.spring.ai.speech.textgenerator.dto;
 
+import org.spring.ai.speech.textgenerator.service.metrics.StageTimings;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
@@ -11,6 +12,8 @@ public class TranscriptionRequest {
     private String language;
     private String responseFormat;
     private String model;
+    private String tenant;
+    private StageTimings timings;
     
     public TranscriptionRequest() {}
     
@@ -19,6 +22,8 @@ public class TranscriptionRequest {
         this.language = builder.language;
         this.responseFormat = builder.responseFormat;
         this.model = builder.model;
+        this.tenant = builder.tenant;
+        this.timings = builder.timings;
     }
     
     public static Builder builder() {
@@ -30,18 +35,24 @@ public class TranscriptionRequest {
     public String getLanguage() { return language; }
     public String getResponseFormat() { return responseFormat; }
     public String getModel() { return model; }
+    public String getTenant() { return tenant; }
+    public StageTimings getTimings() { return timings; }
     
     // Setters
     public void setFile(MultipartFile file) { this.file = file; }
     public void setLanguage(String language) { this.language = language; }
     public void setResponseFormat(String responseFormat) { this.responseFormat = responseFormat; }
     public void setModel(String model) { this.model = model; }
+    public void setTenant(String tenant) { this.tenant = tenant; }
+    public void setTimings(StageTimings timings) { this.timings = timings; }
     
     public static class Builder {
         private MultipartFile file;
         private String language;
         private String responseFormat = "json";
         private String model = "whisper-1";
+        private String tenant;
+        private StageTimings timings;
         
         public Builder file(MultipartFile file) {
             this.file = file;
@@ -63,6 +74,19 @@ public class TranscriptionRequest {
             return this;
         }
         
+        public Builder tenant(String tenant) {
+            this.tenant = tenant;
+            return this;
+        }
+        
+        /**
+         * Stopwatch started by the web layer; without one the service times the request itself
+         */
+        public Builder timings(StageTimings timings) {
+            this.timings = timings;
+            return this;
+        }
+        
         public TranscriptionRequest build() {
             return new TranscriptionRequest(this);
         }
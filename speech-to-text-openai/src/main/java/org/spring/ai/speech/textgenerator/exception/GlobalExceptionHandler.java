@@ -2,6 +2,7 @@ package org.spring.ai.speech.textgenerator.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 
@@ -20,6 +22,9 @@ public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    @Value("${spring.servlet.multipart.max-file-size:25MB}")
+    private String maxUploadSize;
+
     @ExceptionHandler(AudioProcessingException.class)
     public ResponseEntity<ProblemDetail> handleAudioProcessingException(
             AudioProcessingException ex, WebRequest request) {
@@ -43,11 +48,12 @@ public class GlobalExceptionHandler {
         
         ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
                 HttpStatus.PAYLOAD_TOO_LARGE, 
-                "File size exceeds the maximum allowed limit");
+                "File size exceeds the maximum allowed limit; send larger WAV recordings as the raw body of "
+                        + "/api/v1/speech/transcribe/stream");
         problemDetail.setTitle("File Size Limit Exceeded");
         problemDetail.setProperty("timestamp", LocalDateTime.now());
         problemDetail.setProperty("path", request.getDescription(false));
-        problemDetail.setProperty("maxFileSize", "25MB");
+        problemDetail.setProperty("maxFileSize", maxUploadSize);
         
         return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(problemDetail);
     }
@@ -67,6 +73,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(problemDetail);
     }
 
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ProblemDetail> handleResponseStatusException(
+            ResponseStatusException ex, WebRequest request) {
+        
+        log.warn("Request rejected with {}: {}", ex.getStatusCode(), ex.getReason());
+        
+        ProblemDetail problemDetail = ex.getBody();
+        problemDetail.setProperty("timestamp", LocalDateTime.now());
+        problemDetail.setProperty("path", request.getDescription(false));
+        
+        return ResponseEntity.status(ex.getStatusCode()).headers(ex.getHeaders()).body(problemDetail);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ProblemDetail> handleGenericException(
             Exception ex, WebRequest request) {
@@ -4,20 +4,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spring.ai.speech.textgenerator.dto.TranscriptionRequest;
 import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.service.cache.TranscriptionCache;
+import org.spring.ai.speech.textgenerator.service.metrics.StageTimings;
+import org.spring.ai.speech.textgenerator.service.metrics.TranscriptionStage;
+import org.spring.ai.speech.textgenerator.service.metrics.TranscriptionStageMetrics;
+import org.spring.ai.speech.textgenerator.service.scheduling.FairTranscriptionScheduler;
+import org.spring.ai.speech.textgenerator.service.segmentation.SegmentedTranscriptionService;
+import org.spring.ai.speech.textgenerator.service.segmentation.SegmentedTranscriptionService.SegmentedTranscript;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
 import org.springframework.ai.audio.transcription.AudioTranscriptionPrompt;
 import org.springframework.ai.audio.transcription.AudioTranscriptionResponse;
 import org.springframework.ai.openai.OpenAiAudioTranscriptionModel;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionOptions;
+import org.springframework.ai.openai.api.OpenAiAudioApi;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
+import java.util.Optional;
 
 @Service
 public class SpeechToTextService {
@@ -29,86 +43,234 @@ public class SpeechToTextService {
 
     private final OpenAiAudioTranscriptionModel audioTranscription;
     private final ResourceLoader resourceLoader;
+    private final AudioValidationService validationService;
+    private final AudioSpooler audioSpooler;
+    private final SegmentedTranscriptionService segmentedTranscription;
+    private final TranscriptionCache transcriptionCache;
+    private final TranscriptionStageMetrics stageMetrics;
+    private final FairTranscriptionScheduler scheduler;
 
     public SpeechToTextService(OpenAiAudioTranscriptionModel audioTranscription, 
-                              ResourceLoader resourceLoader) {
+                              ResourceLoader resourceLoader,
+                              AudioValidationService validationService,
+                              AudioSpooler audioSpooler,
+                              SegmentedTranscriptionService segmentedTranscription,
+                              TranscriptionCache transcriptionCache,
+                              TranscriptionStageMetrics stageMetrics,
+                              FairTranscriptionScheduler scheduler) {
         this.audioTranscription = audioTranscription;
         this.resourceLoader = resourceLoader;
+        this.validationService = validationService;
+        this.audioSpooler = audioSpooler;
+        this.segmentedTranscription = segmentedTranscription;
+        this.transcriptionCache = transcriptionCache;
+        this.stageMetrics = stageMetrics;
+        this.scheduler = scheduler;
     }
 
     /**
      * Transcribe audio from uploaded MultipartFile
      */
     public TranscriptionResponse transcribeAudio(TranscriptionRequest request) {
-        long startTime = System.currentTimeMillis();
+        StageTimings timings = timings(request);
         
         try {
             MultipartFile file = request.getFile();
-            if (file == null || file.isEmpty()) {
-                throw new IllegalArgumentException("Audio file is required and cannot be empty");
-            }
+            validationService.validateAudioFile(file);
+            timings.lap(TranscriptionStage.VALIDATE);
             
             log.info("Transcribing uploaded file: {}, size: {} bytes", 
                     file.getOriginalFilename(), file.getSize());
             
-            // Create AudioTranscriptionPrompt with the uploaded file
-            AudioTranscriptionPrompt prompt = new AudioTranscriptionPrompt(file.getResource());
-            
-            // Set language if provided
-            if (request.getLanguage() != null && !request.getLanguage().trim().isEmpty()) {
-                // Note: Spring AI 1.0.3 may not support language parameter directly
-                // This would require options configuration
-                log.debug("Language specified: {}", request.getLanguage());
+            try (SpooledAudio audio = audioSpooler.spool(file)) {
+                spooled(audio, timings);
+                return transcribe(audio, request, timings);
             }
             
-            AudioTranscriptionResponse response = audioTranscription.call(prompt);
-            long duration = System.currentTimeMillis() - startTime;
-            
-            String transcriptionText = response.getResult().getOutput();
-            
-            // Create a response with metadata
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("originalFilename", file.getOriginalFilename());
-            metadata.put("fileSize", file.getSize());
-            metadata.put("contentType", file.getContentType());
-            
-            TranscriptionResponse result = TranscriptionResponse.builder()
-                    .transcription(transcriptionText)
-                    .language(request.getLanguage())
-                    .confidence(1.0) // OpenAI Whisper doesn't provide confidence scores
-                    .duration(duration)
-                    .model(request.getModel() != null ? request.getModel() : "whisper-1")
-                    .responseFormat(request.getResponseFormat() != null ? request.getResponseFormat() : "json")
-                    .processedAt(LocalDateTime.now())
-                    .metadata(metadata)
-                    .success(true)
-                    .build();
-            
-            log.info("Transcription completed successfully in {} ms", duration);
-            return result;
-            
+        } catch (ResponseStatusException e) {
+            // Admission rejections (429/503) are answered with their status, not as a failed transcription
+            throw e;
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            log.error("Error transcribing audio file: {}", e.getMessage(), e);
-            
-            return TranscriptionResponse.builder()
-                    .duration(duration)
-                    .processedAt(LocalDateTime.now())
-                    .success(false)
-                    .errorMessage("Transcription failed: " + e.getMessage())
-                    .build();
+            return failure(timings, e);
+        } finally {
+            recordIfOwned(request, timings);
         }
     }
 
     /**
-     * Async transcription for large files
+     * Transcribe a raw audio request body, spooling it to disk as it arrives
      */
-    public CompletableFuture<TranscriptionResponse> transcribeAudioAsync(TranscriptionRequest request) {
-        log.info("Starting async transcription for file: {}", 
-                request.getFile() != null ? request.getFile().getOriginalFilename() : "unknown");
+    public TranscriptionResponse transcribeStream(InputStream body, String filename, String contentType,
+                                                  TranscriptionRequest request) {
+        StageTimings timings = timings(request);
         
-        return CompletableFuture.supplyAsync(() -> transcribeAudio(request), 
-                Executors.newVirtualThreadPerTaskExecutor());
+        // The body is read while spooling, so receiving a streamed upload counts as SPOOL
+        try (SpooledAudio audio = audioSpooler.spool(body, filename, contentType)) {
+            spooled(audio, timings);
+            log.info("Transcribing streamed upload: {}, size: {} bytes", filename, audio.getSize());
+            return transcribe(audio, request, timings);
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            return failure(timings, e);
+        } finally {
+            recordIfOwned(request, timings);
+        }
+    }
+
+    /**
+     * Transcribe audio that has already been spooled; the caller keeps ownership of the file
+     */
+    public TranscriptionResponse transcribeSpooled(SpooledAudio audio, TranscriptionRequest request) {
+        StageTimings timings = timings(request);
+        timings.setSizeBytes(audio.getSize());
+        timings.setAudioSeconds(audio.getProbe() != null ? audio.getProbe().durationSeconds() : 0);
+        
+        try {
+            return transcribe(audio, request, timings);
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            return failure(timings, e);
+        } finally {
+            recordIfOwned(request, timings);
+        }
+    }
+
+    private TranscriptionResponse transcribe(SpooledAudio audio, TranscriptionRequest request, StageTimings timings) {
+        String responseFormat = request.getResponseFormat() != null ? request.getResponseFormat() : "json";
+        String model = request.getModel() != null ? request.getModel() : "whisper-1";
+        OpenAiAudioTranscriptionOptions options = options(request, responseFormat);
+        
+        // Identical audio with identical options is answered from the cache
+        String cacheKey = transcriptionCache.key(audio.getSha256(), model, request.getLanguage(), responseFormat);
+        Optional<TranscriptionResponse> cached = transcriptionCache.get(cacheKey);
+        timings.lap(TranscriptionStage.CACHE);
+        if (cached.isPresent()) {
+            TranscriptionResponse hit = cached.get();
+            // The entry was stored for whoever uploaded the audio first; describe this request instead
+            hit.setLanguage(request.getLanguage());
+            hit.setDuration(timings.elapsedMillis());
+            describeUpload(audio, hit.getMetadata());
+            hit.getMetadata().put("stages", timings.toMillis());
+            log.info("Transcription of {} served from cache", audio.getOriginalFilename());
+            return hit;
+        }
+        
+        Map<String, Object> metadata = new HashMap<>();
+        // Upstream calls are admitted in fair order across tenants, weighted by audio duration
+        String transcriptionText;
+        if (segmentedTranscription.supports(audio)) {
+            // Long 16-bit PCM WAV input is split at silences and transcribed in parallel; each segment is
+            // admitted on its own, so the time spent waiting for slots counts as MODEL here
+            SegmentedTranscript transcript =
+                    segmentedTranscription.transcribe(audio, options, responseFormat, request.getTenant());
+            metadata.put("segments", transcript.segments());
+            metadata.put("audioSeconds", transcript.audioSeconds());
+            timings.setAudioSeconds(transcript.audioSeconds());
+            transcriptionText = transcript.text();
+        } else {
+            transcriptionText = scheduler.execute(request.getTenant(),
+                    FairTranscriptionScheduler.estimateSeconds(audio), () -> {
+                        timings.lap(TranscriptionStage.QUEUE);
+                        // Create AudioTranscriptionPrompt with the file-backed spooled upload
+                        AudioTranscriptionPrompt prompt = new AudioTranscriptionPrompt(audio.resource(), options);
+                        AudioTranscriptionResponse response = audioTranscription.call(prompt);
+                        return response.getResult().getOutput();
+                    });
+        }
+        timings.lap(TranscriptionStage.MODEL);
+        long upstreamMillis = timings.nanos(TranscriptionStage.MODEL) / 1_000_000;
+        long duration = timings.elapsedMillis();
+        
+        // Create a response with metadata
+        describeUpload(audio, metadata);
+        metadata.put("cacheHit", false);
+        metadata.put("stages", timings.toMillis());
+        
+        TranscriptionResponse result = TranscriptionResponse.builder()
+                .transcription(transcriptionText)
+                .language(request.getLanguage())
+                .confidence(1.0) // OpenAI Whisper doesn't provide confidence scores
+                .duration(duration)
+                .model(model)
+                .responseFormat(responseFormat)
+                .processedAt(LocalDateTime.now())
+                .metadata(metadata)
+                .success(true)
+                .build();
+        
+        transcriptionCache.put(cacheKey, result, upstreamMillis);
+        timings.lap(TranscriptionStage.CACHE);
+        log.info("Transcription completed successfully in {} ms", duration);
+        return result;
+    }
+
+    private static OpenAiAudioTranscriptionOptions options(TranscriptionRequest request, String responseFormat) {
+        OpenAiAudioApi.TranscriptResponseFormat format;
+        try {
+            format = OpenAiAudioApi.TranscriptResponseFormat.valueOf(responseFormat.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new AudioProcessingException("Unsupported response format: " + responseFormat);
+        }
+        
+        OpenAiAudioTranscriptionOptions.Builder options = OpenAiAudioTranscriptionOptions.builder()
+                .responseFormat(format);
+        if (request.getLanguage() != null && !request.getLanguage().trim().isEmpty()) {
+            options.language(request.getLanguage().trim());
+        }
+        if (request.getModel() != null) {
+            options.model(request.getModel());
+        }
+        return options.build();
+    }
+
+    /**
+     * Metadata that belongs to the upload rather than to the transcript
+     */
+    private static void describeUpload(SpooledAudio audio, Map<String, Object> metadata) {
+        metadata.put("originalFilename", audio.getOriginalFilename());
+        metadata.put("fileSize", audio.getSize());
+        metadata.put("contentType", audio.getContentType());
+        metadata.put("sha256", audio.getSha256());
+        if (audio.getProbe() != null) {
+            metadata.put("container", audio.getProbe().container());
+            metadata.put("audioDuration", audio.getProbe().durationSeconds());
+            metadata.put("sampleRate", audio.getProbe().sampleRate());
+            metadata.put("channels", audio.getProbe().channels());
+        }
+    }
+
+    private TranscriptionResponse failure(StageTimings timings, Exception e) {
+        long duration = timings.elapsedMillis();
+        log.error("Error transcribing audio file: {}", e.getMessage(), e);
+        
+        return TranscriptionResponse.builder()
+                .duration(duration)
+                .processedAt(LocalDateTime.now())
+                .success(false)
+                .errorMessage("Transcription failed: " + e.getMessage())
+                .build();
+    }
+
+    private static StageTimings timings(TranscriptionRequest request) {
+        return request.getTimings() != null ? request.getTimings() : StageTimings.start();
+    }
+
+    private static void spooled(SpooledAudio audio, StageTimings timings) {
+        timings.lap(TranscriptionStage.SPOOL);
+        timings.split(TranscriptionStage.SPOOL, TranscriptionStage.PROBE, audio.getProbeNanos());
+        timings.setSizeBytes(audio.getSize());
+        timings.setAudioSeconds(audio.getProbe() != null ? audio.getProbe().durationSeconds() : 0);
+    }
+
+    /**
+     * Timings passed in by the web layer are recorded there, after the response is written
+     */
+    private void recordIfOwned(TranscriptionRequest request, StageTimings timings) {
+        if (request.getTimings() == null) {
+            stageMetrics.record(timings);
+        }
     }
 
     /**
@@ -0,0 +1,15 @@
+package org.spring.ai.speech.textgenerator.service.batch;
+
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+
+/**
+ * One NDJSON line of a batch: the position and name of the upload next to its transcription.
+ * {@code retryable} marks a file that failed only because transcription capacity was exhausted,
+ * so submitting it again later can succeed.
+ */
+public record BatchItemResult(int index, String fileName, TranscriptionResponse result, boolean retryable) {
+
+    public BatchItemResult(int index, String fileName, TranscriptionResponse result) {
+        this(index, fileName, result, false);
+    }
+}
@@ -0,0 +1,210 @@
+package org.spring.ai.speech.textgenerator.service.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionRequest;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.service.SpeechToTextService;
+import org.spring.ai.speech.textgenerator.service.scheduling.FairTranscriptionScheduler;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transcribes many uploads in one request. The emitter is returned at once and every file
+ * is validated, spooled and transcribed on a shared fixed pool, so the number of upstream
+ * calls from all batches together stays at the configured concurrency. The multipart parts
+ * stay readable until the emitter completes, which happens only after the last file. Each
+ * result is written as an NDJSON line as soon as it is ready, in completion order. A failing
+ * file becomes a {@code success=false} line and the rest of the batch carries on. A file the
+ * scheduler turns away is retried with backoff while its audio stays spooled; if it is still
+ * turned away, its line is marked {@code retryable}.
+ */
+@Service
+public class BatchTranscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchTranscriptionService.class);
+
+    private final SpeechToTextService speechToTextService;
+    private final AudioValidationService validationService;
+    private final AudioSpooler audioSpooler;
+    private final ObjectMapper objectMapper;
+    private final int maxFiles;
+    private final Duration timeout;
+    private final Duration retryBackoff;
+    private final int maxAdmissionRetries;
+    private final ExecutorService executor;
+
+    public BatchTranscriptionService(SpeechToTextService speechToTextService,
+                                     AudioValidationService validationService,
+                                     AudioSpooler audioSpooler,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.audio.batch.max-files:200}") int maxFiles,
+                                     @Value("${app.audio.batch.concurrency:4}") int concurrency,
+                                     @Value("${app.audio.batch.timeout:1h}") Duration timeout,
+                                     @Value("${app.audio.batch.retry-backoff:2s}") Duration retryBackoff,
+                                     @Value("${app.audio.batch.max-admission-retries:3}") int maxAdmissionRetries) {
+        this.speechToTextService = speechToTextService;
+        this.validationService = validationService;
+        this.audioSpooler = audioSpooler;
+        this.objectMapper = objectMapper;
+        this.maxFiles = maxFiles;
+        this.timeout = timeout;
+        this.retryBackoff = retryBackoff;
+        this.maxAdmissionRetries = maxAdmissionRetries;
+        this.executor = Executors.newFixedThreadPool(concurrency,
+                Thread.ofPlatform().name("stt-batch-worker-", 0).daemon().factory());
+    }
+
+    /**
+     * Start transcribing the uploads; the emitter completes after the last line
+     */
+    public ResponseBodyEmitter transcribe(List<MultipartFile> files, TranscriptionRequest request) {
+        if (files == null || files.isEmpty()) {
+            throw new AudioProcessingException("At least one file is required");
+        }
+        if (files.size() > maxFiles) {
+            throw new AudioProcessingException(String.format(
+                    "Batch has %d files, the maximum is %d", files.size(), maxFiles));
+        }
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout.toMillis());
+        Batch batch = new Batch(emitter, files.size());
+        emitter.onTimeout(batch::cancel);
+        emitter.onError(error -> batch.cancel());
+
+        log.info("Received batch of {} files", files.size());
+        for (int i = 0; i < files.size(); i++) {
+            int index = i;
+            MultipartFile file = files.get(i);
+            try {
+                executor.execute(() -> transcribe(batch, index, file, request));
+            } catch (RejectedExecutionException e) {
+                batch.send(new BatchItemResult(index, file.getOriginalFilename(),
+                        failure(new IllegalStateException("batch transcription is shutting down"))));
+            }
+        }
+        return emitter;
+    }
+
+    private void transcribe(Batch batch, int index, MultipartFile file, TranscriptionRequest request) {
+        if (batch.isCancelled()) {
+            batch.done();
+            return;
+        }
+        try {
+            validationService.validateAudioFile(file);
+            try (SpooledAudio audio = audioSpooler.spool(file)) {
+                TranscriptionResponse response = transcribeAdmitted(batch, audio, request);
+                batch.send(new BatchItemResult(index, file.getOriginalFilename(), response));
+            }
+        } catch (ResponseStatusException e) {
+            batch.send(new BatchItemResult(index, file.getOriginalFilename(), failure(e),
+                    FairTranscriptionScheduler.isRejection(e)));
+        } catch (Exception e) {
+            batch.send(new BatchItemResult(index, file.getOriginalFilename(), failure(e)));
+        }
+    }
+
+    /**
+     * Transcribe, waiting out rejections from the scheduler with a doubling backoff; the last
+     * rejection is rethrown once the retries are used up or the client has gone
+     */
+    private TranscriptionResponse transcribeAdmitted(Batch batch, SpooledAudio audio, TranscriptionRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return speechToTextService.transcribeSpooled(audio, request);
+            } catch (ResponseStatusException e) {
+                if (!FairTranscriptionScheduler.isRejection(e) || attempt > maxAdmissionRetries || batch.isCancelled()) {
+                    throw e;
+                }
+                log.debug("{} was turned away with {}, retry {} of {}", audio.getOriginalFilename(),
+                        e.getStatusCode().value(), attempt, maxAdmissionRetries);
+                try {
+                    Thread.sleep(retryBackoff.multipliedBy(1L << (attempt - 1)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static TranscriptionResponse failure(Exception e) {
+        return TranscriptionResponse.builder()
+                .processedAt(LocalDateTime.now())
+                .errorMessage("Transcription failed: " + e.getMessage())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Output side of one batch. Sends are serialised because workers finish concurrently,
+     * and once the client is gone the remaining files are dropped without calling upstream.
+     */
+    private final class Batch {
+
+        private final ResponseBodyEmitter emitter;
+        private final AtomicInteger remaining;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        Batch(ResponseBodyEmitter emitter, int size) {
+            this.emitter = emitter;
+            this.remaining = new AtomicInteger(size);
+        }
+
+        boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                log.info("Batch cancelled with {} files outstanding", remaining.get());
+            }
+        }
+
+        void send(BatchItemResult item) {
+            if (!cancelled.get()) {
+                try {
+                    String line = objectMapper.writeValueAsString(item) + "\n";
+                    synchronized (this) {
+                        emitter.send(line, MediaType.APPLICATION_NDJSON);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Could not write batch result {}: {}", item.index(), e.getMessage());
+                    cancel();
+                }
+            }
+            done();
+        }
+
+        void done() {
+            if (remaining.decrementAndGet() == 0 && !cancelled.get()) {
+                emitter.complete();
+            }
+        }
+    }
+}
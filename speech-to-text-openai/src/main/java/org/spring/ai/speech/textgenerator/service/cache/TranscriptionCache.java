@@ -0,0 +1,260 @@
+package org.spring.ai.speech.textgenerator.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Disk cache of successful transcriptions keyed by the audio's SHA-256 plus the model,
+ * language and response format. Entries are JSON files; an in-memory index keeps them in
+ * least-recently-used order and evicts from the cold end once the directory grows past
+ * {@code app.audio.cache.max-size}. File modification times carry the LRU order across
+ * restarts.
+ */
+@Service
+public class TranscriptionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptionCache.class);
+
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long maxSize;
+    private final boolean enabled;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter upstreamSecondsSaved;
+
+    public TranscriptionCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${app.audio.cache.directory:data/transcription-cache}") Path directory,
+                              @Value("${app.audio.cache.max-size:268435456}") long maxSize,
+                              @Value("${app.audio.cache.enabled:true}") boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.enabled = enabled;
+
+        this.hits = Counter.builder("stt.transcription.cache.requests").tag("result", "hit")
+                .description("Transcription cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("stt.transcription.cache.requests").tag("result", "miss")
+                .description("Transcription cache lookups").register(meterRegistry);
+        this.upstreamSecondsSaved = Counter.builder("stt.transcription.cache.upstream.saved")
+                .baseUnit("seconds")
+                .description("Upstream transcription time avoided by cache hits")
+                .register(meterRegistry);
+        Gauge.builder("stt.transcription.cache.hit.ratio", this, TranscriptionCache::hitRatio)
+                .description("Share of cache lookups answered from the cache")
+                .register(meterRegistry);
+        Gauge.builder("stt.transcription.cache.size", this, TranscriptionCache::size)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rebuild the index from the directory, oldest access first, after removing temp files
+     * left behind by a crash in the middle of a write
+     */
+    @PostConstruct
+    void load() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+                log.debug("Removed stale transcription cache temp file {}", leftover);
+            }
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(TranscriptionCache::lastModified));
+        synchronized (this) {
+            for (Path file : files) {
+                long fileSize = Files.size(file);
+                entries.put(keyOf(file), fileSize);
+                totalSize += fileSize;
+            }
+            evict();
+        }
+        log.info("Transcription cache holds {} entries ({} bytes)", entries.size(), totalSize);
+    }
+
+    /**
+     * Cache key for a transcription of the given audio under the given options
+     */
+    public String key(String audioSha256, String model, String language, String responseFormat) {
+        String material = String.join("|", audioSha256, normalize(model), normalize(language), normalize(responseFormat));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(material.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A stored transcription, marked with {@code cacheHit} in its metadata
+     */
+    public Optional<TranscriptionResponse> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+        }
+
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        CachedTranscription cached;
+        try {
+            cached = objectMapper.readValue(file.toFile(), CachedTranscription.class);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.warn("Dropping unreadable transcription cache entry {}: {}", key, e.getMessage());
+            remove(key);
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        upstreamSecondsSaved.increment(cached.upstreamMillis() / 1000.0);
+
+        TranscriptionResponse response = cached.response();
+        Map<String, Object> metadata = new HashMap<>(response.getMetadata() != null ? response.getMetadata() : Map.of());
+        metadata.put("cacheHit", true);
+        metadata.put("cachedAt", response.getProcessedAt());
+        response.setMetadata(metadata);
+        response.setProcessedAt(LocalDateTime.now());
+        return Optional.of(response);
+    }
+
+    /**
+     * Store a successful transcription together with the upstream time it took
+     */
+    public void put(String key, TranscriptionResponse response, long upstreamMillis) {
+        if (!enabled || !response.isSuccess()) {
+            return;
+        }
+        Path target = directory.resolve(key + ENTRY_SUFFIX);
+        long fileSize;
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            objectMapper.writeValue(temp.toFile(), new CachedTranscription(response, upstreamMillis));
+            fileSize = Files.size(temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Could not cache transcription {}: {}", key, e.getMessage());
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+            return;
+        }
+        synchronized (this) {
+            Long previous = entries.put(key, fileSize);
+            totalSize += fileSize - (previous != null ? previous : 0);
+            evict();
+        }
+    }
+
+    public double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+
+    public synchronized long size() {
+        return totalSize;
+    }
+
+    private synchronized void remove(String key) {
+        Long fileSize = entries.remove(key);
+        if (fileSize != null) {
+            totalSize -= fileSize;
+        }
+        deleteQuietly(directory.resolve(key + ENTRY_SUFFIX));
+    }
+
+    /**
+     * Drop least recently used entries until the cache fits; caller holds the lock
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalSize > maxSize && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalSize -= entry.getValue();
+            eldest.remove();
+            deleteQuietly(directory.resolve(entry.getKey() + ENTRY_SUFFIX));
+            log.debug("Evicted transcription cache entry {}", entry.getKey());
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    private static String keyOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - ENTRY_SUFFIX.length());
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete transcription cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    record CachedTranscription(TranscriptionResponse response, long upstreamMillis) {
+    }
+}
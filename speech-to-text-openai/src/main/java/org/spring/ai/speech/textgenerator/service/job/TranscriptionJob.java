@@ -0,0 +1,66 @@
+package org.spring.ai.speech.textgenerator.service.job;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+
+import java.time.Instant;
+
+/**
+ * Immutable snapshot of a transcription job, persisted as JSON after every state change
+ */
+public record TranscriptionJob(
+        String id,
+        Status status,
+        String filename,
+        String contentType,
+        String sha256,
+        String language,
+        String responseFormat,
+        String model,
+        String tenant,
+        Instant submittedAt,
+        Instant startedAt,
+        Instant finishedAt,
+        TranscriptionResponse result,
+        String error) {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    static TranscriptionJob queued(String id, String filename, String contentType, String sha256,
+                                   String language, String responseFormat, String model, String tenant) {
+        return new TranscriptionJob(id, Status.QUEUED, filename, contentType, sha256, language,
+                responseFormat, model, tenant, Instant.now(), null, null, null, null);
+    }
+
+    TranscriptionJob started() {
+        return new TranscriptionJob(id, Status.RUNNING, filename, contentType, sha256, language,
+                responseFormat, model, tenant, submittedAt, Instant.now(), null, null, null);
+    }
+
+    /**
+     * Back in the queue with its audio, e.g. after the scheduler turned it away or the service restarted
+     */
+    TranscriptionJob requeued() {
+        return new TranscriptionJob(id, Status.QUEUED, filename, contentType, sha256, language,
+                responseFormat, model, tenant, submittedAt, null, null, null, null);
+    }
+
+    TranscriptionJob finished(TranscriptionResponse response) {
+        Status outcome = response.isSuccess() ? Status.SUCCEEDED : Status.FAILED;
+        return new TranscriptionJob(id, outcome, filename, contentType, sha256, language,
+                responseFormat, model, tenant, submittedAt, startedAt, Instant.now(), response,
+                response.isSuccess() ? null : response.getErrorMessage());
+    }
+
+    TranscriptionJob failed(String reason) {
+        return new TranscriptionJob(id, Status.FAILED, filename, contentType, sha256, language,
+                responseFormat, model, tenant, submittedAt, startedAt, Instant.now(), null, reason);
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
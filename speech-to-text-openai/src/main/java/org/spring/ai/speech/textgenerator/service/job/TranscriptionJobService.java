@@ -0,0 +1,364 @@
+package org.spring.ai.speech.textgenerator.service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionRequest;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+import org.spring.ai.speech.textgenerator.service.SpeechToTextService;
+import org.spring.ai.speech.textgenerator.service.scheduling.FairTranscriptionScheduler;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs transcriptions as background jobs. A submission spools the upload into the job
+ * directory and returns at once; a fixed pool of workers with a bounded queue does the
+ * work, so the number of concurrent upstream calls is capped no matter how many clients
+ * submit. Jobs are persisted on every state change and re-queued after a restart. A job the
+ * scheduler turns away with 429 or 503 goes back to QUEUED with its audio and is retried
+ * after an exponential backoff. Status events are written by a separate small pool, so a
+ * slow subscriber never holds up a worker.
+ */
+@Service
+public class TranscriptionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptionJobService.class);
+
+    private static final int MAX_BACKOFF_DOUBLINGS = 6;
+
+    private final SpeechToTextService speechToTextService;
+    private final AudioValidationService validationService;
+    private final AudioSpooler audioSpooler;
+    private final TranscriptionJobStore store;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor eventSenders;
+    private final ScheduledExecutorService retryTimer;
+    private final Duration resultTtl;
+    private final Duration eventsTimeout;
+    private final Duration retryBackoff;
+    private final int maxAdmissionRetries;
+    private final Map<String, Set<EventStream>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> admissionRetries = new ConcurrentHashMap<>();
+
+    public TranscriptionJobService(SpeechToTextService speechToTextService,
+                                   AudioValidationService validationService,
+                                   AudioSpooler audioSpooler,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.audio.jobs.directory:data/transcription-jobs}") Path directory,
+                                   @Value("${app.audio.jobs.workers:2}") int workers,
+                                   @Value("${app.audio.jobs.max-queued:100}") int maxQueued,
+                                   @Value("${app.audio.jobs.max-retained:1000}") int maxRetained,
+                                   @Value("${app.audio.jobs.result-ttl:24h}") Duration resultTtl,
+                                   @Value("${app.audio.jobs.events-timeout:30m}") Duration eventsTimeout,
+                                   @Value("${app.audio.jobs.event-senders:2}") int eventSenders,
+                                   @Value("${app.audio.jobs.retry-backoff:5s}") Duration retryBackoff,
+                                   @Value("${app.audio.jobs.max-admission-retries:8}") int maxAdmissionRetries) {
+        this.speechToTextService = speechToTextService;
+        this.validationService = validationService;
+        this.audioSpooler = audioSpooler;
+        this.store = new TranscriptionJobStore(directory, objectMapper, Math.max(maxRetained, maxQueued + workers));
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued),
+                Thread.ofPlatform().name("stt-job-worker-", 0).daemon().factory());
+        this.eventSenders = new ThreadPoolExecutor(eventSenders, eventSenders, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("stt-job-events-", 0).daemon().factory());
+        this.retryTimer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("stt-job-retry-", 0).daemon().factory());
+        this.resultTtl = resultTtl;
+        this.eventsTimeout = eventsTimeout;
+        this.retryBackoff = retryBackoff;
+        this.maxAdmissionRetries = maxAdmissionRetries;
+    }
+
+    /**
+     * Re-queue jobs that were waiting or running when the service stopped
+     */
+    @PostConstruct
+    void recover() throws IOException {
+        store.load().stream()
+                .filter(job -> !job.isFinished())
+                .sorted(Comparator.comparing(TranscriptionJob::submittedAt))
+                .forEach(job -> {
+                    Path audio = audioPath(job);
+                    if (!Files.exists(audio)) {
+                        store.save(job.failed("Audio was lost while the service restarted"));
+                        return;
+                    }
+                    TranscriptionJob queued = job.requeued();
+                    store.save(queued);
+                    try {
+                        executor.execute(() -> run(queued.id()));
+                        log.info("Recovered transcription job {}", job.id());
+                    } catch (RejectedExecutionException e) {
+                        store.save(queued.failed("Job queue was full after restart"));
+                        deleteAudio(queued);
+                    }
+                });
+    }
+
+    /**
+     * Spool the upload and queue it.
+     *
+     * @throws ResponseStatusException 429 when the job queue is full
+     */
+    public TranscriptionJob submit(MultipartFile file, String language, String responseFormat, String model,
+                                   String tenant) {
+        validationService.validateAudioFile(file);
+        String id = UUID.randomUUID().toString();
+
+        TranscriptionJob job;
+        try (SpooledAudio spooled = audioSpooler.spool(file)) {
+            job = TranscriptionJob.queued(id, spooled.getOriginalFilename(), spooled.getContentType(),
+                    spooled.getSha256(), language, responseFormat, model, tenant);
+            Files.move(spooled.getPath(), audioPath(job), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not queue transcription job", e);
+        }
+
+        store.save(job);
+        try {
+            executor.execute(() -> run(id));
+        } catch (RejectedExecutionException e) {
+            store.remove(job);
+            deleteAudio(job);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many transcription jobs waiting, try again later");
+        }
+        log.info("Queued transcription job {} for {}, {} waiting", id, job.filename(), executor.getQueue().size());
+        return job;
+    }
+
+    public Optional<TranscriptionJob> find(String id) {
+        return store.find(id);
+    }
+
+    /**
+     * Stream the job's state as {@code status} events, completing after the final state
+     */
+    public SseEmitter events(TranscriptionJob job) {
+        return events(job, new SseEmitter(eventsTimeout.toMillis()));
+    }
+
+    SseEmitter events(TranscriptionJob job, SseEmitter emitter) {
+        EventStream stream = new EventStream(emitter);
+        TranscriptionJob current = store.find(job.id()).orElse(job);
+        if (!current.isFinished()) {
+            Set<EventStream> streams = subscribers.computeIfAbsent(job.id(), id -> ConcurrentHashMap.newKeySet());
+            streams.add(stream);
+            Runnable unsubscribe = () -> streams.remove(stream);
+            emitter.onCompletion(unsubscribe);
+            emitter.onTimeout(unsubscribe);
+            emitter.onError(error -> unsubscribe.run());
+            // Read again after subscribing so a transition in between is not missed
+            current = store.find(job.id()).orElse(current);
+            if (current.isFinished()) {
+                streams.remove(stream);
+                subscribers.computeIfPresent(job.id(), (id, remaining) -> remaining.isEmpty() ? null : remaining);
+            }
+        }
+        stream.offer(current);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.audio.jobs.cleanup-interval:10m}")
+    public void removeExpiredJobs() {
+        int removed = store.removeFinishedBefore(Instant.now().minus(resultTtl));
+        if (removed > 0) {
+            log.debug("Removed {} expired transcription jobs", removed);
+        }
+    }
+
+    private void run(String id) {
+        TranscriptionJob job = store.find(id).orElse(null);
+        if (job == null) {
+            return;
+        }
+        job = job.started();
+        update(job);
+
+        TranscriptionRequest request = TranscriptionRequest.builder()
+                .language(job.language())
+                .responseFormat(job.responseFormat())
+                .model(job.model())
+                .tenant(job.tenant())
+                .build();
+        TranscriptionResponse response;
+        try {
+            // Not closed here: closing deletes the audio, which a job that is turned away still needs
+            SpooledAudio audio = SpooledAudio.open(audioPath(job), job.filename(), job.contentType(), job.sha256());
+            response = speechToTextService.transcribeSpooled(audio, request);
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof ResponseStatusException rejected && FairTranscriptionScheduler.isRejection(rejected)) {
+                requeue(job, rejected);
+                return;
+            }
+            log.warn("Transcription job {} failed: {}", id, e.getMessage());
+            finish(job.failed(e.getMessage()));
+            return;
+        }
+        finish(job.finished(response));
+    }
+
+    private void finish(TranscriptionJob job) {
+        admissionRetries.remove(job.id());
+        update(job);
+        deleteAudio(job);
+    }
+
+    /**
+     * The scheduler rejected the job before it reached upstream (too many waiting, or no slot in
+     * time), so nothing was spent on it: put it back to QUEUED and run it again after a backoff
+     * that doubles with every rejection, failing it only once the retries are used up
+     */
+    private void requeue(TranscriptionJob job, ResponseStatusException rejection) {
+        int attempt = admissionRetries.merge(job.id(), 1, Integer::sum);
+        if (attempt > maxAdmissionRetries) {
+            log.warn("Transcription job {} was turned away {} times, giving up", job.id(), attempt);
+            finish(job.failed("Transcription capacity stayed exhausted: " + rejection.getReason()));
+            return;
+        }
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempt - 1, MAX_BACKOFF_DOUBLINGS));
+        log.info("Transcription job {} was turned away with {}, retrying in {} ms", job.id(),
+                rejection.getStatusCode().value(), delay.toMillis());
+        update(job.requeued());
+        resubmit(job.id(), delay);
+    }
+
+    private void resubmit(String id, Duration delay) {
+        try {
+            retryTimer.schedule(() -> {
+                try {
+                    executor.execute(() -> run(id));
+                } catch (RejectedExecutionException e) {
+                    // Queue full: wait another round. Shutting down: the job stays QUEUED for recover()
+                    if (!executor.isShutdown()) {
+                        resubmit(id, retryBackoff);
+                    }
+                }
+            }, delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Not retrying transcription job {} while shutting down", id);
+        }
+    }
+
+    private void update(TranscriptionJob job) {
+        store.save(job);
+        Set<EventStream> streams = job.isFinished() ? subscribers.remove(job.id()) : subscribers.get(job.id());
+        if (streams != null) {
+            streams.forEach(stream -> stream.offer(job));
+        }
+    }
+
+    private Path audioPath(TranscriptionJob job) {
+        return store.audioPath(job.id(), StringUtils.getFilenameExtension(job.filename()).toLowerCase());
+    }
+
+    private void deleteAudio(TranscriptionJob job) {
+        try {
+            Files.deleteIfExists(audioPath(job));
+        } catch (IOException e) {
+            log.warn("Could not delete audio of transcription job {}: {}", job.id(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Waiting jobs stay QUEUED on disk and running ones RUNNING; recover() picks both up again.
+        // Running calls are not interrupted, so they are not recorded as failures.
+        executor.getQueue().clear();
+        executor.shutdown();
+        retryTimer.shutdownNow();
+        eventSenders.shutdownNow();
+    }
+
+    /**
+     * Delivers one subscriber's status events on the sender pool, one at a time and in order.
+     * A state that arrives while an older one is still being written replaces it, and a state
+     * older than the newest one offered is dropped, so the client always ends on the latest state.
+     */
+    private final class EventStream {
+
+        private final SseEmitter emitter;
+        private int newest = -1;
+        private TranscriptionJob pending;
+        private boolean scheduled;
+
+        private EventStream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(TranscriptionJob job) {
+            synchronized (this) {
+                if (job.status().ordinal() <= newest) {
+                    return;
+                }
+                newest = job.status().ordinal();
+                pending = job;
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                eventSenders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                TranscriptionJob job;
+                synchronized (this) {
+                    if (pending == null) {
+                        scheduled = false;
+                        return;
+                    }
+                    job = pending;
+                    pending = null;
+                }
+                try {
+                    emitter.send(SseEmitter.event().name("status").data(job));
+                    if (job.isFinished()) {
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.spring.ai.speech.textgenerator.service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Job registry backed by one JSON file per job, with the job's audio kept next to it
+ * until the job finishes. Every state change is written to a temp file and moved into
+ * place, so a crash never leaves a half-written job behind. The store holds at most
+ * {@code maxRetained} jobs; beyond that the oldest finished jobs are dropped.
+ */
+class TranscriptionJobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptionJobStore.class);
+
+    private static final String JOB_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final int maxRetained;
+    private final Map<String, TranscriptionJob> jobs = new ConcurrentHashMap<>();
+
+    TranscriptionJobStore(Path directory, ObjectMapper objectMapper, int maxRetained) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.maxRetained = maxRetained;
+    }
+
+    /**
+     * Read every persisted job; unreadable files are logged and skipped, and temp files
+     * left behind by a crash in the middle of a save are removed
+     */
+    List<TranscriptionJob> load() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+                log.debug("Removed stale job temp file {}", leftover);
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + JOB_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    TranscriptionJob job = objectMapper.readValue(file.toFile(), TranscriptionJob.class);
+                    jobs.put(job.id(), job);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable transcription job {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        return List.copyOf(jobs.values());
+    }
+
+    Optional<TranscriptionJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    Collection<TranscriptionJob> all() {
+        return jobs.values();
+    }
+
+    void save(TranscriptionJob job) {
+        Path target = directory.resolve(job.id() + JOB_SUFFIX);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, job.id(), TEMP_SUFFIX);
+            objectMapper.writeValue(temp.toFile(), job);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Could not persist transcription job " + job.id(), e);
+        }
+        jobs.put(job.id(), job);
+        if (jobs.size() > maxRetained) {
+            evictOldestFinished(jobs.size() - maxRetained);
+        }
+    }
+
+    /**
+     * Where the job's audio is kept while it waits; the extension is what the model sees
+     */
+    Path audioPath(String id, String extension) {
+        return directory.resolve(id + "." + extension);
+    }
+
+    void remove(TranscriptionJob job) {
+        jobs.remove(job.id());
+        try {
+            Files.deleteIfExists(directory.resolve(job.id() + JOB_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Could not delete transcription job {}: {}", job.id(), e.getMessage());
+        }
+    }
+
+    int removeFinishedBefore(Instant cutoff) {
+        List<TranscriptionJob> expired = jobs.values().stream()
+                .filter(job -> job.isFinished() && job.finishedAt().isBefore(cutoff))
+                .toList();
+        expired.forEach(this::remove);
+        return expired.size();
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete job temp file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void evictOldestFinished(int count) {
+        jobs.values().stream()
+                .filter(TranscriptionJob::isFinished)
+                .sorted(Comparator.comparing(TranscriptionJob::finishedAt))
+                .limit(count)
+                .toList()
+                .forEach(this::remove);
+    }
+}
@@ -0,0 +1,86 @@
+package org.spring.ai.speech.textgenerator.service.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-request stopwatch over {@link TranscriptionStage}s. Each {@link #lap} charges the
+ * time since the previous lap to one stage, so the stages add up to the total without
+ * gaps. Based on {@link System#nanoTime()} and a single {@code long[]}; nothing is
+ * allocated until the breakdown is put into the response. Not thread-safe: it belongs to
+ * the thread handling the request.
+ */
+public final class StageTimings {
+
+    /** Request attribute under which the web layer passes the request's timings along */
+    public static final String ATTRIBUTE = StageTimings.class.getName();
+
+    private static final TranscriptionStage[] STAGES = TranscriptionStage.values();
+
+    private final long startedAt;
+    private final long[] nanos = new long[STAGES.length];
+    private long lastLap;
+    private long sizeBytes;
+    private double audioSeconds;
+
+    private StageTimings(long startedAt) {
+        this.startedAt = startedAt;
+        this.lastLap = startedAt;
+    }
+
+    public static StageTimings start() {
+        return new StageTimings(System.nanoTime());
+    }
+
+    /**
+     * Charge the time since the previous lap to {@code stage}
+     */
+    public void lap(TranscriptionStage stage) {
+        long now = System.nanoTime();
+        nanos[stage.ordinal()] += now - lastLap;
+        lastLap = now;
+    }
+
+    /**
+     * Move time already charged to {@code from} over to {@code to}, for a step measured inside another
+     */
+    public void split(TranscriptionStage from, TranscriptionStage to, long stageNanos) {
+        long moved = Math.min(stageNanos, nanos[from.ordinal()]);
+        nanos[from.ordinal()] -= moved;
+        nanos[to.ordinal()] += moved;
+    }
+
+    public long nanos(TranscriptionStage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    /**
+     * Time since the request started, including anything not yet charged to a stage
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    public long elapsedMillis() {
+        return elapsedNanos() / 1_000_000;
+    }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public double getAudioSeconds() { return audioSeconds; }
+
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public void setAudioSeconds(double audioSeconds) { this.audioSeconds = audioSeconds; }
+
+    /**
+     * Milliseconds per stage that has run so far, for the response metadata
+     */
+    public Map<String, Double> toMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (TranscriptionStage stage : STAGES) {
+            if (nanos[stage.ordinal()] > 0) {
+                millis.put(stage.tag(), nanos[stage.ordinal()] / 1000 / 1000.0);
+            }
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,34 @@
+package org.spring.ai.speech.textgenerator.service.metrics;
+
+/**
+ * Steps a transcription request goes through, in order
+ */
+public enum TranscriptionStage {
+
+    /** Upload received and multipart parsed, up to the controller being called */
+    RECEIVE("receive"),
+    /** Name, type and size checks in AudioValidationService */
+    VALIDATE("validate"),
+    /** Copying the upload to disk while hashing it */
+    SPOOL("spool"),
+    /** Header sniffing of the spooled file */
+    PROBE("probe"),
+    /** Transcription cache lookups and writes */
+    CACHE("cache"),
+    /** Waiting for an upstream slot in the fair scheduler */
+    QUEUE("queue"),
+    /** Upstream transcription calls, including segmentation */
+    MODEL("model"),
+    /** From the service returning until the response has been written */
+    SERIALIZE("serialize");
+
+    private final String tag;
+
+    TranscriptionStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,82 @@
+package org.spring.ai.speech.textgenerator.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link StageTimings} as {@code stt.transcription.stage} timers tagged with the
+ * stage, a size class and an audio duration class, plus the request total as
+ * {@code stage=total}. Every combination is registered up front so recording is an array
+ * lookup per stage rather than a tag lookup in the registry.
+ */
+@Component
+public class TranscriptionStageMetrics {
+
+    static final String TIMER_NAME = "stt.transcription.stage";
+
+    private static final long MB = 1024 * 1024;
+    private static final String[] SIZE_CLASSES = {"unknown", "lt1mb", "1-10mb", "10-25mb", "gt25mb"};
+    private static final String[] DURATION_CLASSES = {"unknown", "lt30s", "30s-2m", "2m-10m", "gt10m"};
+    private static final TranscriptionStage[] STAGES = TranscriptionStage.values();
+    private static final int TOTAL = STAGES.length;
+
+    // [stage or total][size class][duration class]
+    private final Timer[][][] timers = new Timer[STAGES.length + 1][SIZE_CLASSES.length][DURATION_CLASSES.length];
+
+    public TranscriptionStageMetrics(MeterRegistry meterRegistry) {
+        for (int stage = 0; stage <= TOTAL; stage++) {
+            String stageTag = stage == TOTAL ? "total" : STAGES[stage].tag();
+            for (int size = 0; size < SIZE_CLASSES.length; size++) {
+                for (int duration = 0; duration < DURATION_CLASSES.length; duration++) {
+                    timers[stage][size][duration] = Timer.builder(TIMER_NAME)
+                            .description("Time spent per stage of a transcription request")
+                            .tag("stage", stageTag)
+                            .tag("size", SIZE_CLASSES[size])
+                            .tag("duration", DURATION_CLASSES[duration])
+                            .register(meterRegistry);
+                }
+            }
+        }
+    }
+
+    public void record(StageTimings timings) {
+        int size = sizeClass(timings.getSizeBytes());
+        int duration = durationClass(timings.getAudioSeconds());
+        for (TranscriptionStage stage : STAGES) {
+            long nanos = timings.nanos(stage);
+            if (nanos > 0) {
+                timers[stage.ordinal()][size][duration].record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        timers[TOTAL][size][duration].record(timings.elapsedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    static int sizeClass(long bytes) {
+        if (bytes <= 0) {
+            return 0;
+        }
+        if (bytes < MB) {
+            return 1;
+        }
+        if (bytes < 10 * MB) {
+            return 2;
+        }
+        return bytes <= 25 * MB ? 3 : 4;
+    }
+
+    static int durationClass(double seconds) {
+        if (seconds <= 0) {
+            return 0;
+        }
+        if (seconds < 30) {
+            return 1;
+        }
+        if (seconds < 120) {
+            return 2;
+        }
+        return seconds < 600 ? 3 : 4;
+    }
+}
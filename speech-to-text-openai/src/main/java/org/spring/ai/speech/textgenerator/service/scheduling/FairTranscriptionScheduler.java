@@ -0,0 +1,336 @@
+package org.spring.ai.speech.textgenerator.service.scheduling;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admits upstream transcription calls in weighted fair order across tenants. Every call
+ * costs its estimated audio duration; a tenant's calls get virtual start and finish tags
+ * (start-time fair queuing), and the waiting call with the smallest finish tag goes next.
+ * A tenant with a long backlog therefore only delays others by its weighted share, and a
+ * tenant that was idle starts at the current virtual time instead of banking credit. A call
+ * that gives up waiting is refunded, so its tenant is not charged for audio that never ran.
+ * <p>
+ * At most {@code max-concurrent} calls run at once. Some of those slots are reserved for
+ * short clips, so interactive requests still start while long files fill the rest.
+ * Callers block in {@link #execute} until admitted, up to {@code max-wait}. A waiting caller
+ * holds its request thread, so {@code max-queued} stays well below the connector's thread
+ * count; past it callers get 429 and the threads stay free for everything else.
+ */
+@Service
+public class FairTranscriptionScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(FairTranscriptionScheduler.class);
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final String OTHER_TENANTS_TAG = "other";
+    private static final double BYTES_PER_SECOND_ESTIMATE = 16_000; // 128 kbps
+    private static final int MAX_IDLE_TENANTS = 1000;
+
+    private final int maxConcurrent;
+    private final int longSlots;
+    private final double shortClipSeconds;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Map<String, Double> weights;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+
+    private final Comparator<Ticket> byFinishTag = Comparator.comparingDouble(Ticket::finish)
+            .thenComparingLong(Ticket::sequence);
+    private final PriorityQueue<Ticket> shortQueue = new PriorityQueue<>(byFinishTag);
+    private final PriorityQueue<Ticket> longQueue = new PriorityQueue<>(byFinishTag);
+    private final Map<String, Double> lastFinish = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int running;
+    private int runningLong;
+
+    public FairTranscriptionScheduler(MeterRegistry meterRegistry,
+                                      @Value("${app.audio.scheduling.max-concurrent:4}") int maxConcurrent,
+                                      @Value("${app.audio.scheduling.reserved-short-slots:1}") int reservedShortSlots,
+                                      @Value("${app.audio.scheduling.short-clip-threshold:30s}") Duration shortClipThreshold,
+                                      @Value("${app.audio.scheduling.max-queued:50}") int maxQueued,
+                                      @Value("${app.audio.scheduling.max-wait:5m}") Duration maxWait,
+                                      @Value("${app.audio.scheduling.tenant-weights:}") String tenantWeights) {
+        this.maxConcurrent = maxConcurrent;
+        this.longSlots = Math.max(1, maxConcurrent - reservedShortSlots);
+        this.shortClipSeconds = shortClipThreshold.toMillis() / 1000.0;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.weights = parseWeights(tenantWeights);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("stt.scheduler.queued", this, FairTranscriptionScheduler::getQueued)
+                .description("Transcription calls waiting for an upstream slot")
+                .register(meterRegistry);
+        Gauge.builder("stt.scheduler.running", this, FairTranscriptionScheduler::getRunning)
+                .description("Transcription calls holding an upstream slot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Estimated cost of transcribing the audio: its probed duration, or a guess from the size
+     */
+    public static double estimateSeconds(SpooledAudio audio) {
+        if (audio.getProbe() != null && audio.getProbe().hasDuration()) {
+            return audio.getProbe().durationSeconds();
+        }
+        return audio.getSize() / BYTES_PER_SECOND_ESTIMATE;
+    }
+
+    /**
+     * Whether the call was turned away by {@link #execute} before it reached upstream, so
+     * retrying it later costs nothing but the wait
+     */
+    public static boolean isRejection(ResponseStatusException e) {
+        int status = e.getStatusCode().value();
+        return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    /**
+     * Wait for this tenant's turn, then run {@code call} on the calling thread.
+     *
+     * @throws ResponseStatusException 429 when too many calls are waiting,
+     *         503 when the turn does not come within max-wait
+     */
+    public <T> T execute(String tenant, double costSeconds, Supplier<T> call) {
+        Ticket ticket = enqueue(StringUtils.hasText(tenant) ? tenant.trim() : DEFAULT_TENANT, costSeconds);
+        try {
+            if (!ticket.admitted().await(maxWait.toMillis(), TimeUnit.MILLISECONDS) && withdraw(ticket)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Timed out waiting for a transcription slot, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!withdraw(ticket)) {
+                release(ticket);
+            }
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Interrupted while waiting for a transcription slot");
+        }
+
+        waitTimer(ticket).record(System.nanoTime() - ticket.enqueuedAt(), TimeUnit.NANOSECONDS);
+        try {
+            return call.get();
+        } finally {
+            release(ticket);
+        }
+    }
+
+    public synchronized int getQueued() {
+        return shortQueue.size() + longQueue.size();
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    private synchronized Ticket enqueue(String tenant, double costSeconds) {
+        if (getQueued() >= maxQueued) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many transcriptions waiting, try again later");
+        }
+        double cost = Math.max(1, costSeconds);
+        double start = Math.max(virtualTime, lastFinish.getOrDefault(tenant, 0.0));
+        double finish = start + cost / weights.getOrDefault(tenant, 1.0);
+        lastFinish.put(tenant, finish);
+        if (lastFinish.size() > MAX_IDLE_TENANTS) {
+            // Tenants whose tags are behind the clock have nothing left to account for
+            lastFinish.values().removeIf(tag -> tag <= virtualTime);
+        }
+
+        boolean shortClip = cost <= shortClipSeconds;
+        Ticket ticket = new Ticket(tenant, shortClip, virtualTime, start, finish, sequence++, System.nanoTime());
+        (shortClip ? shortQueue : longQueue).add(ticket);
+        log.debug("Queued {}s of audio for tenant {} with finish tag {}", cost, tenant, finish);
+        dispatch();
+        return ticket;
+    }
+
+    /**
+     * Take a ticket that timed out out of the queue; false when it was admitted in the meantime
+     */
+    private synchronized boolean withdraw(Ticket ticket) {
+        if (!(ticket.shortClip() ? shortQueue : longQueue).remove(ticket)) {
+            return false;
+        }
+        refund(ticket);
+        return true;
+    }
+
+    /**
+     * Re-tag the tenant's later waiting tickets as if the withdrawn one had never been queued,
+     * and roll the tenant's last finish tag back with them. When a later ticket of the tenant
+     * was already admitted its charge stands, so the last finish tag is left alone.
+     */
+    private void refund(Ticket withdrawn) {
+        List<Ticket> later = new ArrayList<>();
+        for (PriorityQueue<Ticket> queue : List.of(shortQueue, longQueue)) {
+            queue.removeIf(waiting -> waiting.tenant().equals(withdrawn.tenant())
+                    && waiting.sequence() > withdrawn.sequence() && later.add(waiting));
+        }
+        later.sort(Comparator.comparingLong(Ticket::sequence));
+
+        double newestFinish = later.isEmpty() ? withdrawn.finish() : later.get(later.size() - 1).finish();
+        double previous = withdrawn.start();
+        for (Ticket waiting : later) {
+            waiting.retag(Math.max(waiting.eligible(), previous));
+            previous = waiting.finish();
+            (waiting.shortClip() ? shortQueue : longQueue).add(waiting);
+        }
+        if (lastFinish.getOrDefault(withdrawn.tenant(), 0.0) == newestFinish) {
+            lastFinish.put(withdrawn.tenant(), previous);
+        }
+        log.debug("Refunded {} of virtual time to tenant {}", withdrawn.finish() - withdrawn.start(),
+                withdrawn.tenant());
+    }
+
+    private synchronized void release(Ticket ticket) {
+        running--;
+        if (!ticket.shortClip()) {
+            runningLong--;
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (running < maxConcurrent) {
+            Ticket shortHead = shortQueue.peek();
+            Ticket longHead = runningLong < longSlots ? longQueue.peek() : null;
+            if (shortHead == null && longHead == null) {
+                return;
+            }
+            Ticket next = longHead == null || (shortHead != null && byFinishTag.compare(shortHead, longHead) <= 0)
+                    ? shortHead : longHead;
+            (next.shortClip() ? shortQueue : longQueue).poll();
+            running++;
+            if (!next.shortClip()) {
+                runningLong++;
+            }
+            virtualTime = Math.max(virtualTime, next.start());
+            next.admitted().countDown();
+        }
+    }
+
+    private Timer waitTimer(Ticket ticket) {
+        // Only configured tenants get their own series so arbitrary tenant ids cannot blow up cardinality
+        String tenantTag = weights.containsKey(ticket.tenant()) || DEFAULT_TENANT.equals(ticket.tenant())
+                ? ticket.tenant() : OTHER_TENANTS_TAG;
+        String clipClass = ticket.shortClip() ? "short" : "long";
+        return waitTimers.computeIfAbsent(tenantTag + '|' + clipClass, key -> Timer.builder("stt.scheduler.queue.wait")
+                .description("Time a transcription waited for an upstream slot")
+                .tag("tenant", tenantTag)
+                .tag("class", clipClass)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Parse {@code tenant=weight} pairs, e.g. {@code acme=4,internal=2}
+     */
+    private static Map<String, Double> parseWeights(String tenantWeights) {
+        Map<String, Double> weights = new HashMap<>();
+        for (String entry : StringUtils.commaDelimitedListToStringArray(tenantWeights)) {
+            String[] pair = entry.split("=", 2);
+            if (pair.length != 2 || !StringUtils.hasText(pair[0])) {
+                throw new IllegalArgumentException("Tenant weight must look like tenant=weight: " + entry);
+            }
+            double weight = Double.parseDouble(pair[1].trim());
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Tenant weight must be positive: " + entry);
+            }
+            weights.put(pair[0].trim(), weight);
+        }
+        return Map.copyOf(weights);
+    }
+
+    /**
+     * A call waiting for or holding a slot. {@code eligible} is the virtual time at enqueue, the
+     * earliest start tag the ticket can have; the tags move only when an earlier ticket of the
+     * same tenant is refunded, and only while the ticket is out of its queue.
+     */
+    private static final class Ticket {
+
+        private final String tenant;
+        private final boolean shortClip;
+        private final double eligible;
+        private final double length;
+        private final long sequence;
+        private final long enqueuedAt;
+        private final CountDownLatch admitted = new CountDownLatch(1);
+        private double start;
+        private double finish;
+
+        Ticket(String tenant, boolean shortClip, double eligible, double start, double finish, long sequence,
+               long enqueuedAt) {
+            this.tenant = tenant;
+            this.shortClip = shortClip;
+            this.eligible = eligible;
+            this.length = finish - start;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+            this.start = start;
+            this.finish = finish;
+        }
+
+        void retag(double newStart) {
+            start = newStart;
+            finish = newStart + length;
+        }
+
+        String tenant() {
+            return tenant;
+        }
+
+        boolean shortClip() {
+            return shortClip;
+        }
+
+        double eligible() {
+            return eligible;
+        }
+
+        double start() {
+            return start;
+        }
+
+        double finish() {
+            return finish;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+
+        long enqueuedAt() {
+            return enqueuedAt;
+        }
+
+        CountDownLatch admitted() {
+            return admitted;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.spring.ai.speech.textgenerator.service.segmentation;
+
+/**
+ * Slice of a WAV data chunk, in bytes relative to the start of the data
+ */
+public record AudioSegment(int index, long offset, long length, double startSeconds, double durationSeconds) {
+}
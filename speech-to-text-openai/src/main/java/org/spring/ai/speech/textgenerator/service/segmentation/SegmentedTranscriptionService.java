@@ -0,0 +1,181 @@
+package org.spring.ai.speech.textgenerator.service.segmentation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.service.scheduling.FairTranscriptionScheduler;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.springframework.ai.audio.transcription.AudioTranscriptionPrompt;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionModel;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Transcribes long PCM WAV recordings by splitting them at silences into segments that fit
+ * a single upstream call, transcribing the segments concurrently, and merging the results in
+ * order with offset-corrected timestamps. Each recording keeps at most {@code parallelism}
+ * segments in flight and submits the next one as the oldest completes, so a long recording
+ * never queues all of its segments ahead of other uploads. Every segment is admitted by the
+ * {@link FairTranscriptionScheduler} on its own, so a long recording holds as many upstream
+ * slots as it has calls in flight and is charged for each of them.
+ */
+@Service
+public class SegmentedTranscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedTranscriptionService.class);
+
+    private final OpenAiAudioTranscriptionModel audioTranscription;
+    private final FairTranscriptionScheduler scheduler;
+    private final Path workDirectory;
+    private final SilenceSegmenter segmenter;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public SegmentedTranscriptionService(OpenAiAudioTranscriptionModel audioTranscription,
+                                         AudioSpooler audioSpooler,
+                                         FairTranscriptionScheduler scheduler,
+                                         @Value("${app.audio.segmentation.max-segment-duration:5m}") Duration maxSegmentDuration,
+                                         @Value("${app.audio.segmentation.max-segment-size:25165824}") long maxSegmentSize,
+                                         @Value("${app.audio.segmentation.silence-threshold-db:-40}") double silenceThresholdDb,
+                                         @Value("${app.audio.segmentation.min-silence:300ms}") Duration minSilence,
+                                         @Value("${app.audio.segmentation.search-window:30s}") Duration searchWindow,
+                                         @Value("${app.audio.segmentation.parallelism:4}") int parallelism) {
+        this.audioTranscription = audioTranscription;
+        this.scheduler = scheduler;
+        this.workDirectory = audioSpooler.getSpoolDirectory();
+        this.segmenter = new SilenceSegmenter(maxSegmentDuration, maxSegmentSize, silenceThresholdDb,
+                minSilence, searchWindow);
+        this.parallelism = parallelism;
+        // Segments mostly wait for a scheduler slot or the upstream response; the scheduler, not
+        // a pool size, decides how many calls run, so a waiting segment only costs a virtual thread
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("stt-segment-", 0).factory());
+    }
+
+    /**
+     * Only 16-bit PCM WAV input can be cut without a codec, and only input too long for a single
+     * upstream call needs cutting. The header is read rather than trusting the file name; anything
+     * else goes to the model in one call.
+     */
+    public boolean supports(SpooledAudio audio) {
+        try (FileChannel channel = FileChannel.open(audio.getPath(), StandardOpenOption.READ)) {
+            return !segmenter.fitsSingleSegment(WavHeader.read(channel));
+        } catch (AudioProcessingException | IOException e) {
+            log.debug("Not segmenting {}: {}", audio.getOriginalFilename(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Transcribe the recording, waiting for the tenant's turn before each upstream call.
+     *
+     * @throws ResponseStatusException 429 or 503 when the scheduler turns a segment away
+     */
+    public SegmentedTranscript transcribe(SpooledAudio audio, OpenAiAudioTranscriptionOptions options,
+                                          String responseFormat, String tenant) {
+        WavHeader header;
+        List<AudioSegment> segments;
+        try (FileChannel channel = FileChannel.open(audio.getPath(), StandardOpenOption.READ)) {
+            header = WavHeader.read(channel);
+            if (segmenter.fitsSingleSegment(header)) {
+                String text = scheduler.execute(tenant, header.durationSeconds(),
+                        () -> call(audio.getPath(), options));
+                return new SegmentedTranscript(text, 1, header.durationSeconds());
+            }
+            segments = segmenter.plan(channel, header);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Transcribing {} ({} s) as {} segments", audio.getOriginalFilename(),
+                Math.round(header.durationSeconds()), segments.size());
+
+        List<Future<String>> futures = new ArrayList<>(segments.size());
+        List<String> parts = new ArrayList<>(segments.size());
+        double[] offsets = new double[segments.size()];
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                // Slide the window: keep up to parallelism segments submitted past the one awaited
+                while (futures.size() < segments.size() && futures.size() < i + parallelism) {
+                    AudioSegment segment = segments.get(futures.size());
+                    futures.add(executor.submit(() -> transcribeSegment(audio.getPath(), header, segment, options,
+                            tenant)));
+                }
+                parts.add(futures.get(i).get());
+                offsets[i] = segments.get(i).startSeconds();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AudioProcessingException("Segmented transcription interrupted", e);
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (cause instanceof ResponseStatusException rejected) {
+                throw rejected;
+            }
+            throw new AudioProcessingException("Segment transcription failed: " + cause.getMessage(), cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        return new SegmentedTranscript(TranscriptMerger.merge(parts, offsets, responseFormat),
+                segments.size(), header.durationSeconds());
+    }
+
+    private String transcribeSegment(Path source, WavHeader header, AudioSegment segment,
+                                     OpenAiAudioTranscriptionOptions options, String tenant) throws IOException {
+        Path segmentFile = Files.createTempFile(workDirectory, "upload-segment-", ".wav");
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+                header.write(out, segment.length());
+                long position = header.dataOffset() + segment.offset();
+                long remaining = segment.length();
+                while (remaining > 0) {
+                    long transferred = in.transferTo(position, remaining, out);
+                    if (transferred <= 0) {
+                        throw new IOException("Unexpected end of audio at segment " + segment.index());
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+            log.debug("Transcribing segment {} at {} s ({} s)", segment.index(),
+                    segment.startSeconds(), segment.durationSeconds());
+            return scheduler.execute(tenant, segment.durationSeconds(), () -> call(segmentFile, options));
+        } finally {
+            Files.deleteIfExists(segmentFile);
+        }
+    }
+
+    private String call(Path file, OpenAiAudioTranscriptionOptions options) {
+        return audioTranscription.call(new AudioTranscriptionPrompt(new FileSystemResource(file), options))
+                .getResult().getOutput();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public record SegmentedTranscript(String text, int segments, double audioSeconds) {
+    }
+}
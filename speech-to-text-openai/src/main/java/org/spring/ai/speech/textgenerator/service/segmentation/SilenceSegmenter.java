@@ -0,0 +1,129 @@
+package org.spring.ai.speech.textgenerator.service.segmentation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans cut points in 16-bit PCM audio. The data is scanned in 20 ms frames; a frame is
+ * silent when its RMS level is below the threshold, and a segment is cut in the middle of
+ * the latest long-enough silence before it reaches its maximum length. When no silence is
+ * found in the search window the segment is cut hard at the maximum.
+ */
+class SilenceSegmenter {
+
+    private static final int FRAMES_PER_SECOND = 50;
+    private static final int FRAMES_PER_READ = FRAMES_PER_SECOND;
+
+    private final Duration maxSegmentDuration;
+    private final long maxSegmentBytes;
+    private final double silenceThreshold;
+    private final Duration minSilence;
+    private final Duration searchWindow;
+
+    SilenceSegmenter(Duration maxSegmentDuration, long maxSegmentBytes, double silenceThresholdDb,
+                     Duration minSilence, Duration searchWindow) {
+        this.maxSegmentDuration = maxSegmentDuration;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.silenceThreshold = Math.pow(10, silenceThresholdDb / 20) * Short.MAX_VALUE;
+        this.minSilence = minSilence;
+        this.searchWindow = searchWindow;
+    }
+
+    /**
+     * Whether the audio fits a single upstream call without scanning it
+     */
+    boolean fitsSingleSegment(WavHeader header) {
+        return header.dataLength() <= maxSegmentBytes
+                && header.durationSeconds() <= maxSegmentDuration.toMillis() / 1000.0;
+    }
+
+    List<AudioSegment> plan(FileChannel channel, WavHeader header) throws IOException {
+        int frameBytes = header.blockAlign() * Math.max(1, header.sampleRate() / FRAMES_PER_SECOND);
+        long totalFrames = header.dataLength() / frameBytes;
+        long maxFrames = Math.max(1, Math.min(
+                maxSegmentDuration.toMillis() * FRAMES_PER_SECOND / 1000,
+                (maxSegmentBytes - WavHeader.CANONICAL_HEADER_SIZE) / frameBytes));
+        long windowFrames = Math.min(maxFrames, searchWindow.toMillis() * FRAMES_PER_SECOND / 1000);
+        long minSilenceFrames = Math.max(1, minSilence.toMillis() * FRAMES_PER_SECOND / 1000);
+
+        List<long[]> cuts = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(frameBytes * FRAMES_PER_READ).order(ByteOrder.LITTLE_ENDIAN);
+        long segmentStart = 0;
+        long silenceStart = -1;
+        long candidate = -1;
+        long frame = 0;
+        while (frame < totalFrames) {
+            buffer.clear();
+            long position = header.dataOffset() + frame * frameBytes;
+            int wanted = (int) Math.min(buffer.capacity(), (totalFrames - frame) * frameBytes);
+            buffer.limit(wanted);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+
+            while (buffer.remaining() >= frameBytes) {
+                if (rms(buffer, frameBytes) < silenceThreshold) {
+                    if (silenceStart < 0) {
+                        silenceStart = frame;
+                    }
+                    if (frame - silenceStart + 1 >= minSilenceFrames) {
+                        candidate = silenceStart + (frame - silenceStart + 1) / 2;
+                    }
+                } else {
+                    silenceStart = -1;
+                }
+                frame++;
+
+                if (frame - segmentStart >= maxFrames) {
+                    boolean silenceInWindow = candidate > segmentStart && candidate >= frame - windowFrames;
+                    long cut = silenceInWindow ? candidate : frame;
+                    cuts.add(new long[]{segmentStart, cut});
+                    segmentStart = cut;
+                    candidate = -1;
+                    if (silenceStart >= 0) {
+                        silenceStart = Math.max(silenceStart, cut);
+                    }
+                }
+            }
+            if (buffer.hasRemaining()) {
+                break; // truncated file
+            }
+        }
+
+        List<AudioSegment> segments = new ArrayList<>(cuts.size() + 1);
+        for (long[] cut : cuts) {
+            segments.add(segment(segments.size(), cut[0] * frameBytes, cut[1] * frameBytes, header));
+        }
+        long lastStart = segmentStart * frameBytes;
+        if (lastStart < header.dataLength()) {
+            segments.add(segment(segments.size(), lastStart, header.dataLength(), header));
+        }
+        return segments;
+    }
+
+    private static AudioSegment segment(int index, long from, long to, WavHeader header) {
+        return new AudioSegment(index, from, to - from,
+                (double) from / header.byteRate(), (double) (to - from) / header.byteRate());
+    }
+
+    /**
+     * RMS of one frame across all channels; consumes the frame from the buffer
+     */
+    private static double rms(ByteBuffer buffer, int frameBytes) {
+        int samples = frameBytes / 2;
+        double sumOfSquares = 0;
+        for (int i = 0; i < samples; i++) {
+            int sample = buffer.getShort();
+            sumOfSquares += (double) sample * sample;
+        }
+        return Math.sqrt(sumOfSquares / samples);
+    }
+}
@@ -0,0 +1,101 @@
+package org.spring.ai.speech.textgenerator.service.segmentation;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Joins per-segment transcripts in order. SRT and VTT cues are shifted by the segment's
+ * start offset and SRT cues renumbered; plain text is joined with a space.
+ */
+final class TranscriptMerger {
+
+    private static final Pattern TIMING = Pattern.compile(
+            "^(\\S+) --> (\\S+)(.*)$");
+    private static final Pattern TIMESTAMP = Pattern.compile(
+            "(?:(\\d+):)?(\\d{1,2}):(\\d{2})[,.](\\d{3})");
+
+    private TranscriptMerger() {
+    }
+
+    /**
+     * @param parts   transcripts in segment order
+     * @param offsets start offset of each segment in seconds
+     * @param format  OpenAI response format ({@code srt}, {@code vtt}, or anything else for text)
+     */
+    static String merge(List<String> parts, double[] offsets, String format) {
+        return switch (format == null ? "" : format.toLowerCase()) {
+            case "srt" -> mergeCues(parts, offsets, false);
+            case "vtt" -> mergeCues(parts, offsets, true);
+            default -> mergeText(parts);
+        };
+    }
+
+    private static String mergeText(List<String> parts) {
+        StringBuilder merged = new StringBuilder();
+        for (String part : parts) {
+            String text = part == null ? "" : part.strip();
+            if (!text.isEmpty()) {
+                if (!merged.isEmpty()) {
+                    merged.append(' ');
+                }
+                merged.append(text);
+            }
+        }
+        return merged.toString();
+    }
+
+    private static String mergeCues(List<String> parts, double[] offsets, boolean vtt) {
+        StringBuilder merged = new StringBuilder(vtt ? "WEBVTT\n\n" : "");
+        int cueNumber = 1;
+        for (int i = 0; i < parts.size(); i++) {
+            long offsetMillis = Math.round(offsets[i] * 1000);
+            for (String block : parts.get(i).replace("\r\n", "\n").split("\n\\s*\n")) {
+                String[] lines = block.strip().split("\n");
+                int timingLine = -1;
+                for (int l = 0; l < lines.length; l++) {
+                    if (TIMING.matcher(lines[l]).matches()) {
+                        timingLine = l;
+                        break;
+                    }
+                }
+                if (timingLine < 0) {
+                    continue; // WEBVTT header, NOTE or STYLE blocks
+                }
+
+                Matcher timing = TIMING.matcher(lines[timingLine]);
+                timing.matches();
+                if (vtt && timingLine > 0) {
+                    merged.append(lines[timingLine - 1]).append('\n'); // cue identifier
+                } else if (!vtt) {
+                    merged.append(cueNumber).append('\n');
+                }
+                merged.append(format(parse(timing.group(1)) + offsetMillis, vtt))
+                        .append(" --> ")
+                        .append(format(parse(timing.group(2)) + offsetMillis, vtt))
+                        .append(timing.group(3)).append('\n');
+                for (int l = timingLine + 1; l < lines.length; l++) {
+                    merged.append(lines[l]).append('\n');
+                }
+                merged.append('\n');
+                cueNumber++;
+            }
+        }
+        return merged.toString();
+    }
+
+    static long parse(String timestamp) {
+        Matcher matcher = TIMESTAMP.matcher(timestamp);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid cue timestamp: " + timestamp);
+        }
+        long hours = matcher.group(1) == null ? 0 : Long.parseLong(matcher.group(1));
+        return ((hours * 60 + Long.parseLong(matcher.group(2))) * 60 + Long.parseLong(matcher.group(3))) * 1000
+                + Long.parseLong(matcher.group(4));
+    }
+
+    static String format(long millis, boolean vtt) {
+        return String.format("%02d:%02d:%02d%c%03d",
+                millis / 3_600_000, millis / 60_000 % 60, millis / 1000 % 60, vtt ? '.' : ',', millis % 1000);
+    }
+}
@@ -0,0 +1,118 @@
+package org.spring.ai.speech.textgenerator.service.segmentation;
+
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Layout of a PCM WAV file: sample format plus where the {@code data} chunk lives
+ */
+public record WavHeader(int channels, int sampleRate, int bitsPerSample, long dataOffset, long dataLength) {
+
+    public static final int CANONICAL_HEADER_SIZE = 44;
+
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    public int blockAlign() {
+        return channels * (bitsPerSample / 8);
+    }
+
+    public long byteRate() {
+        return (long) sampleRate * blockAlign();
+    }
+
+    public double durationSeconds() {
+        return (double) dataLength / byteRate();
+    }
+
+    /**
+     * Walk the RIFF chunk list with positional reads; only the chunk headers are touched
+     */
+    public static WavHeader read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, 0, 12);
+        if (buffer.getInt(0) != 0x46464952 || buffer.getInt(8) != 0x45564157) { // "RIFF" / "WAVE"
+            throw new AudioProcessingException("Not a RIFF/WAVE file");
+        }
+
+        long fileSize = channel.size();
+        long position = 12;
+        int channels = 0;
+        int sampleRate = 0;
+        int bitsPerSample = 0;
+        while (position + 8 <= fileSize) {
+            readFully(channel, buffer, position, 8);
+            int chunkId = buffer.getInt(0);
+            long chunkSize = Integer.toUnsignedLong(buffer.getInt(4));
+            long body = position + 8;
+
+            if (chunkId == 0x20746d66) { // "fmt "
+                readFully(channel, buffer, body, (int) Math.min(chunkSize, buffer.capacity()));
+                int format = Short.toUnsignedInt(buffer.getShort(0));
+                channels = Short.toUnsignedInt(buffer.getShort(2));
+                sampleRate = buffer.getInt(4);
+                bitsPerSample = Short.toUnsignedInt(buffer.getShort(14));
+                if (format != FORMAT_PCM && format != FORMAT_EXTENSIBLE) {
+                    throw new AudioProcessingException("Only PCM WAV audio can be segmented (format " + format + ")");
+                }
+            } else if (chunkId == 0x61746164) { // "data"
+                if (sampleRate == 0) {
+                    throw new AudioProcessingException("WAV data chunk precedes its fmt chunk");
+                }
+                if (bitsPerSample != 16) {
+                    throw new AudioProcessingException("Only 16-bit PCM WAV audio can be segmented");
+                }
+                // Streaming writers leave the size as 0 or 0xFFFFFFFF; trust the file length instead
+                long available = fileSize - body;
+                long dataLength = chunkSize == 0 || chunkSize > available ? available : chunkSize;
+                int blockAlign = channels * 2;
+                return new WavHeader(channels, sampleRate, bitsPerSample, body,
+                        dataLength - dataLength % blockAlign);
+            }
+            position = body + chunkSize + (chunkSize & 1);
+        }
+        throw new AudioProcessingException("WAV file has no data chunk");
+    }
+
+    /**
+     * Write a canonical 44-byte header describing {@code dataLength} bytes in this format
+     */
+    void write(WritableByteChannel target, long dataLength) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(CANONICAL_HEADER_SIZE);
+        put(header, dataLength);
+        header.flip();
+        while (header.hasRemaining()) {
+            target.write(header);
+        }
+    }
+
+    /**
+     * Put the canonical 44-byte header at the buffer's position, for callers assembling WAV files in memory
+     */
+    public void put(ByteBuffer target, long dataLength) {
+        ByteOrder order = target.order();
+        target.order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x46464952).putInt((int) (36 + dataLength)).putInt(0x45564157)
+                .putInt(0x20746d66).putInt(16)
+                .putShort((short) FORMAT_PCM).putShort((short) channels)
+                .putInt(sampleRate).putInt((int) byteRate())
+                .putShort((short) blockAlign()).putShort((short) bitsPerSample)
+                .putInt(0x61746164).putInt((int) dataLength)
+                .order(order);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+            throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new AudioProcessingException("Truncated WAV header");
+            }
+        }
+    }
+}
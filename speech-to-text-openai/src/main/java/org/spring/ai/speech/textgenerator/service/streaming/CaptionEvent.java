@@ -0,0 +1,27 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Message pushed to a streaming client. A {@code partial} event is a provisional caption
+ * for the window still being spoken and is superseded by the {@code final} event of the
+ * same window; {@code end} follows the last caption after the client finished the stream.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CaptionEvent(Type type, long window, String text, double startSeconds, double endSeconds,
+                           Long latencyMillis) {
+
+    public enum Type {
+        PARTIAL, FINAL, ERROR, END;
+
+        @JsonValue
+        public String value() {
+            return name().toLowerCase();
+        }
+    }
+
+    static CaptionEvent end(long windows, double endSeconds) {
+        return new CaptionEvent(Type.END, windows, null, endSeconds, endSeconds, null);
+    }
+}
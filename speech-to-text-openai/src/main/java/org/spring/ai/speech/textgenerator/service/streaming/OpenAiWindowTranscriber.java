@@ -0,0 +1,47 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+import org.springframework.ai.audio.transcription.AudioTranscriptionPrompt;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionModel;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionOptions;
+import org.springframework.ai.openai.api.OpenAiAudioApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * Sends streamed windows to the OpenAI transcription model as plain-text requests
+ */
+@Component
+public class OpenAiWindowTranscriber implements WindowTranscriber {
+
+    private final OpenAiAudioTranscriptionModel audioTranscription;
+    private final String model;
+
+    public OpenAiWindowTranscriber(OpenAiAudioTranscriptionModel audioTranscription,
+                                   @Value("${app.audio.streaming.model:whisper-1}") String model) {
+        this.audioTranscription = audioTranscription;
+        this.model = model;
+    }
+
+    @Override
+    public String transcribe(byte[] wav, int length, String language) {
+        OpenAiAudioTranscriptionOptions.Builder options = OpenAiAudioTranscriptionOptions.builder()
+                .responseFormat(OpenAiAudioApi.TranscriptResponseFormat.TEXT)
+                .model(model);
+        if (StringUtils.hasText(language)) {
+            options.language(language.trim());
+        }
+        // The request body is built from a copy anyway; the multipart part needs a file name
+        ByteArrayResource audio = new ByteArrayResource(Arrays.copyOf(wav, length)) {
+            @Override
+            public String getFilename() {
+                return "window.wav";
+            }
+        };
+        return audioTranscription.call(new AudioTranscriptionPrompt(audio, options.build()))
+                .getResult().getOutput().trim();
+    }
+}
@@ -0,0 +1,99 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size ring of 16-bit little-endian PCM, allocated once per connection. Positions are
+ * absolute byte counts since the stream started, so callers can hold on to window bounds
+ * while the ring wraps underneath them. When the ring is full the oldest audio is
+ * overwritten; {@link #start()} tells what is still available.
+ */
+final class PcmRingBuffer {
+
+    private final byte[] buffer;
+    private long start;
+    private long end;
+
+    PcmRingBuffer(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Absolute position of the oldest byte still held
+     */
+    long start() {
+        return start;
+    }
+
+    /**
+     * Absolute position one past the newest byte
+     */
+    long end() {
+        return end;
+    }
+
+    /**
+     * Append the remaining bytes of {@code source}, overwriting the oldest audio if needed.
+     *
+     * @return the number of bytes that were overwritten before anyone read them
+     */
+    long write(ByteBuffer source) {
+        int length = source.remaining();
+        if (length > buffer.length) {
+            // Only the newest capacity bytes can survive, skip the rest of the input
+            source.position(source.position() + length - buffer.length);
+            end += length - buffer.length;
+            length = buffer.length;
+        }
+        int offset = index(end);
+        int first = Math.min(length, buffer.length - offset);
+        source.get(buffer, offset, first);
+        source.get(buffer, 0, length - first);
+        end += length;
+
+        long dropped = Math.max(0, end - buffer.length - start);
+        start += dropped;
+        return dropped;
+    }
+
+    /**
+     * Copy {@code length} bytes starting at absolute position {@code from} into {@code target}
+     */
+    void copy(long from, int length, byte[] target, int targetOffset) {
+        checkRange(from, length);
+        int offset = index(from);
+        int first = Math.min(length, buffer.length - offset);
+        System.arraycopy(buffer, offset, target, targetOffset, first);
+        System.arraycopy(buffer, 0, target, targetOffset + first, length - first);
+    }
+
+    /**
+     * RMS level of the samples in {@code [from, from + length)}; {@code from} must be sample aligned
+     */
+    double rms(long from, int length) {
+        checkRange(from, length);
+        int samples = length / 2;
+        double sumOfSquares = 0;
+        for (int i = 0; i < samples; i++) {
+            int offset = index(from + 2L * i);
+            int sample = (short) ((buffer[offset] & 0xFF) | (buffer[(offset + 1) % buffer.length] << 8));
+            sumOfSquares += (double) sample * sample;
+        }
+        return samples == 0 ? 0 : Math.sqrt(sumOfSquares / samples);
+    }
+
+    private int index(long position) {
+        return (int) (position % buffer.length);
+    }
+
+    private void checkRange(long from, int length) {
+        if (from < start || from + length > end) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Range [%d, %d) is outside the buffered audio [%d, %d)", from, from + length, start, end));
+        }
+    }
+}
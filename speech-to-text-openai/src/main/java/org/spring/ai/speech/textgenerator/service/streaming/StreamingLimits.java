@@ -0,0 +1,10 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+import java.time.Duration;
+
+/**
+ * Windowing settings shared by all streaming sessions
+ */
+record StreamingLimits(Duration maxWindow, Duration minSilence, double silenceThresholdDb,
+                       Duration partialInterval, Duration buffer) {
+}
@@ -0,0 +1,258 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.service.segmentation.WavHeader;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One live audio stream: mono 16-bit little-endian PCM goes in, captions come out.
+ * Incoming audio is written to a {@link PcmRingBuffer} and scanned in 20 ms frames. A
+ * window closes after a long-enough silence following speech, or when it reaches the
+ * maximum length; leading silence is never sent upstream. Windows are transcribed one at
+ * a time so captions arrive in order and a single preallocated WAV buffer can be reused.
+ * While the stream is idle upstream, the open window is transcribed every partial
+ * interval and pushed as a {@code partial} caption.
+ * <p>
+ * Memory stays fixed per connection. When transcription falls behind real time, the
+ * ring overwrites the oldest audio and windows that lost all their audio are skipped.
+ */
+public class StreamingSession {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingSession.class);
+
+    private static final int FRAMES_PER_SECOND = 50;
+
+    private final String id;
+    private final String language;
+    private final WindowTranscriber transcriber;
+    private final Executor executor;
+    private final Consumer<CaptionEvent> sink;
+    private final Timer partialLatency;
+    private final Timer finalLatency;
+    private final Counter droppedBytes;
+    private final Runnable onClose;
+
+    private final WavHeader format;
+    private final PcmRingBuffer ring;
+    private final byte[] wav;
+    private final ByteBuffer wavHeader;
+    private final int frameBytes;
+    private final int maxWindowBytes;
+    private final int preRollBytes;
+    private final int minSilenceFrames;
+    private final long partialIntervalBytes;
+    private final double silenceThreshold;
+
+    private final Deque<Window> pending = new ArrayDeque<>();
+    private long analysed;
+    private long windowStart;
+    private long lastPartialEnd;
+    private long windows;
+    private int silentFrames;
+    private boolean heardSpeech;
+    private boolean busy;
+    private boolean finishing;
+    private boolean ended;
+    private boolean closed;
+
+    StreamingSession(String id, String language, int sampleRate, StreamingLimits limits,
+                     WindowTranscriber transcriber, Executor executor, Consumer<CaptionEvent> sink,
+                     Timer partialLatency, Timer finalLatency, Counter droppedBytes, Runnable onClose) {
+        this.id = id;
+        this.language = language;
+        this.transcriber = transcriber;
+        this.executor = executor;
+        this.sink = sink;
+        this.partialLatency = partialLatency;
+        this.finalLatency = finalLatency;
+        this.droppedBytes = droppedBytes;
+        this.onClose = onClose;
+
+        this.format = new WavHeader(1, sampleRate, 16, WavHeader.CANONICAL_HEADER_SIZE, 0);
+        this.frameBytes = 2 * Math.max(1, sampleRate / FRAMES_PER_SECOND);
+        this.maxWindowBytes = frames(limits.maxWindow().toMillis()) * frameBytes;
+        this.preRollBytes = frames(limits.minSilence().toMillis()) * frameBytes;
+        this.minSilenceFrames = frames(limits.minSilence().toMillis());
+        this.partialIntervalBytes = limits.partialInterval().isZero()
+                ? 0 : (long) frames(limits.partialInterval().toMillis()) * frameBytes;
+        this.silenceThreshold = Math.pow(10, limits.silenceThresholdDb() / 20) * Short.MAX_VALUE;
+        int ringBytes = Math.max(2 * maxWindowBytes, frames(limits.buffer().toMillis()) * frameBytes);
+        this.ring = new PcmRingBuffer(ringBytes);
+        this.wav = new byte[WavHeader.CANONICAL_HEADER_SIZE + maxWindowBytes];
+        this.wavHeader = ByteBuffer.wrap(wav);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Feed the next chunk of PCM; chunks need not be frame or sample aligned
+     */
+    public synchronized void accept(ByteBuffer pcm) {
+        if (closed || finishing) {
+            return;
+        }
+        long dropped = ring.write(pcm);
+        if (dropped > 0) {
+            droppedBytes.increment(dropped);
+        }
+
+        while (ring.end() - analysed >= frameBytes) {
+            if (analysed < ring.start()) {
+                // A chunk larger than the ring skipped audio we never looked at
+                analysed = ring.start() + (frameBytes - ring.start() % frameBytes) % frameBytes;
+                windowStart = Math.max(windowStart, analysed);
+                continue;
+            }
+            boolean silent = ring.rms(analysed, frameBytes) < silenceThreshold;
+            analysed += frameBytes;
+            if (silent) {
+                silentFrames++;
+                if (!heardSpeech) {
+                    windowStart = Math.max(windowStart, analysed - preRollBytes);
+                } else if (silentFrames >= minSilenceFrames) {
+                    closeWindow();
+                }
+            } else {
+                heardSpeech = true;
+                silentFrames = 0;
+            }
+            if (heardSpeech && analysed - windowStart >= maxWindowBytes) {
+                closeWindow();
+            }
+        }
+
+        if (partialIntervalBytes > 0 && heardSpeech && !busy && pending.isEmpty()
+                && analysed - lastPartialEnd >= partialIntervalBytes) {
+            pending.add(new Window(windows + 1, windowStart, analysed, System.nanoTime(), true));
+            lastPartialEnd = analysed;
+        }
+        dispatch();
+    }
+
+    /**
+     * The client has no more audio: close the open window and send {@code end} after its caption
+     */
+    public synchronized void finish() {
+        if (closed || finishing) {
+            return;
+        }
+        finishing = true;
+        if (heardSpeech) {
+            closeWindow();
+        }
+        dispatch();
+    }
+
+    /**
+     * Drop everything not yet transcribed; safe to call more than once
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+        }
+        onClose.run();
+    }
+
+    private void closeWindow() {
+        // Windows whose audio has been overwritten while waiting are of no use any more
+        while (!pending.isEmpty() && pending.peek().to() <= ring.start()) {
+            pending.poll();
+        }
+        pending.add(new Window(++windows, windowStart, analysed, System.nanoTime(), false));
+        windowStart = analysed;
+        lastPartialEnd = analysed;
+        heardSpeech = false;
+        silentFrames = 0;
+    }
+
+    private void dispatch() {
+        while (!busy && !closed && !pending.isEmpty()) {
+            Window window = pending.poll();
+            long from = Math.max(window.from(), ring.start());
+            if (from >= window.to()) {
+                log.warn("Streaming session {} fell behind; window {} was overwritten", id, window.index());
+                continue;
+            }
+            int length = (int) (window.to() - from);
+            ring.copy(from, length, wav, WavHeader.CANONICAL_HEADER_SIZE);
+            format.put(wavHeader.clear(), length);
+
+            busy = true;
+            try {
+                executor.execute(() -> transcribe(window, from, WavHeader.CANONICAL_HEADER_SIZE + length));
+            } catch (RejectedExecutionException e) {
+                busy = false;
+                emit(new CaptionEvent(CaptionEvent.Type.ERROR, window.index(), "Service is shutting down",
+                        seconds(from), seconds(window.to()), null));
+                closed = true;
+                pending.clear();
+            }
+        }
+        if (finishing && !ended && !busy && pending.isEmpty() && !closed) {
+            ended = true;
+            emit(CaptionEvent.end(windows, seconds(analysed)));
+        }
+    }
+
+    private void transcribe(Window window, long from, int length) {
+        CaptionEvent.Type type = window.partial() ? CaptionEvent.Type.PARTIAL : CaptionEvent.Type.FINAL;
+        String text;
+        try {
+            text = transcriber.transcribe(wav, length, language);
+        } catch (RuntimeException e) {
+            log.warn("Streaming session {} could not transcribe window {}: {}", id, window.index(), e.getMessage());
+            type = CaptionEvent.Type.ERROR;
+            text = "Transcription failed: " + e.getMessage();
+        }
+
+        synchronized (this) {
+            busy = false;
+            if (closed) {
+                return;
+            }
+            long latency = System.nanoTime() - window.closedAt();
+            (window.partial() ? partialLatency : finalLatency).record(latency, TimeUnit.NANOSECONDS);
+            emit(new CaptionEvent(type, window.index(), text, seconds(from), seconds(window.to()),
+                    TimeUnit.NANOSECONDS.toMillis(latency)));
+            dispatch();
+        }
+    }
+
+    private void emit(CaptionEvent event) {
+        try {
+            sink.accept(event);
+        } catch (RuntimeException e) {
+            log.debug("Streaming session {} could not deliver {} event: {}", id, event.type(), e.getMessage());
+        }
+    }
+
+    private double seconds(long position) {
+        return (double) position / format.byteRate();
+    }
+
+    private static int frames(long millis) {
+        return (int) Math.max(1, millis * FRAMES_PER_SECOND / 1000);
+    }
+
+    /**
+     * Audio range to transcribe; {@code closedAt} is when its last byte arrived
+     */
+    private record Window(long index, long from, long to, long closedAt, boolean partial) {
+    }
+}
@@ -0,0 +1,114 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Opens live transcription sessions. Every session transcribes at most one window at a
+ * time; their upstream calls share a fixed pool, and the number of open sessions is capped
+ * so the per-connection buffers cannot add up without limit.
+ */
+@Service
+public class StreamingTranscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingTranscriptionService.class);
+
+    private final WindowTranscriber transcriber;
+    private final StreamingLimits limits;
+    private final int defaultSampleRate;
+    private final int maxSessions;
+    private final ExecutorService executor;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final Timer partialLatency;
+    private final Timer finalLatency;
+    private final Counter droppedBytes;
+
+    public StreamingTranscriptionService(WindowTranscriber transcriber,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.audio.streaming.sample-rate:16000}") int defaultSampleRate,
+                                         @Value("${app.audio.streaming.max-window:15s}") Duration maxWindow,
+                                         @Value("${app.audio.streaming.min-silence:500ms}") Duration minSilence,
+                                         @Value("${app.audio.streaming.silence-threshold-db:-40}") double silenceThresholdDb,
+                                         @Value("${app.audio.streaming.partial-interval:2s}") Duration partialInterval,
+                                         @Value("${app.audio.streaming.buffer:30s}") Duration buffer,
+                                         @Value("${app.audio.streaming.max-sessions:50}") int maxSessions,
+                                         @Value("${app.audio.streaming.workers:8}") int workers) {
+        this.transcriber = transcriber;
+        this.limits = new StreamingLimits(maxWindow, minSilence, silenceThresholdDb, partialInterval, buffer);
+        this.defaultSampleRate = defaultSampleRate;
+        this.maxSessions = maxSessions;
+        this.executor = Executors.newFixedThreadPool(workers,
+                Thread.ofPlatform().name("stt-stream-worker-", 0).daemon().factory());
+
+        this.partialLatency = latencyTimer(meterRegistry, "partial");
+        this.finalLatency = latencyTimer(meterRegistry, "final");
+        this.droppedBytes = Counter.builder("stt.streaming.audio.dropped")
+                .description("PCM overwritten before it could be transcribed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("stt.streaming.sessions", activeSessions, AtomicInteger::get)
+                .description("Open streaming transcription sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a session whose captions go to {@code sink}; the caller must {@link StreamingSession#close()} it.
+     *
+     * @param sampleRate sample rate of the mono 16-bit PCM, or {@code null} for the configured default
+     * @throws AudioProcessingException when the sample rate is unusable
+     * @throws ResponseStatusException 429 when all sessions are taken
+     */
+    public StreamingSession open(String language, Integer sampleRate, Consumer<CaptionEvent> sink) {
+        int rate = sampleRate != null ? sampleRate : defaultSampleRate;
+        if (rate < 8000 || rate > 48000) {
+            throw new AudioProcessingException("Sample rate must be between 8000 and 48000 Hz, got " + rate);
+        }
+        if (activeSessions.incrementAndGet() > maxSessions) {
+            activeSessions.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many streaming sessions, try again later");
+        }
+
+        String id = UUID.randomUUID().toString();
+        log.info("Opened streaming session {} at {} Hz, {} active", id, rate, activeSessions.get());
+        return new StreamingSession(id, language, rate, limits, transcriber, executor, sink,
+                partialLatency, finalLatency, droppedBytes, () -> {
+                    activeSessions.decrementAndGet();
+                    log.info("Closed streaming session {}", id);
+                });
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String type) {
+        return Timer.builder("stt.streaming.caption.latency")
+                .description("Time from the last audio of a window arriving to its caption being sent")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
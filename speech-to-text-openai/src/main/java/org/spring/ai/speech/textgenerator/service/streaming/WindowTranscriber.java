@@ -0,0 +1,12 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+/**
+ * Turns one closed window of streamed audio into text. The window is handed over as a
+ * complete WAV file in {@code wav[0, length)}; the array is reused for the next window,
+ * so implementations must not keep it after returning.
+ */
+@FunctionalInterface
+public interface WindowTranscriber {
+
+    String transcribe(byte[] wav, int length, String language);
+}
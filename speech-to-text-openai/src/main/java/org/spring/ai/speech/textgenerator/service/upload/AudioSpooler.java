@@ -0,0 +1,159 @@
+package org.spring.ai.speech.textgenerator.service.upload;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.service.validation.AudioProbeResult;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Streams audio uploads to temporary files through a fixed-size buffer, hashing and
+ * enforcing the size limit on the fly so no upload is ever held in memory as a whole.
+ */
+@Service
+public class AudioSpooler {
+
+    private static final Logger log = LoggerFactory.getLogger(AudioSpooler.class);
+
+    private static final String SPOOL_PREFIX = "upload-";
+
+    private final AudioValidationService validationService;
+    private final Path spoolDirectory;
+    private final int bufferSize;
+
+    public AudioSpooler(AudioValidationService validationService,
+                        @Value("${app.audio.spool.directory:${java.io.tmpdir}/speech-to-text-spool}") Path spoolDirectory,
+                        @Value("${app.audio.spool.buffer-size:65536}") int bufferSize) {
+        this.validationService = validationService;
+        this.spoolDirectory = spoolDirectory;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Create the spool directory and remove files left behind by a previous crash
+     */
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(spoolDirectory);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(spoolDirectory, SPOOL_PREFIX + "*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+                log.debug("Removed stale spool file {}", leftover);
+            }
+        }
+    }
+
+    /**
+     * Spool a multipart upload that has already passed validation
+     */
+    public SpooledAudio spool(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return spool(in, file.getOriginalFilename(), file.getContentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Spool a raw audio stream. The name and type are validated before the first byte
+     * is read; the size limit is enforced while copying.
+     */
+    public SpooledAudio spool(InputStream in, String originalFilename, String contentType) {
+        validationService.validateUploadMetadata(originalFilename, contentType);
+        long maxFileSize = validationService.getMaxFileSize(originalFilename);
+
+        Path target;
+        try {
+            target = Files.createTempFile(spoolDirectory, SPOOL_PREFIX,
+                    "." + StringUtils.getFilenameExtension(originalFilename).toLowerCase());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create spool file", e);
+        }
+
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        long size = 0;
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel sink = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                size += buffer.remaining();
+                if (size > maxFileSize) {
+                    throw new AudioProcessingException(
+                            String.format("File size exceeds maximum allowed size (%d bytes)", maxFileSize));
+                }
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    sink.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(target);
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new UncheckedIOException("Could not spool upload " + originalFilename, (IOException) e);
+        }
+
+        if (size == 0) {
+            deleteQuietly(target);
+            throw new AudioProcessingException("Audio file is required and cannot be empty");
+        }
+
+        // Reject non-audio and mislabelled files before anything is sent upstream
+        AudioProbeResult probe;
+        long probeStart = System.nanoTime();
+        try {
+            probe = validationService.probe(target, originalFilename);
+        } catch (RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        log.debug("Spooled {} ({} bytes, sha256 {}) to {}", originalFilename, size, hash, target);
+        return new SpooledAudio(target, originalFilename, contentType, size, hash, probe,
+                System.nanoTime() - probeStart);
+    }
+
+    public Path getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spool file {}: {}", path, e.getMessage());
+        }
+    }
+}
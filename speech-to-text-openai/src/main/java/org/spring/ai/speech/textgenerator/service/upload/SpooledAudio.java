@@ -0,0 +1,74 @@
+package org.spring.ai.speech.textgenerator.service.upload;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spring.ai.speech.textgenerator.service.validation.AudioProbe;
+import org.spring.ai.speech.textgenerator.service.validation.AudioProbeResult;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Audio upload spooled to a temporary file. Closing it deletes the file.
+ */
+public final class SpooledAudio implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpooledAudio.class);
+
+    private final Path path;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private final String sha256;
+    private final AudioProbeResult probe;
+    private final long probeNanos;
+
+    SpooledAudio(Path path, String originalFilename, String contentType, long size, String sha256,
+                 AudioProbeResult probe, long probeNanos) {
+        this.path = path;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.size = size;
+        this.sha256 = sha256;
+        this.probe = probe;
+        this.probeNanos = probeNanos;
+    }
+
+    /**
+     * Re-open audio that was spooled earlier and moved, e.g. a queued job's input after a restart
+     */
+    public static SpooledAudio open(Path path, String originalFilename, String contentType, String sha256)
+            throws IOException {
+        long probeStart = System.nanoTime();
+        AudioProbeResult probe = AudioProbe.probe(path);
+        return new SpooledAudio(path, originalFilename, contentType, Files.size(path), sha256,
+                probe, System.nanoTime() - probeStart);
+    }
+
+    /**
+     * File-backed resource over the spooled audio; its filename keeps the original extension
+     */
+    public Resource resource() {
+        return new FileSystemResource(path);
+    }
+
+    public Path getPath() { return path; }
+    public String getOriginalFilename() { return originalFilename; }
+    public String getContentType() { return contentType; }
+    public long getSize() { return size; }
+    public String getSha256() { return sha256; }
+    public AudioProbeResult getProbe() { return probe; }
+    public long getProbeNanos() { return probeNanos; }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled audio {}: {}", path, e.getMessage());
+        }
+    }
+}
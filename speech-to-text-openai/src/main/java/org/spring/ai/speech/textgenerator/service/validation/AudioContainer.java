@@ -0,0 +1,33 @@
+package org.spring.ai.speech.textgenerator.service.validation;
+
+import java.util.Set;
+
+/**
+ * Audio containers recognised by {@link AudioProbe}, with the file extensions that may carry them
+ */
+public enum AudioContainer {
+
+    WAV("audio/wav", Set.of("wav")),
+    MP3("audio/mpeg", Set.of("mp3", "mpeg", "mpga")),
+    FLAC("audio/flac", Set.of("flac")),
+    OGG("audio/ogg", Set.of("ogg", "oga", "opus")),
+    MP4("audio/mp4", Set.of("mp4", "m4a")),
+    WEBM("audio/webm", Set.of("webm")),
+    MPEG_PS("video/mpeg", Set.of("mpeg", "mpg"));
+
+    private final String mimeType;
+    private final Set<String> extensions;
+
+    AudioContainer(String mimeType, Set<String> extensions) {
+        this.mimeType = mimeType;
+        this.extensions = extensions;
+    }
+
+    public String mimeType() {
+        return mimeType;
+    }
+
+    public boolean matchesExtension(String extension) {
+        return extension != null && extensions.contains(extension.toLowerCase());
+    }
+}
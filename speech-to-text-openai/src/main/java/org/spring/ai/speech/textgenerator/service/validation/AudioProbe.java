@@ -0,0 +1,470 @@
+package org.spring.ai.speech.textgenerator.service.validation;
+
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Identifies an audio file from its magic bytes and reads duration, sample rate and
+ * channel count from the container or frame headers, without decoding anything. Only a
+ * few positional reads of at most {@value #HEAD_SIZE} bytes are made (Ogg also reads its
+ * last page, MP4 its {@code moov} box, an MPEG program stream its last pack), so a probe costs
+ * microseconds regardless of size.
+ */
+public final class AudioProbe {
+
+    static final int HEAD_SIZE = 8192;
+
+    private static final int OGG_TAIL_SIZE = 65536;
+    private static final int MP4_MOOV_READ = 65536;
+    private static final int MPEG_PS_TAIL_SIZE = 65536;
+
+    private static final int MPEG_PACK_START = 0x000001BA;
+    private static final int MPEG_PS_CLOCK_RATE = 90000;
+
+    private static final int[] MPEG1_LAYER1_KBPS = {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448};
+    private static final int[] MPEG1_LAYER2_KBPS = {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384};
+    private static final int[] MPEG1_LAYER3_KBPS = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MPEG2_LAYER1_KBPS = {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256};
+    private static final int[] MPEG2_LAYER2_3_KBPS = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[] MPEG1_SAMPLE_RATES = {44100, 48000, 32000};
+
+    private AudioProbe() {
+    }
+
+    public static AudioProbeResult probe(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return probe(channel);
+        } catch (IOException e) {
+            throw new AudioProcessingException("Could not read audio file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @throws AudioProcessingException when the content is not a recognised container or its headers are corrupt
+     */
+    public static AudioProbeResult probe(FileChannel channel) throws IOException {
+        ByteBuffer head = read(channel, 0, HEAD_SIZE);
+        if (head.remaining() < 12) {
+            throw new AudioProcessingException("File is too short to be audio");
+        }
+        if (tag(head, 0, "RIFF") && tag(head, 8, "WAVE")) {
+            return wav(channel);
+        }
+        if (tag(head, 0, "fLaC")) {
+            return flac(head);
+        }
+        if (tag(head, 0, "OggS")) {
+            return ogg(channel, head);
+        }
+        if (tag(head, 4, "ftyp")) {
+            return mp4(channel);
+        }
+        if (head.getInt(0) == 0x1A45DFA3) {
+            return webm(head);
+        }
+        if (head.getInt(0) == MPEG_PACK_START) {
+            return mpegProgramStream(channel, head);
+        }
+        if (tag(head, 0, "ID3") || isMpegFrame(head, 0)) {
+            return mpegAudio(channel, head);
+        }
+        throw new AudioProcessingException("File content is not a recognised audio format");
+    }
+
+    private static AudioProbeResult wav(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long position = 12;
+        int channels = 0;
+        int sampleRate = 0;
+        long byteRate = 0;
+        while (position + 8 <= fileSize) {
+            ByteBuffer chunk = read(channel, position, 24).order(ByteOrder.LITTLE_ENDIAN);
+            long size = Integer.toUnsignedLong(chunk.getInt(4));
+            if (tag(chunk, 0, "fmt ")) {
+                if (chunk.remaining() < 24) {
+                    break;
+                }
+                channels = Short.toUnsignedInt(chunk.getShort(10));
+                sampleRate = chunk.getInt(12);
+                byteRate = Integer.toUnsignedLong(chunk.getInt(16));
+            } else if (tag(chunk, 0, "data")) {
+                if (channels == 0 || sampleRate <= 0 || byteRate == 0) {
+                    break;
+                }
+                long dataBytes = Math.min(size == 0 ? Long.MAX_VALUE : size, fileSize - position - 8);
+                return new AudioProbeResult(AudioContainer.WAV, (double) dataBytes / byteRate, sampleRate, channels);
+            }
+            position += 8 + size + (size & 1);
+        }
+        throw new AudioProcessingException("WAV file has no valid fmt and data chunks");
+    }
+
+    private static AudioProbeResult flac(ByteBuffer head) {
+        // The first metadata block must be the 34 byte STREAMINFO
+        if (head.remaining() < 26 || (head.get(4) & 0x7F) != 0) {
+            throw new AudioProcessingException("FLAC file has no STREAMINFO block");
+        }
+        int sampleRate = (u8(head, 18) << 12) | (u8(head, 19) << 4) | (u8(head, 20) >> 4);
+        int channels = ((u8(head, 20) >> 1) & 0x07) + 1;
+        long totalSamples = ((long) (u8(head, 21) & 0x0F) << 32) | Integer.toUnsignedLong(head.getInt(22));
+        if (sampleRate == 0) {
+            throw new AudioProcessingException("FLAC STREAMINFO has no sample rate");
+        }
+        return new AudioProbeResult(AudioContainer.FLAC, (double) totalSamples / sampleRate, sampleRate, channels);
+    }
+
+    private static AudioProbeResult ogg(FileChannel channel, ByteBuffer head) throws IOException {
+        head.order(ByteOrder.LITTLE_ENDIAN);
+        int packet = 27 + u8(head, 26);
+        int channels = 0;
+        int sampleRate = 0;
+        int granuleRate = 0;
+        long preSkip = 0;
+        if (head.remaining() >= packet + 19 && tag(head, packet, "OpusHead")) {
+            channels = u8(head, packet + 9);
+            preSkip = Short.toUnsignedInt(head.getShort(packet + 10));
+            sampleRate = head.getInt(packet + 12);
+            granuleRate = 48000;
+        } else if (head.remaining() >= packet + 16 && u8(head, packet) == 1 && tag(head, packet + 1, "vorbis")) {
+            channels = u8(head, packet + 11);
+            sampleRate = head.getInt(packet + 12);
+            granuleRate = sampleRate;
+        }
+
+        double duration = 0;
+        if (granuleRate > 0) {
+            long size = channel.size();
+            long tailStart = Math.max(0, size - OGG_TAIL_SIZE);
+            ByteBuffer tail = read(channel, tailStart, (int) (size - tailStart)).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = tail.remaining() - 27; i >= 0; i--) {
+                if (tag(tail, i, "OggS") && tail.get(i + 4) == 0) {
+                    long granule = tail.getLong(i + 6);
+                    duration = Math.max(0, granule - preSkip) / (double) granuleRate;
+                    break;
+                }
+            }
+        }
+        return new AudioProbeResult(AudioContainer.OGG, duration, sampleRate, channels);
+    }
+
+    private static AudioProbeResult mp4(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long position = 0;
+        while (position + 8 <= fileSize) {
+            ByteBuffer box = read(channel, position, 16);
+            long size = Integer.toUnsignedLong(box.getInt(0));
+            int headerSize = 8;
+            if (size == 1 && box.remaining() >= 16) {
+                size = box.getLong(8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position;
+            }
+            if (size < headerSize) {
+                break;
+            }
+            if (tag(box, 4, "moov")) {
+                ByteBuffer moov = read(channel, position + headerSize, (int) Math.min(size - headerSize, MP4_MOOV_READ));
+                return mp4Movie(moov);
+            }
+            position += size;
+        }
+        throw new AudioProcessingException("MP4 file has no moov box");
+    }
+
+    private static AudioProbeResult mp4Movie(ByteBuffer moov) {
+        double duration = 0;
+        int mvhd = indexOf(moov, "mvhd");
+        if (mvhd >= 0 && mvhd + 32 <= moov.remaining()) {
+            int version = u8(moov, mvhd + 4);
+            if (version == 1 && mvhd + 40 <= moov.remaining()) {
+                long timescale = Integer.toUnsignedLong(moov.getInt(mvhd + 24));
+                duration = timescale > 0 ? (double) moov.getLong(mvhd + 28) / timescale : 0;
+            } else {
+                long timescale = Integer.toUnsignedLong(moov.getInt(mvhd + 16));
+                duration = timescale > 0 ? (double) Integer.toUnsignedLong(moov.getInt(mvhd + 20)) / timescale : 0;
+            }
+        }
+        int channels = 0;
+        int sampleRate = 0;
+        int mp4a = indexOf(moov, "mp4a");
+        if (mp4a >= 0 && mp4a + 32 <= moov.remaining()) {
+            // SampleEntry (6 reserved, 2 index) then AudioSampleEntry (8 reserved, channels, size, 4 reserved, rate 16.16)
+            channels = Short.toUnsignedInt(moov.getShort(mp4a + 20));
+            sampleRate = moov.getInt(mp4a + 28) >>> 16;
+        }
+        return new AudioProbeResult(AudioContainer.MP4, duration, sampleRate, channels);
+    }
+
+    /**
+     * Walks EBML > Segment > Info / Tracks > TrackEntry > Audio inside the head buffer
+     */
+    private static AudioProbeResult webm(ByteBuffer head) {
+        int limit = head.remaining();
+        int position = 0;
+        long timecodeScale = 1_000_000;
+        double duration = 0;
+        int sampleRate = 0;
+        int channels = 0;
+        while (position < limit) {
+            long id = vint(head, position, true);
+            if (id < 0) {
+                break;
+            }
+            int idLength = vintLength(head, position);
+            long size = vint(head, position + idLength, false);
+            int sizeLength = vintLength(head, position + idLength);
+            if (sizeLength < 0) {
+                break;
+            }
+            int data = position + idLength + sizeLength;
+
+            if (id == 0x18538067 || id == 0x1549A966 || id == 0x1654AE6B || id == 0xAE || id == 0xE1) {
+                position = data; // Segment, Info, Tracks, TrackEntry, Audio: descend
+                continue;
+            }
+            if (id == 0x1F43B675) {
+                break; // first Cluster, headers are over
+            }
+            if (data + size > limit || size < 0) {
+                break;
+            }
+            if (id == 0x2AD7B1) {
+                timecodeScale = unsigned(head, data, (int) size);
+            } else if (id == 0x4489) {
+                duration = size == 4 ? head.getFloat(data) : size == 8 ? head.getDouble(data) : 0;
+            } else if (id == 0xB5) {
+                sampleRate = (int) (size == 4 ? head.getFloat(data) : size == 8 ? head.getDouble(data) : 0);
+            } else if (id == 0x9F) {
+                channels = (int) unsigned(head, data, (int) size);
+            }
+            position = data + (int) size;
+        }
+        return new AudioProbeResult(AudioContainer.WEBM, duration * timecodeScale / 1e9, sampleRate, channels);
+    }
+
+    /**
+     * MPEG-1 or MPEG-2 program stream, as in .mpeg files: the duration is the distance between the
+     * system clock references of the first and the last pack, sample rate and channels come from the
+     * first MPEG audio frame in the head (both 0 when the audio is not MPEG audio, e.g. AC-3)
+     */
+    private static AudioProbeResult mpegProgramStream(FileChannel channel, ByteBuffer head) throws IOException {
+        long firstClock = packClock(head, 0);
+        if (firstClock < 0) {
+            throw new AudioProcessingException("MPEG program stream pack header is corrupt");
+        }
+        long size = channel.size();
+        long tailStart = Math.max(0, size - MPEG_PS_TAIL_SIZE);
+        ByteBuffer tail = read(channel, tailStart, (int) (size - tailStart));
+        long lastClock = firstClock;
+        for (int i = tail.remaining() - 12; i >= 0; i--) {
+            if (tail.getInt(i) == MPEG_PACK_START && packClock(tail, i) >= 0) {
+                lastClock = packClock(tail, i);
+                break;
+            }
+        }
+
+        int sampleRate = 0;
+        int channels = 0;
+        for (int i = 0; i + 4 <= head.remaining(); i++) {
+            if (head.getInt(i) >>> 5 == 0x000001C0 >>> 5) { // stream ids 0xC0-0xDF carry MPEG audio
+                int frame = i + 4;
+                while (frame + 4 <= head.remaining() && !isMpegFrame(head, frame)) {
+                    frame++;
+                }
+                if (frame + 4 <= head.remaining()) {
+                    sampleRate = mpegSampleRate(head, frame);
+                    channels = mpegChannels(head, frame);
+                }
+                break;
+            }
+        }
+        return new AudioProbeResult(AudioContainer.MPEG_PS,
+                Math.max(0, lastClock - firstClock) / (double) MPEG_PS_CLOCK_RATE, sampleRate, channels);
+    }
+
+    /**
+     * 90 kHz system clock reference of the pack header at {@code offset}, or -1 when it is not a valid
+     * MPEG-1 or MPEG-2 pack header
+     */
+    private static long packClock(ByteBuffer buffer, int offset) {
+        if (offset + 12 > buffer.remaining()) {
+            return -1;
+        }
+        long b4 = u8(buffer, offset + 4);
+        long b5 = u8(buffer, offset + 5);
+        long b6 = u8(buffer, offset + 6);
+        long b7 = u8(buffer, offset + 7);
+        long b8 = u8(buffer, offset + 8);
+        if ((b4 & 0xC0) == 0x40) {
+            return (b4 >> 3 & 0x07) << 30 | (b4 & 0x03) << 28 | b5 << 20 | (b6 >> 3) << 15 | (b6 & 0x03) << 13
+                    | b7 << 5 | b8 >> 3;
+        }
+        if ((b4 & 0xF0) == 0x20) {
+            return (b4 >> 1 & 0x07) << 30 | b5 << 22 | (b6 >> 1) << 15 | b7 << 7 | b8 >> 1;
+        }
+        return -1;
+    }
+
+    /**
+     * MPEG audio elementary stream (layer I, II or III), optionally behind an ID3v2 tag
+     */
+    private static AudioProbeResult mpegAudio(FileChannel channel, ByteBuffer head) throws IOException {
+        long audioStart = 0;
+        if (tag(head, 0, "ID3")) {
+            int tagSize = (u8(head, 6) & 0x7F) << 21 | (u8(head, 7) & 0x7F) << 14
+                    | (u8(head, 8) & 0x7F) << 7 | (u8(head, 9) & 0x7F);
+            audioStart = 10 + tagSize + ((head.get(5) & 0x10) != 0 ? 10 : 0);
+            head = read(channel, audioStart, HEAD_SIZE);
+        }
+
+        int offset = 0;
+        while (offset + 4 <= head.remaining() && !isMpegFrame(head, offset)) {
+            offset++;
+        }
+        if (offset + 4 > head.remaining()) {
+            throw new AudioProcessingException("MP3 file has no MPEG audio frames");
+        }
+        audioStart += offset;
+
+        int b1 = u8(head, offset + 1);
+        int b2 = u8(head, offset + 2);
+        boolean mpeg1 = ((b1 >> 3) & 0x03) == 3;
+        int layer = 4 - ((b1 >> 1) & 0x03);
+        int[] kbpsTable = mpeg1
+                ? (layer == 1 ? MPEG1_LAYER1_KBPS : layer == 2 ? MPEG1_LAYER2_KBPS : MPEG1_LAYER3_KBPS)
+                : (layer == 1 ? MPEG2_LAYER1_KBPS : MPEG2_LAYER2_3_KBPS);
+        int kbps = kbpsTable[b2 >> 4];
+        int sampleRate = mpegSampleRate(head, offset);
+        int channels = mpegChannels(head, offset);
+        int samplesPerFrame = layer == 1 ? 384 : layer == 3 && !mpeg1 ? 576 : 1152;
+        int padding = (b2 >> 1) & 0x01;
+        // Layer I counts in 4 byte slots
+        int frameLength = layer == 1
+                ? (12000 * kbps / sampleRate + padding) * 4
+                : samplesPerFrame / 8 * 1000 * kbps / sampleRate + padding;
+
+        // A second frame right after the first confirms the sync was not a coincidence
+        int next = offset + frameLength;
+        if (next + 2 <= head.remaining() && !(u8(head, next) == 0xFF && (u8(head, next + 1) & 0xE0) == 0xE0)) {
+            throw new AudioProcessingException("MP3 frame headers are corrupt");
+        }
+
+        // VBR layer III files carry the frame count in a Xing/Info or VBRI header inside the first frame
+        int sideInfo = mpeg1 ? (channels == 1 ? 17 : 32) : (channels == 1 ? 9 : 17);
+        int xing = offset + 4 + sideInfo;
+        int vbri = offset + 4 + 32;
+        long frames = 0;
+        if (layer == 3 && xing + 12 <= head.remaining() && (tag(head, xing, "Xing") || tag(head, xing, "Info"))
+                && (head.getInt(xing + 4) & 0x01) != 0) {
+            frames = Integer.toUnsignedLong(head.getInt(xing + 8));
+        } else if (layer == 3 && vbri + 18 <= head.remaining() && tag(head, vbri, "VBRI")) {
+            frames = Integer.toUnsignedLong(head.getInt(vbri + 14));
+        }
+
+        double duration = frames > 0
+                ? (double) frames * samplesPerFrame / sampleRate
+                : (channel.size() - audioStart) * 8.0 / (kbps * 1000.0);
+        return new AudioProbeResult(AudioContainer.MP3, duration, sampleRate, channels);
+    }
+
+    /**
+     * MPEG audio layer I, II or III frame sync with valid bitrate and sample rate indexes
+     */
+    private static boolean isMpegFrame(ByteBuffer buffer, int offset) {
+        if (offset + 4 > buffer.remaining() || u8(buffer, offset) != 0xFF) {
+            return false;
+        }
+        int b1 = u8(buffer, offset + 1);
+        int b2 = u8(buffer, offset + 2);
+        int bitrateIndex = b2 >> 4;
+        return (b1 & 0xE0) == 0xE0 && ((b1 >> 3) & 0x03) != 1 && ((b1 >> 1) & 0x03) != 0
+                && bitrateIndex != 0 && bitrateIndex != 15 && ((b2 >> 2) & 0x03) != 3;
+    }
+
+    private static int mpegSampleRate(ByteBuffer buffer, int frame) {
+        int version = (u8(buffer, frame + 1) >> 3) & 0x03;
+        return MPEG1_SAMPLE_RATES[(u8(buffer, frame + 2) >> 2) & 0x03] >> (version == 3 ? 0 : version == 2 ? 1 : 2);
+    }
+
+    private static int mpegChannels(ByteBuffer buffer, int frame) {
+        return (u8(buffer, frame + 3) >> 6) == 3 ? 1 : 2;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - position)));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static boolean tag(ByteBuffer buffer, int offset, String tag) {
+        if (offset < 0 || offset + tag.length() > buffer.remaining()) {
+            return false;
+        }
+        byte[] expected = tag.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(ByteBuffer buffer, String tag) {
+        for (int i = 0; i + tag.length() <= buffer.remaining(); i++) {
+            if (tag(buffer, i, tag)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int u8(ByteBuffer buffer, int offset) {
+        return buffer.get(offset) & 0xFF;
+    }
+
+    private static long unsigned(ByteBuffer buffer, int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value << 8 | u8(buffer, offset + i);
+        }
+        return value;
+    }
+
+    private static int vintLength(ByteBuffer buffer, int offset) {
+        if (offset >= buffer.remaining()) {
+            return -1;
+        }
+        int first = u8(buffer, offset);
+        int length = Integer.numberOfLeadingZeros(first) - 23;
+        return first == 0 || offset + length > buffer.remaining() ? -1 : length;
+    }
+
+    /**
+     * EBML variable length integer; IDs keep their marker bit, sizes drop it (all ones means unknown, -2)
+     */
+    private static long vint(ByteBuffer buffer, int offset, boolean keepMarker) {
+        int length = vintLength(buffer, offset);
+        if (length < 0) {
+            return -1;
+        }
+        long value = unsigned(buffer, offset, length);
+        if (keepMarker) {
+            return value;
+        }
+        long mask = (1L << (7 * length)) - 1;
+        value &= mask;
+        return value == mask ? -2 : value;
+    }
+}
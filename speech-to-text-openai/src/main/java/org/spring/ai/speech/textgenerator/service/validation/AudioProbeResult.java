@@ -0,0 +1,11 @@
+package org.spring.ai.speech.textgenerator.service.validation;
+
+/**
+ * What the headers of an audio file say about it. Zero means the headers do not carry the value.
+ */
+public record AudioProbeResult(AudioContainer container, double durationSeconds, int sampleRate, int channels) {
+
+    public boolean hasDuration() {
+        return durationSeconds > 0;
+    }
+}
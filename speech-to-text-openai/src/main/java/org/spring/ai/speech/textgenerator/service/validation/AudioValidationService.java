@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.util.Set;
 
 /**
@@ -18,18 +19,31 @@ public class AudioValidationService {
 
     private static final Logger log = LoggerFactory.getLogger(AudioValidationService.class);
 
-    @Value("${app.audio.max-file-size:26214400}") // 25MB default
-    private long maxFileSize;
-
-    @Value("${app.audio.allowed-formats:mp3,wav,m4a,flac,mp4,mpeg,mpga,oga,ogg,webm}")
-    private String allowedFormatsStr;
-
     private static final Set<String> SUPPORTED_MIME_TYPES = Set.of(
             "audio/mpeg", "audio/mp3", "audio/wav", "audio/x-wav", "audio/wave",
             "audio/mp4", "audio/m4a", "audio/flac", "audio/ogg", "audio/webm",
             "video/mp4", "video/mpeg", "video/webm"
     );
 
+    private final long maxFileSize;
+    private final long maxSegmentableFileSize;
+    private final String allowedFormatsStr;
+    private final Set<String> allowedFormats;
+
+    /**
+     * @param maxFileSize            per-call limit, 25MB by default
+     * @param maxSegmentableFileSize limit for PCM WAV, which is split before upload; 1GB by default
+     */
+    public AudioValidationService(
+            @Value("${app.audio.max-file-size:26214400}") long maxFileSize,
+            @Value("${app.audio.segmentation.max-file-size:1073741824}") long maxSegmentableFileSize,
+            @Value("${app.audio.allowed-formats:mp3,wav,m4a,flac,mp4,mpeg,mpga,oga,ogg,webm}") String allowedFormatsStr) {
+        this.maxFileSize = maxFileSize;
+        this.maxSegmentableFileSize = maxSegmentableFileSize;
+        this.allowedFormatsStr = allowedFormatsStr;
+        this.allowedFormats = Set.of(allowedFormatsStr.toLowerCase().split(","));
+    }
+
     /**
      * Validate audio file for transcription processing
      */
@@ -39,12 +53,45 @@ public class AudioValidationService {
         }
 
         validateFileName(file.getOriginalFilename());
-        validateFileSize(file.getSize());
-        validateFileType(file);
+        validateFileSize(file.getSize(), file.getOriginalFilename());
+        validateFileType(file.getContentType(), file.getOriginalFilename());
         
         log.debug("Audio file validation passed for: {}", file.getOriginalFilename());
     }
 
+    /**
+     * Validate name and type of a streamed upload before its body is read;
+     * the size is checked while the body is spooled
+     */
+    public void validateUploadMetadata(String fileName, String contentType) {
+        validateFileName(fileName);
+        validateFileType(contentType, fileName);
+    }
+
+    /**
+     * Sniff the spooled audio's real container from its first bytes and read its duration,
+     * sample rate and channels. Rejects content that is not audio, has corrupt headers, or
+     * does not match the file extension.
+     */
+    public AudioProbeResult probe(Path file, String fileName) {
+        AudioProbeResult result = AudioProbe.probe(file);
+        String extension = getFileExtension(fileName);
+        if (!result.container().matchesExtension(extension)) {
+            throw new AudioProcessingException(String.format(
+                "File content is %s but the file extension is .%s", result.container(), extension));
+        }
+        log.debug("Probed {}: {} {} s, {} Hz, {} channels", fileName, result.container(),
+            result.durationSeconds(), result.sampleRate(), result.channels());
+        return result;
+    }
+
+    /**
+     * PCM WAV files are segmented before upload, so they may exceed the per-call limit
+     */
+    public long getMaxFileSize(String fileName) {
+        return "wav".equalsIgnoreCase(getFileExtension(fileName)) ? maxSegmentableFileSize : maxFileSize;
+    }
+
     private void validateFileName(String fileName) {
         if (!StringUtils.hasText(fileName)) {
             throw new AudioProcessingException("File name cannot be empty");
@@ -57,7 +104,6 @@ public class AudioValidationService {
 
         // Validate file extension
         String extension = getFileExtension(fileName).toLowerCase();
-        Set<String> allowedFormats = Set.of(allowedFormatsStr.toLowerCase().split(","));
         
         if (!allowedFormats.contains(extension)) {
             throw new AudioProcessingException(
@@ -66,29 +112,28 @@ public class AudioValidationService {
         }
     }
 
-    private void validateFileSize(long fileSize) {
+    private void validateFileSize(long fileSize, String fileName) {
         if (fileSize <= 0) {
             throw new AudioProcessingException("File size must be greater than 0");
         }
 
-        if (fileSize > maxFileSize) {
+        long limit = getMaxFileSize(fileName);
+        if (fileSize > limit) {
             throw new AudioProcessingException(
                 String.format("File size (%d bytes) exceeds maximum allowed size (%d bytes)", 
-                    fileSize, maxFileSize));
+                    fileSize, limit));
         }
     }
 
-    private void validateFileType(MultipartFile file) {
-        String contentType = file.getContentType();
-        
+    private void validateFileType(String contentType, String fileName) {
         if (!StringUtils.hasText(contentType)) {
-            log.warn("Content type is null for file: {}", file.getOriginalFilename());
+            log.warn("Content type is null for file: {}", fileName);
             return; // Allow null content type but log warning
         }
 
         if (!SUPPORTED_MIME_TYPES.contains(contentType.toLowerCase())) {
             log.warn("Potentially unsupported MIME type: {} for file: {}", 
-                contentType, file.getOriginalFilename());
+                contentType, fileName);
             // Log warning but don't fail - OpenAI Whisper is quite flexible
         }
     }
@@ -135,7 +135,7 @@ export const apiService = {
   async transcribeAudioAsync(
     request: TranscriptionRequest,
     options: RequestConfig = {}
-  ): Promise<{ jobId: string; status: string }> {
+  ): Promise<{ id: string; status: string }> {
     const formData = createFormDataWithProgress(request, options.onUploadProgress);
 
     return apiRequest('/transcribe/async', {
@@ -151,8 +151,8 @@ export const apiService = {
     return apiRequest(`/transcribe/resource${params}`);
   },
 
-  // Poll async job status (if backend supports it)
-  async getJobStatus(jobId: string): Promise<{ status: string; result?: TranscriptionResponse }> {
+  // Poll async job status
+  async getJobStatus(jobId: string): Promise<{ id: string; status: string; result?: TranscriptionResponse; error?: string }> {
     return apiRequest(`/jobs/${jobId}`);
   },
 };
@@ -1,26 +1,54 @@
 package org.spring.ai.speech.textgenerator.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.spring.ai.speech.textgenerator.controller.SpeechToTextController;
 import org.spring.ai.speech.textgenerator.dto.TranscriptionRequest;
 import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
-import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.exception.GlobalExceptionHandler;
+import org.spring.ai.speech.textgenerator.service.batch.BatchTranscriptionService;
+import org.spring.ai.speech.textgenerator.service.cache.TranscriptionCache;
+import org.spring.ai.speech.textgenerator.service.job.TranscriptionJobService;
+import org.spring.ai.speech.textgenerator.service.metrics.StageTimings;
+import org.spring.ai.speech.textgenerator.service.metrics.TranscriptionStageMetrics;
+import org.spring.ai.speech.textgenerator.service.scheduling.FairTranscriptionScheduler;
+import org.spring.ai.speech.textgenerator.service.segmentation.SegmentedTranscriptionService;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
 import org.springframework.ai.audio.transcription.AudioTranscriptionPrompt;
 import org.springframework.ai.audio.transcription.AudioTranscriptionResponse;
 import org.springframework.ai.audio.transcription.AudioTranscriptionResult;
 import org.springframework.ai.openai.OpenAiAudioTranscriptionModel;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.spring.ai.speech.textgenerator.service.TestAudio.MP3;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
 class SpeechToTextServiceTest {
@@ -34,16 +62,43 @@ class SpeechToTextServiceTest {
     @Mock
     private AudioTranscriptionResult mockResult;
 
+    @TempDir
+    Path spoolDirectory;
+
     private SpeechToTextService speechToTextService;
 
+    private TranscriptionCache transcriptionCache;
+
+    private AudioValidationService validationService;
+
+    private AudioSpooler audioSpooler;
+
+    private SegmentedTranscriptionService segmentedTranscription;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @BeforeEach
     void setUp() {
-        speechToTextService = new SpeechToTextService(audioTranscriptionModel);
+        validationService = TestAudio.validationService();
+        audioSpooler = new AudioSpooler(validationService, spoolDirectory, 8192);
+
+        FairTranscriptionScheduler scheduler = new FairTranscriptionScheduler(meterRegistry, 4, 1,
+                Duration.ofSeconds(30), 200, Duration.ofMinutes(5), "");
+        segmentedTranscription = new SegmentedTranscriptionService(
+                audioTranscriptionModel, audioSpooler, scheduler, Duration.ofMinutes(5), 25165824L, -40,
+                Duration.ofMillis(300), Duration.ofSeconds(30), 2);
+
+        transcriptionCache = new TranscriptionCache(new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry(), spoolDirectory.resolve("cache"), 1024 * 1024, true);
+        ReflectionTestUtils.invokeMethod(transcriptionCache, "load");
+
+        speechToTextService = new SpeechToTextService(audioTranscriptionModel,
+                new DefaultResourceLoader(), validationService, audioSpooler, segmentedTranscription,
+                transcriptionCache, new TranscriptionStageMetrics(meterRegistry), scheduler);
         
         // Set up default resource
         Resource defaultResource = new ClassPathResource("speech-1760589387683.mp3");
         ReflectionTestUtils.setField(speechToTextService, "defaultResource", defaultResource);
-        ReflectionTestUtils.setField(speechToTextService, "defaultResourceFilename", "speech-1760589387683.mp3");
     }
 
     @Test
@@ -53,7 +108,7 @@ class SpeechToTextServiceTest {
                 "audio", 
                 "test.mp3", 
                 "audio/mpeg", 
-                "test audio content".getBytes()
+                MP3
         );
         
         TranscriptionRequest request = TranscriptionRequest.builder()
@@ -79,6 +134,167 @@ class SpeechToTextServiceTest {
         verify(audioTranscriptionModel).call(any(AudioTranscriptionPrompt.class));
     }
 
+    @Test
+    void testTranscribeAudio_SpoolsToFileAndCleansUp() throws Exception {
+        // Arrange
+        MultipartFile file = new MockMultipartFile(
+                "audio", 
+                "test.mp3", 
+                "audio/mpeg", 
+                MP3
+        );
+        
+        TranscriptionRequest request = TranscriptionRequest.builder()
+                .file(file)
+                .build();
+
+        List<Path> spooled = new ArrayList<>();
+        when(mockResult.getOutput()).thenReturn("Spooled transcription.");
+        when(mockResponse.getResult()).thenReturn(mockResult);
+        when(audioTranscriptionModel.call(any(AudioTranscriptionPrompt.class))).thenAnswer(invocation -> {
+            AudioTranscriptionPrompt prompt = invocation.getArgument(0);
+            Resource resource = prompt.getInstructions();
+            assertTrue(resource.isFile());
+            assertTrue(resource.getFilename().endsWith(".mp3"));
+            spooled.add(resource.getFile().toPath());
+            return mockResponse;
+        });
+
+        // Act
+        TranscriptionResponse response = speechToTextService.transcribeAudio(request);
+
+        // Assert
+        assertTrue(response.isSuccess());
+        assertEquals(64, ((String) response.getMetadata().get("sha256")).length());
+        assertEquals(1, spooled.size());
+        assertFalse(Files.exists(spooled.get(0)));
+    }
+
+    @Test
+    void testTranscribeAudio_RepeatedUploadIsServedFromCache() {
+        // Arrange
+        TranscriptionRequest request = TranscriptionRequest.builder()
+                .file(new MockMultipartFile("audio", "test.mp3", "audio/mpeg", MP3))
+                .language("en")
+                .build();
+        TranscriptionRequest retry = TranscriptionRequest.builder()
+                .file(new MockMultipartFile("audio", "retry.mp3", "audio/mpeg", MP3))
+                .language("EN")
+                .build();
+        TranscriptionRequest otherFormat = TranscriptionRequest.builder()
+                .file(new MockMultipartFile("audio", "test.mp3", "audio/mpeg", MP3))
+                .language("en")
+                .responseFormat("text")
+                .build();
+
+        when(mockResult.getOutput()).thenReturn("Cached transcription.");
+        when(mockResponse.getResult()).thenReturn(mockResult);
+        when(audioTranscriptionModel.call(any(AudioTranscriptionPrompt.class))).thenReturn(mockResponse);
+
+        // Act
+        TranscriptionResponse first = speechToTextService.transcribeAudio(request);
+        TranscriptionResponse second = speechToTextService.transcribeAudio(retry);
+        TranscriptionResponse third = speechToTextService.transcribeAudio(otherFormat);
+
+        // Assert
+        assertEquals(false, first.getMetadata().get("cacheHit"));
+        assertTrue(second.isSuccess());
+        assertEquals("Cached transcription.", second.getTranscription());
+        assertEquals(true, second.getMetadata().get("cacheHit"));
+        assertEquals("retry.mp3", second.getMetadata().get("originalFilename"));
+        assertEquals("EN", second.getLanguage());
+        assertEquals(false, third.getMetadata().get("cacheHit"));
+        verify(audioTranscriptionModel, times(2)).call(any(AudioTranscriptionPrompt.class));
+        assertEquals(1.0 / 3, transcriptionCache.hitRatio(), 0.001);
+    }
+
+    @Test
+    void testTranscribeAudio_ReportsStageBreakdown() {
+        // Arrange
+        TranscriptionRequest request = TranscriptionRequest.builder()
+                .file(new MockMultipartFile("audio", "test.mp3", "audio/mpeg", MP3))
+                .build();
+
+        when(mockResult.getOutput()).thenReturn("Timed transcription.");
+        when(mockResponse.getResult()).thenReturn(mockResult);
+        when(audioTranscriptionModel.call(any(AudioTranscriptionPrompt.class))).thenReturn(mockResponse);
+
+        // Act
+        TranscriptionResponse response = speechToTextService.transcribeAudio(request);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        Map<String, Double> stages = (Map<String, Double>) response.getMetadata().get("stages");
+        assertTrue(stages.keySet().containsAll(List.of("validate", "spool", "probe", "cache", "model")));
+        assertEquals(1, meterRegistry.get("stt.transcription.stage")
+                .tags("stage", "model", "size", "lt1mb", "duration", "lt30s").timer().count());
+        assertEquals(1, meterRegistry.get("stt.transcription.stage")
+                .tags("stage", "total", "size", "lt1mb", "duration", "lt30s").timer().count());
+    }
+
+    @Test
+    void testTranscribeAudio_LeavesRecordingToTheCallerThatStartedTheTimings() {
+        // Arrange
+        StageTimings timings = StageTimings.start();
+        TranscriptionRequest request = TranscriptionRequest.builder()
+                .file(new MockMultipartFile("audio", "test.mp3", "audio/mpeg", MP3))
+                .timings(timings)
+                .build();
+
+        when(mockResult.getOutput()).thenReturn("Timed transcription.");
+        when(mockResponse.getResult()).thenReturn(mockResult);
+        when(audioTranscriptionModel.call(any(AudioTranscriptionPrompt.class))).thenReturn(mockResponse);
+
+        // Act
+        speechToTextService.transcribeAudio(request);
+
+        // Assert
+        assertTrue(timings.getSizeBytes() > 0);
+        assertTrue(timings.getAudioSeconds() > 0);
+        assertEquals(0, meterRegistry.get("stt.transcription.stage").tag("stage", "total").timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void testTranscribeStream_RejectsOversizedBodyWithoutCallingModel() throws Exception {
+        // Arrange
+        byte[] largeContent = new byte[26214400 + 1];
+        TranscriptionRequest request = TranscriptionRequest.builder().build();
+
+        // Act
+        TranscriptionResponse response = speechToTextService.transcribeStream(
+                new ByteArrayInputStream(largeContent), "large.mp3", "audio/mpeg", request);
+
+        // Assert
+        assertFalse(response.isSuccess());
+        assertTrue(response.getErrorMessage().contains("exceeds maximum allowed size"));
+        verifyNoInteractions(audioTranscriptionModel);
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void testTranscribeAudio_SchedulerRejectionIsAnsweredWithItsStatus() throws Exception {
+        // No call may wait, so the scheduler turns every request away with 429
+        SpeechToTextService saturated = new SpeechToTextService(audioTranscriptionModel,
+                new DefaultResourceLoader(), validationService, audioSpooler, segmentedTranscription,
+                transcriptionCache, new TranscriptionStageMetrics(meterRegistry),
+                new FairTranscriptionScheduler(meterRegistry, 4, 1, Duration.ofSeconds(30), 0,
+                        Duration.ofMinutes(5), ""));
+        SpeechToTextController controller = new SpeechToTextController(saturated,
+                mock(TranscriptionJobService.class), mock(BatchTranscriptionService.class));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mockMvc.perform(multipart("/api/v1/speech/transcribe")
+                        .file(new MockMultipartFile("file", "test.mp3", "audio/mpeg", MP3)))
+                .andExpect(status().isTooManyRequests());
+
+        verify(audioTranscriptionModel, never()).call(any(AudioTranscriptionPrompt.class));
+    }
+
     @Test
     void testTranscribeAudio_EmptyFile() {
         // Arrange
@@ -169,27 +385,25 @@ class SpeechToTextServiceTest {
     }
 
     @Test
-    void testTranscribeAudioAsync_Success() {
+    void testTranscribeAudio_RejectsContentThatIsNotAudio() {
         // Arrange
         MultipartFile file = new MockMultipartFile(
                 "audio", 
-                "async.mp3", 
+                "notes.mp3", 
                 "audio/mpeg", 
-                "async test content".getBytes()
+                "plain text, not audio".getBytes()
         );
         
         TranscriptionRequest request = TranscriptionRequest.builder()
                 .file(file)
                 .build();
 
-        when(mockResult.getOutput()).thenReturn("Async transcription result.");
-        when(mockResponse.getResult()).thenReturn(mockResult);
-        when(audioTranscriptionModel.call(any(AudioTranscriptionPrompt.class))).thenReturn(mockResponse);
+        // Act
+        TranscriptionResponse response = speechToTextService.transcribeAudio(request);
 
-        // Act & Assert
-        assertDoesNotThrow(() -> {
-            var future = speechToTextService.transcribeAudioAsync(request);
-            assertNotNull(future);
-        });
+        // Assert
+        assertFalse(response.isSuccess());
+        assertTrue(response.getErrorMessage().contains("not a recognised audio format"));
+        verifyNoInteractions(audioTranscriptionModel);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package org.spring.ai.speech.textgenerator.service;
+
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Audio and validation fixtures shared by the service tests
+ */
+public final class TestAudio {
+
+    /** The bundled sample recording, a short mono MP3 */
+    public static final byte[] MP3 = readResource("speech-1760589387683.mp3");
+
+    private TestAudio() {
+    }
+
+    /**
+     * Validation with the application's default limits: 25MB per call, 1GB for segmented WAV
+     */
+    public static AudioValidationService validationService() {
+        return new AudioValidationService(26214400L, 1073741824L, "mp3,wav,m4a,flac,mp4,mpeg,mpga,oga,ogg,webm");
+    }
+
+    public static byte[] readResource(String name) {
+        try {
+            return new ClassPathResource(name).getContentAsByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
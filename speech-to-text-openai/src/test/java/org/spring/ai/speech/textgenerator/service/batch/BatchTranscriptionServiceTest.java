@@ -0,0 +1,232 @@
+package org.spring.ai.speech.textgenerator.service.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spring.ai.speech.textgenerator.controller.SpeechToTextController;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionRequest;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.service.SpeechToTextService;
+import org.spring.ai.speech.textgenerator.service.TestAudio;
+import org.spring.ai.speech.textgenerator.service.job.TranscriptionJobService;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.spring.ai.speech.textgenerator.service.TestAudio.MP3;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class BatchTranscriptionServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final SpeechToTextService speechToTextService = mock(SpeechToTextService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private AudioValidationService validationService;
+    private AudioSpooler audioSpooler;
+    private BatchTranscriptionService batchService;
+
+    @BeforeEach
+    void setUp() {
+        validationService = TestAudio.validationService();
+        audioSpooler = new AudioSpooler(validationService, directory, 8192);
+        ReflectionTestUtils.invokeMethod(audioSpooler, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batchService != null) {
+            batchService.shutdown();
+        }
+    }
+
+    @Test
+    void everyFileGetsALineAndFailuresDoNotAbortTheBatch() throws Exception {
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenAnswer(invocation -> {
+                    SpooledAudio audio = invocation.getArgument(0);
+                    if (audio.getOriginalFilename().startsWith("broken")) {
+                        throw new IllegalStateException("upstream refused");
+                    }
+                    return TranscriptionResponse.builder().transcription(audio.getOriginalFilename()).build();
+                });
+        batchService = newService(10, 2);
+
+        Map<Integer, JsonNode> lines = post(
+                file("first.mp3", MP3),
+                file("notes.txt", "not audio".getBytes()),
+                file("broken.mp3", MP3),
+                file("last.mp3", MP3));
+
+        assertEquals(4, lines.size());
+        assertEquals("first.mp3", lines.get(0).path("result").path("transcription").asText());
+        assertTrue(lines.get(0).path("result").path("success").asBoolean());
+        assertFalse(lines.get(1).path("result").path("success").asBoolean());
+        assertEquals("notes.txt", lines.get(1).path("fileName").asText());
+        assertTrue(lines.get(2).path("result").path("errorMessage").asText().contains("upstream refused"));
+        assertEquals("last.mp3", lines.get(3).path("result").path("transcription").asText());
+        try (Stream<Path> spooled = Files.list(directory)) {
+            assertEquals(0, spooled.count(), "spooled uploads are removed after the batch");
+        }
+    }
+
+    @Test
+    void upstreamCallsStayWithinTheConcurrencyLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenAnswer(invocation -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(50);
+                    running.decrementAndGet();
+                    return TranscriptionResponse.builder().transcription("ok").build();
+                });
+        batchService = newService(10, 2);
+
+        MockMultipartFile[] files = new MockMultipartFile[6];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = file("clip-" + i + ".mp3", MP3);
+        }
+        Map<Integer, JsonNode> lines = post(files);
+
+        assertEquals(6, lines.size());
+        assertTrue(peak.get() <= 2, "peak concurrency was " + peak.get());
+    }
+
+    @Test
+    void emitterIsReturnedBeforeTheUploadsAreRead() throws Exception {
+        CountDownLatch released = new CountDownLatch(1);
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenReturn(TranscriptionResponse.builder().transcription("ok").build());
+        batchService = newService(10, 1);
+        MockMultipartFile held = new MockMultipartFile("files", "held.mp3", "audio/mpeg", MP3) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getInputStream();
+            }
+        };
+
+        ResponseBodyEmitter emitter = batchService.transcribe(List.of(held, file("next.mp3", MP3)),
+                TranscriptionRequest.builder().build());
+
+        assertNotNull(emitter);
+        verify(speechToTextService, never()).transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class));
+        released.countDown();
+        verify(speechToTextService, timeout(5_000).times(2))
+                .transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class));
+    }
+
+    @Test
+    void filesOfABatchThePoolRejectsGetAFailureLine() throws Exception {
+        batchService = newService(10, 2);
+        batchService.shutdown();
+
+        Map<Integer, JsonNode> lines = post(file("first.mp3", MP3), file("second.mp3", MP3));
+
+        assertEquals(2, lines.size());
+        for (JsonNode line : lines.values()) {
+            assertFalse(line.path("result").path("success").asBoolean());
+            assertTrue(line.path("result").path("errorMessage").asText().contains("shutting down"));
+        }
+        verify(speechToTextService, never()).transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class));
+    }
+
+    @Test
+    void filesTheSchedulerTurnsAwayAreRetriedAndThenMarkedRetryable() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenAnswer(invocation -> {
+                    SpooledAudio audio = invocation.getArgument(0);
+                    if (audio.getOriginalFilename().startsWith("busy") || calls.incrementAndGet() == 1) {
+                        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No transcription slot");
+                    }
+                    return TranscriptionResponse.builder().transcription("ok").success(true).build();
+                });
+        batchService = newService(10, 1);
+
+        Map<Integer, JsonNode> lines = post(file("first.mp3", MP3), file("busy.mp3", MP3));
+
+        assertEquals("ok", lines.get(0).path("result").path("transcription").asText());
+        assertFalse(lines.get(0).path("retryable").asBoolean());
+        assertFalse(lines.get(1).path("result").path("success").asBoolean());
+        assertTrue(lines.get(1).path("retryable").asBoolean());
+        verify(speechToTextService, times(2 + 3)).transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class));
+    }
+
+    @Test
+    void oversizedBatchIsRejectedBeforeAnyWork() {
+        batchService = newService(1, 2);
+
+        assertThrows(AudioProcessingException.class, () -> batchService.transcribe(
+                List.of(file("a.mp3", MP3), file("b.mp3", MP3)), TranscriptionRequest.builder().build()));
+    }
+
+    private BatchTranscriptionService newService(int maxFiles, int concurrency) {
+        return new BatchTranscriptionService(speechToTextService, validationService, audioSpooler, objectMapper,
+                maxFiles, concurrency, Duration.ofSeconds(10), Duration.ofMillis(10), 2);
+    }
+
+    private Map<Integer, JsonNode> post(MockMultipartFile... files) throws Exception {
+        SpeechToTextController controller = new SpeechToTextController(speechToTextService,
+                mock(TranscriptionJobService.class), batchService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        var upload = multipart("/api/v1/speech/transcribe/batch");
+        for (MockMultipartFile file : files) {
+            upload.file(file);
+        }
+        MvcResult result = mockMvc.perform(upload).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult(10_000);
+
+        Map<Integer, JsonNode> lines = new HashMap<>();
+        for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            lines.put(node.path("index").asInt(), node);
+        }
+        return lines;
+    }
+
+    private static MockMultipartFile file(String name, byte[] content) {
+        return new MockMultipartFile("files", name, "audio/mpeg", content);
+    }
+}
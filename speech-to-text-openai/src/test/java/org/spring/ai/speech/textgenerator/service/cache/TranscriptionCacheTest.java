@@ -0,0 +1,107 @@
+package org.spring.ai.speech.textgenerator.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptionCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void keyDependsOnAudioAndOptions() {
+        TranscriptionCache cache = cache(1024 * 1024);
+
+        String key = cache.key("abc", "whisper-1", "en", "json");
+        assertEquals(key, cache.key("abc", "Whisper-1", " EN ", "JSON"));
+        assertNotEquals(key, cache.key("abd", "whisper-1", "en", "json"));
+        assertNotEquals(key, cache.key("abc", "whisper-1", "de", "json"));
+        assertNotEquals(key, cache.key("abc", "whisper-1", "en", "srt"));
+    }
+
+    @Test
+    void hitsSurviveARestartAndReportSavedUpstreamTime() {
+        TranscriptionCache cache = cache(1024 * 1024);
+        cache.put("k1", response("first", Map.of("fileSize", 42)), 2500);
+
+        TranscriptionCache reloaded = cache(1024 * 1024);
+        TranscriptionResponse hit = reloaded.get("k1").orElseThrow();
+
+        assertEquals("first", hit.getTranscription());
+        assertEquals(true, hit.getMetadata().get("cacheHit"));
+        assertEquals(42, hit.getMetadata().get("fileSize"));
+        assertTrue(reloaded.get("missing").isEmpty());
+        assertEquals(0.5, reloaded.hitRatio(), 0.001);
+        assertEquals(2.5, meterRegistry.get("stt.transcription.cache.upstream.saved").counter().count(), 0.001);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesBeyondTheSizeLimit() {
+        TranscriptionCache probe = cache(directory.resolve("probe"), 1024 * 1024);
+        probe.put("probe", response("x".repeat(100), null), 1);
+        long entrySize = probe.size();
+
+        TranscriptionCache cache = cache(directory.resolve("lru"), entrySize * 2 + entrySize / 2);
+        cache.put("a", response("x".repeat(100), null), 1);
+        cache.put("b", response("y".repeat(100), null), 1);
+        assertTrue(cache.get("a").isPresent()); // a is now more recent than b
+        cache.put("c", response("z".repeat(100), null), 1);
+
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertTrue(cache.get("c").isPresent());
+        assertTrue(cache.size() <= entrySize * 2 + entrySize / 2);
+    }
+
+    @Test
+    void failedTranscriptionsAreNotCached() {
+        TranscriptionCache cache = cache(1024 * 1024);
+        cache.put("k", TranscriptionResponse.builder().success(false).errorMessage("boom").build(), 10);
+
+        assertTrue(cache.get("k").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void tempFilesLeftByACrashedWriteAreRemovedAndNotCounted() throws Exception {
+        Path leftover = Files.writeString(directory.resolve("k1123456789.tmp"), "{\"response\":");
+
+        TranscriptionCache cache = cache(1024 * 1024);
+
+        assertFalse(Files.exists(leftover));
+        assertEquals(0, cache.size());
+    }
+
+    private TranscriptionCache cache(long maxSize) {
+        return cache(directory, maxSize);
+    }
+
+    private TranscriptionCache cache(Path cacheDirectory, long maxSize) {
+        TranscriptionCache cache = new TranscriptionCache(objectMapper, meterRegistry, cacheDirectory, maxSize, true);
+        ReflectionTestUtils.invokeMethod(cache, "load");
+        return cache;
+    }
+
+    private static TranscriptionResponse response(String text, Map<String, Object> metadata) {
+        return TranscriptionResponse.builder()
+                .transcription(text)
+                .processedAt(LocalDateTime.now())
+                .metadata(metadata)
+                .success(true)
+                .build();
+    }
+}
@@ -0,0 +1,244 @@
+package org.spring.ai.speech.textgenerator.service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionRequest;
+import org.spring.ai.speech.textgenerator.dto.TranscriptionResponse;
+import org.spring.ai.speech.textgenerator.service.SpeechToTextService;
+import org.spring.ai.speech.textgenerator.service.TestAudio;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.spring.ai.speech.textgenerator.service.TestAudio.MP3;
+
+class TranscriptionJobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final SpeechToTextService speechToTextService = mock(SpeechToTextService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private AudioValidationService validationService;
+    private AudioSpooler audioSpooler;
+    private TranscriptionJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        validationService = TestAudio.validationService();
+        audioSpooler = new AudioSpooler(validationService, directory.resolve("spool"), 8192);
+        ReflectionTestUtils.invokeMethod(audioSpooler, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (jobService != null) {
+            jobService.shutdown();
+        }
+    }
+
+    @Test
+    void submitReturnsAtOnceAndPersistsTheResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenAnswer(invocation -> {
+                    SpooledAudio audio = invocation.getArgument(0);
+                    assertTrue(Files.exists(audio.getPath()));
+                    release.await();
+                    return success("hello");
+                });
+        jobService = newService(1, 10);
+
+        TranscriptionJob job = jobService.submit(upload("a.mp3"), "en", "json", null, null);
+        assertEquals(TranscriptionJob.Status.QUEUED, job.status());
+
+        release.countDown();
+        TranscriptionJob finished = awaitFinished(job.id());
+        assertEquals(TranscriptionJob.Status.SUCCEEDED, finished.status());
+        assertEquals("hello", finished.result().getTranscription());
+        assertFalse(Files.exists(directory.resolve("jobs").resolve(job.id() + ".mp3")), "audio removed after the job");
+
+        // A fresh service reads the same directory back
+        jobService.shutdown();
+        jobService = newService(1, 10);
+        assertEquals("hello", jobService.find(job.id()).orElseThrow().result().getTranscription());
+    }
+
+    @Test
+    void fullQueueIsRejectedWith429() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenAnswer(invocation -> {
+                    running.countDown();
+                    release.await();
+                    return success("done");
+                });
+        jobService = newService(1, 1);
+
+        jobService.submit(upload("a.mp3"), null, "json", null, null);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        jobService.submit(upload("b.mp3"), null, "json", null, null);
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> jobService.submit(upload("c.mp3"), null, "json", null, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        release.countDown();
+    }
+
+    @Test
+    void jobTurnedAwayByTheSchedulerIsQueuedAgainWithItsAudio() throws Exception {
+        CountDownLatch retried = new CountDownLatch(1);
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenThrow(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many transcriptions waiting"))
+                .thenAnswer(invocation -> {
+                    SpooledAudio audio = invocation.getArgument(0);
+                    assertTrue(Files.exists(audio.getPath()), "audio kept for the retry");
+                    retried.await(5, TimeUnit.SECONDS);
+                    return success("second try");
+                });
+        jobService = newService(1, 10, Duration.ofMillis(200));
+
+        TranscriptionJob job = jobService.submit(upload("a.mp3"), null, "json", null, null);
+        Thread.sleep(100);
+        assertEquals(TranscriptionJob.Status.QUEUED, jobService.find(job.id()).orElseThrow().status());
+
+        retried.countDown();
+        TranscriptionJob finished = awaitFinished(job.id());
+        assertEquals(TranscriptionJob.Status.SUCCEEDED, finished.status());
+        assertEquals("second try", finished.result().getTranscription());
+    }
+
+    @Test
+    void queuedJobsAreRecoveredAfterRestart() throws Exception {
+        Path jobs = directory.resolve("jobs");
+        Files.createDirectories(jobs);
+        TranscriptionJob interrupted = new TranscriptionJob("job-1", TranscriptionJob.Status.RUNNING, "talk.mp3",
+                "audio/mpeg", "abc", null, "text", null, null, Instant.now(), Instant.now(), null, null, null);
+        objectMapper.writeValue(jobs.resolve("job-1.json").toFile(), interrupted);
+        Files.write(jobs.resolve("job-1.mp3"), MP3);
+        TranscriptionJob lost = new TranscriptionJob("job-2", TranscriptionJob.Status.QUEUED, "gone.mp3",
+                "audio/mpeg", "def", null, "text", null, null, Instant.now(), null, null, null, null);
+        objectMapper.writeValue(jobs.resolve("job-2.json").toFile(), lost);
+
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenReturn(success("recovered"));
+        jobService = newService(1, 10);
+
+        assertEquals("recovered", awaitFinished("job-1").result().getTranscription());
+        TranscriptionJob failed = jobService.find("job-2").orElseThrow();
+        assertEquals(TranscriptionJob.Status.FAILED, failed.status());
+        assertNotNull(failed.error());
+    }
+
+    @Test
+    void tempFilesLeftByACrashedSaveAreRemovedOnStartup() throws Exception {
+        Path jobs = directory.resolve("jobs");
+        Files.createDirectories(jobs);
+        Path leftover = Files.writeString(jobs.resolve("job-3123456789.tmp"), "{\"id\":\"job-3\",");
+
+        jobService = newService(1, 10);
+
+        assertFalse(Files.exists(leftover));
+        assertTrue(jobService.find("job-3").isEmpty());
+    }
+
+    @Test
+    void slowSubscriberDoesNotHoldUpTheWorker() throws Exception {
+        when(speechToTextService.transcribeSpooled(any(SpooledAudio.class), any(TranscriptionRequest.class)))
+                .thenReturn(success("done"));
+        CountDownLatch firstSendBlocked = new CountDownLatch(1);
+        CountDownLatch releaseSend = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        List<TranscriptionJob.Status> sent = new CopyOnWriteArrayList<>();
+        List<String> senderThreads = new CopyOnWriteArrayList<>();
+        SseEmitter slowClient = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                senderThreads.add(Thread.currentThread().getName());
+                builder.build().stream()
+                        .filter(data -> data.getData() instanceof TranscriptionJob)
+                        .forEach(data -> sent.add(((TranscriptionJob) data.getData()).status()));
+                firstSendBlocked.countDown();
+                try {
+                    releaseSend.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void complete() {
+                completed.countDown();
+            }
+        };
+        jobService = newService(1, 10);
+
+        TranscriptionJob job = jobService.submit(upload("a.mp3"), null, "json", null, null);
+        jobService.events(job, slowClient);
+        assertTrue(firstSendBlocked.await(5, TimeUnit.SECONDS));
+
+        assertEquals(TranscriptionJob.Status.SUCCEEDED, awaitFinished(job.id()).status());
+        releaseSend.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(TranscriptionJob.Status.SUCCEEDED, sent.get(sent.size() - 1));
+        assertTrue(sent.size() <= 2, "states offered while a send was blocked are coalesced: " + sent);
+        assertTrue(senderThreads.stream().allMatch(name -> name.startsWith("stt-job-events-")), senderThreads.toString());
+    }
+
+    private TranscriptionJobService newService(int workers, int maxQueued) {
+        return newService(workers, maxQueued, Duration.ofMillis(10));
+    }
+
+    private TranscriptionJobService newService(int workers, int maxQueued, Duration retryBackoff) {
+        TranscriptionJobService service = new TranscriptionJobService(speechToTextService, validationService,
+                audioSpooler, objectMapper, directory.resolve("jobs"), workers, maxQueued, 100,
+                Duration.ofHours(1), Duration.ofMinutes(1), 1, retryBackoff, 3);
+        ReflectionTestUtils.invokeMethod(service, "recover");
+        return service;
+    }
+
+    private TranscriptionJob awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            TranscriptionJob job = jobService.find(id).orElseThrow();
+            if (job.isFinished()) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        fail("Job " + id + " did not finish");
+        return null;
+    }
+
+    private static MockMultipartFile upload(String name) {
+        return new MockMultipartFile("file", name, "audio/mpeg", MP3);
+    }
+
+    private static TranscriptionResponse success(String text) {
+        return TranscriptionResponse.builder().transcription(text).success(true).build();
+    }
+}
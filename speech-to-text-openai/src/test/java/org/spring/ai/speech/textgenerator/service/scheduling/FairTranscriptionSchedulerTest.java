@@ -0,0 +1,203 @@
+package org.spring.ai.speech.textgenerator.service.scheduling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairTranscriptionSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void interactiveTenantOvertakesABulkBacklog() throws Exception {
+        FairTranscriptionScheduler scheduler = newScheduler(1, 0, 200, "");
+        List<Future<?>> calls = new ArrayList<>();
+        calls.add(hold(scheduler, "bulk", 60));
+        for (int i = 0; i < 4; i++) {
+            calls.add(queue(scheduler, "bulk", 60));
+        }
+        calls.add(queue(scheduler, "interactive", 5));
+
+        release.countDown();
+        awaitAll(calls);
+
+        assertEquals(List.of("bulk", "interactive", "bulk", "bulk", "bulk", "bulk"), admitted);
+    }
+
+    @Test
+    void tenantsShareSlotsByWeight() throws Exception {
+        FairTranscriptionScheduler scheduler = newScheduler(1, 0, 200, "a=3");
+        List<Future<?>> calls = new ArrayList<>();
+        calls.add(hold(scheduler, "x", 10));
+        for (int i = 0; i < 4; i++) {
+            calls.add(queue(scheduler, "a", 10));
+        }
+        calls.add(queue(scheduler, "b", 10));
+
+        release.countDown();
+        awaitAll(calls);
+
+        assertEquals(List.of("x", "a", "a", "a", "b", "a"), admitted);
+    }
+
+    @Test
+    void reservedSlotAdmitsShortClipsWhileLongFilesWait() throws Exception {
+        FairTranscriptionScheduler scheduler = newScheduler(2, 1, 200, "");
+        Future<?> longRunning = hold(scheduler, "bulk", 600);
+        Future<?> longWaiting = queue(scheduler, "bulk", 600);
+
+        String result = scheduler.execute("interactive", 5, () -> "done");
+
+        assertEquals("done", result);
+        assertEquals(1, scheduler.getQueued());
+        assertEquals(1, scheduler.getRunning());
+        release.countDown();
+        awaitAll(List.of(longRunning, longWaiting));
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test
+    void fullQueueIsRejected() throws Exception {
+        FairTranscriptionScheduler scheduler = newScheduler(1, 0, 1, "");
+        Future<?> running = hold(scheduler, "a", 10);
+        Future<?> waiting = queue(scheduler, "a", 10);
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> scheduler.execute("b", 10, () -> "never"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        release.countDown();
+        awaitAll(List.of(running, waiting));
+    }
+
+    @Test
+    void callsThatWaitTooLongGiveUpTheirPlace() throws Exception {
+        FairTranscriptionScheduler scheduler = new FairTranscriptionScheduler(meterRegistry, 1, 0,
+                Duration.ofSeconds(30), 200, Duration.ofMillis(50), "");
+        Future<?> running = hold(scheduler, "a", 10);
+
+        ResponseStatusException timedOut = assertThrows(ResponseStatusException.class,
+                () -> scheduler.execute("b", 10, () -> "never"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, timedOut.getStatusCode());
+        assertEquals(0, scheduler.getQueued());
+        release.countDown();
+        awaitAll(List.of(running));
+    }
+
+    @Test
+    void callThatGivesUpIsNotChargedToItsTenant() throws Exception {
+        FairTranscriptionScheduler scheduler = newScheduler(1, 0, 200, "");
+        List<Future<?>> calls = new ArrayList<>();
+        calls.add(hold(scheduler, "x", 1));
+        Future<?> abandoned = queue(scheduler, "bulk", 100);
+        calls.add(queue(scheduler, "bulk", 10));
+        abandoned.cancel(true);
+        awaitCount(scheduler::getQueued, 1);
+        calls.add(queue(scheduler, "interactive", 20));
+        calls.add(queue(scheduler, "bulk", 10));
+
+        release.countDown();
+        awaitAll(calls);
+
+        assertEquals(List.of("x", "bulk", "interactive", "bulk"), admitted);
+    }
+
+    @Test
+    void unconfiguredTenantsShareOneWaitSeries() {
+        FairTranscriptionScheduler scheduler = newScheduler(2, 1, 200, "acme=2");
+
+        scheduler.execute("acme", 5, () -> "ok");
+        scheduler.execute("someone-else", 5, () -> "ok");
+        scheduler.execute(null, 120, () -> "ok");
+
+        assertEquals(1, meterRegistry.get("stt.scheduler.queue.wait")
+                .tags("tenant", "acme", "class", "short").timer().count());
+        assertEquals(1, meterRegistry.get("stt.scheduler.queue.wait")
+                .tags("tenant", "other", "class", "short").timer().count());
+        assertEquals(1, meterRegistry.get("stt.scheduler.queue.wait")
+                .tags("tenant", FairTranscriptionScheduler.DEFAULT_TENANT, "class", "long").timer().count());
+    }
+
+    @Test
+    void invalidWeightsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> newScheduler(1, 0, 1, "acme"));
+        assertThrows(IllegalArgumentException.class, () -> newScheduler(1, 0, 1, "acme=0"));
+    }
+
+    private FairTranscriptionScheduler newScheduler(int maxConcurrent, int reservedShortSlots, int maxQueued,
+                                                    String weights) {
+        return new FairTranscriptionScheduler(meterRegistry, maxConcurrent, reservedShortSlots,
+                Duration.ofSeconds(30), maxQueued, Duration.ofSeconds(5), weights);
+    }
+
+    /**
+     * Start a call that keeps its slot until the test releases it
+     */
+    private Future<?> hold(FairTranscriptionScheduler scheduler, String tenant, double cost) throws Exception {
+        int running = scheduler.getRunning();
+        Future<?> call = callers.submit(() -> scheduler.execute(tenant, cost, () -> {
+            admitted.add(tenant);
+            await(release);
+            return null;
+        }));
+        awaitCount(scheduler::getRunning, running + 1);
+        return call;
+    }
+
+    /**
+     * Start a call and wait until it is queued, so tickets are numbered in submission order
+     */
+    private Future<?> queue(FairTranscriptionScheduler scheduler, String tenant, double cost) throws Exception {
+        int queued = scheduler.getQueued();
+        Future<?> call = callers.submit(() -> scheduler.execute(tenant, cost, () -> admitted.add(tenant)));
+        awaitCount(scheduler::getQueued, queued + 1);
+        return call;
+    }
+
+    private static void awaitCount(IntSupplier count, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsInt() != expected) {
+            assertTrue(System.nanoTime() < deadline, "expected " + expected + " but was " + count.getAsInt());
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> calls) throws Exception {
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
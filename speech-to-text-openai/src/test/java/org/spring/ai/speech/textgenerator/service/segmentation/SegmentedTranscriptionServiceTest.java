@@ -0,0 +1,244 @@
+package org.spring.ai.speech.textgenerator.service.segmentation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spring.ai.speech.textgenerator.service.TestAudio;
+import org.spring.ai.speech.textgenerator.service.scheduling.FairTranscriptionScheduler;
+import org.spring.ai.speech.textgenerator.service.upload.AudioSpooler;
+import org.spring.ai.speech.textgenerator.service.upload.SpooledAudio;
+import org.spring.ai.speech.textgenerator.service.validation.AudioValidationService;
+import org.springframework.ai.audio.transcription.AudioTranscription;
+import org.springframework.ai.audio.transcription.AudioTranscriptionPrompt;
+import org.springframework.ai.audio.transcription.AudioTranscriptionResponse;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionModel;
+import org.springframework.ai.openai.OpenAiAudioTranscriptionOptions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SegmentedTranscriptionServiceTest {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    @TempDir
+    Path spoolDirectory;
+
+    private final OpenAiAudioTranscriptionModel model = mock(OpenAiAudioTranscriptionModel.class);
+    private AudioSpooler audioSpooler;
+    private SegmentedTranscriptionService service;
+
+    @BeforeEach
+    void setUp() {
+        AudioValidationService validationService = TestAudio.validationService();
+        audioSpooler = new AudioSpooler(validationService, spoolDirectory, 8192);
+        service = newService(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void plansCutsInTheMiddleOfSilences() throws IOException {
+        Path wav = Files.write(spoolDirectory.resolve("speech.wav"), speechWithPauses());
+        SilenceSegmenter segmenter = new SilenceSegmenter(Duration.ofSeconds(10), 25165824L, -40,
+                Duration.ofMillis(300), Duration.ofSeconds(5));
+
+        try (FileChannel channel = FileChannel.open(wav)) {
+            WavHeader header = WavHeader.read(channel);
+            assertEquals(26.0, header.durationSeconds(), 0.001);
+            assertFalse(segmenter.fitsSingleSegment(header));
+
+            List<AudioSegment> segments = segmenter.plan(channel, header);
+
+            assertEquals(3, segments.size());
+            assertEquals(0.0, segments.get(0).startSeconds(), 0.001);
+            assertEquals(8.5, segments.get(1).startSeconds(), 0.03);
+            assertEquals(17.5, segments.get(2).startSeconds(), 0.03);
+            assertEquals(header.dataLength(), segments.stream().mapToLong(AudioSegment::length).sum());
+        }
+    }
+
+    @Test
+    void cutsHardWhenThereIsNoSilence() throws IOException {
+        Path wav = Files.write(spoolDirectory.resolve("tone.wav"), wav(tone(25)));
+        SilenceSegmenter segmenter = new SilenceSegmenter(Duration.ofSeconds(10), 25165824L, -40,
+                Duration.ofMillis(300), Duration.ofSeconds(5));
+
+        try (FileChannel channel = FileChannel.open(wav)) {
+            List<AudioSegment> segments = segmenter.plan(channel, WavHeader.read(channel));
+
+            assertEquals(3, segments.size());
+            assertEquals(10.0, segments.get(1).startSeconds(), 0.001);
+            assertEquals(5.0, segments.get(2).durationSeconds(), 0.001);
+        }
+    }
+
+    @Test
+    void transcribesSegmentsConcurrentlyAndShiftsSubtitleTimestamps() throws IOException {
+        when(model.call(any(AudioTranscriptionPrompt.class))).thenAnswer(invocation -> {
+            AudioTranscriptionPrompt prompt = invocation.getArgument(0);
+            try (FileChannel channel = FileChannel.open(prompt.getInstructions().getFile().toPath())) {
+                assertTrue(WavHeader.read(channel).durationSeconds() <= 10.0);
+            }
+            return new AudioTranscriptionResponse(new AudioTranscription(
+                    "1\n00:00:01,000 --> 00:00:02,500\nhello\n\n2\n00:00:03,000 --> 00:00:04,000\nworld\n"));
+        });
+
+        try (SpooledAudio audio = audioSpooler.spool(
+                new ByteArrayInputStream(speechWithPauses()), "speech.wav", "audio/wav")) {
+            assertTrue(service.supports(audio));
+
+            SegmentedTranscriptionService.SegmentedTranscript transcript = service.transcribe(audio,
+                    OpenAiAudioTranscriptionOptions.builder().build(), "srt", "acme");
+
+            assertEquals(3, transcript.segments());
+            assertTrue(transcript.text().startsWith("1\n00:00:01,000 --> 00:00:02,500\nhello\n"));
+            assertTrue(transcript.text().contains("3\n00:00:09,500 --> 00:00:11,000\nhello\n"));
+            assertTrue(transcript.text().contains("6\n00:00:20,500 --> 00:00:21,500\nworld\n"));
+        }
+
+        verify(model, times(3)).call(any(AudioTranscriptionPrompt.class));
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertEquals(0, files.count(), "segment and spool files are removed");
+        }
+    }
+
+    @Test
+    void everySegmentWaitsForItsOwnSchedulerSlot() throws IOException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(model.call(any(AudioTranscriptionPrompt.class))).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return new AudioTranscriptionResponse(new AudioTranscription("text"));
+        });
+        service.shutdown();
+        service = newService(1);
+
+        try (SpooledAudio audio = audioSpooler.spool(
+                new ByteArrayInputStream(speechWithPauses()), "speech.wav", "audio/wav")) {
+            SegmentedTranscriptionService.SegmentedTranscript transcript = service.transcribe(audio,
+                    OpenAiAudioTranscriptionOptions.builder().build(), "text", "acme");
+
+            assertEquals(3, transcript.segments());
+        }
+
+        verify(model, times(3)).call(any(AudioTranscriptionPrompt.class));
+        assertEquals(1, peak.get(), "segments ran past the scheduler's single slot");
+    }
+
+    @Test
+    void oneRecordingKeepsAtMostParallelismSegmentsInFlight() throws IOException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(model.call(any(AudioTranscriptionPrompt.class))).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return new AudioTranscriptionResponse(new AudioTranscription("text"));
+        });
+        service.shutdown();
+        service = newService(4, 2);
+
+        try (SpooledAudio audio = audioSpooler.spool(
+                new ByteArrayInputStream(speechWithPauses()), "speech.wav", "audio/wav")) {
+            assertEquals(3, service.transcribe(audio, OpenAiAudioTranscriptionOptions.builder().build(),
+                    "text", "acme").segments());
+        }
+
+        verify(model, times(3)).call(any(AudioTranscriptionPrompt.class));
+        assertEquals(2, peak.get(), "the third segment waits for one of the first two");
+    }
+
+    @Test
+    void onlyLong16BitPcmWavIsSegmented() throws IOException {
+        byte[] pcm24 = new byte[2 * SAMPLE_RATE * 3];
+        ByteArrayOutputStream wav24 = new ByteArrayOutputStream();
+        new WavHeader(1, SAMPLE_RATE, 24, 44, pcm24.length).write(Channels.newChannel(wav24), pcm24.length);
+        wav24.writeBytes(pcm24);
+
+        try (SpooledAudio deep = audioSpooler.spool(
+                new ByteArrayInputStream(wav24.toByteArray()), "deep.wav", "audio/wav");
+             SpooledAudio shortClip = audioSpooler.spool(
+                     new ByteArrayInputStream(wav(tone(2))), "short.wav", "audio/wav")) {
+            assertFalse(service.supports(deep), "24-bit PCM goes to the model in one call");
+            assertFalse(service.supports(shortClip), "a clip that fits one call is not cut");
+        }
+        verifyNoInteractions(model);
+    }
+
+    @Test
+    void mergesVttAndPlainText() {
+        String vtt = TranscriptMerger.merge(List.of(
+                "WEBVTT\n\n00:01.000 --> 00:02.000\nfirst\n",
+                "WEBVTT\n\n00:00:00.500 --> 00:00:01.000\nsecond\n"), new double[]{0, 61.25}, "vtt");
+        assertEquals("WEBVTT\n\n00:00:01.000 --> 00:00:02.000\nfirst\n\n"
+                + "00:01:01.750 --> 00:01:02.250\nsecond\n\n", vtt);
+
+        assertEquals("one two", TranscriptMerger.merge(List.of(" one ", "", "two\n"), new double[3], "json"));
+    }
+
+    private SegmentedTranscriptionService newService(int maxConcurrentCalls) {
+        return newService(maxConcurrentCalls, 3);
+    }
+
+    private SegmentedTranscriptionService newService(int maxConcurrentCalls, int parallelism) {
+        FairTranscriptionScheduler scheduler = new FairTranscriptionScheduler(new SimpleMeterRegistry(),
+                maxConcurrentCalls, 0, Duration.ofSeconds(30), 50, Duration.ofMinutes(1), "");
+        return new SegmentedTranscriptionService(model, audioSpooler, scheduler, Duration.ofSeconds(10), 25165824L,
+                -40, Duration.ofMillis(300), Duration.ofSeconds(5), parallelism);
+    }
+
+    /**
+     * 8 s tone, 1 s silence, 8 s tone, 1 s silence, 8 s tone
+     */
+    private static byte[] speechWithPauses() {
+        ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+        pcm.writeBytes(tone(8));
+        pcm.writeBytes(new byte[SAMPLE_RATE * 2]);
+        pcm.writeBytes(tone(8));
+        pcm.writeBytes(new byte[SAMPLE_RATE * 2]);
+        pcm.writeBytes(tone(8));
+        return wav(pcm.toByteArray());
+    }
+
+    private static byte[] tone(int seconds) {
+        ByteBuffer samples = ByteBuffer.allocate(seconds * SAMPLE_RATE * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < seconds * SAMPLE_RATE; i++) {
+            samples.putShort((short) (8000 * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE)));
+        }
+        return samples.array();
+    }
+
+    private static byte[] wav(byte[] pcm) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new WavHeader(1, SAMPLE_RATE, 16, 44, pcm.length).write(Channels.newChannel(out), pcm.length);
+            out.writeBytes(pcm);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.spring.ai.speech.textgenerator.service.streaming;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingSessionTest {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    /**
+     * Local stand-in for the model: reports the sample rate and length of the WAV it was given
+     */
+    private static final WindowTranscriber STUB = (wav, length, language) -> {
+        ByteBuffer header = ByteBuffer.wrap(wav).order(ByteOrder.LITTLE_ENDIAN);
+        int sampleRate = header.getInt(24);
+        int dataLength = header.getInt(40);
+        assertEquals(length - 44, dataLength);
+        return (dataLength / 2 * 1000L / sampleRate) + " ms";
+    };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingQueue<CaptionEvent> events = new LinkedBlockingQueue<>();
+    private StreamingTranscriptionService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void windowsCloseOnSilenceAndEndFollowsTheLastCaption() throws InterruptedException {
+        service = newService(Duration.ofSeconds(15), Duration.ZERO, 2);
+        StreamingSession session = service.open("en", null, events::add);
+
+        feed(session, silence(0.5), tone(1.0), silence(1.0), tone(1.0), silence(0.2));
+        session.finish();
+
+        List<CaptionEvent> received = awaitEnd();
+        assertEquals(3, received.size());
+        assertEquals(CaptionEvent.Type.FINAL, received.get(0).type());
+        assertEquals("2000 ms", received.get(0).text());
+        assertEquals(0.0, received.get(0).startSeconds(), 0.001);
+        assertEquals("1700 ms", received.get(1).text());
+        assertEquals(2.0, received.get(1).startSeconds(), 0.001);
+        assertEquals(CaptionEvent.Type.END, received.get(2).type());
+        assertEquals(2, received.get(2).window());
+
+        assertEquals(2, meterRegistry.get("stt.streaming.caption.latency").tag("type", "final").timer().count());
+        session.close();
+        assertEquals(0, service.getActiveSessions());
+    }
+
+    @Test
+    void continuousSpeechIsCutAtTheMaximumWindow() throws InterruptedException {
+        service = newService(Duration.ofSeconds(1), Duration.ZERO, 2);
+        StreamingSession session = service.open(null, null, events::add);
+
+        feed(session, tone(2.5));
+        session.finish();
+
+        List<String> texts = awaitEnd().stream()
+                .filter(event -> event.type() == CaptionEvent.Type.FINAL)
+                .map(CaptionEvent::text)
+                .toList();
+        assertEquals(List.of("1000 ms", "1000 ms", "500 ms"), texts);
+    }
+
+    @Test
+    void leadingSilenceIsNotTranscribed() throws InterruptedException {
+        service = newService(Duration.ofSeconds(15), Duration.ZERO, 2);
+        StreamingSession session = service.open(null, null, events::add);
+
+        feed(session, silence(3.0), tone(0.5));
+        session.finish();
+
+        CaptionEvent caption = awaitEnd().get(0);
+        assertEquals(2.5, caption.startSeconds(), 0.001);
+        assertEquals("1000 ms", caption.text());
+    }
+
+    @Test
+    void partialCaptionsPrecedeTheFinalOne() throws InterruptedException {
+        service = newService(Duration.ofSeconds(15), Duration.ofMillis(500), 2);
+        StreamingSession session = service.open(null, null, events::add);
+
+        feed(session, tone(1.2));
+        session.finish();
+
+        List<CaptionEvent> received = awaitEnd();
+        assertEquals(CaptionEvent.Type.PARTIAL, received.get(0).type());
+        assertEquals(1, received.get(0).window());
+        CaptionEvent last = received.get(received.size() - 2);
+        assertEquals(CaptionEvent.Type.FINAL, last.type());
+        assertEquals("1200 ms", last.text());
+    }
+
+    @Test
+    void sessionsAreCapped() {
+        service = newService(Duration.ofSeconds(15), Duration.ZERO, 1);
+        StreamingSession first = service.open(null, null, events::add);
+
+        assertThrows(ResponseStatusException.class, () -> service.open(null, null, events::add));
+        first.close();
+        first.close();
+        assertNotNull(service.open(null, null, events::add));
+    }
+
+    @Test
+    void ringBufferOverwritesTheOldestAudio() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4, 5}));
+
+        long dropped = ring.write(ByteBuffer.wrap(new byte[]{6, 7, 8, 9}));
+
+        assertEquals(2, dropped);
+        assertEquals(2, ring.start());
+        assertEquals(10, ring.end());
+        byte[] copy = new byte[8];
+        ring.copy(2, 8, copy, 0);
+        assertArrayEquals(new byte[]{2, 3, 4, 5, 6, 7, 8, 9}, copy);
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.copy(0, 4, copy, 0));
+    }
+
+    private StreamingTranscriptionService newService(Duration maxWindow, Duration partialInterval, int maxSessions) {
+        return new StreamingTranscriptionService(STUB, meterRegistry, SAMPLE_RATE, maxWindow,
+                Duration.ofMillis(500), -40, partialInterval, Duration.ofSeconds(30), maxSessions, 2);
+    }
+
+    /**
+     * Send the audio in odd-sized chunks so frames and samples straddle messages
+     */
+    private static void feed(StreamingSession session, byte[]... parts) {
+        List<Byte> all = new ArrayList<>();
+        for (byte[] part : parts) {
+            for (byte b : part) {
+                all.add(b);
+            }
+        }
+        byte[] audio = new byte[all.size()];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = all.get(i);
+        }
+        for (int offset = 0; offset < audio.length; offset += 1001) {
+            session.accept(ByteBuffer.wrap(audio, offset, Math.min(1001, audio.length - offset)));
+        }
+    }
+
+    private List<CaptionEvent> awaitEnd() throws InterruptedException {
+        List<CaptionEvent> received = new ArrayList<>();
+        while (true) {
+            CaptionEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no end event after " + received);
+            received.add(event);
+            if (event.type() == CaptionEvent.Type.END) {
+                return received;
+            }
+        }
+    }
+
+    private static byte[] silence(double seconds) {
+        return new byte[(int) (seconds * SAMPLE_RATE) * 2];
+    }
+
+    private static byte[] tone(double seconds) {
+        ByteBuffer pcm = ByteBuffer.allocate((int) (seconds * SAMPLE_RATE) * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; pcm.hasRemaining(); i++) {
+            pcm.putShort((short) (8000 * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE)));
+        }
+        return pcm.array();
+    }
+}
@@ -0,0 +1,169 @@
+package org.spring.ai.speech.textgenerator.service.validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spring.ai.speech.textgenerator.exception.AudioProcessingException;
+import org.spring.ai.speech.textgenerator.service.TestAudio;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioProbeTest {
+
+    @TempDir
+    Path directory;
+
+    private AudioValidationService validationService;
+
+    @BeforeEach
+    void setUp() {
+        validationService = TestAudio.validationService();
+    }
+
+    @Test
+    void probesBundledMp3() throws IOException {
+        Path file = write("speech.mp3", new ClassPathResource("speech-1760589387683.mp3").getContentAsByteArray());
+
+        AudioProbeResult result = validationService.probe(file, "speech.mp3");
+
+        assertEquals(AudioContainer.MP3, result.container());
+        assertEquals(24000, result.sampleRate());
+        assertEquals(1, result.channels());
+        assertTrue(result.durationSeconds() > 10 && result.durationSeconds() < 20);
+    }
+
+    @Test
+    void estimatesConstantBitrateMp3DurationFromFileSize() throws IOException {
+        // MPEG-1 layer III, 128 kbps, 44.1 kHz, mono: 417 byte frames
+        ByteArrayOutputStream mp3 = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+            byte[] frame = new byte[417];
+            frame[0] = (byte) 0xFF;
+            frame[1] = (byte) 0xFB;
+            frame[2] = (byte) 0x90;
+            frame[3] = (byte) 0xC4;
+            mp3.writeBytes(frame);
+        }
+
+        AudioProbeResult result = AudioProbe.probe(write("cbr.mp3", mp3.toByteArray()));
+
+        assertEquals(AudioContainer.MP3, result.container());
+        assertEquals(44100, result.sampleRate());
+        assertEquals(1, result.channels());
+        assertEquals(100 * 417 * 8 / 128000.0, result.durationSeconds(), 0.001);
+    }
+
+    @Test
+    void recognisesMpegLayer2Audio() throws IOException {
+        // MPEG-1 layer II, 128 kbps, 44.1 kHz, mono: 417 byte frames of 1152 samples
+        ByteArrayOutputStream mp2 = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+            mp2.writeBytes(layer2Frame());
+        }
+
+        AudioProbeResult result = validationService.probe(write("a.mpeg", mp2.toByteArray()), "a.mpeg");
+
+        assertEquals(AudioContainer.MP3, result.container());
+        assertEquals(44100, result.sampleRate());
+        assertEquals(1, result.channels());
+        assertEquals(100 * 417 * 8 / 128000.0, result.durationSeconds(), 0.001);
+    }
+
+    @Test
+    void readsMpegProgramStreamClockAndAudioFormat() throws IOException {
+        ByteArrayOutputStream ps = new ByteArrayOutputStream();
+        ps.writeBytes(mpeg2Pack(0));
+        ps.writeBytes(new byte[]{0, 0, 1, (byte) 0xC0, 0x01, (byte) 0xA7, (byte) 0x80, 0, 0});
+        ps.writeBytes(layer2Frame());
+        ps.writeBytes(new byte[20000]);
+        ps.writeBytes(mpeg2Pack(5 * 90000));
+
+        AudioProbeResult result = validationService.probe(write("a.mpeg", ps.toByteArray()), "a.mpeg");
+
+        assertEquals(new AudioProbeResult(AudioContainer.MPEG_PS, 5.0, 44100, 1), result);
+    }
+
+    @Test
+    void readsWavFormatAndDuration() throws IOException {
+        ByteBuffer wav = ByteBuffer.allocate(44 + 48000 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(36 + 48000 * 4).put("WAVE".getBytes())
+                .put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 2)
+                .putInt(48000).putInt(48000 * 4).putShort((short) 4).putShort((short) 16)
+                .put("data".getBytes()).putInt(48000 * 4);
+
+        AudioProbeResult result = AudioProbe.probe(write("a.wav", wav.array()));
+
+        assertEquals(new AudioProbeResult(AudioContainer.WAV, 1.0, 48000, 2), result);
+    }
+
+    @Test
+    void readsFlacStreamInfo() throws IOException {
+        ByteBuffer flac = ByteBuffer.allocate(42);
+        flac.put("fLaC".getBytes()).put(new byte[]{(byte) 0x80, 0, 0, 34})
+                .putShort((short) 4096).putShort((short) 4096).put(new byte[6])
+                .putLong((44100L << 44) | (1L << 41) | (15L << 36) | 441000L);
+
+        AudioProbeResult result = AudioProbe.probe(write("a.flac", flac.array()));
+
+        assertEquals(new AudioProbeResult(AudioContainer.FLAC, 10.0, 44100, 2), result);
+    }
+
+    @Test
+    void rejectsContentThatIsNotAudio() throws IOException {
+        Path file = write("notes.mp3", "these are meeting notes, not audio".getBytes());
+
+        AudioProcessingException error = assertThrows(AudioProcessingException.class,
+                () -> validationService.probe(file, "notes.mp3"));
+        assertTrue(error.getMessage().contains("not a recognised audio format"));
+    }
+
+    @Test
+    void rejectsMislabelledFiles() throws IOException {
+        Path file = write("speech.wav", new ClassPathResource("speech-1760589387683.mp3").getContentAsByteArray());
+
+        AudioProcessingException error = assertThrows(AudioProcessingException.class,
+                () -> validationService.probe(file, "speech.wav"));
+        assertTrue(error.getMessage().contains("MP3"));
+    }
+
+    @Test
+    void rejectsTruncatedWav() throws IOException {
+        Path file = write("short.wav", "RIFF\0\0\0\0WAVEfmt ".getBytes());
+
+        assertThrows(AudioProcessingException.class, () -> AudioProbe.probe(file));
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(directory.resolve(name), content);
+    }
+
+    private static byte[] layer2Frame() {
+        byte[] frame = new byte[417];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFD;
+        frame[2] = (byte) 0x80;
+        frame[3] = (byte) 0xC4;
+        return frame;
+    }
+
+    /**
+     * MPEG-2 pack header carrying the 33 bit system clock reference base {@code scr}
+     */
+    private static byte[] mpeg2Pack(long scr) {
+        return new byte[]{0, 0, 1, (byte) 0xBA,
+                (byte) (0x44 | (scr >> 27 & 0x38) | (scr >> 28 & 0x03)),
+                (byte) (scr >> 20),
+                (byte) ((scr >> 12 & 0xF8) | 0x04 | (scr >> 13 & 0x03)),
+                (byte) (scr >> 5),
+                (byte) ((scr << 3 & 0xF8) | 0x04),
+                0x01, 0x01, (byte) 0x89, (byte) 0xC3, (byte) 0xF8};
+    }
+}
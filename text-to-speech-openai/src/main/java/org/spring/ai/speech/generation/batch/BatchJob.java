@@ -0,0 +1,87 @@
+package org.spring.ai.speech.generation.batch;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one batch. Counters are updated by the workers and the archive writer while the batch runs.
+ */
+public class BatchJob {
+
+    public enum Status { RUNNING, COMPLETED, CANCELLED }
+
+    private final String id;
+    private final int total;
+    private final Instant createdAt = Instant.now();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger written = new AtomicInteger();
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant finishedAt;
+
+    BatchJob(String id, int total) {
+        this.id = id;
+        this.total = total;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    boolean finishedBefore(Instant instant) {
+        Instant finished = finishedAt;
+        return finished != null && finished.isBefore(instant);
+    }
+
+    void succeeded() {
+        succeeded.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void retried() {
+        retries.incrementAndGet();
+    }
+
+    void written() {
+        written.incrementAndGet();
+    }
+
+    /**
+     * Ends the batch unless it has already ended; returns whether this call ended it.
+     */
+    synchronized boolean finish(Status status) {
+        if (this.status != Status.RUNNING) {
+            return false;
+        }
+        this.finishedAt = Instant.now();
+        this.status = status;
+        return true;
+    }
+
+    public BatchProgress progress() {
+        return new BatchProgress(id, status, total, succeeded.get(), failed.get(), retries.get(), written.get(),
+            createdAt, finishedAt);
+    }
+
+    /**
+     * @param succeeded items synthesized
+     * @param failed    items that failed on every attempt
+     * @param retries   attempts beyond the first, over all items
+     * @param written   entries already streamed to the client
+     */
+    public record BatchProgress(String id, Status status, int total, int succeeded, int failed, int retries,
+                                int written, Instant createdAt, Instant finishedAt) {
+    }
+}
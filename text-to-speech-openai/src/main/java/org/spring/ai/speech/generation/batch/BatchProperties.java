@@ -0,0 +1,30 @@
+package org.spring.ai.speech.generation.batch;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param workers          threads shared by all batches for synthesizing items
+ * @param lookAhead        items per batch queued or synthesized ahead of the one being written to the archive
+ * @param maxAttempts      synthesis attempts per item before it is recorded as failed
+ * @param retryBackoff     pause before the second attempt, doubled for each further one
+ * @param maxItems         largest accepted batch
+ * @param maxTextLength    longest accepted item (the speech API accepts at most 4096 characters)
+ * @param maxActiveBatches batches streamed at the same time before new ones are rejected
+ * @param retention        how long progress of a finished batch stays available
+ * @param timeout          how long an archive may take to stream before the request is cut off and the batch
+ *                         cancelled
+ */
+@ConfigurationProperties(prefix = "tts.batch")
+public record BatchProperties(@DefaultValue("4") int workers,
+                              @DefaultValue("16") int lookAhead,
+                              @DefaultValue("3") int maxAttempts,
+                              @DefaultValue("1s") Duration retryBackoff,
+                              @DefaultValue("10000") int maxItems,
+                              @DefaultValue("4096") int maxTextLength,
+                              @DefaultValue("4") int maxActiveBatches,
+                              @DefaultValue("1h") Duration retention,
+                              @DefaultValue("60m") Duration timeout) {
+}
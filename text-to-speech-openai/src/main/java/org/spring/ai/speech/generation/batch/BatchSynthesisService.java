@@ -0,0 +1,317 @@
+package org.spring.ai.speech.generation.batch;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.spring.ai.speech.generation.cache.AudioCacheKey;
+import org.spring.ai.speech.generation.service.TextToSpeechGeneratorService;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Synthesizes batches of texts on a bounded worker pool and streams the results as a ZIP archive. Each item is a
+ * separate task with its own retries. The writer keeps at most {@code look-ahead} items of a batch in flight and
+ * writes entries in input order straight from the audio cache, so neither the audio nor the archive is held in
+ * memory and a slow client slows its own batch down instead of piling up finished work.
+ * <p>
+ * Archives are written on their own threads, one per active batch, and a batch ends together with its response: a
+ * batch whose request times out, fails or completes early is cancelled and stops counting against
+ * {@code max-active-batches}.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(BatchProperties.class)
+public class BatchSynthesisService {
+
+    private final TextToSpeechGeneratorService speechService;
+    private final BatchProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor archiveWriters;
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    public BatchSynthesisService(TextToSpeechGeneratorService speechService, BatchProperties properties,
+                                 ObjectMapper objectMapper) {
+        this.speechService = speechService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        // the queue is bounded in practice by look-ahead times max-active-batches
+        this.workers = new ThreadPoolExecutor(properties.workers(), properties.workers(),
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            Thread.ofPlatform().name("tts-batch-", 0).daemon().factory());
+        // start() admits at most max-active-batches, the queue only covers writers that are just finishing
+        this.archiveWriters = new ThreadPoolExecutor(properties.maxActiveBatches(), properties.maxActiveBatches(),
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            Thread.ofPlatform().name("tts-batch-writer-", 0).daemon().factory());
+    }
+
+    /**
+     * Registers a batch, rejecting it when it is empty, too large or the service is at capacity.
+     */
+    public BatchJob start(List<String> texts) {
+        if (texts.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch contains no texts");
+        }
+        if (texts.size() > properties.maxItems()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Batch has " + texts.size() + " texts, at most " + properties.maxItems() + " are accepted");
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank() || text.length() > properties.maxTextLength()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Text " + (i + 1) + " must be between 1 and " + properties.maxTextLength() + " characters");
+            }
+        }
+
+        Instant expired = Instant.now().minus(properties.retention());
+        jobs.values().removeIf(job -> job.finishedBefore(expired));
+        synchronized (jobs) {
+            long running = jobs.values().stream().filter(BatchJob::isRunning).count();
+            if (running >= properties.maxActiveBatches()) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    running + " batches are already running, try again later");
+            }
+            BatchJob job = new BatchJob(UUID.randomUUID().toString(), texts.size());
+            jobs.put(job.id(), job);
+            return job;
+        }
+    }
+
+    /**
+     * Streams the archive of a started batch to an async response and completes the response when it is written. The
+     * request times out after {@code timeout}.
+     */
+    public void stream(BatchJob job, List<String> texts, AsyncContext asyncContext) {
+        asyncContext.setTimeout(properties.timeout().toMillis());
+        ArchiveResponse archive = new ArchiveResponse(job, asyncContext);
+        asyncContext.addListener(archive);
+        try {
+            archive.writer = archiveWriters.submit(() -> {
+                try {
+                    writeArchive(job, texts, asyncContext.getResponse().getOutputStream());
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Batch {} archive was not completed: {}", job.id(), e.getMessage());
+                } finally {
+                    complete(asyncContext);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            job.finish(BatchJob.Status.CANCELLED);
+            try {
+                ((HttpServletResponse) asyncContext.getResponse()).sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            } catch (IOException | IllegalStateException ignored) {
+                // the client is gone already
+            }
+            complete(asyncContext);
+        }
+    }
+
+    public Optional<BatchJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Synthesizes every text of the batch and writes one entry per item to {@code out}: {@code 0001.mp3} on success,
+     * {@code 0001.error.txt} when all attempts failed, followed by a {@code manifest.json} describing each item.
+     */
+    public void writeArchive(BatchJob job, List<String> texts, OutputStream out) throws IOException {
+        String nameFormat = "%0" + Math.max(4, String.valueOf(texts.size()).length()) + "d";
+        Deque<Future<ItemResult>> pending = new ArrayDeque<>();
+        List<ManifestEntry> manifest = new ArrayList<>(texts.size());
+        int submitted = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(StreamUtils.nonClosing(out))) {
+            // MP3 does not compress any further
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            for (int index = 0; index < texts.size(); index++) {
+                while (submitted < texts.size() && submitted - index < properties.lookAhead()) {
+                    String text = texts.get(submitted);
+                    pending.add(workers.submit(() -> synthesize(job, text)));
+                    submitted++;
+                }
+                ItemResult result = await(pending.poll());
+                String baseName = nameFormat.formatted(index + 1);
+                String fileName;
+                if (result.error() == null) {
+                    fileName = baseName + ".mp3";
+                    zip.putNextEntry(new ZipEntry(fileName));
+                    copyAudio(result, zip);
+                } else {
+                    fileName = baseName + ".error.txt";
+                    zip.putNextEntry(new ZipEntry(fileName));
+                    zip.write(result.error().getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+                job.written();
+                manifest.add(new ManifestEntry(index + 1, fileName, result.error() == null ? "ok" : "failed",
+                    result.attempts(), result.error()));
+            }
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry("manifest.json"));
+            zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            zip.closeEntry();
+            zip.finish();
+            job.finish(BatchJob.Status.COMPLETED);
+            log.info("Batch {} finished: {}", job.id(), job.progress());
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(future -> future.cancel(true));
+            log.warn("Batch {} cancelled after {} of {} entries: {}", job.id(), manifest.size(), texts.size(),
+                e.getMessage());
+            throw e;
+        } finally {
+            // no-op once completed; otherwise whatever stopped the writer must not leave the batch running
+            job.finish(BatchJob.Status.CANCELLED);
+        }
+    }
+
+    private ItemResult synthesize(BatchJob job, String text) throws InterruptedException {
+        AudioCacheKey key = speechService.speechKey(text);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Resource audio = speechService.generateTextToSpeech(key);
+                job.succeeded();
+                return new ItemResult(key, audio, null, attempt);
+            } catch (RuntimeException e) {
+                if (attempt >= properties.maxAttempts() || e instanceof NonTransientAiException) {
+                    job.failed();
+                    log.warn("Batch {} item failed after {} attempts: {}", job.id(), attempt, e.getMessage());
+                    return new ItemResult(key, null, String.valueOf(e.getMessage()), attempt);
+                }
+                job.retried();
+                Thread.sleep(properties.retryBackoff().toMillis() << (attempt - 1));
+            }
+        }
+    }
+
+    /**
+     * Copies the item's audio into the archive. An entry evicted from the audio cache between synthesis and writing
+     * is fetched again.
+     */
+    private void copyAudio(ItemResult result, OutputStream zip) throws IOException {
+        InputStream audio;
+        try {
+            audio = result.audio().getInputStream();
+        } catch (FileNotFoundException e) {
+            audio = speechService.generateTextToSpeech(result.key()).getInputStream();
+        }
+        try (audio) {
+            audio.transferTo(zip);
+        }
+    }
+
+    private static ItemResult await(Future<ItemResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch item");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch item failed unexpectedly", e.getCause());
+        }
+    }
+
+    private static void complete(AsyncContext asyncContext) {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            log.debug("Async context already completed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiveWriters.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Cancels the batch when its response ends before the archive does: the client went away, the request timed out,
+     * or the container completed it. The writer is interrupted so it stops waiting for items nobody will receive.
+     */
+    private static final class ArchiveResponse implements AsyncListener {
+
+        private final BatchJob job;
+        private final AsyncContext asyncContext;
+        private volatile Future<?> writer;
+
+        private ArchiveResponse(BatchJob job, AsyncContext asyncContext) {
+            this.job = job;
+            this.asyncContext = asyncContext;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            log.warn("Batch {} timed out after {} ms", job.id(), asyncContext.getTimeout());
+            abandon();
+            complete(asyncContext);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            abandon();
+            complete(asyncContext);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            abandon();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void abandon() {
+            if (!job.finish(BatchJob.Status.CANCELLED)) {
+                return;
+            }
+            log.warn("Batch {} cancelled because its response ended after {} of {} entries", job.id(),
+                job.progress().written(), job.total());
+            Future<?> current = writer;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+
+    private record ItemResult(AudioCacheKey key, Resource audio, String error, int attempts) {
+    }
+
+    record ManifestEntry(int index, String file, String status, int attempts, String error) {
+    }
+}
@@ -0,0 +1,244 @@
+package org.spring.ai.speech.generation.cache;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Disk-backed, size-bounded cache of synthesized audio, keyed by {@link AudioCacheKey}. Files are evicted least
+ * recently used first once the total size exceeds {@code tts.cache.max-size}. Concurrent misses for the same key
+ * share a single synthesis. Entries that are being served are pinned and skipped by eviction until their stream is
+ * closed.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(AudioCacheProperties.class)
+public class AudioCache {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    private final Map<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Integer> pins = new HashMap<>();
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    public AudioCache(AudioCacheProperties properties) {
+        this.directory = properties.directory();
+        this.maxBytes = properties.maxSize().toBytes();
+    }
+
+    @PostConstruct
+    void loadExistingEntries() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        List<Path> byAge = files.stream()
+            .filter(file -> !deleteIfTemporary(file))
+            .sorted(Comparator.comparing(AudioCache::lastModified))
+            .toList();
+        synchronized (this) {
+            for (Path file : byAge) {
+                long size = Files.size(file);
+                entries.put(file.getFileName().toString(), size);
+                totalBytes += size;
+            }
+            evict();
+        }
+        log.info("Audio cache at {} holds {} files, {} bytes", directory, entries.size(), totalBytes);
+    }
+
+    /**
+     * Returns the cached file for the key, synthesizing and storing it first on a miss.
+     */
+    public Path get(AudioCacheKey key, Supplier<byte[]> synthesizer) {
+        String fileName = key.fileName();
+        Path cached = lookup(fileName);
+        if (cached != null) {
+            log.debug("Audio cache hit for {}", fileName);
+            return cached;
+        }
+
+        CompletableFuture<Path> synthesis = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(fileName, synthesis);
+        if (running != null) {
+            log.debug("Joining in-flight synthesis for {}", fileName);
+            return join(running);
+        }
+
+        try {
+            Path path = lookup(fileName);
+            if (path == null) {
+                log.debug("Audio cache miss for {}", fileName);
+                path = store(fileName, synthesizer.get());
+            }
+            synthesis.complete(path);
+            return path;
+        } catch (RuntimeException e) {
+            synthesis.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(fileName, synthesis);
+        }
+    }
+
+    /**
+     * Like {@link #get}, but opens the file before returning, so it cannot be evicted until the returned resource has
+     * been read and its stream closed.
+     */
+    public CachedAudio open(AudioCacheKey key, Supplier<byte[]> synthesizer) {
+        String fileName = key.fileName();
+        for (int attempt = 1; ; attempt++) {
+            Path path = get(key, synthesizer);
+            try {
+                return new CachedAudio(this, fileName, path, openPinned(fileName));
+            } catch (FileNotFoundException e) {
+                // evicted between storing and opening; store it again
+                if (attempt == 2) {
+                    throw new UncheckedIOException(e);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open audio cache entry " + fileName, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached file for the key without synthesizing, or {@code null} on a miss.
+     */
+    public Path find(AudioCacheKey key) {
+        return lookup(key.fileName());
+    }
+
+    private synchronized Path lookup(String fileName) {
+        if (entries.get(fileName) == null) {
+            return null;
+        }
+        Path path = directory.resolve(fileName);
+        if (!Files.exists(path)) {
+            totalBytes -= entries.remove(fileName);
+            return null;
+        }
+        return path;
+    }
+
+    /**
+     * Opens the entry and pins it until {@link #unpin} is called for the returned channel.
+     *
+     * @throws FileNotFoundException when the entry is not (or no longer) in the cache
+     */
+    synchronized FileChannel openPinned(String fileName) throws IOException {
+        if (entries.get(fileName) == null) {
+            throw new FileNotFoundException("Audio cache entry " + fileName + " was evicted");
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            totalBytes -= entries.remove(fileName);
+            throw new FileNotFoundException("Audio cache entry " + fileName + " is missing");
+        }
+        pins.merge(fileName, 1, Integer::sum);
+        return channel;
+    }
+
+    synchronized void unpin(String fileName) {
+        pins.computeIfPresent(fileName, (name, count) -> count > 1 ? count - 1 : null);
+        evict();
+    }
+
+    private Path store(String fileName, byte[] audio) {
+        Path target = directory.resolve(fileName);
+        Path temp = directory.resolve(fileName + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            Files.write(temp, audio);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Could not write audio cache entry " + fileName, e);
+        }
+        synchronized (this) {
+            Long previous = entries.put(fileName, (long) audio.length);
+            totalBytes += audio.length - (previous != null ? previous : 0L);
+            evict();
+        }
+        return target;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (pins.containsKey(entry.getKey())) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            deleteQuietly(directory.resolve(entry.getKey()));
+            log.debug("Evicted {} from audio cache", entry.getKey());
+        }
+    }
+
+    private static Path join(CompletableFuture<Path> synthesis) {
+        try {
+            return synthesis.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean deleteIfTemporary(Path file) {
+        if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+            deleteQuietly(file);
+            return true;
+        }
+        return false;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+}
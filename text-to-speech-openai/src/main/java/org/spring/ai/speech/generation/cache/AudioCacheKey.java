@@ -0,0 +1,33 @@
+package org.spring.ai.speech.generation.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.Voice;
+
+/**
+ * Everything that determines the synthesized audio. Equal keys always produce the same file name, so the name can be
+ * used as a content address.
+ */
+public record AudioCacheKey(String text, Voice voice, AudioResponseFormat format, float speed, String model) {
+
+    public String fileName() {
+        return hash() + "." + format.name().toLowerCase(Locale.ROOT);
+    }
+
+    public String hash() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((model + '\n' + voice.name() + '\n' + format.name() + '\n' + speed + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.spring.ai.speech.generation.cache;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param directory where synthesized audio files are kept
+ * @param maxSize   total size of the cache before least recently used files are evicted
+ */
+@ConfigurationProperties(prefix = "tts.cache")
+public record AudioCacheProperties(Path directory,
+                                   @DefaultValue("512MB") DataSize maxSize) {
+
+    public AudioCacheProperties {
+        if (directory == null) {
+            directory = Path.of(System.getProperty("java.io.tmpdir"), "tts-audio-cache");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.spring.ai.speech.generation.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * A cache entry opened for serving. The entry is pinned while a stream or channel of this resource is open, so
+ * eviction leaves the file alone until the response has been written. The first read uses the channel opened
+ * together with the lookup; later reads, e.g. one per byte range, pin and open the file again.
+ */
+public final class CachedAudio extends FileSystemResource {
+
+    private final AudioCache cache;
+    private final String fileName;
+    private final long size;
+    private final AtomicReference<FileChannel> opened;
+
+    CachedAudio(AudioCache cache, String fileName, Path path, FileChannel opened) throws IOException {
+        super(path);
+        this.cache = cache;
+        this.fileName = fileName;
+        this.size = opened.size();
+        this.opened = new AtomicReference<>(opened);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Channels.newInputStream(readableChannel());
+    }
+
+    @Override
+    public ReadableByteChannel readableChannel() throws IOException {
+        FileChannel channel = opened.getAndSet(null);
+        return new PinnedChannel(channel != null ? channel : cache.openPinned(fileName));
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    private final class PinnedChannel implements ReadableByteChannel {
+
+        private final FileChannel channel;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PinnedChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer buffer) throws IOException {
+            return channel.read(buffer);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    cache.unpin(fileName);
+                }
+            }
+        }
+    }
+}
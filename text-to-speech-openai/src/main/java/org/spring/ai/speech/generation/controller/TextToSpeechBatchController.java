@@ -0,0 +1,80 @@
+package org.spring.ai.speech.generation.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.spring.ai.speech.generation.batch.BatchJob;
+import org.spring.ai.speech.generation.batch.BatchSynthesisService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Batch synthesis. Texts are posted as a JSON array, as plain text or as an uploaded text file with one text per
+ * line, and the audio streams back as a ZIP archive. The {@code X-Batch-Id} response header identifies the batch
+ * for polling its progress while the archive downloads.
+ */
+@RestController
+@RequestMapping("/api/v1/tts/batch")
+@RequiredArgsConstructor
+public class TextToSpeechBatchController {
+
+    private static final String BATCH_ID_HEADER = "X-Batch-Id";
+
+    private final BatchSynthesisService batchSynthesisService;
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = "application/zip")
+    public void generateBatchFromJson(@RequestBody List<String> texts, HttpServletRequest request,
+                                      HttpServletResponse response) {
+        stream(texts, request, response);
+    }
+
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE, produces = "application/zip")
+    public void generateBatchFromText(@RequestBody String lines, HttpServletRequest request,
+                                      HttpServletResponse response) {
+        stream(splitLines(lines), request, response);
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = "application/zip")
+    public void generateBatchFromFile(@RequestParam("file") MultipartFile file, HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        stream(splitLines(new String(file.getBytes(), StandardCharsets.UTF_8)), request, response);
+    }
+
+    @GetMapping("/{batchId}")
+    public BatchJob.BatchProgress getProgress(@PathVariable String batchId) {
+        return batchSynthesisService.find(batchId)
+            .map(BatchJob::progress)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown batch " + batchId));
+    }
+
+    private void stream(List<String> texts, HttpServletRequest request, HttpServletResponse response) {
+        BatchJob job = batchSynthesisService.start(texts);
+        response.setHeader(BATCH_ID_HEADER, job.id());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename("tts-batch-" + job.id() + ".zip").build().toString());
+        response.setContentType("application/zip");
+        batchSynthesisService.stream(job, texts, request.startAsync());
+    }
+
+    private static List<String> splitLines(String lines) {
+        return lines.lines()
+            .map(String::strip)
+            .filter(line -> !line.isEmpty())
+            .toList();
+    }
+}
@@ -1,16 +1,36 @@
 package org.spring.ai.speech.generation.controller;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.spring.ai.speech.generation.cache.AudioCacheKey;
+import org.spring.ai.speech.generation.format.AudioFormat;
+import org.spring.ai.speech.generation.format.FormatBandwidthStats;
+import org.spring.ai.speech.generation.metrics.TtsMetrics;
 import org.spring.ai.speech.generation.service.TextToSpeechGeneratorService;
-import org.springframework.http.MediaType;
+import org.spring.ai.speech.generation.streaming.NonBlockingAudioWriter;
+import org.springframework.ai.openai.api.OpenAiAudioApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 
 @RestController
@@ -19,28 +39,81 @@ import reactor.core.publisher.Flux;
 public class TextToSpeechGeneratorController {
 
     private final TextToSpeechGeneratorService textToSpeechGeneratorService;
+    private final FormatBandwidthStats formatBandwidthStats;
+    private final TtsMetrics ttsMetrics;
 
+    @Value("${tts.stream.timeout:5m}")
+    private Duration streamTimeout;
+
+    @Value("${tts.cache.http-max-age:1d}")
+    private Duration audioMaxAge;
+
+    /**
+     * The output format comes from the {@code format} parameter or the {@code Accept} header. The ETag is derived
+     * from the synthesis parameters, so a revalidation is answered with 304 before any synthesis happens. Range
+     * requests are served as 206 from the cached file.
+     */
     @GetMapping
-    public byte[] generateTextToSpeech(
+    public ResponseEntity<Resource> generateTextToSpeech(
         @RequestParam(value = "userMessage", defaultValue = "Hello Open AI Text to Speech generator model how are your?")
-        String userPrompt) {
-        return textToSpeechGeneratorService.generateTextToSpeech(userPrompt);
+        String userPrompt,
+        @RequestParam(value = "format", required = false) String format,
+        @RequestParam(value = "voice", required = false) String voice,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        WebRequest webRequest) throws IOException {
+        long start = System.nanoTime();
+        AudioFormat audioFormat = AudioFormat.negotiate(format, accept);
+        AudioCacheKey key = textToSpeechGeneratorService.speechKey(userPrompt, audioFormat, parseVoice(voice));
+        String eTag = "\"" + key.hash() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        Resource audio = ttsMetrics.instrumentDownload(audioFormat, userPrompt,
+            textToSpeechGeneratorService.openTextToSpeech(key), start);
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .cacheControl(CacheControl.maxAge(audioMaxAge).cachePublic())
+            .varyBy(HttpHeaders.ACCEPT)
+            .contentType(audioFormat.mediaType())
+            .body(audio);
     }
 
-    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public StreamingResponseBody generateTextToSpeechStream(@RequestParam(value = "userMessage", defaultValue = "Hello Open AI Text to Speech generator model how are your?")
-                                                 String userPrompt) {
-        Flux<byte[]> audioStream = textToSpeechGeneratorService.generateTextToSpeechStream(userPrompt);
+    @GetMapping("/stream")
+    public void generateTextToSpeechStream(@RequestParam(value = "userMessage", defaultValue = "Hello Open AI Text to Speech generator model how are your?")
+                                           String userPrompt,
+                                           @RequestParam(value = "format", required = false) String format,
+                                           @RequestParam(value = "voice", required = false) String voice,
+                                           HttpServletRequest request,
+                                           HttpServletResponse response) throws IOException {
+        long start = System.nanoTime();
+        AudioFormat audioFormat = AudioFormat.negotiate(format, request.getHeader(HttpHeaders.ACCEPT));
+        Flux<byte[]> audio = textToSpeechGeneratorService.generateTextToSpeechStream(userPrompt, audioFormat,
+            parseVoice(voice));
+        response.setContentType(audioFormat.mediaType().toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(streamTimeout.toMillis());
+        NonBlockingAudioWriter.start(asyncContext, audio, ttsMetrics.streamListener(audioFormat, userPrompt, start));
+    }
 
-        return outputStream -> audioStream.toStream().forEach(bytes -> {
-            try {
-                outputStream.write(bytes);
-                outputStream.flush();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        });
+    /**
+     * Bytes per second of audio measured for each output format.
+     */
+    @GetMapping("/formats")
+    public List<FormatBandwidthStats.FormatBandwidth> getFormatBandwidth() {
+        return formatBandwidthStats.snapshot();
+    }
 
+    private static OpenAiAudioApi.SpeechRequest.Voice parseVoice(String voice) {
+        if (!StringUtils.hasText(voice)) {
+            return TextToSpeechGeneratorService.DEFAULT_VOICE;
+        }
+        try {
+            return OpenAiAudioApi.SpeechRequest.Voice.valueOf(voice.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown voice '" + voice + "', expected one of "
+                + Arrays.toString(OpenAiAudioApi.SpeechRequest.Voice.values()));
+        }
     }
 
 }
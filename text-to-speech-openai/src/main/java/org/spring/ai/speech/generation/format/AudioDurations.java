@@ -0,0 +1,178 @@
+package org.spring.ai.speech.generation.format;
+
+import java.util.OptionalDouble;
+
+/**
+ * Reads the playing time of synthesized audio from its container or frame headers, without decoding it.
+ */
+final class AudioDurations {
+
+    private static final int PCM_BYTES_PER_SECOND = 24_000 * 2;
+
+    private static final int[] MPEG1_LAYER3_KBPS = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MPEG2_LAYER3_KBPS = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[] MPEG1_SAMPLE_RATES = {44_100, 48_000, 32_000};
+    private static final int[] ADTS_SAMPLE_RATES =
+        {96_000, 88_200, 64_000, 48_000, 44_100, 32_000, 24_000, 22_050, 16_000, 12_000, 11_025, 8_000, 7_350};
+
+    private AudioDurations() {
+    }
+
+    /**
+     * Returns the playing time in seconds, or empty when the headers are missing or do not carry it.
+     */
+    static OptionalDouble seconds(AudioFormat format, byte[] audio) {
+        double seconds = switch (format) {
+            case PCM -> (double) audio.length / PCM_BYTES_PER_SECOND;
+            case WAV -> wav(audio);
+            case MP3 -> mp3(audio);
+            case OPUS -> ogg(audio);
+            case AAC -> adts(audio);
+            case FLAC -> flac(audio);
+        };
+        return seconds > 0 ? OptionalDouble.of(seconds) : OptionalDouble.empty();
+    }
+
+    /**
+     * Data chunk size over the byte rate of the fmt chunk. Streamed WAV often has a placeholder data size, so the
+     * bytes actually present are used instead.
+     */
+    private static double wav(byte[] audio) {
+        if (audio.length < 12 || !tag(audio, 0, "RIFF") || !tag(audio, 8, "WAVE")) {
+            return 0;
+        }
+        long byteRate = 0;
+        int offset = 12;
+        while (offset + 8 <= audio.length) {
+            long size = littleEndian(audio, offset + 4, 4);
+            if (tag(audio, offset, "fmt ") && offset + 20 <= audio.length) {
+                byteRate = littleEndian(audio, offset + 16, 4);
+            } else if (tag(audio, offset, "data")) {
+                long dataBytes = Math.min(size, audio.length - offset - 8L);
+                return byteRate > 0 ? (double) dataBytes / byteRate : 0;
+            }
+            offset += 8 + (int) Math.min(size + (size & 1), audio.length);
+        }
+        return 0;
+    }
+
+    /**
+     * Sums the samples of all MPEG layer III frames after the ID3v2 tag.
+     */
+    private static double mp3(byte[] audio) {
+        int offset = 0;
+        if (audio.length >= 10 && tag(audio, 0, "ID3")) {
+            offset = 10 + ((audio[6] & 0x7f) << 21 | (audio[7] & 0x7f) << 14 | (audio[8] & 0x7f) << 7 | (audio[9] & 0x7f));
+        }
+        double seconds = 0;
+        while (offset + 4 <= audio.length) {
+            int b1 = audio[offset + 1] & 0xff;
+            int b2 = audio[offset + 2] & 0xff;
+            if ((audio[offset] & 0xff) != 0xff || (b1 & 0xe0) != 0xe0 || (b1 & 0x06) != 0x02) {
+                break;
+            }
+            int version = (b1 >> 3) & 0x03;
+            int bitrateIndex = b2 >> 4;
+            int sampleRateIndex = (b2 >> 2) & 0x03;
+            if (version == 1 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                break;
+            }
+            boolean mpeg1 = version == 3;
+            int sampleRate = MPEG1_SAMPLE_RATES[sampleRateIndex] >> (mpeg1 ? 0 : version == 2 ? 1 : 2);
+            int bitrate = (mpeg1 ? MPEG1_LAYER3_KBPS : MPEG2_LAYER3_KBPS)[bitrateIndex] * 1000;
+            int samples = mpeg1 ? 1152 : 576;
+            int frameLength = samples / 8 * bitrate / sampleRate + ((b2 >> 1) & 0x01);
+            seconds += (double) samples / sampleRate;
+            offset += frameLength;
+        }
+        return seconds;
+    }
+
+    /**
+     * Granule position of the last Ogg page, minus the Opus pre-skip, at Opus' fixed 48 kHz granule rate.
+     */
+    private static double ogg(byte[] audio) {
+        if (audio.length < 27 || !tag(audio, 0, "OggS")) {
+            return 0;
+        }
+        long preSkip = 0;
+        int head = indexOf(audio, "OpusHead", 0);
+        if (head >= 0 && head + 12 <= audio.length) {
+            preSkip = littleEndian(audio, head + 10, 2);
+        }
+        for (int offset = audio.length - 27; offset >= 0; offset--) {
+            if (tag(audio, offset, "OggS")) {
+                long granule = littleEndian(audio, offset + 6, 8);
+                if (granule > 0) {
+                    return Math.max(0, granule - preSkip) / 48_000.0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Counts the 1024-sample raw data blocks of all ADTS frames.
+     */
+    private static double adts(byte[] audio) {
+        int offset = 0;
+        double seconds = 0;
+        while (offset + 7 <= audio.length) {
+            if ((audio[offset] & 0xff) != 0xff || (audio[offset + 1] & 0xf0) != 0xf0) {
+                break;
+            }
+            int sampleRateIndex = (audio[offset + 2] >> 2) & 0x0f;
+            int frameLength = (audio[offset + 3] & 0x03) << 11 | (audio[offset + 4] & 0xff) << 3
+                | (audio[offset + 5] & 0xe0) >> 5;
+            if (sampleRateIndex >= ADTS_SAMPLE_RATES.length || frameLength < 7) {
+                break;
+            }
+            int blocks = (audio[offset + 6] & 0x03) + 1;
+            seconds += 1024.0 * blocks / ADTS_SAMPLE_RATES[sampleRateIndex];
+            offset += frameLength;
+        }
+        return seconds;
+    }
+
+    /**
+     * Total samples over sample rate from the STREAMINFO block. Encoders that stream FLAC leave the total at zero.
+     */
+    private static double flac(byte[] audio) {
+        if (audio.length < 26 || !tag(audio, 0, "fLaC")) {
+            return 0;
+        }
+        int sampleRate = (audio[18] & 0xff) << 12 | (audio[19] & 0xff) << 4 | (audio[20] & 0xf0) >> 4;
+        long totalSamples = (long) (audio[21] & 0x0f) << 32 | (audio[22] & 0xffL) << 24 | (audio[23] & 0xff) << 16
+            | (audio[24] & 0xff) << 8 | (audio[25] & 0xff);
+        return sampleRate > 0 ? (double) totalSamples / sampleRate : 0;
+    }
+
+    private static boolean tag(byte[] audio, int offset, String tag) {
+        if (offset + tag.length() > audio.length) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (audio[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] audio, String tag, int from) {
+        for (int offset = from; offset + tag.length() <= audio.length; offset++) {
+            if (tag(audio, offset, tag)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static long littleEndian(byte[] audio, int offset, int length) {
+        long value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = value << 8 | (audio[offset + i] & 0xff);
+        }
+        return value;
+    }
+}
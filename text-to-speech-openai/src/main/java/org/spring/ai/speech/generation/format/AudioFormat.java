@@ -0,0 +1,126 @@
+package org.spring.ai.speech.generation.format;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Output formats of the speech API together with the media types they are served as and accepted under.
+ */
+public enum AudioFormat {
+
+    MP3(AudioResponseFormat.MP3, "audio/mpeg", "audio/mp3"),
+    OPUS(AudioResponseFormat.OPUS, "audio/ogg;codecs=opus", "audio/opus"),
+    AAC(AudioResponseFormat.AAC, "audio/aac", "audio/x-aac"),
+    FLAC(AudioResponseFormat.FLAC, "audio/flac", "audio/x-flac"),
+    WAV(AudioResponseFormat.WAV, "audio/wav", "audio/x-wav", "audio/wave"),
+    // raw 24 kHz 16 bit signed little-endian mono samples
+    PCM(AudioResponseFormat.PCM, "audio/pcm;rate=24000;channels=1");
+
+    public static final AudioFormat DEFAULT = MP3;
+
+    private final AudioResponseFormat responseFormat;
+    private final MediaType mediaType;
+    private final List<MediaType> aliases;
+
+    AudioFormat(AudioResponseFormat responseFormat, String mediaType, String... aliases) {
+        this.responseFormat = responseFormat;
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.aliases = Arrays.stream(aliases).map(MediaType::parseMediaType).toList();
+    }
+
+    public AudioResponseFormat responseFormat() {
+        return responseFormat;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static AudioFormat from(AudioResponseFormat responseFormat) {
+        for (AudioFormat format : values()) {
+            if (format.responseFormat == responseFormat) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported response format " + responseFormat);
+    }
+
+    /**
+     * Picks the output format of a request. An explicit {@code format} parameter wins; otherwise the most preferred
+     * audio type of the {@code Accept} header is used. Wildcards and {@code application/octet-stream} get the
+     * default format.
+     *
+     * @throws ResponseStatusException 400 for an unknown format parameter, 406 when no offered format is acceptable
+     */
+    public static AudioFormat negotiate(@Nullable String formatParameter, @Nullable String acceptHeader) {
+        if (StringUtils.hasText(formatParameter)) {
+            return fromParameter(formatParameter);
+        }
+        if (!StringUtils.hasText(acceptHeader)) {
+            return DEFAULT;
+        }
+
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(acceptHeader));
+        } catch (InvalidMediaTypeException e) {
+            return DEFAULT;
+        }
+        Set<AudioFormat> refused = EnumSet.noneOf(AudioFormat.class);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                refused.addAll(matching(type));
+            }
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+            .thenComparing(MediaType::isWildcardSubtype));
+
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            boolean anyFormat = type.isWildcardType() || type.isWildcardSubtype() && "audio".equals(type.getType())
+                || type.isCompatibleWith(MediaType.APPLICATION_OCTET_STREAM);
+            List<AudioFormat> candidates = anyFormat ? List.of(values()) : matching(type);
+            for (AudioFormat format : candidates) {
+                if (!refused.contains(format)) {
+                    return format;
+                }
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE,
+            "None of the supported audio formats " + Arrays.toString(values()) + " is acceptable");
+    }
+
+    private static AudioFormat fromParameter(String formatParameter) {
+        try {
+            return valueOf(formatParameter.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Unknown audio format '" + formatParameter + "', expected one of " + Arrays.toString(values()));
+        }
+    }
+
+    private static List<AudioFormat> matching(MediaType type) {
+        List<AudioFormat> formats = new ArrayList<>();
+        for (AudioFormat format : values()) {
+            if (type.includes(format.mediaType) || format.aliases.stream().anyMatch(type::includes)) {
+                formats.add(format);
+            }
+        }
+        return formats;
+    }
+}
@@ -0,0 +1,76 @@
+package org.spring.ai.speech.generation.format;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Bytes per second of audio for each output format, measured on every synthesized file. Lets us compare the bandwidth
+ * cost of the formats on our actual texts and voices instead of nominal bitrates.
+ */
+@Component
+public class FormatBandwidthStats {
+
+    private final Map<AudioFormat, Totals> totals = new EnumMap<>(AudioFormat.class);
+
+    public FormatBandwidthStats() {
+        for (AudioFormat format : AudioFormat.values()) {
+            totals.put(format, new Totals());
+        }
+    }
+
+    /**
+     * Adds a synthesized file. Files whose headers do not reveal their duration are skipped.
+     */
+    public void record(AudioFormat format, byte[] audio) {
+        OptionalDouble seconds = AudioDurations.seconds(format, audio);
+        if (seconds.isPresent()) {
+            Totals formatTotals = totals.get(format);
+            formatTotals.samples.increment();
+            formatTotals.bytes.add(audio.length);
+            formatTotals.seconds.add(seconds.getAsDouble());
+        }
+    }
+
+    /**
+     * Bytes per second of audio for the format, or {@code NaN} before any of its files was recorded.
+     */
+    public double bytesPerSecond(AudioFormat format) {
+        Totals formatTotals = totals.get(format);
+        double seconds = formatTotals.seconds.sum();
+        return seconds > 0 ? formatTotals.bytes.sum() / seconds : Double.NaN;
+    }
+
+    public List<FormatBandwidth> snapshot() {
+        return Arrays.stream(AudioFormat.values())
+            .map(format -> {
+                Totals formatTotals = totals.get(format);
+                double bytesPerSecond = bytesPerSecond(format);
+                return new FormatBandwidth(format.name().toLowerCase(Locale.ROOT), format.mediaType().toString(),
+                    formatTotals.samples.sum(), formatTotals.bytes.sum(), formatTotals.seconds.sum(),
+                    Double.isNaN(bytesPerSecond) ? null : bytesPerSecond);
+            })
+            .toList();
+    }
+
+    /**
+     * @param samples        synthesized files measured
+     * @param bytesPerSecond {@code null} until the first file was measured
+     */
+    public record FormatBandwidth(String format, String mediaType, long samples, long bytes, double audioSeconds,
+                                  Double bytesPerSecond) {
+    }
+
+    private static final class Totals {
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final DoubleAdder seconds = new DoubleAdder();
+    }
+}
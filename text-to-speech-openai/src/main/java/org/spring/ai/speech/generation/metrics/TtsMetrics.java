@@ -0,0 +1,327 @@
+package org.spring.ai.speech.generation.metrics;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.spring.ai.speech.generation.format.AudioFormat;
+import org.spring.ai.speech.generation.format.FormatBandwidthStats;
+import org.spring.ai.speech.generation.streaming.NonBlockingAudioWriter;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Latency and throughput meters for speech synthesis, split so that slow audio can be attributed to the provider
+ * ({@code tts.upstream.*}, {@code tts.stream.*}), to this service ({@code tts.time.to.first.byte}) or to the client
+ * connection ({@code tts.client.write.stall}). Tags are limited to the endpoint, the output format, the streaming
+ * mode and the outcome, so the number of series stays fixed.
+ */
+@Component
+public class TtsMetrics {
+
+    public static final String DOWNLOAD = "download";
+    public static final String STREAM = "stream";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<AudioFormat, Timer> upstreamSuccess = new EnumMap<>(AudioFormat.class);
+    private final Map<AudioFormat, Timer> upstreamError = new EnumMap<>(AudioFormat.class);
+    private final Map<AudioFormat, DistributionSummary> upstreamCharactersPerSecond = new EnumMap<>(AudioFormat.class);
+    private final Timer clientWriteStall;
+
+    public TtsMetrics(MeterRegistry meterRegistry, FormatBandwidthStats formatBandwidthStats) {
+        this.meterRegistry = meterRegistry;
+        for (AudioFormat format : AudioFormat.values()) {
+            upstreamSuccess.put(format, upstreamTimer(format, "success"));
+            upstreamError.put(format, upstreamTimer(format, "error"));
+            upstreamCharactersPerSecond.put(format, DistributionSummary.builder("tts.upstream.characters.per.second")
+                .tag("format", tag(format))
+                .description("Characters synthesized per second of upstream call time")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000.0)
+                .register(meterRegistry));
+            Gauge.builder("tts.format.bytes.per.second", formatBandwidthStats, stats -> stats.bytesPerSecond(format))
+                .tag("format", tag(format))
+                .description("Bytes per second of audio measured over all synthesized files")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        }
+        this.clientWriteStall = timer("tts.client.write.stall", "Time a stream waited for the client connection to accept more audio")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Times one blocking call to the speech API.
+     */
+    public byte[] recordUpstreamCall(AudioFormat format, String text, Supplier<byte[]> call) {
+        long start = System.nanoTime();
+        try {
+            byte[] audio = call.get();
+            long elapsed = System.nanoTime() - start;
+            upstreamSuccess.get(format).record(elapsed, TimeUnit.NANOSECONDS);
+            if (elapsed > 0) {
+                upstreamCharactersPerSecond.get(format).record(text.length() * 1e9 / elapsed);
+            }
+            return audio;
+        } catch (RuntimeException e) {
+            upstreamError.get(format).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Instruments the audio produced for {@code /stream}: time from subscription to the first chunk, gaps between
+     * chunks and the overall duration, tagged with {@code mode} ({@code direct} or {@code pipelined}).
+     */
+    public Flux<byte[]> instrumentStream(AudioFormat format, String mode, Flux<byte[]> audio) {
+        Timer firstChunk = timer("tts.stream.first.chunk", "Time until the first audio chunk arrived from synthesis")
+            .tags("format", tag(format), "mode", mode)
+            .register(meterRegistry);
+        Timer chunkGap = timer("tts.stream.chunk.gap", "Time between consecutive audio chunks from synthesis")
+            .tags("format", tag(format), "mode", mode)
+            .register(meterRegistry);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong previous = new AtomicLong();
+            return audio
+                .doOnNext(chunk -> {
+                    long now = System.nanoTime();
+                    long last = previous.getAndSet(now);
+                    (last == 0 ? firstChunk : chunkGap).record(now - (last == 0 ? start : last), TimeUnit.NANOSECONDS);
+                })
+                .doFinally(signal -> timer("tts.stream.duration", "Time until synthesis of a stream finished")
+                    .tags("format", tag(format), "mode", mode, "outcome", outcome(signal))
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Records a download response: size of the text and audio right away, and the time from the request to the first
+     * byte once the returned resource starts being written to the client, so it is comparable with {@code /stream}.
+     */
+    public Resource instrumentDownload(AudioFormat format, String text, Resource audio, long requestStartNanos)
+        throws IOException {
+        textCharacters(DOWNLOAD, text);
+        audioBytes(DOWNLOAD, format).record(audio.contentLength());
+        return new FirstByteTimedResource(audio, timeToFirstByte(DOWNLOAD, format), requestStartNanos);
+    }
+
+    /**
+     * Returns a listener recording the client side of a stream: time from the request to the first byte handed to
+     * the connection, write stalls and the bytes delivered.
+     */
+    public NonBlockingAudioWriter.Listener streamListener(AudioFormat format, String text, long requestStartNanos) {
+        textCharacters(STREAM, text);
+        Timer timeToFirstByte = timeToFirstByte(STREAM, format);
+        DistributionSummary audioBytes = audioBytes(STREAM, format);
+        return new NonBlockingAudioWriter.Listener() {
+            @Override
+            public void onFirstByte() {
+                timeToFirstByte.record(System.nanoTime() - requestStartNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void onStall(long nanos) {
+                clientWriteStall.record(nanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void onFinish(long bytesWritten) {
+                audioBytes.record(bytesWritten);
+            }
+        };
+    }
+
+    private void textCharacters(String endpoint, String text) {
+        DistributionSummary.builder("tts.text.characters")
+            .tag("endpoint", endpoint)
+            .description("Characters of text per request")
+            .baseUnit("characters")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(1.0)
+            .maximumExpectedValue(4096.0)
+            .register(meterRegistry)
+            .record(text.length());
+    }
+
+    private Timer timeToFirstByte(String endpoint, AudioFormat format) {
+        return timer("tts.time.to.first.byte", "Time from the request until the first audio byte was sent")
+            .tags("endpoint", endpoint, "format", tag(format))
+            .register(meterRegistry);
+    }
+
+    private DistributionSummary audioBytes(String endpoint, AudioFormat format) {
+        return DistributionSummary.builder("tts.audio.bytes")
+            .tags("endpoint", endpoint, "format", tag(format))
+            .description("Audio bytes per response")
+            .baseUnit("bytes")
+            .publishPercentileHistogram()
+            .minimumExpectedValue(1024.0)
+            .maximumExpectedValue(64.0 * 1024 * 1024)
+            .register(meterRegistry);
+    }
+
+    private Timer upstreamTimer(AudioFormat format, String outcome) {
+        return timer("tts.upstream.latency", "Duration of a blocking call to the speech API")
+            .tags("format", tag(format), "outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static Timer.Builder timer(String name, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofMinutes(5));
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+
+    private static String tag(AudioFormat format) {
+        return format.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Records the time to first byte when the response body reads its first bytes from the audio, which the message
+     * converter writes to the connection straight away. Only the first read of the first stream or channel counts.
+     * Everything else is delegated, so a file-backed resource is still treated as a file.
+     */
+    private static final class FirstByteTimedResource extends AbstractResource {
+
+        private final Resource audio;
+        private final Timer timeToFirstByte;
+        private final long requestStartNanos;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private FirstByteTimedResource(Resource audio, Timer timeToFirstByte, long requestStartNanos) {
+            this.audio = audio;
+            this.timeToFirstByte = timeToFirstByte;
+            this.requestStartNanos = requestStartNanos;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(audio.getInputStream()) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    firstByte();
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    firstByte();
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            ReadableByteChannel channel = audio.readableChannel();
+            return new ReadableByteChannel() {
+                @Override
+                public int read(ByteBuffer buffer) throws IOException {
+                    int read = channel.read(buffer);
+                    firstByte();
+                    return read;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return channel.isOpen();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+
+        private void firstByte() {
+            if (recorded.compareAndSet(false, true)) {
+                timeToFirstByte.record(System.nanoTime() - requestStartNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return audio.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return audio.lastModified();
+        }
+
+        @Override
+        public boolean exists() {
+            return audio.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return audio.isReadable();
+        }
+
+        @Override
+        public boolean isFile() {
+            return audio.isFile();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return audio.getFile();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return audio.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return audio.getURI();
+        }
+
+        @Override
+        public String getFilename() {
+            return audio.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return audio.getDescription();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.spring.ai.speech.generation.pipeline;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+
+/**
+ * Joins independently synthesized segments into one playable stream. MP3 and ADTS AAC are frame streams that stay
+ * valid when concatenated once per-segment ID3 tags are removed, Opus segments become a chained Ogg stream and PCM is
+ * raw samples. WAV and FLAC carry a single global header and cannot be stitched this way.
+ */
+final class AudioStitcher {
+
+    private static final Set<AudioResponseFormat> STITCHABLE =
+        Set.of(AudioResponseFormat.MP3, AudioResponseFormat.AAC, AudioResponseFormat.OPUS, AudioResponseFormat.PCM);
+
+    private AudioStitcher() {
+    }
+
+    static boolean supports(AudioResponseFormat format) {
+        return STITCHABLE.contains(format);
+    }
+
+    /**
+     * Prepares a segment for appending to the stream. Segments after the first lose their leading ID3v2 tag, which
+     * players would otherwise treat as garbage in the middle of the stream.
+     */
+    static byte[] segment(AudioResponseFormat format, byte[] audio, boolean first) {
+        if (first || format != AudioResponseFormat.MP3) {
+            return audio;
+        }
+        int tagLength = id3v2Length(audio);
+        return tagLength == 0 ? audio : Arrays.copyOfRange(audio, tagLength, audio.length);
+    }
+
+    private static int id3v2Length(byte[] audio) {
+        if (audio.length < 10 || audio[0] != 'I' || audio[1] != 'D' || audio[2] != '3') {
+            return 0;
+        }
+        // tag size is a 28 bit "syncsafe" integer that excludes the 10 byte header (and the footer, if present)
+        int size = (audio[6] & 0x7f) << 21 | (audio[7] & 0x7f) << 14 | (audio[8] & 0x7f) << 7 | (audio[9] & 0x7f);
+        boolean footer = (audio[5] & 0x10) != 0;
+        return Math.min(audio.length, 10 + size + (footer ? 10 : 0));
+    }
+}
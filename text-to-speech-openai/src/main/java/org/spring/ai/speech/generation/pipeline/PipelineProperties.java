@@ -0,0 +1,17 @@
+package org.spring.ai.speech.generation.pipeline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param minTextLength texts shorter than this are synthesized in a single call
+ * @param segmentLength target characters per segment; the first segment is a single sentence to start audio early
+ * @param maxSegmentLength hard limit per segment (the speech API accepts at most 4096 characters)
+ * @param parallelism   segments synthesized concurrently
+ */
+@ConfigurationProperties(prefix = "tts.pipeline")
+public record PipelineProperties(@DefaultValue("400") int minTextLength,
+                                 @DefaultValue("600") int segmentLength,
+                                 @DefaultValue("4000") int maxSegmentLength,
+                                 @DefaultValue("4") int parallelism) {
+}
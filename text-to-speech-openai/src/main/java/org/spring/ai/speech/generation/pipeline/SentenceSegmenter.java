@@ -0,0 +1,69 @@
+package org.spring.ai.speech.generation.pipeline;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into synthesis segments at sentence boundaries. The first segment is kept to a single sentence so the
+ * first audio arrives quickly; later sentences are packed up to {@code segmentLength} characters to keep the number
+ * of upstream calls low. Sentences longer than {@code maxSegmentLength} are split at the last whitespace that fits.
+ */
+public class SentenceSegmenter {
+
+    private final int segmentLength;
+    private final int maxSegmentLength;
+
+    public SentenceSegmenter(int segmentLength, int maxSegmentLength) {
+        this.segmentLength = segmentLength;
+        this.maxSegmentLength = maxSegmentLength;
+    }
+
+    public List<String> split(String text) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        BreakIterator sentences = BreakIterator.getSentenceInstance(Locale.ROOT);
+        sentences.setText(text);
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            String sentence = text.substring(start, end);
+            boolean firstSegment = segments.isEmpty();
+            if (!current.isEmpty() && (firstSegment || current.length() + sentence.length() > segmentLength)) {
+                segments.add(current.toString().strip());
+                current.setLength(0);
+            }
+            for (String part : splitOversized(sentence)) {
+                if (!current.isEmpty() && current.length() + part.length() > maxSegmentLength) {
+                    segments.add(current.toString().strip());
+                    current.setLength(0);
+                }
+                current.append(part);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            segments.add(current.toString().strip());
+        }
+        segments.removeIf(String::isBlank);
+        return segments;
+    }
+
+    private List<String> splitOversized(String sentence) {
+        if (sentence.length() <= maxSegmentLength) {
+            return List.of(sentence);
+        }
+        List<String> parts = new ArrayList<>();
+        int from = 0;
+        while (sentence.length() - from > maxSegmentLength) {
+            int cut = sentence.lastIndexOf(' ', from + maxSegmentLength);
+            if (cut <= from) {
+                cut = from + maxSegmentLength;
+            }
+            parts.add(sentence.substring(from, cut));
+            from = cut;
+        }
+        parts.add(sentence.substring(from));
+        return parts;
+    }
+}
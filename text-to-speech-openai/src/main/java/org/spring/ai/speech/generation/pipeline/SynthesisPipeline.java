@@ -0,0 +1,56 @@
+package org.spring.ai.speech.generation.pipeline;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Synthesizes long texts sentence by sentence. Up to {@code parallelism} segments are in flight at once, and each is
+ * emitted as soon as it and all segments before it are ready, so playback of the first sentence starts while later
+ * ones are still being synthesized.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(PipelineProperties.class)
+public class SynthesisPipeline {
+
+    private final PipelineProperties properties;
+    private final SentenceSegmenter segmenter;
+
+    public SynthesisPipeline(PipelineProperties properties) {
+        this.properties = properties;
+        this.segmenter = new SentenceSegmenter(properties.segmentLength(), properties.maxSegmentLength());
+    }
+
+    public boolean shouldPipeline(String text, AudioResponseFormat format) {
+        return text.length() >= properties.minTextLength() && AudioStitcher.supports(format);
+    }
+
+    public Flux<byte[]> synthesize(String text, AudioResponseFormat format, Function<String, byte[]> synthesizer) {
+        return Flux.defer(() -> {
+            List<String> segments = segmenter.split(text);
+            long startNanos = System.nanoTime();
+            AtomicLong firstAudioNanos = new AtomicLong(-1);
+
+            return Flux.range(0, segments.size())
+                .flatMapSequential(index -> Mono
+                    .fromCallable(() -> AudioStitcher.segment(format, synthesizer.apply(segments.get(index)), index == 0))
+                    .subscribeOn(Schedulers.boundedElastic()), properties.parallelism(), 1)
+                .doOnNext(audio -> firstAudioNanos.compareAndSet(-1, System.nanoTime() - startNanos))
+                .doOnComplete(() -> log.info(
+                    "Pipelined synthesis of {} chars in {} segments: first audio after {} ms, total {} ms",
+                    text.length(), segments.size(),
+                    TimeUnit.NANOSECONDS.toMillis(firstAudioNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+        });
+    }
+}
@@ -1,43 +1,123 @@
 package org.spring.ai.speech.generation.service;
 
-import java.util.Optional;
-import javax.swing.text.html.Option;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import lombok.RequiredArgsConstructor;
+import org.spring.ai.speech.generation.cache.AudioCache;
+import org.spring.ai.speech.generation.cache.AudioCacheKey;
+import org.spring.ai.speech.generation.format.AudioFormat;
+import org.spring.ai.speech.generation.format.FormatBandwidthStats;
+import org.spring.ai.speech.generation.metrics.TtsMetrics;
+import org.spring.ai.speech.generation.pipeline.SynthesisPipeline;
 import org.springframework.ai.openai.OpenAiAudioSpeechModel;
 import org.springframework.ai.openai.OpenAiAudioSpeechOptions;
 import org.springframework.ai.openai.api.OpenAiAudioApi;
 import org.springframework.ai.openai.audio.speech.Speech;
-import org.springframework.ai.openai.audio.speech.SpeechModel;
 import org.springframework.ai.openai.audio.speech.SpeechPrompt;
 import org.springframework.ai.openai.audio.speech.SpeechResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
 @Service
+@RequiredArgsConstructor
 public class TextToSpeechGeneratorService {
 
+    public static final OpenAiAudioApi.SpeechRequest.Voice DEFAULT_VOICE = OpenAiAudioApi.SpeechRequest.Voice.CORAL;
+
+    private static final int MAX_BANDWIDTH_SAMPLE_BYTES = 16 * 1024 * 1024;
+
     private final OpenAiAudioSpeechModel speechModel;
+    private final AudioCache audioCache;
+    private final SynthesisPipeline synthesisPipeline;
+    private final FormatBandwidthStats formatBandwidthStats;
+    private final TtsMetrics ttsMetrics;
 
-    public TextToSpeechGeneratorService(OpenAiAudioSpeechModel speechModel) {
-        this.speechModel = speechModel;
+    @Value("${spring.ai.openai.audio.speech.options.model:tts-1}")
+    private String model;
+
+    /**
+     * Identifies the audio a text would be synthesized to, without synthesizing it.
+     */
+    public AudioCacheKey speechKey(String text) {
+        return speechKey(text, AudioFormat.DEFAULT, DEFAULT_VOICE);
     }
 
-    public byte[] generateTextToSpeech(String text) {
-        return speechModel.call(new SpeechPrompt(text,
-                OpenAiAudioSpeechOptions
-                    .builder()
-                    .responseFormat(OpenAiAudioApi.SpeechRequest.AudioResponseFormat.MP3)
-                    .voice(OpenAiAudioApi.SpeechRequest.Voice.CORAL)
-                    .speed(1.0f)
-                    .build()))
-            .getResult()
-            .getOutput();
+    public AudioCacheKey speechKey(String text, AudioFormat format, OpenAiAudioApi.SpeechRequest.Voice voice) {
+        return new AudioCacheKey(text, voice, format.responseFormat(), 1.0f, model);
+    }
+
+    public Resource generateTextToSpeech(AudioCacheKey key) {
+        return new FileSystemResource(audioCache.get(key, () -> synthesize(key)));
+    }
+
+    /**
+     * Like {@link #generateTextToSpeech(AudioCacheKey)}, for serving the audio right away: the cached file stays on
+     * disk until the returned resource has been read and its stream closed.
+     */
+    public Resource openTextToSpeech(AudioCacheKey key) {
+        return audioCache.open(key, () -> synthesize(key));
     }
 
-    public Flux<byte[]> generateTextToSpeechStream(String userPrompt) {
-        Flux<SpeechResponse> speechResponseFlux = speechModel.stream(new SpeechPrompt(userPrompt));
-        return speechResponseFlux
+    public Flux<byte[]> generateTextToSpeechStream(String userPrompt, AudioFormat format,
+                                                   OpenAiAudioApi.SpeechRequest.Voice voice) {
+        if (synthesisPipeline.shouldPipeline(userPrompt, format.responseFormat())) {
+            return ttsMetrics.instrumentStream(format, "pipelined", synthesisPipeline.synthesize(userPrompt,
+                format.responseFormat(), segment -> synthesize(speechKey(segment, format, voice))));
+        }
+        Flux<SpeechResponse> speechResponseFlux = speechModel.stream(
+            new SpeechPrompt(userPrompt, options(speechKey(userPrompt, format, voice))));
+        return ttsMetrics.instrumentStream(format, "direct", recordBandwidth(format, speechResponseFlux
             .map(SpeechResponse::getResult)
-            .map(Speech::getOutput);
+            .map(Speech::getOutput)));
+    }
+
+    /**
+     * Adds a directly streamed response to the bandwidth stats once it is complete. Pipelined streams are recorded
+     * per segment in {@link #synthesize}. A stream above {@link #MAX_BANDWIDTH_SAMPLE_BYTES} is not sampled, so the
+     * copy kept for measuring stays small.
+     */
+    private Flux<byte[]> recordBandwidth(AudioFormat format, Flux<byte[]> audio) {
+        return Flux.defer(() -> {
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            AtomicBoolean oversized = new AtomicBoolean();
+            return audio
+                .doOnNext(chunk -> {
+                    if (copy.size() + chunk.length > MAX_BANDWIDTH_SAMPLE_BYTES) {
+                        oversized.set(true);
+                        copy.reset();
+                    } else if (!oversized.get()) {
+                        copy.writeBytes(chunk);
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (!oversized.get()) {
+                        formatBandwidthStats.record(format, copy.toByteArray());
+                    }
+                });
+        });
+    }
+
+    private byte[] synthesize(AudioCacheKey key) {
+        AudioFormat format = AudioFormat.from(key.format());
+        byte[] audio = ttsMetrics.recordUpstreamCall(format, key.text(), () -> speechModel
+            .call(new SpeechPrompt(key.text(), options(key)))
+            .getResult()
+            .getOutput());
+        formatBandwidthStats.record(format, audio);
+        return audio;
+    }
+
+    private static OpenAiAudioSpeechOptions options(AudioCacheKey key) {
+        return OpenAiAudioSpeechOptions
+            .builder()
+            .model(key.model())
+            .responseFormat(key.format())
+            .voice(key.voice())
+            .speed(key.speed())
+            .build();
     }
 }
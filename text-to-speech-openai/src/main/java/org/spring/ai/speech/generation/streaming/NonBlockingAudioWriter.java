@@ -0,0 +1,224 @@
+package org.spring.ai.speech.generation.streaming;
+
+import java.io.IOException;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+/**
+ * Writes an audio {@link Flux} to a servlet response using non-blocking I/O. The next chunk is only requested from
+ * upstream once the previous one has been handed to the container and the connection can take more, so a slow client
+ * applies backpressure instead of holding a thread. A client disconnect or async timeout cancels the upstream call.
+ */
+@Slf4j
+public final class NonBlockingAudioWriter extends BaseSubscriber<byte[]> implements WriteListener, AsyncListener {
+
+    private final AsyncContext asyncContext;
+    private final HttpServletResponse response;
+    private final ServletOutputStream output;
+    private final Listener listener;
+
+    private byte[] pending;
+    private long bytesWritten;
+    private long stalledSince;
+    private boolean writable;
+    private boolean demanding;
+    private boolean needsFlush;
+    private boolean upstreamDone;
+    private boolean draining;
+    private boolean finished;
+
+    private NonBlockingAudioWriter(AsyncContext asyncContext, Listener listener) throws IOException {
+        this.asyncContext = asyncContext;
+        this.response = (HttpServletResponse) asyncContext.getResponse();
+        this.output = response.getOutputStream();
+        this.listener = listener;
+    }
+
+    /**
+     * Subscribes to the audio and starts writing it once the container signals the response is writable. The
+     * request must already be in async mode. The write listener is registered before subscribing, because audio that
+     * completes or fails right away completes the async context from within {@code subscribe}.
+     */
+    public static void start(AsyncContext asyncContext, Flux<byte[]> audio) throws IOException {
+        start(asyncContext, audio, new Listener() {
+        });
+    }
+
+    public static void start(AsyncContext asyncContext, Flux<byte[]> audio, Listener listener) throws IOException {
+        NonBlockingAudioWriter writer = new NonBlockingAudioWriter(asyncContext, listener);
+        asyncContext.addListener(writer);
+        writer.output.setWriteListener(writer);
+        audio.subscribe(writer);
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        // nothing is requested until the container reports the connection writable, which may already have happened
+        synchronized (this) {
+            if (!writable) {
+                return;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnNext(byte[] chunk) {
+        synchronized (this) {
+            pending = chunk;
+            demanding = false;
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        log.warn("Audio stream failed upstream: {}", throwable.getMessage());
+        synchronized (this) {
+            if (!response.isCommitted()) {
+                response.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+            }
+            finish();
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        synchronized (this) {
+            writable = true;
+            if (stalledSince != 0) {
+                listener.onStall(System.nanoTime() - stalledSince);
+                stalledSince = 0;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        log.debug("Client connection failed while streaming audio: {}", throwable.getMessage());
+        abort();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        log.warn("Audio stream timed out after {} ms", asyncContext.getTimeout());
+        abort();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        abort();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private synchronized void drain() {
+        if (finished || draining) {
+            return;
+        }
+        draining = true;
+        try {
+            while (output.isReady()) {
+                if (pending != null) {
+                    byte[] chunk = pending;
+                    pending = null;
+                    output.write(chunk);
+                    if (bytesWritten == 0) {
+                        listener.onFirstByte();
+                    }
+                    bytesWritten += chunk.length;
+                    needsFlush = true;
+                } else if (needsFlush) {
+                    needsFlush = false;
+                    output.flush();
+                } else if (upstreamDone) {
+                    finish();
+                    return;
+                } else if (!demanding) {
+                    if (upstream() == null) {
+                        // not subscribed yet, hookOnSubscribe() drains again
+                        return;
+                    }
+                    demanding = true;
+                    request(1);
+                    if (finished || (pending == null && !upstreamDone)) {
+                        return;
+                    }
+                } else {
+                    return;
+                }
+            }
+            // not writable right now, the container calls onWritePossible() once it is
+            if (stalledSince == 0) {
+                stalledSince = System.nanoTime();
+            }
+        } catch (IOException e) {
+            log.debug("Client went away while streaming audio: {}", e.getMessage());
+            abort();
+        } finally {
+            draining = false;
+        }
+    }
+
+    private synchronized void abort() {
+        if (!finished) {
+            cancel();
+            finish();
+        }
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        listener.onFinish(bytesWritten);
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            log.debug("Async context already completed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Observes the client side of a stream. Callbacks run while the writer holds its lock and must not block.
+     */
+    public interface Listener {
+
+        default void onFirstByte() {
+        }
+
+        /**
+         * The connection did not accept more audio for {@code nanos}.
+         */
+        default void onStall(long nanos) {
+        }
+
+        default void onFinish(long bytesWritten) {
+        }
+    }
+}
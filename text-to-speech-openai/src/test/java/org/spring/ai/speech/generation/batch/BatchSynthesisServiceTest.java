@@ -0,0 +1,178 @@
+package org.spring.ai.speech.generation.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.spring.ai.speech.generation.cache.AudioCacheKey;
+import org.spring.ai.speech.generation.service.TextToSpeechGeneratorService;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.Voice;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchSynthesisServiceTest {
+
+    private final TextToSpeechGeneratorService speechService = mock(TextToSpeechGeneratorService.class);
+    private BatchSynthesisService batchSynthesisService;
+
+    @BeforeEach
+    void setUp() {
+        BatchProperties properties = new BatchProperties(2, 2, 3, Duration.ofMillis(1), 100, 4096, 1,
+            Duration.ofHours(1), Duration.ofMinutes(60));
+        batchSynthesisService = new BatchSynthesisService(speechService, properties, new ObjectMapper());
+        when(speechService.speechKey(anyString())).thenAnswer(invocation ->
+            new AudioCacheKey(invocation.getArgument(0), Voice.CORAL, AudioResponseFormat.MP3, 1.0f, "tts-1"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchSynthesisService.shutdown();
+    }
+
+    @Test
+    void writesEntriesInInputOrderRetryingTransientFailures() throws Exception {
+        AtomicInteger flakyCalls = new AtomicInteger();
+        when(speechService.generateTextToSpeech(any(AudioCacheKey.class))).thenAnswer(invocation -> {
+            String text = invocation.<AudioCacheKey>getArgument(0).text();
+            if (text.equals("flaky") && flakyCalls.incrementAndGet() == 1) {
+                throw new IllegalStateException("upstream timeout");
+            }
+            if (text.equals("broken")) {
+                throw new IllegalStateException("upstream rejected the text");
+            }
+            return new ByteArrayResource(text.getBytes(StandardCharsets.UTF_8));
+        });
+        List<String> texts = List.of("first", "flaky", "broken", "last");
+
+        BatchJob job = batchSynthesisService.start(texts);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        batchSynthesisService.writeArchive(job, texts, archive);
+
+        Map<String, String> entries = unzip(archive.toByteArray());
+        assertEquals(List.of("0001.mp3", "0002.mp3", "0003.error.txt", "0004.mp3", "manifest.json"),
+            List.copyOf(entries.keySet()));
+        assertEquals("flaky", entries.get("0002.mp3"));
+        assertEquals("upstream rejected the text", entries.get("0003.error.txt"));
+
+        BatchJob.BatchProgress progress = job.progress();
+        assertEquals(BatchJob.Status.COMPLETED, progress.status());
+        assertEquals(3, progress.succeeded());
+        assertEquals(1, progress.failed());
+        assertEquals(3, progress.retries());
+        assertEquals(4, progress.written());
+    }
+
+    @Test
+    void rejectsBatchesBeyondTheActiveLimit() {
+        batchSynthesisService.start(List.of("one"));
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+            () -> batchSynthesisService.start(List.of("two")));
+        assertEquals(429, rejected.getStatusCode().value());
+    }
+
+    @Test
+    void streamsTheArchiveToTheAsyncResponseAndCompletesIt() throws Exception {
+        when(speechService.generateTextToSpeech(any(AudioCacheKey.class))).thenAnswer(invocation ->
+            new ByteArrayResource(invocation.<AudioCacheKey>getArgument(0).text().getBytes(StandardCharsets.UTF_8)));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        AsyncContext asyncContext = asyncContext(body);
+
+        BatchJob job = batchSynthesisService.start(List.of("one", "two"));
+        batchSynthesisService.stream(job, List.of("one", "two"), asyncContext);
+
+        verify(asyncContext, timeout(5000)).complete();
+        verify(asyncContext).setTimeout(Duration.ofMinutes(60).toMillis());
+        assertEquals(List.of("0001.mp3", "0002.mp3", "manifest.json"), List.copyOf(unzip(body.toByteArray()).keySet()));
+        assertEquals(BatchJob.Status.COMPLETED, job.progress().status());
+    }
+
+    @Test
+    void batchWhoseResponseTimesOutIsCancelledAndFreesItsSlot() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(speechService.generateTextToSpeech(any(AudioCacheKey.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ByteArrayResource(new byte[1]);
+        });
+        AsyncContext asyncContext = asyncContext(new ByteArrayOutputStream());
+        BatchJob job = batchSynthesisService.start(List.of("slow"));
+        batchSynthesisService.stream(job, List.of("slow"), asyncContext);
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+
+        assertEquals(BatchJob.Status.CANCELLED, job.progress().status());
+        verify(asyncContext, atLeastOnce()).complete();
+        assertNotNull(batchSynthesisService.start(List.of("next")));
+        release.countDown();
+    }
+
+    @Test
+    void rejectsBlankTexts() {
+        assertThrows(ResponseStatusException.class, () -> batchSynthesisService.start(List.of("ok", " ")));
+    }
+
+    private static AsyncContext asyncContext(ByteArrayOutputStream body) throws Exception {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        });
+        return asyncContext;
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
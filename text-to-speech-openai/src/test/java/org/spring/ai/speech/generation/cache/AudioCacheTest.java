@@ -0,0 +1,118 @@
+package org.spring.ai.speech.generation.cache;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.Voice;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private AudioCache audioCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        audioCache = new AudioCache(new AudioCacheProperties(directory, DataSize.ofBytes(10)));
+        audioCache.loadExistingEntries();
+    }
+
+    @Test
+    void secondRequestIsServedFromDisk() throws Exception {
+        AtomicInteger synthesized = new AtomicInteger();
+
+        Path first = audioCache.get(key("hello"), () -> audio(synthesized, 4));
+        Path second = audioCache.get(key("hello"), () -> audio(synthesized, 4));
+
+        assertEquals(first, second);
+        assertEquals(1, synthesized.get());
+        assertEquals(4, Files.size(first));
+    }
+
+    @Test
+    void concurrentMissesShareOneSynthesis() throws Exception {
+        AtomicInteger synthesized = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Path>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> audioCache.get(key("shared"), () -> {
+                    await(release);
+                    return audio(synthesized, 2);
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Path> result : results) {
+                assertNotNull(result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, synthesized.get());
+    }
+
+    @Test
+    void leastRecentlyUsedFileIsEvictedWhenFull() {
+        AtomicInteger synthesized = new AtomicInteger();
+        Path a = audioCache.get(key("a"), () -> audio(synthesized, 4));
+        Path b = audioCache.get(key("b"), () -> audio(synthesized, 4));
+        audioCache.get(key("a"), () -> audio(synthesized, 4));
+        audioCache.get(key("c"), () -> audio(synthesized, 4));
+
+        assertTrue(Files.exists(a));
+        assertFalse(Files.exists(b));
+        assertNull(audioCache.find(key("b")));
+    }
+
+    @Test
+    void entryBeingServedIsNotEvictedUntilItsStreamIsClosed() throws Exception {
+        AtomicInteger synthesized = new AtomicInteger();
+        CachedAudio served = audioCache.open(key("a"), () -> audio(synthesized, 4));
+        Path a = served.getFile().toPath();
+        audioCache.get(key("b"), () -> audio(synthesized, 4));
+        audioCache.get(key("c"), () -> audio(synthesized, 4));
+
+        assertTrue(Files.exists(a), "the least recently used entry is pinned");
+        assertNull(audioCache.find(key("b")));
+        try (InputStream in = served.getInputStream()) {
+            assertEquals(4, in.readAllBytes().length);
+        }
+
+        audioCache.get(key("d"), () -> audio(synthesized, 4));
+        assertFalse(Files.exists(a));
+    }
+
+    private static AudioCacheKey key(String text) {
+        return new AudioCacheKey(text, Voice.CORAL, AudioResponseFormat.MP3, 1.0f, "tts-1");
+    }
+
+    private static byte[] audio(AtomicInteger counter, int size) {
+        counter.incrementAndGet();
+        return new byte[size];
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.spring.ai.speech.generation.controller;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.spring.ai.speech.generation.cache.AudioCacheKey;
+import org.spring.ai.speech.generation.format.AudioFormat;
+import org.spring.ai.speech.generation.format.FormatBandwidthStats;
+import org.spring.ai.speech.generation.metrics.TtsMetrics;
+import org.spring.ai.speech.generation.service.TextToSpeechGeneratorService;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class TextToSpeechGeneratorControllerTest {
+
+    private static final byte[] AUDIO = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+    private final TextToSpeechGeneratorService speechService = mock(TextToSpeechGeneratorService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        FormatBandwidthStats formatBandwidthStats = new FormatBandwidthStats();
+        TextToSpeechGeneratorController controller = new TextToSpeechGeneratorController(speechService,
+            formatBandwidthStats, new TtsMetrics(new SimpleMeterRegistry(), formatBandwidthStats));
+        ReflectionTestUtils.setField(controller, "streamTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(controller, "audioMaxAge", Duration.ofDays(1));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        when(speechService.speechKey(anyString(), any(), any())).thenAnswer(invocation -> new AudioCacheKey(
+            invocation.getArgument(0), invocation.getArgument(2),
+            invocation.<AudioFormat>getArgument(1).responseFormat(), 1.0f, "tts-1"));
+        when(speechService.openTextToSpeech(any(AudioCacheKey.class))).thenReturn(new ByteArrayResource(AUDIO));
+    }
+
+    @Test
+    void audioIsServedWithAnETagAndVariesByAccept() throws Exception {
+        mockMvc.perform(get("/api/v1/tts").param("userMessage", "hello"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag("hello", AudioFormat.MP3)))
+            .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=86400")))
+            .andExpect(content().contentType("audio/mpeg"))
+            .andExpect(content().bytes(AUDIO));
+    }
+
+    @Test
+    void acceptHeaderPicksTheFormatAndTheETag() throws Exception {
+        mockMvc.perform(get("/api/v1/tts").param("userMessage", "hello").header(HttpHeaders.ACCEPT, "audio/opus"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag("hello", AudioFormat.OPUS)))
+            .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+            .andExpect(content().contentType("audio/ogg;codecs=opus"));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWithoutSynthesis() throws Exception {
+        mockMvc.perform(get("/api/v1/tts").param("userMessage", "hello")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag("hello", AudioFormat.MP3)))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag("hello", AudioFormat.MP3)))
+            .andExpect(content().bytes(new byte[0]));
+
+        verify(speechService, never()).openTextToSpeech(any(AudioCacheKey.class));
+    }
+
+    @Test
+    void staleIfNoneMatchGetsTheAudio() throws Exception {
+        mockMvc.perform(get("/api/v1/tts").param("userMessage", "hello")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag("something else", AudioFormat.MP3)))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(AUDIO));
+    }
+
+    @Test
+    void rangeRequestIsAnsweredWithPartialContent() throws Exception {
+        mockMvc.perform(get("/api/v1/tts").param("userMessage", "hello").header(HttpHeaders.RANGE, "bytes=2-5"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(content().bytes(new byte[]{2, 3, 4, 5}));
+    }
+
+    private static String eTag(String text, AudioFormat format) {
+        return "\"" + new AudioCacheKey(text, TextToSpeechGeneratorService.DEFAULT_VOICE, format.responseFormat(),
+            1.0f, "tts-1").hash() + "\"";
+    }
+}
@@ -0,0 +1,52 @@
+package org.spring.ai.speech.generation.format;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioDurationsTest {
+
+    @Test
+    void pcmIs24kHzSixteenBitMono() {
+        assertEquals(2.0, AudioDurations.seconds(AudioFormat.PCM, new byte[96_000]).orElseThrow(), 1e-9);
+    }
+
+    @Test
+    void wavUsesByteRateAndBytesPresentWhenDataSizeIsAPlaceholder() {
+        ByteBuffer wav = ByteBuffer.allocate(44 + 24_000).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(-1).put("WAVE".getBytes())
+            .put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+            .putInt(24_000).putInt(48_000).putShort((short) 2).putShort((short) 16)
+            .put("data".getBytes()).putInt(-1);
+
+        assertEquals(0.5, AudioDurations.seconds(AudioFormat.WAV, wav.array()).orElseThrow(), 1e-9);
+    }
+
+    @Test
+    void mp3SumsFramesAfterId3Tag() {
+        // MPEG-2 layer III, 24 kHz, 32 kbps: 576 samples in 96 byte frames
+        int frames = 50;
+        byte[] mp3 = new byte[10 + 4 + frames * 96];
+        mp3[0] = 'I';
+        mp3[1] = 'D';
+        mp3[2] = '3';
+        mp3[9] = 4;
+        for (int i = 0; i < frames; i++) {
+            int offset = 14 + i * 96;
+            mp3[offset] = (byte) 0xff;
+            mp3[offset + 1] = (byte) 0xf3;
+            mp3[offset + 2] = (byte) 0x44;
+        }
+
+        assertEquals(frames * 576 / 24_000.0, AudioDurations.seconds(AudioFormat.MP3, mp3).orElseThrow(), 1e-9);
+    }
+
+    @Test
+    void unknownContentHasNoDuration() {
+        assertTrue(AudioDurations.seconds(AudioFormat.FLAC, new byte[64]).isEmpty());
+        assertTrue(AudioDurations.seconds(AudioFormat.OPUS, new byte[64]).isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package org.spring.ai.speech.generation.format;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioFormatTest {
+
+    @Test
+    void formatParameterOverridesAcceptHeader() {
+        assertEquals(AudioFormat.FLAC, AudioFormat.negotiate("flac", "audio/ogg"));
+    }
+
+    @Test
+    void picksMostPreferredAcceptedType() {
+        assertEquals(AudioFormat.OPUS, AudioFormat.negotiate(null, "audio/mpeg;q=0.5, audio/ogg"));
+        assertEquals(AudioFormat.AAC, AudioFormat.negotiate(null, "audio/*;q=0.8, audio/aac"));
+        assertEquals(AudioFormat.WAV, AudioFormat.negotiate(null, "audio/x-wav"));
+    }
+
+    @Test
+    void wildcardsAndOctetStreamGetTheDefault() {
+        assertEquals(AudioFormat.DEFAULT, AudioFormat.negotiate(null, null));
+        assertEquals(AudioFormat.DEFAULT, AudioFormat.negotiate(null, "*/*"));
+        assertEquals(AudioFormat.DEFAULT, AudioFormat.negotiate(null, "application/octet-stream"));
+        assertEquals(AudioFormat.OPUS, AudioFormat.negotiate(null, "audio/*, audio/mpeg;q=0"));
+    }
+
+    @Test
+    void rejectsUnknownAndUnacceptableFormats() {
+        assertEquals(400, assertThrows(ResponseStatusException.class,
+            () -> AudioFormat.negotiate("ogg-vorbis", null)).getStatusCode().value());
+        assertEquals(406, assertThrows(ResponseStatusException.class,
+            () -> AudioFormat.negotiate(null, "application/json")).getStatusCode().value());
+    }
+}
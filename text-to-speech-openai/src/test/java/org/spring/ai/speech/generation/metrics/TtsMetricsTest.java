@@ -0,0 +1,95 @@
+package org.spring.ai.speech.generation.metrics;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.spring.ai.speech.generation.format.AudioFormat;
+import org.spring.ai.speech.generation.format.FormatBandwidthStats;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtsMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TtsMetrics ttsMetrics = new TtsMetrics(meterRegistry, new FormatBandwidthStats());
+
+    @Test
+    void upstreamCallsAreTimedByOutcome() {
+        ttsMetrics.recordUpstreamCall(AudioFormat.OPUS, "hello", () -> new byte[16]);
+        assertThrows(IllegalStateException.class, () -> ttsMetrics.recordUpstreamCall(AudioFormat.OPUS, "hello", () -> {
+            throw new IllegalStateException("upstream failed");
+        }));
+
+        assertEquals(1, meterRegistry.get("tts.upstream.latency").tags("format", "opus", "outcome", "success")
+            .timer().count());
+        assertEquals(1, meterRegistry.get("tts.upstream.latency").tags("format", "opus", "outcome", "error")
+            .timer().count());
+        assertEquals(1, meterRegistry.get("tts.upstream.characters.per.second").tag("format", "opus")
+            .summary().count());
+    }
+
+    @Test
+    void streamRecordsFirstChunkAndGaps() {
+        Flux<byte[]> audio = Flux.just(new byte[1], new byte[1], new byte[1]).delayElements(Duration.ofMillis(20));
+
+        ttsMetrics.instrumentStream(AudioFormat.MP3, "direct", audio).blockLast();
+
+        Timer firstChunk = meterRegistry.get("tts.stream.first.chunk").tags("format", "mp3", "mode", "direct").timer();
+        Timer chunkGap = meterRegistry.get("tts.stream.chunk.gap").tags("format", "mp3", "mode", "direct").timer();
+        assertEquals(1, firstChunk.count());
+        assertEquals(2, chunkGap.count());
+        assertTrue(chunkGap.max(TimeUnit.MILLISECONDS) >= 15);
+        assertEquals(1, meterRegistry.get("tts.stream.duration").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void downloadTimeToFirstByteIsRecordedWhenTheBodyIsWritten() throws Exception {
+        Resource audio = ttsMetrics.instrumentDownload(AudioFormat.MP3, "hello",
+            new ByteArrayResource(new byte[2048]), System.nanoTime());
+        Timer timeToFirstByte = meterRegistry.get("tts.time.to.first.byte")
+            .tags("endpoint", TtsMetrics.DOWNLOAD, "format", "mp3").timer();
+
+        assertEquals(0, timeToFirstByte.count());
+        assertEquals(2048, audio.contentLength());
+        assertEquals(1, meterRegistry.get("tts.audio.bytes").tag("endpoint", TtsMetrics.DOWNLOAD).summary().count());
+
+        try (InputStream body = audio.getInputStream()) {
+            assertEquals(2048, body.readAllBytes().length);
+        }
+        assertEquals(1, timeToFirstByte.count());
+    }
+
+    @Test
+    void fileBackedDownloadIsStillServedAsAFile(@TempDir Path directory) throws Exception {
+        Path file = Files.write(directory.resolve("audio.mp3"), new byte[512]);
+        Resource audio = ttsMetrics.instrumentDownload(AudioFormat.MP3, "hello", new FileSystemResource(file),
+            System.nanoTime());
+
+        assertTrue(audio.isFile());
+        assertEquals(file.toFile(), audio.getFile());
+        assertEquals(Files.getLastModifiedTime(file).toMillis(), audio.lastModified());
+        try (ReadableByteChannel channel = audio.readableChannel()) {
+            assertEquals(512, channel.read(ByteBuffer.allocate(1024)));
+        }
+        assertEquals(1, meterRegistry.get("tts.time.to.first.byte")
+            .tags("endpoint", TtsMetrics.DOWNLOAD, "format", "mp3").timer().count());
+    }
+
+    @Test
+    void formatsWithoutMeasurementsReportNaN() {
+        assertTrue(Double.isNaN(meterRegistry.get("tts.format.bytes.per.second").tag("format", "flac").gauge().value()));
+    }
+}
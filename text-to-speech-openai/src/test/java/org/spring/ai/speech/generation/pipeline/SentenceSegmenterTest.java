@@ -0,0 +1,41 @@
+package org.spring.ai.speech.generation.pipeline;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SentenceSegmenterTest {
+
+    @Test
+    void firstSentenceIsItsOwnSegmentAndTheRestArePacked() {
+        SentenceSegmenter segmenter = new SentenceSegmenter(40, 100);
+
+        List<String> segments = segmenter.split("Hello there. This is a test. It has four sentences. The end is near.");
+
+        assertEquals(List.of("Hello there.", "This is a test. It has four sentences.", "The end is near."), segments);
+    }
+
+    @Test
+    void oversizedSentenceIsSplitAtWhitespace() {
+        SentenceSegmenter segmenter = new SentenceSegmenter(20, 20);
+
+        List<String> segments = segmenter.split("one two three four five six seven eight nine ten");
+
+        assertTrue(segments.size() > 1);
+        segments.forEach(segment -> assertTrue(segment.length() <= 20, segment));
+        assertEquals("one two three four five six seven eight nine ten", String.join(" ", segments));
+    }
+
+    @Test
+    void id3TagIsStrippedFromLaterMp3Segments() {
+        byte[] tagged = {'I', 'D', '3', 4, 0, 0, 0, 0, 0, 2, 9, 9, (byte) 0xFF, (byte) 0xFB};
+
+        assertArrayEquals(tagged, AudioStitcher.segment(
+            AudioResponseFormat.MP3, tagged, true));
+        assertArrayEquals(new byte[]{(byte) 0xFF, (byte) 0xFB}, AudioStitcher.segment(
+            AudioResponseFormat.MP3, tagged, false));
+    }
+}
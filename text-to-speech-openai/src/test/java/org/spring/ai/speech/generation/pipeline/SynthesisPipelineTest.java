@@ -0,0 +1,106 @@
+package org.spring.ai.speech.generation.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SynthesisPipelineTest {
+
+    private static final String TEXT = "Hello there. This is the second sentence. Here comes the third one. And the end.";
+
+    private final SynthesisPipeline pipeline = new SynthesisPipeline(new PipelineProperties(10, 30, 100, 4));
+    private final List<String> segments = new SentenceSegmenter(30, 100).split(TEXT);
+
+    @Test
+    void segmentsCompletingOutOfOrderAreEmittedInInputOrder() {
+        assertTrue(segments.size() >= 3, "segments: " + segments);
+        String first = segments.get(0);
+        String last = segments.get(segments.size() - 1);
+        CountDownLatch lastDone = new CountDownLatch(1);
+        List<String> completed = Collections.synchronizedList(new ArrayList<>());
+
+        List<byte[]> audio = pipeline.synthesize(TEXT, AudioResponseFormat.MP3, segment -> {
+            if (segment.equals(first)) {
+                await(lastDone);
+            }
+            completed.add(segment);
+            if (segment.equals(last)) {
+                lastDone.countDown();
+            }
+            return withId3Tag(segment);
+        }).collectList().block(Duration.ofSeconds(10));
+
+        assertNotEquals(first, completed.get(0), "the first segment should have finished late");
+        assertEquals(segments.size(), audio.size());
+        assertArrayEquals(withId3Tag(first), audio.get(0));
+        for (int i = 1; i < segments.size(); i++) {
+            assertEquals(segments.get(i), new String(audio.get(i), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void onlyMp3SegmentsAfterTheFirstLoseTheirId3Tag() {
+        byte[] tagged = withId3Tag("frames");
+
+        assertArrayEquals(tagged, AudioStitcher.segment(AudioResponseFormat.MP3, tagged, true));
+        assertArrayEquals("frames".getBytes(StandardCharsets.UTF_8),
+            AudioStitcher.segment(AudioResponseFormat.MP3, tagged, false));
+        assertArrayEquals(tagged, AudioStitcher.segment(AudioResponseFormat.OPUS, tagged, false));
+        assertArrayEquals(tagged, AudioStitcher.segment(AudioResponseFormat.PCM, tagged, false));
+
+        byte[] untagged = "frames".getBytes(StandardCharsets.UTF_8);
+        assertSame(untagged, AudioStitcher.segment(AudioResponseFormat.MP3, untagged, false));
+    }
+
+    @Test
+    void id3FooterIsStrippedWithTheTag() {
+        byte[] tagged = withId3Tag("frames");
+        tagged[5] = 0x10; // footer present
+        ByteArrayOutputStream withFooter = new ByteArrayOutputStream();
+        withFooter.write(tagged, 0, 15);
+        withFooter.writeBytes("3DI\4\0\0\0\0\0\5".getBytes(StandardCharsets.ISO_8859_1));
+        withFooter.writeBytes("frames".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("frames", new String(AudioStitcher.segment(AudioResponseFormat.MP3, withFooter.toByteArray(),
+            false), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void formatsWithAGlobalHeaderAreNotPipelined() {
+        assertTrue(pipeline.shouldPipeline(TEXT, AudioResponseFormat.MP3));
+        assertTrue(pipeline.shouldPipeline(TEXT, AudioResponseFormat.OPUS));
+        assertFalse(pipeline.shouldPipeline(TEXT, AudioResponseFormat.WAV));
+        assertFalse(pipeline.shouldPipeline(TEXT, AudioResponseFormat.FLAC));
+        assertFalse(pipeline.shouldPipeline("Hi.", AudioResponseFormat.MP3));
+    }
+
+    /**
+     * A fake MP3 segment: a 10 byte ID3v2 header with 5 bytes of tag data, followed by the text as "frames".
+     */
+    private static byte[] withId3Tag(String frames) {
+        ByteArrayOutputStream audio = new ByteArrayOutputStream();
+        audio.writeBytes(new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 0, 5});
+        audio.writeBytes(new byte[]{'T', 'A', 'G', '!', '!'});
+        audio.writeBytes(frames.getBytes(StandardCharsets.UTF_8));
+        return audio.toByteArray();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "the last segment never finished");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.spring.ai.speech.generation.streaming;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.reactivestreams.Subscriber;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NonBlockingAudioWriterTest {
+
+    private final AsyncContext asyncContext = mock(AsyncContext.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final ServletOutputStream output = mock(ServletOutputStream.class);
+
+    private final AtomicBoolean ready = new AtomicBoolean(true);
+    private final AtomicBoolean blockAfterWrite = new AtomicBoolean();
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final List<String> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(asyncContext.getResponse()).thenReturn(response);
+        when(response.getOutputStream()).thenReturn(output);
+        when(output.isReady()).thenAnswer(invocation -> ready.get());
+        doAnswer(invocation -> {
+            written.write(invocation.<byte[]>getArgument(0));
+            if (blockAfterWrite.get()) {
+                ready.set(false);
+            }
+            return null;
+        }).when(output).write(any(byte[].class));
+    }
+
+    @Test
+    void writesEveryChunkInOrderAndCompletes() throws IOException {
+        WriteListener writer = start(Flux.just(new byte[]{1, 2}, new byte[]{3}, new byte[]{4, 5, 6}));
+
+        writer.onWritePossible();
+
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, written.toByteArray());
+        assertEquals(List.of("first byte", "finish 6"), events);
+        verify(output, atLeastOnce()).flush();
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void emptyAudioCompletesAfterTheWriteListenerIsRegistered() throws IOException {
+        start(Flux.empty());
+
+        InOrder order = inOrder(output, asyncContext);
+        order.verify(output).setWriteListener(any(WriteListener.class));
+        order.verify(asyncContext).complete();
+        assertEquals(0, written.size());
+        assertEquals(List.of("finish 0"), events);
+    }
+
+    @Test
+    void writabilityReportedBeforeTheSubscriptionStillStartsTheStream() throws IOException {
+        AtomicReference<Subscriber<? super byte[]>> subscriber = new AtomicReference<>();
+        WriteListener writer = start(Flux.<byte[]>from(subscriber::set));
+
+        writer.onWritePossible();
+        assertEquals(0, requested.get());
+
+        Flux.just(new byte[]{1, 2}).subscribe(subscriber.get());
+
+        assertArrayEquals(new byte[]{1, 2}, written.toByteArray());
+        assertEquals(List.of("first byte", "finish 2"), events);
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void requestsNothingMoreWhileTheConnectionIsNotWritable() throws IOException, InterruptedException {
+        blockAfterWrite.set(true);
+        WriteListener writer = start(Flux.just(new byte[]{1}, new byte[]{2}, new byte[]{3}));
+
+        writer.onWritePossible();
+        assertEquals(1, written.size());
+        assertEquals(1, requested.get());
+
+        Thread.sleep(5);
+        for (int round = 2; round <= 4; round++) {
+            ready.set(true);
+            writer.onWritePossible();
+            assertTrue(requested.get() <= round, "requested " + requested.get() + " chunks in round " + round);
+        }
+
+        assertArrayEquals(new byte[]{1, 2, 3}, written.toByteArray());
+        assertEquals("first byte", events.get(0));
+        assertTrue(events.get(1).startsWith("stall "));
+        assertTrue(Long.parseLong(events.get(1).substring("stall ".length())) > 0);
+        assertEquals("finish 3", events.get(events.size() - 1));
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void connectionErrorCancelsUpstream() throws IOException {
+        WriteListener writer = start(Flux.never());
+        writer.onWritePossible();
+
+        writer.onError(new IOException("Connection reset by peer"));
+        writer.onError(new IOException("Connection reset by peer"));
+
+        assertTrue(cancelled.get());
+        assertEquals(List.of("finish 0"), events);
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void clientAbortDuringWriteCancelsUpstream() throws IOException {
+        doThrow(new IOException("Broken pipe")).when(output).write(any(byte[].class));
+        WriteListener writer = start(Flux.just(new byte[]{1}, new byte[]{2}));
+
+        writer.onWritePossible();
+
+        assertTrue(cancelled.get());
+        verify(output, times(1)).write(any(byte[].class));
+        assertEquals(List.of("finish 0"), events);
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void asyncTimeoutCancelsUpstream() throws IOException {
+        ArgumentCaptor<NonBlockingAudioWriter> asyncListener = ArgumentCaptor.forClass(NonBlockingAudioWriter.class);
+        start(Flux.never());
+        verify(asyncContext).addListener(asyncListener.capture());
+
+        asyncListener.getValue().onTimeout(new AsyncEvent(asyncContext));
+
+        assertTrue(cancelled.get());
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void upstreamFailureBeforeTheFirstByteIsReportedAsBadGateway() throws IOException {
+        WriteListener writer = start(Flux.error(new IllegalStateException("upstream down")));
+
+        writer.onWritePossible();
+
+        verify(response).setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+        assertEquals(List.of("finish 0"), events);
+        verify(asyncContext).complete();
+    }
+
+    /**
+     * Starts a writer and returns it as the container sees it; the test then plays the container's callbacks.
+     */
+    private WriteListener start(Flux<byte[]> audio) throws IOException {
+        Flux<byte[]> observed = audio
+            .doOnRequest(requested::addAndGet)
+            .doOnCancel(() -> cancelled.set(true));
+        NonBlockingAudioWriter.start(asyncContext, observed, new NonBlockingAudioWriter.Listener() {
+            @Override
+            public void onFirstByte() {
+                events.add("first byte");
+            }
+
+            @Override
+            public void onStall(long nanos) {
+                events.add("stall " + nanos);
+            }
+
+            @Override
+            public void onFinish(long bytesWritten) {
+                events.add("finish " + bytesWritten);
+            }
+        });
+        ArgumentCaptor<WriteListener> writeListener = ArgumentCaptor.forClass(WriteListener.class);
+        verify(output).setWriteListener(writeListener.capture());
+        return writeListener.getValue();
+    }
+}
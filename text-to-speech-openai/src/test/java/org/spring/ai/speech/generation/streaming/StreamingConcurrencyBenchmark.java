@@ -0,0 +1,167 @@
+package org.spring.ai.speech.generation.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.spring.ai.speech.generation.service.TextToSpeechGeneratorService;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the previous blocking {@code StreamingResponseBody} implementation of {@code /stream} with the
+ * non-blocking writer under many concurrent slow clients. Upstream synthesis is simulated by a paced {@link Flux}.
+ * Run with {@code ./gradlew benchmark -Dbenchmark.streams=500}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.ai.openai.api-key=benchmark")
+@Import(StreamingConcurrencyBenchmark.BlockingStreamController.class)
+class StreamingConcurrencyBenchmark {
+
+    private static final int CHUNKS = 40;
+    private static final int CHUNK_SIZE = 32 * 1024;
+    private static final Duration CHUNK_INTERVAL = Duration.ofMillis(50);
+    private static final Duration CLIENT_READ_PAUSE = Duration.ofMillis(25);
+
+    private static final AtomicInteger activeStreams = new AtomicInteger();
+    private static final AtomicInteger peakStreams = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoBean
+    private TextToSpeechGeneratorService textToSpeechGeneratorService;
+
+    @BeforeEach
+    void setUp() {
+        when(textToSpeechGeneratorService.generateTextToSpeechStream(anyString(), any(), any()))
+            .thenAnswer(invocation -> pacedAudio());
+    }
+
+    @Test
+    void compareConcurrentStreams() throws Exception {
+        int streams = Integer.getInteger("benchmark.streams", 200);
+
+        Result blocking = run("/benchmark/blocking-stream", streams);
+        Result nonBlocking = run("/api/v1/tts/stream", streams);
+
+        System.out.printf("%n%-14s %8s %10s %12s %10s %12s%n",
+            "implementation", "streams", "completed", "peak active", "wall ms", "peak threads");
+        blocking.print("blocking");
+        nonBlocking.print("non-blocking");
+
+        assertEquals(streams, nonBlocking.completed());
+        assertTrue(nonBlocking.peakActive() >= blocking.peakActive());
+    }
+
+    private Result run(String path, int streams) throws Exception {
+        activeStreams.set(0);
+        peakStreams.set(0);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        URI uri = URI.create("http://localhost:" + port + path + "?userMessage=benchmark");
+        long start = System.nanoTime();
+        int completed = 0;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < streams; i++) {
+                results.add(clients.submit(() -> slowRead(client, uri)));
+            }
+            for (Future<Long> result : results) {
+                try {
+                    if (result.get(5, TimeUnit.MINUTES) == (long) CHUNKS * CHUNK_SIZE) {
+                        completed++;
+                    }
+                } catch (ExecutionException e) {
+                    // the stream was cut off, e.g. by the async request timeout
+                }
+            }
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(streams, completed, peakStreams.get(), wallMillis, threads.getPeakThreadCount());
+    }
+
+    private static long slowRead(HttpClient client, URI uri) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(uri).build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+        long total = 0;
+        byte[] buffer = new byte[CHUNK_SIZE];
+        try (InputStream body = response.body()) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                Thread.sleep(CLIENT_READ_PAUSE.toMillis());
+            }
+        }
+        return total;
+    }
+
+    private static Flux<byte[]> pacedAudio() {
+        return Flux.interval(CHUNK_INTERVAL)
+            .take(CHUNKS)
+            .map(tick -> new byte[CHUNK_SIZE])
+            .doOnSubscribe(subscription -> peakStreams.accumulateAndGet(activeStreams.incrementAndGet(), Math::max))
+            .doFinally(signal -> activeStreams.decrementAndGet());
+    }
+
+    private record Result(int streams, int completed, int peakActive, long wallMillis, int peakThreads) {
+
+        void print(String name) {
+            System.out.printf("%-14s %8d %10d %12d %10d %12d%n",
+                name, streams, completed, peakActive, wallMillis, peakThreads);
+        }
+    }
+
+    /**
+     * The {@code /stream} implementation before the non-blocking writer, kept here as the baseline.
+     */
+    @RestController
+    static class BlockingStreamController {
+
+        @GetMapping(value = "/benchmark/blocking-stream", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+        StreamingResponseBody blockingStream() {
+            Flux<byte[]> audioStream = pacedAudio();
+            return outputStream -> audioStream.toStream().forEach(bytes -> {
+                try {
+                    outputStream.write(bytes);
+                    outputStream.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}